@@ -19,7 +19,10 @@ package uk.ac.ebi.eva.server;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.web.support.SpringBootServletInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
 
 @SpringBootApplication
 public class Application extends SpringBootServletInitializer {
@@ -33,4 +36,16 @@ public class Application extends SpringBootServletInitializer {
         SpringApplication.run(Application.class, args);
     }
 
+    /**
+     * The import progress changes continuously during an import, without a date that could be used as data version,
+     * so the ETags are computed from the response body. Clients polling the status get a 304 without the body when
+     * nothing has changed.
+     */
+    @Bean
+    public FilterRegistrationBean etagFilterRegistration() {
+        FilterRegistrationBean registration = new FilterRegistrationBean(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/v1/*");
+        return registration;
+    }
+
 }
\ No newline at end of file
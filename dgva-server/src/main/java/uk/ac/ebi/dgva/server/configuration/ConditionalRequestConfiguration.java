@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.dgva.server.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import uk.ac.ebi.eva.lib.metadata.dgva.DgvaDataVersionSource;
+import uk.ac.ebi.eva.lib.versioning.ConditionalRequestFilter;
+import uk.ac.ebi.eva.lib.versioning.DataVersionService;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Answers conditional GET requests from the version of the DGVA data, see {@link ConditionalRequestFilter}. Every
+ * endpoint reads from the same schema, so all of them share that version. The hit ratio is published as
+ * conditional-requests.* metrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "eva.conditional-requests.enabled", havingValue = "true")
+public class ConditionalRequestConfiguration {
+
+    private static final String DGVA_SCOPE = "dgva";
+
+    private static final String METRIC_PREFIX = "conditional-requests.";
+
+    @Bean
+    public DataVersionService dataVersionService(
+            DgvaDataVersionSource dgvaDataVersionSource,
+            @Value("${eva.conditional-requests.version-time-to-live-in-seconds:60}") long timeToLiveInSeconds) {
+        return new DataVersionService(Collections.singletonMap(DGVA_SCOPE, dgvaDataVersionSource),
+                                      timeToLiveInSeconds * 1000);
+    }
+
+    @Bean
+    public ConditionalRequestFilter conditionalRequestFilter(DataVersionService dataVersionService) {
+        return new ConditionalRequestFilter(request -> dataVersionService.getVersion(DGVA_SCOPE, null));
+    }
+
+    @Bean
+    public FilterRegistrationBean conditionalRequestFilterRegistration(
+            ConditionalRequestFilter conditionalRequestFilter) {
+        FilterRegistrationBean registration = new FilterRegistrationBean(conditionalRequestFilter);
+        registration.addUrlPatterns("/v1/*");
+        return registration;
+    }
+
+    @Bean
+    public PublicMetrics conditionalRequestMetrics(ConditionalRequestFilter filter) {
+        return () -> Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "versioned", filter.getVersionedRequests()),
+                new Metric<>(METRIC_PREFIX + "conditional", filter.getConditionalRequests()),
+                new Metric<>(METRIC_PREFIX + "not-modified", filter.getNotModifiedResponses()));
+    }
+}
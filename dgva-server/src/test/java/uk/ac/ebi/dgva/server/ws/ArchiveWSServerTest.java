@@ -34,6 +34,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import uk.ac.ebi.eva.commons.core.models.StudyType;
+import uk.ac.ebi.eva.lib.metadata.StudyCounts;
 import uk.ac.ebi.eva.lib.metadata.dgva.ArchiveDgvaDBAdaptor;
 import uk.ac.ebi.eva.lib.metadata.dgva.StudyDgvaDBAdaptor;
 import uk.ac.ebi.eva.lib.models.VariantStudy;
@@ -43,6 +44,7 @@ import uk.ac.ebi.eva.lib.utils.QueryResult;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -103,6 +105,9 @@ public class ArchiveWSServerTest {
                                                                                              Collectors.counting()));
         given(archiveDgvaDBAdaptor.countStudiesPerType(anyObject()))
                 .willReturn(encapsulateInQueryResult(svStudiesGroupedByStudyType.entrySet().toArray()));
+        given(archiveDgvaDBAdaptor.countStudiesPerSpeciesAndType(anyObject()))
+                .willReturn(new StudyCounts(new ArrayList<>(svStudiesGroupedBySpeciesName.entrySet()),
+                                            new ArrayList<>(svStudiesGroupedByStudyType.entrySet()), 0));
     }
 
     private <T> QueryResult<T> encapsulateInQueryResult(T... results) {
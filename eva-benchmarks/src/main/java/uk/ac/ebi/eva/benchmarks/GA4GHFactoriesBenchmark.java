@@ -0,0 +1,86 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.benchmarks;
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariant;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantFactory;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantSet;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantSetFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of variants and files to the GA4GH models, done for every GA4GH variants and variant sets request
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GA4GHFactoriesBenchmark {
+
+    /**
+     * Default page size of the GA4GH variants endpoint
+     */
+    private static final int VARIANTS_PER_PAGE = 10;
+
+    private static final int FILES_PER_PAGE = 10;
+
+    @Param({"100", "" + SyntheticData.THOUSAND_GENOMES_SAMPLES})
+    private int samples;
+
+    @Param({"50", "500"})
+    private int headerLines;
+
+    private List<VariantWithSamplesAndAnnotation> variants;
+
+    private List<VariantSource> variantSources;
+
+    @Setup
+    public void createData() {
+        variants = SyntheticData.createVariants(VARIANTS_PER_PAGE, samples, 1);
+        variantSources = SyntheticData.createVariantSources(FILES_PER_PAGE, headerLines, samples);
+    }
+
+    @Benchmark
+    public List<GAVariant> createVariants() {
+        return GAVariantFactory.create(variants);
+    }
+
+    @Benchmark
+    public List<GAVariantSet> createVariantSets() {
+        return GAVariantSetFactory.create(variantSources);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.benchmarks;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsResponse;
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsStreamingResponse;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantFactory;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a page of the GA4GH variants endpoint, converting the variants to GA4GH objects first or while
+ * they are written. Run with "-prof gc" to compare the bytes allocated per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GA4GHVariantsSerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int variantsPerPage;
+
+    @Param({"100", "" + SyntheticData.THOUSAND_GENOMES_SAMPLES})
+    private int samples;
+
+    private ObjectMapper objectMapper;
+
+    private List<VariantWithSamplesAndAnnotation> variants;
+
+    @Setup
+    public void createData() {
+        objectMapper = new JacksonConfiguration().objectMapper();
+        variants = SyntheticData.createVariants(variantsPerPage, samples, 1);
+    }
+
+    @Benchmark
+    public byte[] createAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new GASearchVariantsResponse(GAVariantFactory.create(variants), null));
+    }
+
+    @Benchmark
+    public byte[] serializeStreaming() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new GASearchVariantsStreamingResponse(variants, null));
+    }
+}
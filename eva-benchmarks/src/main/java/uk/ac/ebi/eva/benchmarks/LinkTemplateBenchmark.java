@@ -0,0 +1,109 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import uk.ac.ebi.eva.server.LinkTemplate;
+import uk.ac.ebi.eva.server.ws.VariantWSServerV2;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+/**
+ * Compares building the annotation and sources links of a page of variants with linkTo(methodOn(...)) and with
+ * {@link LinkTemplate}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkTemplateBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final LinkTemplate ANNOTATIONS_LINK_TEMPLATE = LinkTemplate.of(VariantWSServerV2.class,
+                                                                                 "getAnnotations");
+
+    private static final LinkTemplate SOURCES_LINK_TEMPLATE = LinkTemplate.of(VariantWSServerV2.class, "getSources");
+
+    private String[] variantCoreStrings;
+
+    @Setup(Level.Trial)
+    public void createVariants() {
+        variantCoreStrings = new String[PAGE_SIZE];
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            variantCoreStrings[i] = "1:" + (1000000 + i * 37) + ":A:T";
+        }
+    }
+
+    /**
+     * Each invocation is a different request, as the base URI is computed once per request
+     */
+    @Setup(Level.Invocation)
+    public void startRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setServerName("www.ebi.ac.uk");
+        request.setContextPath("/eva/webservices/rest");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Invocation)
+    public void finishRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public void controllerLinkBuilder(Blackhole blackhole) {
+        for (String variantCoreString : variantCoreStrings) {
+            blackhole.consume(linkTo(methodOn(VariantWSServerV2.class).getAnnotations(variantCoreString, "hsapiens",
+                                                                                      "grch37", null, null, null))
+                                      .toUri().toString());
+            blackhole.consume(linkTo(methodOn(VariantWSServerV2.class).getSources(variantCoreString, "hsapiens",
+                                                                                  "grch37", null, null, null))
+                                      .toUri().toString());
+        }
+    }
+
+    @Benchmark
+    public void linkTemplate(Blackhole blackhole) {
+        for (String variantCoreString : variantCoreStrings) {
+            blackhole.consume(ANNOTATIONS_LINK_TEMPLATE.expand(variantCoreString, "hsapiens", "grch37", null, null));
+            blackhole.consume(SOURCES_LINK_TEMPLATE.expand(variantCoreString, "hsapiens", "grch37", null, null));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.benchmarks;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import uk.ac.ebi.eva.server.RateLimit;
+import uk.ac.ebi.eva.server.RateLimitException;
+import uk.ac.ebi.eva.server.RateLimiterAspect;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Overhead of the rate limiter on each request, with several threads serving the same client or different ones. The
+ * limit is high enough for the permits to be always available, so only the bookkeeping and contention are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RateLimiterAspectBenchmark {
+
+    private static final int UNLIMITED_RATE = Integer.MAX_VALUE;
+
+    private RateLimiterAspect rateLimiterAspect;
+
+    private RateLimit rateLimit;
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        private static final AtomicInteger clientCount = new AtomicInteger();
+
+        @Param({"true", "false"})
+        private boolean sameClient;
+
+        private JoinPoint joinPoint;
+
+        @Setup
+        public void createRequest() {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setRemoteAddr(sameClient ? "10.0.0.1" : "10.0.0." + clientCount.incrementAndGet());
+            joinPoint = new RequestJoinPoint(request);
+        }
+    }
+
+    @Setup
+    public void createAspect() throws NoSuchMethodException {
+        rateLimiterAspect = new RateLimiterAspect();
+        rateLimit = RateLimiterAspectBenchmark.class.getDeclaredMethod("limitedMethod").getAnnotation(RateLimit.class);
+    }
+
+    @RateLimit(UNLIMITED_RATE)
+    private void limitedMethod() {
+    }
+
+    @Benchmark
+    public void rateLimit(Client client) throws RateLimitException {
+        rateLimiterAspect.rateLimit(client.joinPoint, rateLimit);
+    }
+
+    /**
+     * Join point of a call whose last argument is the request, which is all the aspect needs
+     */
+    private static class RequestJoinPoint implements JoinPoint {
+
+        private final Object[] args;
+
+        RequestJoinPoint(MockHttpServletRequest request) {
+            this.args = new Object[]{request};
+        }
+
+        @Override
+        public Object[] getArgs() {
+            return args;
+        }
+
+        @Override
+        public String toShortString() {
+            return toString();
+        }
+
+        @Override
+        public String toLongString() {
+            return toString();
+        }
+
+        @Override
+        public Object getThis() {
+            return null;
+        }
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Signature getSignature() {
+            return null;
+        }
+
+        @Override
+        public SourceLocation getSourceLocation() {
+            return null;
+        }
+
+        @Override
+        public String getKind() {
+            return METHOD_CALL;
+        }
+
+        @Override
+        public StaticPart getStaticPart() {
+            return null;
+        }
+    }
+}
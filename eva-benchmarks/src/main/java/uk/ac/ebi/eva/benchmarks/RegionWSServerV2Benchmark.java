@@ -0,0 +1,106 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundException;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
+import uk.ac.ebi.eva.server.TotalResultsCounter;
+import uk.ac.ebi.eva.server.ws.RegionWSServerV2;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Building of the HATEOAS resources of a page of variants in /v2/regions. The database service is stubbed, so only
+ * the work done by the web service is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionWSServerV2Benchmark {
+
+    @Param({"20", "1000"})
+    private int pageSize;
+
+    private RegionWSServerV2 regionWSServerV2;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void createController() throws AnnotationMetadataNotFoundException {
+        List<VariantWithSamplesAndAnnotation> variants = SyntheticData.createVariants(pageSize, 0, 1);
+        VariantWithSamplesAndAnnotationsService service = mock(VariantWithSamplesAndAnnotationsService.class);
+        given(service.findByRegionsAndComplexFilters(any(), any(), any(), any(), any())).willReturn(variants);
+        given(service.countByRegionsAndComplexFilters(any(), any())).willReturn(10L * pageSize);
+
+        regionWSServerV2 = new RegionWSServerV2();
+        ReflectionTestUtils.setField(regionWSServerV2, "service", service);
+        ReflectionTestUtils.setField(regionWSServerV2, "totalResultsCounter", new TotalResultsCounter());
+    }
+
+    @Setup(Level.Invocation)
+    public void startRequest() {
+        request = new MockHttpServletRequest();
+        request.setServerName("www.ebi.ac.uk");
+        request.setContextPath("/eva/webservices/rest");
+        response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Invocation)
+    public void finishRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public ResponseEntity getVariantsByRegion() {
+        return regionWSServerV2.getVariantsByRegion("1:1000000-2000000", "hsapiens", "grch37", null, null, null,
+                                                    null, null, null, null, 1, pageSize, null, "exact", response,
+                                                    request);
+    }
+}
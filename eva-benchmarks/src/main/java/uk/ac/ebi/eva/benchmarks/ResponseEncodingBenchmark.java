@@ -0,0 +1,183 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+package uk.ac.ebi.eva.benchmarks;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsStreamingResponse;
+import uk.ac.ebi.eva.lib.utils.QueryOptions;
+import uk.ac.ebi.eva.lib.utils.QueryResponse;
+import uk.ac.ebi.eva.lib.utils.QueryResult;
+import uk.ac.ebi.eva.server.configuration.CborHttpMessageConverter;
+import uk.ac.ebi.eva.server.configuration.GA4GHAvroHttpMessageConverter;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of v1 and GA4GH variant responses with the message converters of each format accepted by the web services.
+ * The size of the encoded responses is printed at the end of every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    @Param({"100"})
+    private int variantsPerPage;
+
+    @Param({"100", "" + SyntheticData.THOUSAND_GENOMES_SAMPLES})
+    private int samples;
+
+    private QueryResponse<QueryResult<VariantWithSamplesAndAnnotation>> queryResponse;
+
+    private GASearchVariantsStreamingResponse gaSearchVariantsResponse;
+
+    @Setup
+    public void createData() {
+        List<VariantWithSamplesAndAnnotation> variants = SyntheticData.createVariants(variantsPerPage, samples, 1);
+        QueryResult<VariantWithSamplesAndAnnotation> queryResult = new QueryResult<>();
+        queryResult.setResult(variants);
+        queryResult.setNumResults(variants.size());
+        queryResult.setNumTotalResults(variants.size());
+        queryResponse = new QueryResponse<>(new QueryOptions(), Collections.singletonList(queryResult));
+
+        gaSearchVariantsResponse = new GASearchVariantsStreamingResponse(variants, null);
+    }
+
+    @State(Scope.Benchmark)
+    public static class QueryResponseEncoding {
+
+        @Param({MediaType.APPLICATION_JSON_VALUE, JacksonConfiguration.APPLICATION_SMILE_VALUE,
+                JacksonConfiguration.APPLICATION_CBOR_VALUE})
+        private String queryResponseFormat;
+
+        private Encoder encoder;
+
+        @Setup
+        public void createEncoder() {
+            encoder = new Encoder(queryResponseFormat);
+        }
+
+        @TearDown(Level.Trial)
+        public void printSize() {
+            encoder.printSize("v1 variants");
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GA4GHEncoding {
+
+        @Param({MediaType.APPLICATION_JSON_VALUE, JacksonConfiguration.APPLICATION_SMILE_VALUE,
+                JacksonConfiguration.APPLICATION_CBOR_VALUE, JacksonConfiguration.AVRO_BINARY_VALUE})
+        private String ga4ghFormat;
+
+        private Encoder encoder;
+
+        @Setup
+        public void createEncoder() {
+            encoder = new Encoder(ga4ghFormat);
+        }
+
+        @TearDown(Level.Trial)
+        public void printSize() {
+            encoder.printSize("GA4GH variants");
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeQueryResponse(QueryResponseEncoding encoding) throws IOException {
+        return encoding.encoder.encode(queryResponse);
+    }
+
+    @Benchmark
+    public byte[] encodeGA4GHVariants(GA4GHEncoding encoding) throws IOException {
+        return encoding.encoder.encode(gaSearchVariantsResponse);
+    }
+
+    private static class Encoder {
+
+        private final MediaType mediaType;
+
+        private final HttpMessageConverter<Object> converter;
+
+        private int encodedSize;
+
+        Encoder(String format) {
+            mediaType = MediaType.valueOf(format);
+            converter = createConverter(format);
+        }
+
+        private static HttpMessageConverter<Object> createConverter(String format) {
+            switch (format) {
+                case MediaType.APPLICATION_JSON_VALUE:
+                    return new MappingJackson2HttpMessageConverter(new JacksonConfiguration().objectMapper());
+                case JacksonConfiguration.APPLICATION_SMILE_VALUE:
+                    return new MappingJackson2SmileHttpMessageConverter(
+                            JacksonConfiguration.configure(new ObjectMapper(new SmileFactory())));
+                case JacksonConfiguration.APPLICATION_CBOR_VALUE:
+                    return new CborHttpMessageConverter(
+                            JacksonConfiguration.configure(new ObjectMapper(new CBORFactory())));
+                case JacksonConfiguration.AVRO_BINARY_VALUE:
+                    return new GA4GHAvroHttpMessageConverter(JacksonConfiguration.configure(new AvroMapper()));
+                default:
+                    throw new IllegalArgumentException("Unknown format " + format);
+            }
+        }
+
+        byte[] encode(Object response) throws IOException {
+            MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+            converter.write(response, mediaType, outputMessage);
+            byte[] encoded = outputMessage.getBodyAsBytes();
+            encodedSize = encoded.length;
+            return encoded;
+        }
+
+        void printSize(String responseName) {
+            System.out.println(responseName + " encoded as " + mediaType + ": " + encodedSize + " bytes");
+        }
+    }
+}
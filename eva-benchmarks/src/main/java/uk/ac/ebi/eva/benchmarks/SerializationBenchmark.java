@@ -0,0 +1,95 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.benchmarks;
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.eva.commons.core.models.ConsequenceType;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.lib.utils.QueryOptions;
+import uk.ac.ebi.eva.lib.utils.QueryResponse;
+import uk.ac.ebi.eva.lib.utils.QueryResult;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of v1 responses with the ObjectMapper used by the web services, including the custom serialization
+ * of the SO terms of the consequence types
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int variantsPerPage;
+
+    @Param({"0", "100", "" + SyntheticData.THOUSAND_GENOMES_SAMPLES})
+    private int samples;
+
+    private ObjectMapper objectMapper;
+
+    private QueryResponse<QueryResult<VariantWithSamplesAndAnnotation>> queryResponse;
+
+    private List<ConsequenceType> consequenceTypes;
+
+    @Setup
+    public void createData() {
+        objectMapper = new JacksonConfiguration().objectMapper();
+
+        List<VariantWithSamplesAndAnnotation> variants = SyntheticData.createVariants(variantsPerPage, samples, 1);
+        QueryResult<VariantWithSamplesAndAnnotation> queryResult = new QueryResult<>();
+        queryResult.setResult(variants);
+        queryResult.setNumResults(variants.size());
+        queryResult.setNumTotalResults(variants.size());
+        queryResponse = new QueryResponse<>(new QueryOptions(), Collections.singletonList(queryResult));
+
+        consequenceTypes = new ArrayList<>();
+        variants.forEach(variant -> consequenceTypes.addAll(variant.getAnnotation().getConsequenceTypes()));
+    }
+
+    @Benchmark
+    public byte[] serializeQueryResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(queryResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeSoTerms() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(consequenceTypes);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.benchmarks;
+
+import uk.ac.ebi.eva.commons.core.models.Aggregation;
+import uk.ac.ebi.eva.commons.core.models.Annotation;
+import uk.ac.ebi.eva.commons.core.models.ConsequenceType;
+import uk.ac.ebi.eva.commons.core.models.StudyType;
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
+import uk.ac.ebi.eva.commons.core.models.Xref;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantSourceEntryWithSampleNames;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates variants and files similar to the ones stored in the database. The generation is deterministic, so
+ * results of different runs are comparable.
+ */
+public class SyntheticData {
+
+    /**
+     * Number of samples in the 1000 Genomes phase 3 release, one of the largest studies usually queried
+     */
+    public static final int THOUSAND_GENOMES_SAMPLES = 2504;
+
+    private static final String[] BASES = {"A", "C", "G", "T"};
+
+    private static final String[] GENOTYPES = {"0|0", "0|0", "0|0", "0|0", "0|1", "1|0", "1|1", "0/1", "./."};
+
+    /**
+     * SO accessions of frequent consequence types: missense, synonymous, intron, upstream, downstream, 3' UTR
+     */
+    private static final Integer[] SO_ACCESSIONS = {1583, 1819, 1627, 1631, 1632, 1624};
+
+    private static final long SEED = 42;
+
+    private SyntheticData() {
+    }
+
+    public static List<VariantWithSamplesAndAnnotation> createVariants(int numberOfVariants, int samplesPerFile,
+                                                                       int filesPerVariant) {
+        Random random = new Random(SEED);
+        List<String> sampleNames = createSampleNames(samplesPerFile);
+        List<VariantWithSamplesAndAnnotation> variants = new ArrayList<>(numberOfVariants);
+        long position = 1000000;
+        for (int i = 0; i < numberOfVariants; i++) {
+            position += 1 + random.nextInt(200);
+            String reference = BASES[random.nextInt(BASES.length)];
+            String alternate = BASES[(Arrays.asList(BASES).indexOf(reference) + 1 + random.nextInt(3)) % 4];
+            VariantWithSamplesAndAnnotation variant = new VariantWithSamplesAndAnnotation("1", position, position,
+                                                                                          reference, alternate,
+                                                                                          "rs" + (i + 1));
+            variant.setIds(new HashSet<>(Arrays.asList("rs" + (i + 1), "ss" + (i + 1))));
+            for (int file = 0; file < filesPerVariant; file++) {
+                variant.addSourceEntry(createSourceEntry("ERZ" + file, "PRJEB" + file, sampleNames, random));
+            }
+            variant.setAnnotation(createAnnotation(variant, random));
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    public static List<String> createSampleNames(int numberOfSamples) {
+        List<String> sampleNames = new ArrayList<>(numberOfSamples);
+        for (int i = 0; i < numberOfSamples; i++) {
+            sampleNames.add(String.format("HG%05d", i));
+        }
+        return sampleNames;
+    }
+
+    private static VariantSourceEntryWithSampleNames createSourceEntry(String fileId, String studyId,
+                                                                       List<String> sampleNames, Random random) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("AC", String.valueOf(random.nextInt(sampleNames.size() * 2)));
+        attributes.put("AN", String.valueOf(sampleNames.size() * 2));
+        attributes.put("AF", String.valueOf(random.nextDouble()));
+        attributes.put("DP", String.valueOf(random.nextInt(30000)));
+        attributes.put("QUAL", "100");
+        attributes.put("FILTER", "PASS");
+
+        LinkedHashMap<String, Map<String, String>> samplesData = new LinkedHashMap<>();
+        for (String sampleName : sampleNames) {
+            samplesData.put(sampleName,
+                            Collections.singletonMap("GT", GENOTYPES[random.nextInt(GENOTYPES.length)]));
+        }
+        return new VariantSourceEntryWithSampleNames(fileId, studyId, new String[0], "GT", new HashMap<>(),
+                                                     attributes, samplesData);
+    }
+
+    private static Annotation createAnnotation(VariantWithSamplesAndAnnotation variant, Random random) {
+        Set<ConsequenceType> consequenceTypes = new HashSet<>();
+        int numberOfTranscripts = 1 + random.nextInt(8);
+        for (int i = 0; i < numberOfTranscripts; i++) {
+            Set<Integer> soAccessions = new HashSet<>(Arrays.asList(
+                    SO_ACCESSIONS[random.nextInt(SO_ACCESSIONS.length)],
+                    SO_ACCESSIONS[random.nextInt(SO_ACCESSIONS.length)]));
+            consequenceTypes.add(new ConsequenceType("GENE" + i, "ENSG0000010000" + i, "ENST0000020000" + i, "+",
+                                                     "protein_coding", random.nextInt(5000), random.nextInt(3000),
+                                                     random.nextInt(1000), "A/T", "gCa/gTa", null, null,
+                                                     soAccessions, 0));
+        }
+        Set<Xref> xrefs = new HashSet<>(Arrays.asList(new Xref("GENE0", "HGNC"),
+                                                      new Xref("ENSG00000100000", "ensemblGene")));
+        return new Annotation(variant.getChromosome(), variant.getStart(), variant.getEnd(), "90", "90", xrefs,
+                              consequenceTypes);
+    }
+
+    /**
+     * Creates files whose header has the given number of INFO and FORMAT lines, whose descriptions contain commas,
+     * quotes and angle brackets as real headers do
+     */
+    public static List<VariantSource> createVariantSources(int numberOfFiles, int headerLines, int samplesPerFile) {
+        List<String> sampleNames = createSampleNames(samplesPerFile);
+        Map<String, Integer> samplesPosition = new HashMap<>();
+        for (int i = 0; i < sampleNames.size(); i++) {
+            samplesPosition.put(sampleNames.get(i), i);
+        }
+
+        StringBuilder header = new StringBuilder("##fileformat=VCFv4.1\n");
+        header.append("##reference=ftp://ftp.1000genomes.ebi.ac.uk/vol1/ftp/technical/reference/hs37d5.fa.gz\n");
+        for (int i = 0; i < headerLines; i++) {
+            String type = (i % 4 == 0) ? "FORMAT" : "INFO";
+            header.append("##").append(type).append("=<ID=F").append(i).append(",Number=")
+                  .append(i % 3 == 0 ? "A" : "1").append(",Type=").append(i % 2 == 0 ? "Float" : "Integer")
+                  .append(",Description=\"Field ").append(i)
+                  .append(", computed as <AC>/<AN> over all samples\">\n");
+        }
+        header.append("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\tFORMAT\t")
+              .append(String.join("\t", sampleNames));
+
+        List<VariantSource> variantSources = new ArrayList<>(numberOfFiles);
+        for (int i = 0; i < numberOfFiles; i++) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("header", header.toString());
+            variantSources.add(new VariantSource("ERZ" + i, "file" + i + ".vcf.gz", "PRJEB" + i, "Study " + i,
+                                                 StudyType.CASE, Aggregation.NONE, null, samplesPosition,
+                                                 metadata, null));
+        }
+        return variantSources;
+    }
+}
@@ -17,6 +17,7 @@
 package uk.ac.ebi.eva.lib;
 
 import com.mongodb.MongoClient;
+import com.mongodb.event.CommandListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -24,28 +25,45 @@ import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.MongoDbFactory;
 
+import uk.ac.ebi.eva.lib.configuration.MongoRoutingProperties;
 import uk.ac.ebi.eva.lib.configuration.SpringDataMongoDbProperties;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
-@Import(SpringDataMongoDbProperties.class)
+@Import({SpringDataMongoDbProperties.class, MongoRoutingProperties.class})
 public class MultiMongoFactoryConfiguration {
 
     @Autowired
     private SpringDataMongoDbProperties springDataMongoDbProperties;
 
+    @Autowired
+    private MongoRoutingProperties mongoRoutingProperties;
+
+    @Autowired(required = false)
+    private List<CommandListener> commandListeners = new ArrayList<>();
+
     /**
      * Inject into the spring context a MultiMongoDbFactory as the implementation of MongoDbFactory.
-     * This factory will allow to use the Repositories with several databases.
+     * This factory will allow to use the Repositories with several databases, which can be spread over the clusters
+     * given in {@link MongoRoutingProperties}. The CommandListener beans, if any, are registered in every client.
      */
     @Bean
     @Profile(Profiles.PRODUCTION_MONGO_FACTORY)
     public MongoDbFactory mongoDbFactory() throws IOException {
         assert(springDataMongoDbProperties != null);
-        MongoClient mongoClient = DBAdaptorConnector.getMongoClient(springDataMongoDbProperties);
-        return new MultiMongoDbFactory(mongoClient, "unusedDefaultDB");
+        CommandListener[] listeners = commandListeners.toArray(new CommandListener[0]);
+        MongoClient mongoClient = DBAdaptorConnector.getMongoClient(springDataMongoDbProperties, listeners);
+        List<MultiMongoDbFactory.Route> routes = new ArrayList<>();
+        for (MongoRoutingProperties.Cluster cluster : mongoRoutingProperties.getClusters()) {
+            routes.add(new MultiMongoDbFactory.Route(cluster.getName(), cluster.getDatabases(),
+                                                     cluster.getDatabasePattern(),
+                                                     DBAdaptorConnector.getMongoClient(cluster, listeners)));
+        }
+        return new MultiMongoDbFactory(mongoClient, "unusedDefaultDB", routes);
     }
 }
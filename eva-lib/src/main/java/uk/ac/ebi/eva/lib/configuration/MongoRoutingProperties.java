@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mongo clusters that hold some of the species databases, e.g.:
+ *
+ * eva.mongo-routing.clusters[0].name=human
+ * eva.mongo-routing.clusters[0].databases=eva_hsapiens_grch37,eva_hsapiens_grch38
+ * eva.mongo-routing.clusters[0].host=human-1:27017,human-2:27017
+ *
+ * The databases not listed in (or matched by the pattern of) any cluster are read from the one configured in
+ * spring.data.mongodb. Exact database names take precedence over patterns.
+ */
+@ConfigurationProperties(ignoreUnknownFields = false, prefix = "eva.mongo-routing")
+@Component
+@Validated
+public class MongoRoutingProperties {
+
+    @Valid
+    private List<Cluster> clusters = new ArrayList<>();
+
+    public List<Cluster> getClusters() {
+        return clusters;
+    }
+
+    public void setClusters(List<Cluster> clusters) {
+        this.clusters = clusters;
+    }
+
+    public static class Cluster {
+
+        /**
+         * Used in the connection pool metrics
+         */
+        @Size(min = 1)
+        @NotNull
+        private String name;
+
+        private List<String> databases = new ArrayList<>();
+
+        /**
+         * Regular expression that the whole database name must match, e.g. eva_hsapiens_.*
+         */
+        private String databasePattern;
+
+        @Size(min = 1)
+        @NotNull
+        private String host;
+
+        private String authenticationDatabase;
+
+        private String username;
+
+        private String password;
+
+        private String readPreference;
+
+        /**
+         * Maximum number of connections to each host, the driver default if unspecified
+         */
+        @Min(1)
+        private Integer connectionsPerHost;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public List<String> getDatabases() {
+            return databases;
+        }
+
+        public void setDatabases(List<String> databases) {
+            this.databases = databases;
+        }
+
+        public String getDatabasePattern() {
+            return databasePattern;
+        }
+
+        public void setDatabasePattern(String databasePattern) {
+            this.databasePattern = databasePattern;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public String getAuthenticationDatabase() {
+            return authenticationDatabase;
+        }
+
+        public void setAuthenticationDatabase(String authenticationDatabase) {
+            this.authenticationDatabase = authenticationDatabase;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getReadPreference() {
+            return readPreference;
+        }
+
+        public void setReadPreference(String readPreference) {
+            this.readPreference = readPreference;
+        }
+
+        public Integer getConnectionsPerHost() {
+            return connectionsPerHost;
+        }
+
+        public void setConnectionsPerHost(Integer connectionsPerHost) {
+            this.connectionsPerHost = connectionsPerHost;
+        }
+    }
+}
@@ -100,6 +100,22 @@ public class DgvaStudyBrowser {
 
     DgvaStudyBrowser() { }
 
+    public String getStudyAccession() {
+        return studyAccession;
+    }
+
+    public String getCommonName() {
+        return commonName;
+    }
+
+    public String getScientificName() {
+        return scientificName;
+    }
+
+    public String getStudyType() {
+        return studyType;
+    }
+
     public VariantStudy generateVariantStudy() {
         // Convert the list of tax ids to integer values
         int[] taxIds = Arrays.stream(taxId.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
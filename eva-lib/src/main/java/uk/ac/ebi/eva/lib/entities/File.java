@@ -15,6 +15,7 @@
  */
 package uk.ac.ebi.eva.lib.entities;
 
+import org.hibernate.annotations.QueryHints;
 import uk.ac.ebi.eva.lib.models.FileFtpReference;
 
 import javax.persistence.*;
@@ -42,7 +43,11 @@ import javax.persistence.*;
                     "from browsable_file bf " +
                     "left join file f on bf.file_id = f.file_id " +
                     "where bf.filename = :filename",
-            resultSetMapping = "fileFtpReference"
+            resultSetMapping = "fileFtpReference",
+            hints = {
+                    @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                    @QueryHint(name = QueryHints.CACHE_REGION, value = "evapro.ftp-references")
+            }
     ),
     @NamedNativeQuery(
             name = "File.getFileFtpReferenceByNames",
@@ -50,7 +55,11 @@ import javax.persistence.*;
                     "from browsable_file bf "+
                     "left join file f on bf.file_id = f.file_id "+
                     "where bf.filename in :filenames",
-            resultSetMapping = "fileFtpReference"
+            resultSetMapping = "fileFtpReference",
+            hints = {
+                    @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                    @QueryHint(name = QueryHints.CACHE_REGION, value = "evapro.ftp-references")
+            }
     )
 })
 @Table(name = "file")
@@ -109,4 +118,6 @@ public class File {
         this.mongoLoadStatus = mongoLoadStatus;
         this.evaSubmissionFileId = evaSubmissionFileId;
     }
+
+    File() { }
 }
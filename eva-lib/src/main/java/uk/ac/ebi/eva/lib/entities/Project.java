@@ -116,4 +116,6 @@ public class Project {
         this.evaStudyAccession = evaStudyAccession;
         this.studyType = studyType;
     }
+
+    Project() { }
 }
@@ -16,6 +16,7 @@
 package uk.ac.ebi.eva.lib.entities;
 
 
+import org.hibernate.annotations.QueryHints;
 import uk.ac.ebi.eva.lib.models.Assembly;
 
 import javax.persistence.*;
@@ -53,14 +54,22 @@ import javax.persistence.*;
                         "left join dbsnp_assemblies dbs on assembly.assembly_set_id = dbs.assembly_set_id " +
                         "join taxonomy on assembly.taxonomy_id=taxonomy.taxonomy_id " +
                         "where (bf.loaded = true and bf.deleted = false) or (dbs.loaded = true)",
-                resultSetMapping = "assembly"
+                resultSetMapping = "assembly",
+                hints = {
+                        @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                        @QueryHint(name = QueryHints.CACHE_REGION, value = "evapro.species")
+                }
         ),
         @NamedNativeQuery(
                 name = "Taxonomy.getAccessionedSpecies",
                 query = "select distinct(assembly.*), taxonomy.* " +
                         "from assembly join taxonomy on assembly.taxonomy_id=taxonomy.taxonomy_id " +
                         "where assembly_in_accessioning_store = true",
-                resultSetMapping = "assembly"
+                resultSetMapping = "assembly",
+                hints = {
+                        @QueryHint(name = QueryHints.CACHEABLE, value = "true"),
+                        @QueryHint(name = QueryHints.CACHE_REGION, value = "evapro.species")
+                }
         )
 })
 @Table(name = "taxonomy")
@@ -90,4 +99,6 @@ public class Taxonomy {
         this.taxonomyCode = taxonomyCode;
         this.evaName = evaName;
     }
+
+    Taxonomy() { }
 }
@@ -20,9 +20,11 @@ import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoCredential;
 import com.mongodb.ReadPreference;
 import com.mongodb.ServerAddress;
+import com.mongodb.event.CommandListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+import uk.ac.ebi.eva.lib.configuration.MongoRoutingProperties;
 import uk.ac.ebi.eva.lib.configuration.SpringDataMongoDbProperties;
 
 import java.net.UnknownHostException;
@@ -33,6 +35,8 @@ import java.util.List;
 @Component
 public class DBAdaptorConnector {
 
+    public static final String DEFAULT_CLUSTER_NAME = "default";
+
     @Autowired
     private DbCollectionsProperties dbCollectionsProperties;
 
@@ -49,17 +53,43 @@ public class DBAdaptorConnector {
      *                   - eva.mongo.passwd
      *                   - eva.mongo.read-preference string, "secondaryPreferred" if unspecified. one of:
      *                          [primary, primaryPreferred, secondary, secondaryPreferred, nearest]
+     * @param commandListeners are notified of every command sent through the client, e.g. to measure their latency
      * @return MongoClient with given credentials
      * @throws UnknownHostException
      */
-    public static MongoClient getMongoClient(SpringDataMongoDbProperties springDataMongoDbProperties) throws UnknownHostException {
+    public static MongoClient getMongoClient(SpringDataMongoDbProperties springDataMongoDbProperties,
+                                             CommandListener... commandListeners) throws UnknownHostException {
+        return getMongoClient(springDataMongoDbProperties.getHost(),
+                              springDataMongoDbProperties.getAuthenticationDatabase(),
+                              springDataMongoDbProperties.getUsername(),
+                              springDataMongoDbProperties.getPassword(),
+                              springDataMongoDbProperties.getReadPreference(),
+                              null,
+                              DEFAULT_CLUSTER_NAME,
+                              commandListeners);
+    }
 
-        String[] hosts = springDataMongoDbProperties.getHost().split(",");
+    /**
+     * Get a MongoClient for one of the clusters the species databases are routed to. The cluster name is used as
+     * the client description, which identifies its connection pools.
+     */
+    public static MongoClient getMongoClient(MongoRoutingProperties.Cluster cluster,
+                                             CommandListener... commandListeners) throws UnknownHostException {
+        return getMongoClient(cluster.getHost(), cluster.getAuthenticationDatabase(), cluster.getUsername(),
+                              cluster.getPassword(), cluster.getReadPreference(), cluster.getConnectionsPerHost(),
+                              cluster.getName(), commandListeners);
+    }
+
+    private static MongoClient getMongoClient(String host, String authenticationDb, String username, String password,
+                                              String readPreference, Integer connectionsPerHost, String description,
+                                              CommandListener[] commandListeners) throws UnknownHostException {
+
+        String[] hosts = host.split(",");
         List<ServerAddress> servers = new ArrayList<>();
 
         // Get the list of hosts (optionally including the port number)
-        for (String host : hosts) {
-            String[] params = host.split(":");
+        for (String hostAndPort : hosts) {
+            String[] params = hostAndPort.split(":");
             if (params.length > 1) {
                 servers.add(new ServerAddress(params[0], Integer.parseInt(params[1])));
             } else {
@@ -68,22 +98,26 @@ public class DBAdaptorConnector {
         }
 
         List<MongoCredential> mongoCredentialList = new ArrayList<>();
-        String authenticationDb = springDataMongoDbProperties.getAuthenticationDatabase();
         if (authenticationDb != null && !authenticationDb.isEmpty()) {
             mongoCredentialList = Collections.singletonList(MongoCredential.createCredential(
-                    springDataMongoDbProperties.getUsername(),
+                    username,
                     authenticationDb,
-                    springDataMongoDbProperties.getPassword().toCharArray()));
+                    password.toCharArray()));
         }
 
-        String readPreference = springDataMongoDbProperties.getReadPreference();
         readPreference = readPreference == null || readPreference.isEmpty()? "secondaryPreferred" : readPreference;
 
-        MongoClientOptions options = MongoClientOptions.builder()
-                                                       .readPreference(ReadPreference.valueOf(readPreference))
-                                                       .build();
+        MongoClientOptions.Builder options = MongoClientOptions.builder()
+                                                               .readPreference(ReadPreference.valueOf(readPreference))
+                                                               .description(description);
+        if (connectionsPerHost != null) {
+            options.connectionsPerHost(connectionsPerHost);
+        }
+        for (CommandListener commandListener : commandListeners) {
+            options.addCommandListener(commandListener);
+        }
 
-        return new MongoClient(servers, mongoCredentialList, options);
+        return new MongoClient(servers, mongoCredentialList, options.build());
     }
 
     public static String getDBName(String species) {
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.eva_utils;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import org.springframework.data.mongodb.MongoDbFactory;
+
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+import uk.ac.ebi.eva.lib.versioning.DataVersionSource;
+
+/**
+ * Derives the data version of a species database from its files and annotation metadata collections, which are
+ * written at the end of every variant and annotation load: the version is made of the number of documents and the
+ * greatest _id of each of them.
+ */
+public class MongoDataVersionSource implements DataVersionSource {
+
+    private final MongoDbFactory mongoDbFactory;
+
+    private final DbCollectionsProperties dbCollectionsProperties;
+
+    public MongoDataVersionSource(MongoDbFactory mongoDbFactory, DbCollectionsProperties dbCollectionsProperties) {
+        this.mongoDbFactory = mongoDbFactory;
+        this.dbCollectionsProperties = dbCollectionsProperties;
+    }
+
+    /**
+     * @param database as returned by {@link DBAdaptorConnector#getDBName(String)}
+     */
+    @Override
+    public String getVersion(String database) {
+        DB db = mongoDbFactory.getDb(database);
+        return getCollectionVersion(db.getCollection(dbCollectionsProperties.getFiles())) + "-"
+                + getCollectionVersion(db.getCollection(dbCollectionsProperties.getAnnotationMetadata()));
+    }
+
+    /**
+     * @return the number of documents and greatest _id of the collection, or "0" if it is empty
+     */
+    public static String getCollectionVersion(DBCollection collection) {
+        long count = collection.count();
+        if (count == 0) {
+            return "0";
+        }
+        try (DBCursor lastDocument = collection.find().sort(new BasicDBObject("_id", -1)).limit(1)) {
+            return count + ":" + (lastDocument.hasNext() ? lastDocument.next().get("_id") : "");
+        }
+    }
+}
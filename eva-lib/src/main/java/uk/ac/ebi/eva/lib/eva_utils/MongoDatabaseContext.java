@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.eva_utils;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the database selected in a thread with {@link MultiMongoDbFactory#setDatabaseNameForCurrentThread},
+ * which can be handed over to the threads that do part of the work. The tasks wrapped by it run with the captured
+ * database, and leave the worker thread as they found it, so pooled threads never keep the database of a previous
+ * task.
+ *
+ * The sub-queries of a request can be run in parallel with e.g.:
+ *
+ * ExecutorService executor = MongoDatabaseContext.propagating(Executors.newFixedThreadPool(4));
+ * CompletableFuture.supplyAsync(() -> service.findByRegions(...), executor);
+ *
+ * Parallel streams run in the common fork-join pool, which can't be wrapped, so they don't see the database.
+ */
+public final class MongoDatabaseContext {
+
+    private final String databaseName;
+
+    private final boolean databaseNameRequired;
+
+    private MongoDatabaseContext(String databaseName, boolean databaseNameRequired) {
+        this.databaseName = databaseName;
+        this.databaseNameRequired = databaseNameRequired;
+    }
+
+    /**
+     * @return the context of the current thread
+     */
+    public static MongoDatabaseContext capture() {
+        return new MongoDatabaseContext(MultiMongoDbFactory.getDatabaseNameForCurrentThread(),
+                                        MultiMongoDbFactory.isDatabaseNameRequiredForCurrentThread());
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    /**
+     * @return an executor that runs every task with the context of the thread that submitted it
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> executor.execute(capture().wrap(task));
+    }
+
+    /**
+     * @return an executor service that runs every task with the context of the thread that submitted it. Shutting
+     * it down shuts down the given one.
+     */
+    public static ExecutorService propagating(ExecutorService executorService) {
+        return new ContextPropagatingExecutorService(executorService);
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            MongoDatabaseContext previous = apply();
+            try {
+                task.run();
+            } finally {
+                previous.apply();
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            MongoDatabaseContext previous = apply();
+            try {
+                return task.call();
+            } finally {
+                previous.apply();
+            }
+        };
+    }
+
+    /**
+     * Sets this context in the current thread
+     *
+     * @return the context the thread had before
+     */
+    private MongoDatabaseContext apply() {
+        MongoDatabaseContext previous = capture();
+        if (databaseName == null) {
+            MultiMongoDbFactory.clearDatabaseNameForCurrentThread();
+        } else {
+            MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+        }
+        MultiMongoDbFactory.setDatabaseNameRequiredForCurrentThread(databaseNameRequired);
+        return previous;
+    }
+
+    private static class ContextPropagatingExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+
+        ContextPropagatingExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(capture().wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
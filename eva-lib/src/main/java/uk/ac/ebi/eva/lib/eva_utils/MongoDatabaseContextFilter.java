@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.eva_utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+
+/**
+ * Scopes the database selected with {@link MultiMongoDbFactory#setDatabaseNameForCurrentThread} to a single request,
+ * so that the pooled container threads never carry it over to the next request.
+ *
+ * With eva.mongo.require-database-context=true, any query run in a request before selecting a database fails instead
+ * of going to the default database, which helps finding the code paths that forget to select it.
+ */
+@Component
+public class MongoDatabaseContextFilter implements Filter {
+
+    private final boolean databaseNameRequired;
+
+    public MongoDatabaseContextFilter(@Value("${eva.mongo.require-database-context:false}")
+                                              boolean databaseNameRequired) {
+        this.databaseNameRequired = databaseNameRequired;
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        MultiMongoDbFactory.clearDatabaseNameForCurrentThread();
+        MultiMongoDbFactory.setDatabaseNameRequiredForCurrentThread(databaseNameRequired);
+        try {
+            chain.doFilter(req, res);
+        } finally {
+            MultiMongoDbFactory.clearDatabaseNameForCurrentThread();
+            MultiMongoDbFactory.setDatabaseNameRequiredForCurrentThread(false);
+        }
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException { }
+
+    @Override
+    public void destroy() { }
+
+}
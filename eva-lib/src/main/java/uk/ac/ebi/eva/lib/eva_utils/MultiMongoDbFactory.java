@@ -21,6 +21,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.SimpleMongoDbFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
 /**
  * Simplified version of https://github.com/Loki-Afro/multi-tenant-spring-mongodb/blob/master/src/main/java/com/github/zarathustra/mongo/MultiTenantMongoDbFactory.java
  *
@@ -31,6 +39,12 @@ import org.springframework.data.mongodb.core.SimpleMongoDbFactory;
  * This class is used with the static method setDatabaseNameForCurrentThread, which uses a static ThreadLocal variable,
  * in order to make this change only visible to the current thread.
  *
+ * The database name is cleared at the end of every request by {@link MongoDatabaseContextFilter}, and can be handed over
+ * to other threads with the executors of {@link MongoDatabaseContext}.
+ *
+ * The databases can be spread over several clusters, by giving a list of {@link Route}s. Each route keeps its own
+ * MongoClient, and the databases not matched by any route are read from the default one.
+ *
  * @author Jose Miguel Mut Lopez &lt;jmmut@ebi.ac.uk&gt;
  */
 public class MultiMongoDbFactory extends SimpleMongoDbFactory {
@@ -39,11 +53,19 @@ public class MultiMongoDbFactory extends SimpleMongoDbFactory {
 
     private final String defaultName;
     private static final ThreadLocal<String> dbName = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> dbNameRequired = new ThreadLocal<>();
+
+    private final List<Route> routes;
 
     public MultiMongoDbFactory(final MongoClient mongo, final String defaultDatabaseName) {
+        this(mongo, defaultDatabaseName, Collections.emptyList());
+    }
+
+    public MultiMongoDbFactory(final MongoClient mongo, final String defaultDatabaseName, final List<Route> routes) {
         super(mongo, defaultDatabaseName);
         logger.debug("Instantiating " + MultiMongoDbFactory.class.getName() + " with default database name: " + defaultDatabaseName);
         this.defaultName = defaultDatabaseName;
+        this.routes = new ArrayList<>(routes);
     }
 
     /**
@@ -63,12 +85,108 @@ public class MultiMongoDbFactory extends SimpleMongoDbFactory {
         dbName.remove();
     }
 
+    /**
+     * @return the DB selected in the current thread, or null if none has been selected
+     */
+    public static String getDatabaseNameForCurrentThread() {
+        return dbName.get();
+    }
+
+    /**
+     * Makes "mongoDbFactory.getDB()" fail in the current thread while no database has been selected, instead of
+     * silently using the default database. Meant to find missing database selections while debugging.
+     */
+    public static void setDatabaseNameRequiredForCurrentThread(final boolean required) {
+        if (required) {
+            dbNameRequired.set(true);
+        } else {
+            dbNameRequired.remove();
+        }
+    }
+
+    public static boolean isDatabaseNameRequiredForCurrentThread() {
+        return dbNameRequired.get() != null;
+    }
+
     @Override
     public DB getDb() {
         final String tlName = dbName.get();
+        if (tlName == null && isDatabaseNameRequiredForCurrentThread()) {
+            throw new IllegalStateException("No database was selected in thread " + Thread.currentThread().getName()
+                                                    + " before querying Mongo");
+        }
         final String dbToUse = (tlName != null ? tlName : this.defaultName);
         logger.debug("Acquiring database: " + dbToUse);
-        return super.getDb(dbToUse);
+        return getDb(dbToUse);
+    }
+
+    @Override
+    public DB getDb(String databaseName) {
+        Route route = findRoute(databaseName);
+        if (route == null) {
+            return super.getDb(databaseName);
+        }
+        logger.debug("Database {} is routed to cluster {}", databaseName, route.getClusterName());
+        return route.mongoDbFactory.getDb(databaseName);
+    }
+
+    /**
+     * @return the route of the given database, or null if it is read from the default client
+     */
+    Route findRoute(String databaseName) {
+        for (Route route : routes) {
+            if (route.databases.contains(databaseName)) {
+                return route;
+            }
+        }
+        for (Route route : routes) {
+            if (route.databasePattern != null && route.databasePattern.matcher(databaseName).matches()) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        super.destroy();
+        for (Route route : routes) {
+            route.mongoClient.close();
+        }
+    }
+
+    /**
+     * Sends some databases, given by exact name or by a regular expression on the whole name, to another cluster
+     */
+    public static class Route {
+
+        private final String clusterName;
+
+        private final Set<String> databases;
+
+        private final Pattern databasePattern;
+
+        private final MongoClient mongoClient;
+
+        private final SimpleMongoDbFactory mongoDbFactory;
+
+        public Route(String clusterName, Collection<String> databases, String databasePattern,
+                     MongoClient mongoClient) {
+            this.clusterName = clusterName;
+            this.databases = new HashSet<>(databases);
+            this.databasePattern = databasePattern == null || databasePattern.isEmpty() ?
+                    null : Pattern.compile(databasePattern);
+            this.mongoClient = mongoClient;
+            this.mongoDbFactory = new SimpleMongoDbFactory(mongoClient, "unusedDefaultDB");
+        }
+
+        public String getClusterName() {
+            return clusterName;
+        }
+
+        public MongoClient getMongoClient() {
+            return mongoClient;
+        }
     }
 }
 
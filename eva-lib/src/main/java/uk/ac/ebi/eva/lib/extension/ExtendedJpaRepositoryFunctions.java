@@ -7,6 +7,7 @@ import org.springframework.data.repository.Repository;
 import javax.persistence.Tuple;
 import java.io.Serializable;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by jorizci on 03/10/16.
@@ -19,4 +20,14 @@ public interface ExtendedJpaRepositoryFunctions<T, ID extends Serializable> exte
     List<Tuple> groupCount(String columnName, Specification<T> specification);
 
     List<Tuple> groupCount(String columnName, Specification<T> specification, Boolean orderAscendant);
+
+    /**
+     * Counts the rows per value of each of the columns, like GROUPING SETS would do, but in a single query that is
+     * portable to any database: the rows are grouped by all the columns at once and the counts of each column are
+     * added up in memory. Like in {@link #groupCount(String)}, null values are grouped but not counted.
+     *
+     * @return counts of each value, per column name, sorted by count if an order is requested
+     */
+    Map<String, Map<Object, Long>> groupCount(List<String> columnNames, Specification<T> specification,
+                                              Boolean orderAscendant);
 }
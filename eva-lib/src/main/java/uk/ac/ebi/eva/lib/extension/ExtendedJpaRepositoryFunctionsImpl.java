@@ -9,7 +9,12 @@ import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by jorizci on 03/10/16.
@@ -64,4 +69,56 @@ public class ExtendedJpaRepositoryFunctionsImpl<T, ID extends Serializable> exte
         return typedQuery.getResultList();
 
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<String, Map<Object, Long>> groupCount(List<String> columnNames, Specification<T> specification,
+                                                     Boolean orderAscendant) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteriaQuery = criteriaBuilder.createQuery(Tuple.class);
+
+        Root<T> root = criteriaQuery.from(getDomainClass());
+        List<Expression<?>> columnPaths = new ArrayList<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String columnName : columnNames) {
+            columnPaths.add(root.get(columnName));
+        }
+        selections.addAll(columnPaths);
+        for (Expression<?> columnPath : columnPaths) {
+            selections.add(criteriaBuilder.count(columnPath));
+        }
+        criteriaQuery.multiselect(selections);
+        criteriaQuery.groupBy(columnPaths);
+
+        if (specification != null) {
+            criteriaQuery.where(specification.toPredicate(root, criteriaQuery, criteriaBuilder));
+        }
+
+        List<Map<Object, Long>> countsPerColumn = new ArrayList<>();
+        for (int i = 0; i < columnNames.size(); i++) {
+            countsPerColumn.add(new HashMap<>());
+        }
+        for (Tuple tuple : entityManager.createQuery(criteriaQuery).getResultList()) {
+            for (int i = 0; i < columnNames.size(); i++) {
+                countsPerColumn.get(i).merge(tuple.get(i), (Long) tuple.get(columnNames.size() + i), Long::sum);
+            }
+        }
+
+        Map<String, Map<Object, Long>> result = new LinkedHashMap<>();
+        for (int i = 0; i < columnNames.size(); i++) {
+            result.put(columnNames.get(i), sortByCount(countsPerColumn.get(i), orderAscendant));
+        }
+        return result;
+    }
+
+    private static Map<Object, Long> sortByCount(Map<Object, Long> counts, Boolean orderAscendant) {
+        if (orderAscendant == null) {
+            return counts;
+        }
+        Comparator<Map.Entry<Object, Long>> byCount = Map.Entry.comparingByValue();
+        Map<Object, Long> sortedCounts = new LinkedHashMap<>();
+        counts.entrySet().stream()
+              .sorted(orderAscendant ? byCount : byCount.reversed())
+              .forEachOrdered(entry -> sortedCounts.put(entry.getKey(), entry.getValue()));
+        return sortedCounts;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsStreamingResponse;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes the same JSON as a {@link uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsResponse} serialized with NON_EMPTY
+ * inclusion: the variants and the next page token are omitted if empty.
+ */
+public class GASearchVariantsStreamingResponseSerializer extends StdSerializer<GASearchVariantsStreamingResponse> {
+
+    public GASearchVariantsStreamingResponseSerializer() {
+        super(GASearchVariantsStreamingResponse.class);
+    }
+
+    @Override
+    public void serialize(GASearchVariantsStreamingResponse response, JsonGenerator jsonGenerator,
+                          SerializerProvider serializerProvider) throws IOException {
+        jsonGenerator.writeStartObject();
+        if (response.getVariants() != null && GAVariantWriter.hasGAVariants(response.getVariants())) {
+            jsonGenerator.writeFieldName("variants");
+            new GAVariantWriter(jsonGenerator, System.currentTimeMillis()).writeVariants(response.getVariants());
+        }
+        String nextPageToken = response.getNextPageToken();
+        if (nextPageToken != null && !nextPageToken.isEmpty()) {
+            jsonGenerator.writeStringField("nextPageToken", nextPageToken);
+        }
+        jsonGenerator.writeEndObject();
+    }
+}
@@ -26,6 +26,12 @@ public interface ArchiveDBAdaptor {
 
     QueryResult countStudiesPerType(QueryOptions var1);
 
+    /**
+     * Counts the studies per species and per type with a single query, with the same results as
+     * {@link #countStudiesPerSpecies} and {@link #countStudiesPerType}
+     */
+    StudyCounts countStudiesPerSpeciesAndType(QueryOptions queryOptions);
+
     QueryResult countFiles();
 
     QueryResult countSpecies();
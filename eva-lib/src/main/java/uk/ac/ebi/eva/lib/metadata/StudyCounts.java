@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Number of studies per species and per type that match the same filters, as returned by
+ * {@link ArchiveDBAdaptor#countStudiesPerSpeciesAndType}
+ */
+public class StudyCounts {
+
+    private final List<Map.Entry<String, Long>> perSpecies;
+
+    private final List<Map.Entry<String, Long>> perType;
+
+    private final int dbTime;
+
+    public StudyCounts(List<Map.Entry<String, Long>> perSpecies, List<Map.Entry<String, Long>> perType, int dbTime) {
+        this.perSpecies = perSpecies;
+        this.perType = perType;
+        this.dbTime = dbTime;
+    }
+
+    public List<Map.Entry<String, Long>> getPerSpecies() {
+        return perSpecies;
+    }
+
+    public List<Map.Entry<String, Long>> getPerType() {
+        return perType;
+    }
+
+    public int getDbTime() {
+        return dbTime;
+    }
+}
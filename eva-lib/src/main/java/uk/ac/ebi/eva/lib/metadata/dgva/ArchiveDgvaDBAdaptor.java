@@ -16,29 +16,26 @@
 package uk.ac.ebi.eva.lib.metadata.dgva;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
 import uk.ac.ebi.eva.lib.metadata.ArchiveDBAdaptor;
+import uk.ac.ebi.eva.lib.metadata.StudyCounts;
 import uk.ac.ebi.eva.lib.utils.QueryOptions;
+import uk.ac.ebi.eva.lib.utils.QueryOptionsConstants;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
-import uk.ac.ebi.eva.lib.repositories.DgvaStudyBrowserRepository;
 
-import javax.persistence.Tuple;
 import java.util.*;
 
-import static uk.ac.ebi.eva.lib.dgva_utils.DgvaDBUtils.getSpeciesAndTypeFilters;
-
 @Component
 public class ArchiveDgvaDBAdaptor implements ArchiveDBAdaptor {
 
     @Autowired
-    private DgvaStudyBrowserRepository dgvaStudyBrowserRepository;
+    private DgvaStudyIndexLoader dgvaStudyIndexLoader;
 
     @Override
     public QueryResult countStudies() {
         long start = System.currentTimeMillis();
-        long count = dgvaStudyBrowserRepository.count();
+        long count = dgvaStudyIndexLoader.getIndex().size();
         long end = System.currentTimeMillis();
         return new QueryResult(null, ((Long) (end - start)).intValue(), 1, 1, null, null, Arrays.asList(count));
     }
@@ -46,41 +43,40 @@ public class ArchiveDgvaDBAdaptor implements ArchiveDBAdaptor {
     @Override
     public QueryResult countStudiesPerSpecies(QueryOptions queryOptions) {
         long start = System.currentTimeMillis();
-        Specification filterSpecification = getSpeciesAndTypeFilters(queryOptions);
-        List<Tuple> countGroupBy = dgvaStudyBrowserRepository.groupCount(DgvaStudyBrowserRepository.COMMON_NAME, filterSpecification, false);
-        Map<String, Long> result = new HashMap<>();
-
-        for (Tuple tuple : countGroupBy) {
-            // Some studies are associated with multiple species, return as comma-separated values
-            String[] species = tuple.get(0) != null ? ((String) tuple.get(0)).split(",") : new String[]{ "Others" };
-            for (String s : species) {
-                long count = (long) tuple.get(1);
-                if (result.containsKey(s)) {
-                    count += result.get(s);
-                }
-                result.put(s, count);
-            }
-        }
-
+        DgvaStudyIndex index = dgvaStudyIndexLoader.getIndex();
+        List<Map.Entry<String, Long>> result = index.countPerSpecies(filter(index, queryOptions));
         long end = System.currentTimeMillis();
-        return new QueryResult(null, ((Long) (end - start)).intValue(), result.size(), result.size(), null, null, new LinkedList(result.entrySet()));
+        return new QueryResult(null, ((Long) (end - start)).intValue(), result.size(), result.size(), null, null, result);
     }
 
     @Override
     public QueryResult countStudiesPerType(QueryOptions queryOptions) {
         long start = System.currentTimeMillis();
-        Specification filterSpecification = getSpeciesAndTypeFilters(queryOptions);
-        List<Tuple> countGroupBy = dgvaStudyBrowserRepository.groupCount(DgvaStudyBrowserRepository.STUDY_TYPE, filterSpecification, false);
-        List<Map.Entry<String, Long>> result = new ArrayList<>();
-        for (Tuple tuple : countGroupBy) {
-            String species = tuple.get(0) != null ? (String) tuple.get(0) : "Others";
-            long count = (long) tuple.get(1);
-            result.add(new AbstractMap.SimpleEntry<>(species, count));
-        }
+        DgvaStudyIndex index = dgvaStudyIndexLoader.getIndex();
+        List<Map.Entry<String, Long>> result = index.countPerType(filter(index, queryOptions));
         long end = System.currentTimeMillis();
         return new QueryResult(null, ((Long) (end - start)).intValue(), result.size(), result.size(), null, null, result);
     }
 
+    @Override
+    public StudyCounts countStudiesPerSpeciesAndType(QueryOptions queryOptions) {
+        long start = System.currentTimeMillis();
+        DgvaStudyIndex index = dgvaStudyIndexLoader.getIndex();
+        BitSet positions = filter(index, queryOptions);
+        List<Map.Entry<String, Long>> speciesCounts = index.countPerSpecies(positions);
+        List<Map.Entry<String, Long>> typeCounts = index.countPerType(positions);
+        long end = System.currentTimeMillis();
+        return new StudyCounts(speciesCounts, typeCounts, ((Long) (end - start)).intValue());
+    }
+
+    private BitSet filter(DgvaStudyIndex index, QueryOptions queryOptions) {
+        List<String> species = queryOptions.containsKey(QueryOptionsConstants.SPECIES) ?
+                queryOptions.getAsStringList(QueryOptionsConstants.SPECIES) : null;
+        List<String> types = queryOptions.containsKey(QueryOptionsConstants.TYPE) ?
+                queryOptions.getAsStringList(QueryOptionsConstants.TYPE) : null;
+        return index.filter(species, types);
+    }
+
     @Override
     public QueryResult countFiles() {
         throw new UnsupportedOperationException("Not supported yet.");
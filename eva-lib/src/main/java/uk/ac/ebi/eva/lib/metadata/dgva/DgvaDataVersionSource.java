@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata.dgva;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.lib.versioning.DataVersionSource;
+
+/**
+ * Reads the data version of DGVA from the study index, as the DGVA study browser has no load dates. The version is
+ * updated whenever the index is refreshed. The database name is ignored.
+ */
+@Component
+public class DgvaDataVersionSource implements DataVersionSource {
+
+    @Autowired
+    private DgvaStudyIndexLoader dgvaStudyIndexLoader;
+
+    @Override
+    public String getVersion(String database) {
+        return dgvaStudyIndexLoader.getIndex().getVersion();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata.dgva;
+
+import uk.ac.ebi.eva.lib.entities.DgvaStudyBrowser;
+import uk.ac.ebi.eva.lib.models.VariantStudy;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the DGVA study browser, with the studies already converted to {@link VariantStudy} and
+ * inverted indexes to filter and count them without querying the database.
+ *
+ * The filters behave like the specification built by
+ * {@link uk.ac.ebi.eva.lib.dgva_utils.DgvaDBUtils#getSpeciesAndTypeFilters}: a species must be contained in the
+ * comma-separated common or scientific names, and a type in the study type, ignoring case. The counts per species
+ * split the comma-separated common names, so a study of several species is counted once for each of them.
+ */
+class DgvaStudyIndex {
+
+    static final String OTHERS = "Others";
+
+    private final VariantStudy[] studies;
+
+    private final Map<String, Integer> positionsById;
+
+    private final Map<String, BitSet> positionsByLowerCaseCommonNames;
+
+    private final Map<String, BitSet> positionsByLowerCaseScientificNames;
+
+    private final Map<String, BitSet> positionsByLowerCaseType;
+
+    private final Map<String, BitSet> positionsBySpecies;
+
+    private final Map<String, BitSet> positionsByType;
+
+    private final String version;
+
+    DgvaStudyIndex(List<DgvaStudyBrowser> studyBrowserRows) {
+        studies = new VariantStudy[studyBrowserRows.size()];
+        positionsById = new HashMap<>();
+        positionsByLowerCaseCommonNames = new HashMap<>();
+        positionsByLowerCaseScientificNames = new HashMap<>();
+        positionsByLowerCaseType = new HashMap<>();
+        positionsBySpecies = new HashMap<>();
+        positionsByType = new HashMap<>();
+
+        int position = 0;
+        int fingerprint = 1;
+        for (DgvaStudyBrowser studyBrowserRow : studyBrowserRows) {
+            // the names are read before generating the study, which rewrites them
+            String commonNames = studyBrowserRow.getCommonName();
+            String scientificNames = studyBrowserRow.getScientificName();
+            String type = studyBrowserRow.getStudyType();
+            fingerprint = 31 * fingerprint + Objects.hash(studyBrowserRow.getStudyAccession(), commonNames,
+                                                          scientificNames, type);
+            addPosition(positionsByLowerCaseCommonNames, toLowerCase(commonNames), position);
+            addPosition(positionsByLowerCaseScientificNames, toLowerCase(scientificNames), position);
+            addPosition(positionsByLowerCaseType, toLowerCase(type), position);
+            for (String species : splitSpecies(commonNames)) {
+                addPosition(positionsBySpecies, species, position);
+            }
+            addPosition(positionsByType, type != null ? type : OTHERS, position);
+
+            positionsById.put(studyBrowserRow.getStudyAccession(), position);
+            studies[position] = studyBrowserRow.generateVariantStudy();
+            position++;
+        }
+        version = studies.length + "-" + Integer.toHexString(fingerprint);
+    }
+
+    private static void addPosition(Map<String, BitSet> index, String key, int position) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new BitSet()).set(position);
+        }
+    }
+
+    private static String toLowerCase(String text) {
+        return text != null ? text.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static Set<String> splitSpecies(String commonNames) {
+        Set<String> species = new LinkedHashSet<>();
+        if (commonNames == null) {
+            species.add(OTHERS);
+        } else {
+            for (String name : commonNames.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    species.add(name.trim());
+                }
+            }
+        }
+        return species;
+    }
+
+    /**
+     * @return a value derived from the accessions, species and types of the indexed studies, which changes when
+     * studies are loaded into or removed from DGVA
+     */
+    String getVersion() {
+        return version;
+    }
+
+    int size() {
+        return studies.length;
+    }
+
+    VariantStudy getStudyById(String studyId) {
+        Integer position = positionsById.get(studyId);
+        return position != null ? studies[position] : null;
+    }
+
+    /**
+     * @param species substrings of the common or scientific names, or null not to filter by species
+     * @param types substrings of the study types, or null not to filter by type
+     * @return positions of the studies that match both filters
+     */
+    BitSet filter(Collection<String> species, Collection<String> types) {
+        BitSet positions = new BitSet(studies.length);
+        positions.set(0, studies.length);
+        if (species != null) {
+            List<String> lowerCaseSpecies = toLowerCase(species);
+            BitSet speciesPositions = findContaining(positionsByLowerCaseCommonNames, lowerCaseSpecies);
+            speciesPositions.or(findContaining(positionsByLowerCaseScientificNames, lowerCaseSpecies));
+            positions.and(speciesPositions);
+        }
+        if (types != null) {
+            positions.and(findContaining(positionsByLowerCaseType, toLowerCase(types)));
+        }
+        return positions;
+    }
+
+    private static List<String> toLowerCase(Collection<String> texts) {
+        List<String> lowerCaseTexts = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            lowerCaseTexts.add(toLowerCase(text));
+        }
+        return lowerCaseTexts;
+    }
+
+    /**
+     * There are only a few hundred distinct values per field, so they are searched one by one
+     */
+    private static BitSet findContaining(Map<String, BitSet> index, List<String> searchedTexts) {
+        BitSet positions = new BitSet();
+        for (Map.Entry<String, BitSet> value : index.entrySet()) {
+            for (String searchedText : searchedTexts) {
+                if (value.getKey().contains(searchedText)) {
+                    positions.or(value.getValue());
+                    break;
+                }
+            }
+        }
+        return positions;
+    }
+
+    List<VariantStudy> getStudies(BitSet positions) {
+        List<VariantStudy> result = new ArrayList<>(positions.cardinality());
+        for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+            result.add(studies[position]);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of studies among the given positions for each species, from the highest count to the lowest
+     */
+    List<Map.Entry<String, Long>> countPerSpecies(BitSet positions) {
+        return count(positionsBySpecies, positions);
+    }
+
+    /**
+     * @return number of studies among the given positions for each type, from the highest count to the lowest
+     */
+    List<Map.Entry<String, Long>> countPerType(BitSet positions) {
+        return count(positionsByType, positions);
+    }
+
+    private static List<Map.Entry<String, Long>> count(Map<String, BitSet> index, BitSet positions) {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> value : index.entrySet()) {
+            BitSet matchingPositions = (BitSet) value.getValue().clone();
+            matchingPositions.and(positions);
+            long count = matchingPositions.cardinality();
+            if (count > 0) {
+                counts.add(new AbstractMap.SimpleEntry<>(value.getKey(), count));
+            }
+        }
+        counts.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()));
+        return counts;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata.dgva;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.lib.repositories.DgvaStudyBrowserRepository;
+import uk.ac.ebi.eva.lib.utils.RefreshingHolder;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link DgvaStudyIndex} shared by the DGVA adaptors. It is built on first use, and built again in the
+ * background every refresh interval, while the requests keep using the previous one.
+ */
+@Component
+class DgvaStudyIndexLoader {
+
+    private static final long REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    @Autowired
+    private DgvaStudyBrowserRepository dgvaStudyBrowserRepository;
+
+    private final RefreshingHolder<DgvaStudyIndex> index = new RefreshingHolder<>(
+            "dgva-study-index", () -> new DgvaStudyIndex(dgvaStudyBrowserRepository.findAll()),
+            REFRESH_INTERVAL_MILLIS);
+
+    /**
+     * Builds the index again from the database, e.g. right after loading a study
+     */
+    void refreshIndex() {
+        index.refresh();
+    }
+
+    DgvaStudyIndex getIndex() {
+        return index.get();
+    }
+
+    @PreDestroy
+    void stopRefreshing() {
+        index.close();
+    }
+}
@@ -16,34 +16,31 @@
 package uk.ac.ebi.eva.lib.metadata.dgva;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
-import uk.ac.ebi.eva.lib.entities.DgvaStudyBrowser;
 import uk.ac.ebi.eva.lib.metadata.StudyDBAdaptor;
 import uk.ac.ebi.eva.lib.models.VariantStudy;
 import uk.ac.ebi.eva.lib.utils.QueryOptions;
+import uk.ac.ebi.eva.lib.utils.QueryOptionsConstants;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
-import uk.ac.ebi.eva.lib.repositories.DgvaStudyBrowserRepository;
-import uk.ac.ebi.eva.lib.dgva_utils.DgvaDBUtils;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Component
 public class StudyDgvaDBAdaptor implements StudyDBAdaptor {
 
     @Autowired
-    private DgvaStudyBrowserRepository dgvaStudyBrowserRepository;
+    private DgvaStudyIndexLoader dgvaStudyIndexLoader;
 
     @Override
     public QueryResult getAllStudies(QueryOptions queryOptions) {
         long start = System.currentTimeMillis();
-        Specification filterSpecification = DgvaDBUtils.getSpeciesAndTypeFilters(queryOptions);
-        List<DgvaStudyBrowser> dgvaStudies = dgvaStudyBrowserRepository.findAll(filterSpecification);
-        List<VariantStudy> variantstudies = new ArrayList<>();
-        for (DgvaStudyBrowser dgvaStudy : dgvaStudies) {
-            variantstudies.add(dgvaStudy.generateVariantStudy());
-        }
+        List<String> species = queryOptions.containsKey(QueryOptionsConstants.SPECIES) ?
+                queryOptions.getAsStringList(QueryOptionsConstants.SPECIES) : null;
+        List<String> types = queryOptions.containsKey(QueryOptionsConstants.TYPE) ?
+                queryOptions.getAsStringList(QueryOptionsConstants.TYPE) : null;
+        DgvaStudyIndex index = dgvaStudyIndexLoader.getIndex();
+        List<VariantStudy> variantstudies = index.getStudies(index.filter(species, types));
         long end = System.currentTimeMillis();
         return new QueryResult(null, ((Long) (end - start)).intValue(), variantstudies.size(), variantstudies.size(), null, null, variantstudies);
     }
@@ -62,11 +59,8 @@ public class StudyDgvaDBAdaptor implements StudyDBAdaptor {
     @Override
     public QueryResult getStudyById(String studyId, QueryOptions queryOptions) {
         long start = System.currentTimeMillis();
-        DgvaStudyBrowser dgvaStudy = dgvaStudyBrowserRepository.findOne(studyId);
-        List<VariantStudy> variantStudy = new ArrayList<>();
-        if (dgvaStudy != null) {
-            variantStudy.add(dgvaStudy.generateVariantStudy());
-        }
+        VariantStudy study = dgvaStudyIndexLoader.getIndex().getStudyById(studyId);
+        List<VariantStudy> variantStudy = study != null ? Collections.singletonList(study) : Collections.emptyList();
         long end = System.currentTimeMillis();
         return new QueryResult(null, ((Long) (end - start)).intValue(), variantStudy.size(), variantStudy.size(), null, null, variantStudy);
     }
@@ -21,6 +21,7 @@ import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Component;
 
 import uk.ac.ebi.eva.lib.metadata.ArchiveDBAdaptor;
+import uk.ac.ebi.eva.lib.metadata.StudyCounts;
 import uk.ac.ebi.eva.lib.models.Assembly;
 import uk.ac.ebi.eva.lib.extension.GenericSpecifications;
 import uk.ac.ebi.eva.lib.utils.QueryOptions;
@@ -90,6 +91,28 @@ public class ArchiveEvaproDBAdaptor implements ArchiveDBAdaptor {
         return new QueryResult(null, ((Long) (end - start)).intValue(), result.size(), result.size(), null, null, result);
     }
 
+    @Override
+    public StudyCounts countStudiesPerSpeciesAndType(QueryOptions queryOptions) {
+        long start = System.currentTimeMillis();
+        Specification filterSpecification = getSpeciesAndTypeFilters(queryOptions);
+        Map<String, Map<Object, Long>> counts = evaStudyBrowserRepository.groupCount(
+                Arrays.asList(EvaStudyBrowserRepository.COMMON_NAME, EvaStudyBrowserRepository.EXPERIMENT_TYPE),
+                filterSpecification, false);
+        List<Map.Entry<String, Long>> perSpecies = toNamedCounts(counts.get(EvaStudyBrowserRepository.COMMON_NAME));
+        List<Map.Entry<String, Long>> perType = toNamedCounts(counts.get(EvaStudyBrowserRepository.EXPERIMENT_TYPE));
+        long end = System.currentTimeMillis();
+        return new StudyCounts(perSpecies, perType, ((Long) (end - start)).intValue());
+    }
+
+    private List<Map.Entry<String, Long>> toNamedCounts(Map<Object, Long> counts) {
+        List<Map.Entry<String, Long>> result = new ArrayList<>();
+        for (Map.Entry<Object, Long> count : counts.entrySet()) {
+            String name = count.getKey() != null ? (String) count.getKey() : "Others";
+            result.add(new AbstractMap.SimpleEntry<>(name, count.getValue()));
+        }
+        return result;
+    }
+
     @Override
     public QueryResult countFiles() {
         long start = System.currentTimeMillis();
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata.eva;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.lib.repositories.FileRepository;
+import uk.ac.ebi.eva.lib.repositories.ProjectRepository;
+import uk.ac.ebi.eva.lib.repositories.TaxonomyRepository;
+import uk.ac.ebi.eva.lib.versioning.DataVersionSource;
+
+import java.sql.Timestamp;
+
+/**
+ * Derives the data version of the EVAPRO schema from the number of projects and files and the last time a project
+ * was loaded, so it changes on every release. The number of browsable files and dbSNP assemblies flagged as loaded is
+ * included as well, as those flags decide which species are listed. The database name is ignored.
+ */
+@Component
+public class EvaproDataVersionSource implements DataVersionSource {
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    @Autowired
+    private TaxonomyRepository taxonomyRepository;
+
+    @Override
+    public String getVersion(String database) {
+        Timestamp lastEvaTimestamp = projectRepository.findLastEvaTimestamp();
+        return projectRepository.count() + "-" + fileRepository.count() + "-"
+                + (lastEvaTimestamp == null ? 0 : lastEvaTimestamp.getTime()) + "-"
+                + taxonomyRepository.countLoadedBrowsableFiles() + "-"
+                + taxonomyRepository.countLoadedDbsnpAssemblies();
+    }
+}
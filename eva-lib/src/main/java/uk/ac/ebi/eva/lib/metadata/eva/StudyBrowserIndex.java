@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata.eva;
+
+import uk.ac.ebi.eva.lib.entities.EvaStudyBrowser;
+import uk.ac.ebi.eva.lib.models.VariantStudy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the study browser, with the studies already converted to {@link VariantStudy} and inverted
+ * indexes to filter them without querying the database.
+ *
+ * The filters behave like the specification built by
+ * {@link uk.ac.ebi.eva.lib.eva_utils.EvaproDbUtils#getSpeciesAndTypeFilters}: the species must be equal to the common
+ * or scientific name, and the type must be contained in the experiment type. The text search matches the words of the
+ * study accessions and titles, ignoring case.
+ */
+class StudyBrowserIndex {
+
+    private final VariantStudy[] studies;
+
+    private final Map<String, Integer> positionsById;
+
+    private final Map<String, BitSet> positionsByCommonName;
+
+    private final Map<String, BitSet> positionsByScientificName;
+
+    private final Map<String, BitSet> positionsByExperimentType;
+
+    private final Map<String, BitSet> positionsByWord;
+
+    StudyBrowserIndex(List<EvaStudyBrowser> studyBrowserRows) {
+        studies = new VariantStudy[studyBrowserRows.size()];
+        positionsById = new HashMap<>();
+        positionsByCommonName = new HashMap<>();
+        positionsByScientificName = new HashMap<>();
+        positionsByExperimentType = new HashMap<>();
+        positionsByWord = new HashMap<>();
+
+        int position = 0;
+        for (EvaStudyBrowser studyBrowserRow : studyBrowserRows) {
+            VariantStudy study = studyBrowserRow.generateVariantStudy();
+            studies[position] = study;
+            positionsById.put(study.getId(), position);
+            addPosition(positionsByCommonName, study.getSpeciesCommonName(), position);
+            addPosition(positionsByScientificName, study.getSpeciesScientificName(), position);
+            addPosition(positionsByExperimentType, study.getExperimentType(), position);
+            for (String word : splitWords(study.getId() + " " + study.getName())) {
+                addPosition(positionsByWord, word, position);
+            }
+            position++;
+        }
+    }
+
+    private static void addPosition(Map<String, BitSet> index, String key, int position) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new BitSet()).set(position);
+        }
+    }
+
+    private static List<String> splitWords(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{Alnum}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    List<VariantStudy> getAllStudies() {
+        return Collections.unmodifiableList(Arrays.asList(studies));
+    }
+
+    VariantStudy getStudyById(String studyId) {
+        Integer position = positionsById.get(studyId);
+        return position != null ? studies[position] : null;
+    }
+
+    /**
+     * @param species common or scientific names, or null not to filter by species
+     * @param types substrings of the experiment types, or null not to filter by type
+     */
+    List<VariantStudy> findStudies(Collection<String> species, Collection<String> types) {
+        BitSet positions = allPositions();
+        if (species != null) {
+            BitSet speciesPositions = new BitSet();
+            for (String name : species) {
+                orPositions(speciesPositions, positionsByCommonName.get(name));
+                orPositions(speciesPositions, positionsByScientificName.get(name));
+            }
+            positions.and(speciesPositions);
+        }
+        if (types != null) {
+            // there are only a few distinct experiment types, so they are searched one by one
+            BitSet typePositions = new BitSet();
+            for (Map.Entry<String, BitSet> experimentType : positionsByExperimentType.entrySet()) {
+                for (String type : types) {
+                    if (experimentType.getKey().contains(type)) {
+                        typePositions.or(experimentType.getValue());
+                        break;
+                    }
+                }
+            }
+            positions.and(typePositions);
+        }
+        return getStudies(positions);
+    }
+
+    /**
+     * Finds the studies with an accession or title that contains all the words of the text, ignoring case. Every word
+     * of the text can be part of a longer word, e.g. "prj" finds every study with a PRJ accession.
+     */
+    List<VariantStudy> findStudiesByText(String text) {
+        List<String> searchedWords = splitWords(text);
+        if (searchedWords.isEmpty()) {
+            return Collections.emptyList();
+        }
+        BitSet positions = allPositions();
+        for (String searchedWord : searchedWords) {
+            BitSet wordPositions = new BitSet();
+            for (Map.Entry<String, BitSet> word : positionsByWord.entrySet()) {
+                if (word.getKey().contains(searchedWord)) {
+                    wordPositions.or(word.getValue());
+                }
+            }
+            positions.and(wordPositions);
+        }
+        return getStudies(positions);
+    }
+
+    private BitSet allPositions() {
+        BitSet positions = new BitSet(studies.length);
+        positions.set(0, studies.length);
+        return positions;
+    }
+
+    private static void orPositions(BitSet positions, BitSet otherPositions) {
+        if (otherPositions != null) {
+            positions.or(otherPositions);
+        }
+    }
+
+    private List<VariantStudy> getStudies(BitSet positions) {
+        List<VariantStudy> result = new ArrayList<>(positions.cardinality());
+        for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+            result.add(studies[position]);
+        }
+        return result;
+    }
+}
@@ -16,61 +16,71 @@
 package uk.ac.ebi.eva.lib.metadata.eva;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
 import uk.ac.ebi.eva.lib.metadata.StudyDBAdaptor;
 import uk.ac.ebi.eva.lib.models.VariantStudy;
-import uk.ac.ebi.eva.lib.entities.EvaStudyBrowser;
 import uk.ac.ebi.eva.lib.utils.QueryOptions;
+import uk.ac.ebi.eva.lib.utils.QueryOptionsConstants;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 import uk.ac.ebi.eva.lib.repositories.EvaStudyBrowserRepository;
+import uk.ac.ebi.eva.lib.utils.RefreshingHolder;
 
-import java.util.ArrayList;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
-import static uk.ac.ebi.eva.lib.eva_utils.EvaproDbUtils.getSpeciesAndTypeFilters;
-
-
+/**
+ * Serves the studies from an in-memory {@link StudyBrowserIndex} of the study browser table, which is small and only
+ * changes when a study is loaded. The index is rebuilt in the background every refresh interval, while the requests
+ * keep using the previous one.
+ */
 @Component
 public class StudyEvaproDBAdaptor implements StudyDBAdaptor {
 
+    private static final long REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
     @Autowired
     private EvaStudyBrowserRepository evaStudyBrowserRepository;
 
+    private final RefreshingHolder<StudyBrowserIndex> index = new RefreshingHolder<>(
+            "study-browser-index", () -> new StudyBrowserIndex(evaStudyBrowserRepository.findAll()),
+            REFRESH_INTERVAL_MILLIS);
+
     @Override
     public QueryResult getAllStudies(QueryOptions queryOptions) {
         long start = System.currentTimeMillis();
-        Specification filterSpecification = getSpeciesAndTypeFilters(queryOptions);
-        List<EvaStudyBrowser> dgvaStudies = evaStudyBrowserRepository.findAll(filterSpecification);
-        List<VariantStudy> variantstudies = new ArrayList<>();
-        for (EvaStudyBrowser dgvaStudy : dgvaStudies) {
-            if (dgvaStudy != null) {
-                variantstudies.add(dgvaStudy.generateVariantStudy());
-            }
-        }
+        List<String> species = queryOptions.containsKey(QueryOptionsConstants.SPECIES) ?
+                queryOptions.getAsStringList(QueryOptionsConstants.SPECIES) : null;
+        List<String> types = queryOptions.containsKey(QueryOptionsConstants.TYPE) ?
+                queryOptions.getAsStringList(QueryOptionsConstants.TYPE) : null;
+        List<VariantStudy> variantstudies = getIndex().findStudies(species, types);
         long end = System.currentTimeMillis();
         return new QueryResult(null, ((Long) (end - start)).intValue(), variantstudies.size(), variantstudies.size(), null, null, variantstudies);
     }
 
     @Override
     public QueryResult listStudies() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        long start = System.currentTimeMillis();
+        List<VariantStudy> variantStudies = getIndex().getAllStudies();
+        long end = System.currentTimeMillis();
+        return new QueryResult(null, ((Long) (end - start)).intValue(), variantStudies.size(), variantStudies.size(), null, null, variantStudies);
     }
 
     @Override
     public QueryResult findStudyNameOrStudyId(String s, QueryOptions queryOptions) {
-        throw new UnsupportedOperationException("Not supported yet.");
+        long start = System.currentTimeMillis();
+        List<VariantStudy> variantStudies = getIndex().findStudiesByText(s);
+        long end = System.currentTimeMillis();
+        return new QueryResult(null, ((Long) (end - start)).intValue(), variantStudies.size(), variantStudies.size(), null, null, variantStudies);
     }
 
     @Override
     public QueryResult getStudyById(String s, QueryOptions queryOptions) {
         long start = System.currentTimeMillis();
-        EvaStudyBrowser study = evaStudyBrowserRepository.findOne(s);
-        List<VariantStudy> variantStudy = new ArrayList<>();
-        if (study != null) {
-            variantStudy.add(study.generateVariantStudy());
-        }
+        VariantStudy study = getIndex().getStudyById(s);
+        List<VariantStudy> variantStudy = study != null ? Collections.singletonList(study) : Collections.emptyList();
         long end = System.currentTimeMillis();
         return new QueryResult(null, ((Long) (end - start)).intValue(), variantStudy.size(), variantStudy.size(), null, null, variantStudy);
     }
@@ -79,4 +89,20 @@ public class StudyEvaproDBAdaptor implements StudyDBAdaptor {
     public boolean close() {
         throw new UnsupportedOperationException("Not supported yet.");
     }
+
+    /**
+     * Builds the index again from the database, e.g. right after loading a study
+     */
+    public void refreshIndex() {
+        index.refresh();
+    }
+
+    @PreDestroy
+    public void stopRefreshing() {
+        index.close();
+    }
+
+    private StudyBrowserIndex getIndex() {
+        return index.get();
+    }
 }
@@ -17,6 +17,7 @@ package uk.ac.ebi.eva.lib.metadata.eva;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import uk.ac.ebi.eva.commons.core.models.stats.VariantSourceStats;
 import uk.ac.ebi.eva.lib.metadata.VariantSourceDBAdaptor;
 import uk.ac.ebi.eva.lib.models.FileFtpReference;
@@ -24,11 +25,22 @@ import uk.ac.ebi.eva.lib.utils.QueryOptions;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 import uk.ac.ebi.eva.lib.repositories.FileRepository;
 
+import javax.annotation.PreDestroy;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,9 +50,39 @@ import java.util.logging.Logger;
 @Component
 public class VariantSourceEvaProDBAdaptor implements VariantSourceDBAdaptor {
 
+    static final String FILE_NOT_FOUND = "File not found";
+
+    static final int FTP_REFERENCE_QUERY_CHUNK_SIZE = 500;
+
+    private static final int FTP_REFERENCE_QUERY_THREADS = 4;
+
+    private static final int FTP_FILE_CACHE_MAX_SIZE = 50000;
+
+    private static final long FTP_FILE_CACHE_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final long FTP_FILE_NOT_FOUND_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     @Autowired
     private FileRepository fileRepository;
 
+    /**
+     * FTP path of the files recently looked up, or null for the ones that are not browsable, evicting the least
+     * recently used when full
+     */
+    private final Map<String, CachedFtpFile> ftpFileCache = new LinkedHashMap<String, CachedFtpFile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedFtpFile> eldest) {
+            return size() > FTP_FILE_CACHE_MAX_SIZE;
+        }
+    };
+
+    private final ExecutorService ftpReferenceExecutor = Executors.newFixedThreadPool(
+            FTP_REFERENCE_QUERY_THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "ftp-reference-lookup");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     @Override
     public QueryResult countSources() {
         long start = System.currentTimeMillis();
@@ -94,26 +136,114 @@ public class VariantSourceEvaProDBAdaptor implements VariantSourceDBAdaptor {
         }
     }
 
+    /**
+     * Resolves the FTP URL of every file name, returning one result per name in the same order, with no results and a
+     * {@link #FILE_NOT_FOUND} warning for the names that are not browsable. Names resolved recently are answered from
+     * memory, and the rest are looked up in chunks so long lists don't exceed the parameter limits of the driver.
+     * All the results report the same dbTime, spent waiting for EVAPRO.
+     */
     @Override
     public List<QueryResult> getSourceDownloadUrlByName(List<String> filenames) {
-        long start = System.currentTimeMillis();
-        List<QueryResult> results = new ArrayList<>();
-        List<FileFtpReference> fileFtpReferences = fileRepository.getFileFtpReferenceByNames(filenames);
+        Map<String, String> ftpFiles = new HashMap<>();
+        Set<String> missingFilenames = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        synchronized (ftpFileCache) {
+            for (String filename : filenames) {
+                CachedFtpFile cachedFtpFile = ftpFileCache.get(filename);
+                if (cachedFtpFile != null && cachedFtpFile.expirationTime > now) {
+                    ftpFiles.put(filename, cachedFtpFile.ftpFile);
+                } else {
+                    missingFilenames.add(filename);
+                }
+            }
+        }
 
-        for (FileFtpReference fileFtpReference : fileFtpReferences) {
-            try {
-                results.add(new QueryResult(fileFtpReference.getFilename(), ((Long) (System.currentTimeMillis() - start)).intValue(),
-                        1, 1, null, null, Arrays.asList(new URL("ftp:/" + fileFtpReference.getFile_ftp()))));
-            } catch (MalformedURLException ex) {
-                Logger.getLogger(VariantSourceEvaProDBAdaptor.class.getName()).log(Level.SEVERE, null, ex);
-                QueryResult qr = new QueryResult();
-                qr.setErrorMsg(ex.getMessage());
-                results.add(qr);
+        int dbTime = 0;
+        if (!missingFilenames.isEmpty()) {
+            long start = System.currentTimeMillis();
+            Map<String, String> foundFtpFiles = findFtpFiles(new ArrayList<>(missingFilenames));
+            long end = System.currentTimeMillis();
+            dbTime = ((Long) (end - start)).intValue();
+
+            synchronized (ftpFileCache) {
+                for (String filename : missingFilenames) {
+                    String ftpFile = foundFtpFiles.get(filename);
+                    long timeToLive = ftpFile != null ? FTP_FILE_CACHE_TTL_MILLIS : FTP_FILE_NOT_FOUND_CACHE_TTL_MILLIS;
+                    ftpFileCache.put(filename, new CachedFtpFile(ftpFile, end + timeToLive));
+                    ftpFiles.put(filename, ftpFile);
+                }
             }
         }
+
+        List<QueryResult> results = new ArrayList<>(filenames.size());
+        for (String filename : filenames) {
+            results.add(buildFtpUrlResult(filename, ftpFiles.get(filename), dbTime));
+        }
         return results;
     }
 
+    private Map<String, String> findFtpFiles(List<String> filenames) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < filenames.size(); i += FTP_REFERENCE_QUERY_CHUNK_SIZE) {
+            chunks.add(filenames.subList(i, Math.min(i + FTP_REFERENCE_QUERY_CHUNK_SIZE, filenames.size())));
+        }
+
+        Map<String, String> ftpFiles = new HashMap<>();
+        // inside a transaction every chunk must see the same data, so they are queried one after the other in it
+        if (chunks.size() == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (List<String> chunk : chunks) {
+                addFtpFiles(ftpFiles, fileRepository.getFileFtpReferenceByNames(chunk));
+            }
+            return ftpFiles;
+        }
+
+        List<Future<List<FileFtpReference>>> futures = new ArrayList<>(chunks.size());
+        for (List<String> chunk : chunks) {
+            futures.add(ftpReferenceExecutor.submit(() -> fileRepository.getFileFtpReferenceByNames(chunk)));
+        }
+        try {
+            for (Future<List<FileFtpReference>> future : futures) {
+                addFtpFiles(ftpFiles, future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while looking up the FTP URLs of the files", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return ftpFiles;
+    }
+
+    private void addFtpFiles(Map<String, String> ftpFiles, List<FileFtpReference> fileFtpReferences) {
+        for (FileFtpReference fileFtpReference : fileFtpReferences) {
+            if (fileFtpReference.getFile_ftp() != null) {
+                ftpFiles.putIfAbsent(fileFtpReference.getFilename(), fileFtpReference.getFile_ftp());
+            }
+        }
+    }
+
+    private QueryResult buildFtpUrlResult(String filename, String ftpFile, int dbTime) {
+        if (ftpFile == null) {
+            return new QueryResult(filename, dbTime, 0, 0, FILE_NOT_FOUND, null, new ArrayList<>());
+        }
+        try {
+            return new QueryResult(filename, dbTime, 1, 1, null, null, Arrays.asList(new URL("ftp:/" + ftpFile)));
+        } catch (MalformedURLException ex) {
+            Logger.getLogger(VariantSourceEvaProDBAdaptor.class.getName()).log(Level.SEVERE, null, ex);
+            QueryResult qr = new QueryResult(filename);
+            qr.setErrorMsg(ex.getMessage());
+            return qr;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ftpReferenceExecutor.shutdownNow();
+    }
+
     @Override
     public QueryResult getSourceDownloadUrlById(String s, String s1) {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -128,4 +258,16 @@ public class VariantSourceEvaProDBAdaptor implements VariantSourceDBAdaptor {
     public boolean close() {
         throw new UnsupportedOperationException("Not supported yet.");
     }
+
+    private static class CachedFtpFile {
+
+        private final String ftpFile;
+
+        private final long expirationTime;
+
+        CachedFtpFile(String ftpFile, long expirationTime) {
+            this.ftpFile = ftpFile;
+            this.expirationTime = expirationTime;
+        }
+    }
 }
@@ -20,17 +20,50 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import uk.ac.ebi.eva.lib.metadata.ArchiveDBAdaptor;
+import uk.ac.ebi.eva.lib.metadata.StudyCounts;
 import uk.ac.ebi.eva.lib.metadata.StudyDBAdaptor;
 import uk.ac.ebi.eva.lib.utils.QueryOptions;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 import uk.ac.ebi.eva.lib.utils.QueryUtils;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 public class ArchiveWSServerHelper {
 
+    private static final long STATS_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final int MAXIMUM_CACHED_STATS = 500;
+
+    /**
+     * Stats of the studies, keyed by the sorted sets of species and types they were filtered by
+     */
+    private final Map<List<TreeSet<String>>, CachedStats> studiesStats = Collections.synchronizedMap(
+            new LinkedHashMap<List<TreeSet<String>>, CachedStats>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<TreeSet<String>>, CachedStats> eldest) {
+                    return size() > MAXIMUM_CACHED_STATS;
+                }
+            });
+
+    private static class CachedStats {
+
+        private final QueryResult queryResult;
+
+        private final long expirationTime;
+
+        CachedStats(QueryResult queryResult, long expirationTime) {
+            this.queryResult = queryResult;
+            this.expirationTime = expirationTime;
+        }
+    }
+
     public QueryResponse getStudies(List<String> species, List<String> types, QueryUtils queryUtils,
                                     StudyDBAdaptor studyDBAdaptor, String version) {
         queryUtils.initializeQuery();
@@ -55,15 +88,25 @@ public class ArchiveWSServerHelper {
             queryUtils.getQueryOptions().put("type", types);
         }
 
-        QueryOptions queryOptions = queryUtils.getQueryOptions();
+        List<TreeSet<String>> statsKey = Arrays.asList(
+                new TreeSet<>(species != null ? species : Collections.emptyList()),
+                new TreeSet<>(types != null ? types : Collections.emptyList()));
+        long now = System.currentTimeMillis();
+        CachedStats cachedStats = studiesStats.get(statsKey);
+        if (cachedStats == null || cachedStats.expirationTime < now) {
+            QueryResult queryResult = countStudiesPerSpeciesAndType(queryUtils.getQueryOptions(), archiveDBAdaptor);
+            cachedStats = new CachedStats(queryResult, now + STATS_TIME_TO_LIVE_MILLIS);
+            studiesStats.put(statsKey, cachedStats);
+        }
 
-        QueryResult<Map.Entry<String, Long>> resultSpecies, resultTypes;
+        return queryUtils.setQueryResponse(cachedStats.queryResult, version);
+    }
 
-        resultSpecies = archiveDBAdaptor.countStudiesPerSpecies(queryOptions);
-        resultTypes = archiveDBAdaptor.countStudiesPerType(queryOptions);
+    private QueryResult countStudiesPerSpeciesAndType(QueryOptions queryOptions, ArchiveDBAdaptor archiveDBAdaptor) {
+        StudyCounts studyCounts = archiveDBAdaptor.countStudiesPerSpeciesAndType(queryOptions);
 
         QueryResult combinedQueryResult = new QueryResult();
-        combinedQueryResult.setDbTime(resultSpecies.getDbTime() + resultTypes.getDbTime());
+        combinedQueryResult.setDbTime(studyCounts.getDbTime());
 
         JsonNodeFactory factory = new JsonNodeFactory(true);
         ObjectNode root = factory.objectNode();
@@ -72,19 +115,19 @@ public class ArchiveWSServerHelper {
 
         // Species
         ObjectNode speciesNode = factory.objectNode();
-        for (Map.Entry<String, Long> speciesCount : resultSpecies.getResult()) {
+        for (Map.Entry<String, Long> speciesCount : studyCounts.getPerSpecies()) {
             speciesNode.put(speciesCount.getKey(), speciesCount.getValue());
         }
         root.put("species", speciesNode);
 
         // Types
         ObjectNode typesNode = factory.objectNode();
-        for (Map.Entry<String, Long> typesCount : resultTypes.getResult()) {
+        for (Map.Entry<String, Long> typesCount : studyCounts.getPerType()) {
             typesNode.put(typesCount.getKey(), typesCount.getValue());
         }
         root.put("type", typesNode);
 
-        return queryUtils.setQueryResponse(combinedQueryResult, version);
+        return combinedQueryResult;
     }
 
 }
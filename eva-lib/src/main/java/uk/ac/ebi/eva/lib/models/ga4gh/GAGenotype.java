@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.models.ga4gh;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A VCF genotype such as 0|1 converted to the GA4GH representation: the allele indexes, where a missing allele is -1,
+ * and whether it is phased.
+ *
+ * Datasets only contain a few distinct genotype strings, so the conversions are interned in a shared table and every
+ * call with the same genotype gets the same instance. The allele array is shared as well and must not be modified.
+ */
+public class GAGenotype {
+
+    public static final String PHASED = "phased";
+
+    public static final String UNPHASED = "unphased";
+
+    /**
+     * Limits the table in case some dataset contains unusual genotypes, e.g. with hundreds of alleles. Genotypes
+     * beyond the limit are converted every time.
+     */
+    private static final int MAX_INTERNED_GENOTYPES = 10000;
+
+    /**
+     * Alleles with more digits are parsed with {@link Integer#parseInt} to detect overflows
+     */
+    private static final int MAX_FAST_PARSED_ALLELE_DIGITS = 9;
+
+    private static final ConcurrentMap<String, GAGenotype> INTERNED_GENOTYPES = new ConcurrentHashMap<>();
+
+    private final int[] alleles;
+
+    private final boolean phased;
+
+    private GAGenotype(int[] alleles, boolean phased) {
+        this.alleles = alleles;
+        this.phased = phased;
+    }
+
+    /**
+     * @param genotype value of the GT field, with alleles separated by '/' or '|'
+     * @throws NumberFormatException if any allele is neither a number nor '.'
+     */
+    public static GAGenotype valueOf(String genotype) {
+        GAGenotype interned = INTERNED_GENOTYPES.get(genotype);
+        if (interned != null) {
+            return interned;
+        }
+        GAGenotype parsed = parse(genotype);
+        if (INTERNED_GENOTYPES.size() < MAX_INTERNED_GENOTYPES) {
+            interned = INTERNED_GENOTYPES.putIfAbsent(genotype, parsed);
+        }
+        return interned != null ? interned : parsed;
+    }
+
+    private static GAGenotype parse(String genotype) {
+        int numberOfAlleles = 1;
+        boolean phased = false;
+        for (int i = 0; i < genotype.length(); i++) {
+            char character = genotype.charAt(i);
+            if (character == '/' || character == '|') {
+                numberOfAlleles++;
+                phased |= character == '|';
+            }
+        }
+
+        int[] alleles = new int[numberOfAlleles];
+        int allele = 0;
+        int alleleStart = 0;
+        for (int i = 0; i <= genotype.length(); i++) {
+            if (i == genotype.length() || genotype.charAt(i) == '/' || genotype.charAt(i) == '|') {
+                alleles[allele++] = parseAllele(genotype, alleleStart, i);
+                alleleStart = i + 1;
+            }
+        }
+        return new GAGenotype(alleles, phased);
+    }
+
+    private static int parseAllele(String genotype, int start, int end) {
+        if (end - start == 1 && genotype.charAt(start) == '.') {
+            return -1;
+        }
+        if (end == start || end - start > MAX_FAST_PARSED_ALLELE_DIGITS) {
+            return Integer.parseInt(genotype.substring(start, end));
+        }
+        int allele = 0;
+        for (int i = start; i < end; i++) {
+            char digit = genotype.charAt(i);
+            if (digit < '0' || digit > '9') {
+                // let parseInt accept or reject it, e.g. "+1" is accepted
+                return Integer.parseInt(genotype.substring(start, end));
+            }
+            allele = allele * 10 + (digit - '0');
+        }
+        return allele;
+    }
+
+    /**
+     * @return the shared allele indexes, which must not be modified
+     */
+    public int[] getAlleles() {
+        return alleles;
+    }
+
+    public boolean isPhased() {
+        return phased;
+    }
+
+    public String getPhaseSet() {
+        return phased ? PHASED : UNPHASED;
+    }
+}
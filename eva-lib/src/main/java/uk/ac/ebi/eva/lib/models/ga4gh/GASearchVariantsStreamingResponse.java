@@ -0,0 +1,51 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.models.ga4gh;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.lib.json.GASearchVariantsStreamingResponseSerializer;
+
+import java.util.List;
+
+/**
+ * Serialized as a {@link GASearchVariantsResponse}, but the variants are converted to the GA4GH model while they are
+ * written, using {@link GAVariantWriter}
+ */
+@JsonSerialize(using = GASearchVariantsStreamingResponseSerializer.class)
+public class GASearchVariantsStreamingResponse {
+
+    /**
+     * Sorted by chromosome and start
+     */
+    private final List<VariantWithSamplesAndAnnotation> variants;
+
+    private final String nextPageToken;
+
+    public GASearchVariantsStreamingResponse(List<VariantWithSamplesAndAnnotation> variants, String nextPageToken) {
+        this.variants = variants;
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<VariantWithSamplesAndAnnotation> getVariants() {
+        return variants;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+}
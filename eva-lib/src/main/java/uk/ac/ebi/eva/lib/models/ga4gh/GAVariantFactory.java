@@ -21,7 +21,6 @@ import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -82,27 +81,17 @@ public class GAVariantFactory {
     }
 
     private static GACall[] parseCalls(Map<String, Map<String, String>> samples) {
-        List<GACall> calls = new LinkedList<>();
+        GACall[] calls = new GACall[samples.size()];
 
+        int i = 0;
         for (Map.Entry<String, Map<String, String>> sample : samples.entrySet()) {
-            Map<String, String> attrs = sample.getValue();
-
             // Transform genotype with form like 0|0 to the GA4GH style
-            String gtField = attrs.get("GT");
-            String[] alleles = gtField.split("/|\\|", -1);
-            int[] genotype = new int[alleles.length];
-            for (int i = 0; i < alleles.length; i++) {
-                genotype[i] = (alleles[i].equals(".")) ? -1 : Integer.parseInt(alleles[i]);
-            }
-
-            // Check whether it is phased depending on the allele separator
-            String phaseSet = gtField.contains("|") ? "phased" : "unphased";
-
-            // Create the call object
-            calls.add(new GACall(sample.getKey(), sample.getKey(), genotype, phaseSet, null, null));
+            GAGenotype genotype = GAGenotype.valueOf(sample.getValue().get("GT"));
+            calls[i++] = new GACall(sample.getKey(), sample.getKey(), genotype.getAlleles(), genotype.getPhaseSet(),
+                                    null, null);
         }
 
-        return calls.toArray(new GACall[calls.size()]);
+        return calls;
     }
 
 }
\ No newline at end of file
@@ -21,76 +21,36 @@ import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 public class GAVariantSetFactory {
 
     public static List<GAVariantSet> create(List<VariantSource> variantSources) {
+        return create(variantSources, GAVariantSetFactory::parseMetadata);
+    }
+
+    /**
+     * @param metadataProvider gives the metadata of each file, e.g. from a cache
+     */
+    public static List<GAVariantSet> create(List<VariantSource> variantSources,
+                                            Function<VariantSource, List<GAVariantSetMetadata>> metadataProvider) {
         Set<GAVariantSet> gaVariantSets = new LinkedHashSet<>();
 
         for (VariantSource source : variantSources) {
-            // TODO This header should be already split
-            List<GAVariantSetMetadata> setMetadata = new ArrayList<>();
-            String header = source.getMetadata().get("header").toString();
-
-            for (String line : header.split("\n")) {
-                if (line.startsWith("#CHROM")) {
-                    continue;
-                }
-
-                GAVariantSetMetadata metadata = getMetadataLine(line);
-                setMetadata.add(metadata);
-            }
-
-            GAVariantSet variantSet = new GAVariantSet(source.getFileId(), source.getStudyId(), setMetadata);
+            GAVariantSet variantSet = new GAVariantSet(source.getFileId(), source.getStudyId(),
+                                                       metadataProvider.apply(source));
             gaVariantSets.add(variantSet);
         }
 
         return new ArrayList<>(gaVariantSets);
     }
 
-    private static GAVariantSetMetadata getMetadataLine(String line) {
-        GAVariantSetMetadata metadata = new GAVariantSetMetadata();
-        // Split by square brackets that are NOT between quotes
-        String[] split = line.split("(<|>)(?=([^\"]*\"[^\"]*\")*[^\"]*$)");
-
-        if (split.length > 1) { // Header entries like INFO or FORMAT
-            // Remove leading ## and trailing equals symbol
-            metadata.setKey(split[0].substring(2, split[0].length()-1));
-            metadata.setValue(split[1]);
-
-            // Split by commas that are NOT between quotes
-            String[] valueSplit = split[1].split(",(?=([^\"]*\"[^\"]*\")*[^\"]*$)");
-
-            for (String pair : valueSplit) { // Key-value pairs
-                String[] pairSplit = pair.split("=", 2);
-                switch (pairSplit[0]) {
-                    case "ID":
-                        metadata.setId(pairSplit[1]);
-                        break;
-                    case "Number":
-                        metadata.setNumber(pairSplit[1]);
-                        break;
-                    case "Type":
-                        metadata.setType(pairSplit[1]);
-                        break;
-                    case "Description":
-                        metadata.setDescription(pairSplit[1]);
-                        break;
-                    default:
-                        metadata.addInfo(pairSplit[0], pairSplit[1]);
-                }
-            }
-        } else {
-            // Simpler entry like "assembly=GRCh37"
-            split = line.split("=", 2);
-            // Remove leading ## and trailing equals symbol
-            metadata.setKey(split[0].substring(2));
-            metadata.setId(split[0].substring(2));
-            if (split.length > 1) {
-                metadata.setValue(split[1]);
-            }
-        }
+    public static List<GAVariantSetMetadata> parseMetadata(VariantSource source) {
+        // TODO This header should be already split
+        return GAVariantSetMetadataParser.parse(getHeader(source));
+    }
 
-        return metadata;
+    public static String getHeader(VariantSource source) {
+        return source.getMetadata().get("header").toString();
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.models.ga4gh;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the header of a VCF file into GA4GH metadata entries, one per line except the "#CHROM" one.
+ *
+ * Structured lines such as ##INFO=<ID=AC,Number=A,...> are split by angle brackets and commas, except those between
+ * double quotes. A separator is considered to be between quotes if an odd number of quotes follow it in the line, as
+ * the regular expressions previously used did, so that the result is the same. Every line is scanned a fixed number
+ * of times, instead of looking ahead to the end of the line from every character.
+ */
+public class GAVariantSetMetadataParser {
+
+    private static final String CHROM_LINE_PREFIX = "#CHROM";
+
+    private GAVariantSetMetadataParser() {
+    }
+
+    public static List<GAVariantSetMetadata> parse(String header) {
+        List<GAVariantSetMetadata> setMetadata = new ArrayList<>();
+        for (String line : header.split("\n")) {
+            if (line.startsWith(CHROM_LINE_PREFIX)) {
+                continue;
+            }
+            setMetadata.add(parseLine(line));
+        }
+        return setMetadata;
+    }
+
+    static GAVariantSetMetadata parseLine(String line) {
+        GAVariantSetMetadata metadata = new GAVariantSetMetadata();
+        List<String> split = splitOutsideQuotes(line, '<', '>');
+
+        if (split.size() > 1) { // Header entries like INFO or FORMAT
+            // Remove leading ## and trailing equals symbol
+            String key = split.get(0);
+            metadata.setKey(key.substring(2, key.length() - 1));
+            metadata.setValue(split.get(1));
+
+            for (String pair : splitOutsideQuotes(split.get(1), ',', ',')) { // Key-value pairs
+                String[] pairSplit = pair.split("=", 2);
+                switch (pairSplit[0]) {
+                    case "ID":
+                        metadata.setId(pairSplit[1]);
+                        break;
+                    case "Number":
+                        metadata.setNumber(pairSplit[1]);
+                        break;
+                    case "Type":
+                        metadata.setType(pairSplit[1]);
+                        break;
+                    case "Description":
+                        metadata.setDescription(pairSplit[1]);
+                        break;
+                    default:
+                        metadata.addInfo(pairSplit[0], pairSplit[1]);
+                }
+            }
+        } else {
+            // Simpler entry like "assembly=GRCh37"
+            String[] keyValue = line.split("=", 2);
+            // Remove leading ##
+            metadata.setKey(keyValue[0].substring(2));
+            metadata.setId(keyValue[0].substring(2));
+            if (keyValue.length > 1) {
+                metadata.setValue(keyValue[1]);
+            }
+        }
+
+        return metadata;
+    }
+
+    /**
+     * Splits by either separator when it is followed by an even number of double quotes. As {@link String#split},
+     * returns the whole text if there is no separator, and drops trailing empty tokens otherwise.
+     */
+    static List<String> splitOutsideQuotes(String text, char separator, char otherSeparator) {
+        int remainingQuotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                remainingQuotes++;
+            }
+        }
+
+        List<String> tokens = new ArrayList<>();
+        int tokenStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char character = text.charAt(i);
+            if (character == '"') {
+                remainingQuotes--;
+            } else if ((character == separator || character == otherSeparator) && remainingQuotes % 2 == 0) {
+                tokens.add(text.substring(tokenStart, i));
+                tokenStart = i + 1;
+            }
+        }
+        if (tokens.isEmpty()) {
+            tokens.add(text);
+            return tokens;
+        }
+
+        tokens.add(text.substring(tokenStart));
+        int size = tokens.size();
+        while (size > 0 && tokens.get(size - 1).isEmpty()) {
+            tokens.remove(--size);
+        }
+        return tokens;
+    }
+}
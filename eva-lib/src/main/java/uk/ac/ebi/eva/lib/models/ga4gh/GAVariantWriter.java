@@ -0,0 +1,265 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.models.ga4gh;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import uk.ac.ebi.eva.commons.core.models.ws.VariantSourceEntryWithSampleNames;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes variants as GA4GH JSON directly to a generator, producing the same JSON as serializing the result of
+ * {@link GAVariantFactory#create} with the NON_EMPTY inclusion used by the web services, but without building any
+ * {@link GAVariant}, {@link GACall} or INFO map. The INFO attributes are written in the order of the file attributes,
+ * which may differ from the order of the map built by the factory.
+ *
+ * Buffers are reused between variants, so a writer must not be shared between threads. The creation and update
+ * timestamps are the same for every variant written.
+ */
+public class GAVariantWriter {
+
+    private static final SerializableString ID = new SerializedString("id");
+
+    private static final SerializableString VARIANT_SET_ID = new SerializedString("variantSetId");
+
+    private static final SerializableString NAMES = new SerializedString("names");
+
+    private static final SerializableString CREATED = new SerializedString("created");
+
+    private static final SerializableString UPDATED = new SerializedString("updated");
+
+    private static final SerializableString REFERENCE_NAME = new SerializedString("referenceName");
+
+    private static final SerializableString START = new SerializedString("start");
+
+    private static final SerializableString END = new SerializedString("end");
+
+    private static final SerializableString REFERENCE_BASES = new SerializedString("referenceBases");
+
+    private static final SerializableString ALTERNATE_BASES = new SerializedString("alternateBases");
+
+    private static final SerializableString INFO = new SerializedString("info");
+
+    private static final SerializableString CALLS = new SerializedString("calls");
+
+    private static final SerializableString CALL_SET_ID = new SerializedString("callSetId");
+
+    private static final SerializableString CALL_SET_NAME = new SerializedString("callSetName");
+
+    private static final SerializableString GENOTYPE = new SerializedString("genotype");
+
+    private static final SerializableString PHASESET = new SerializedString("phaseset");
+
+    private static final SerializableString PHASED = new SerializedString(GAGenotype.PHASED);
+
+    private static final SerializableString UNPHASED = new SerializedString(GAGenotype.UNPHASED);
+
+    private final JsonGenerator generator;
+
+    private final long timestamp;
+
+    private final StringBuilder idBuilder = new StringBuilder();
+
+    private char[] idBuffer = new char[64];
+
+    /**
+     * Entries already written at the current position, to skip the ones the factory would merge as equal
+     */
+    private final List<VariantWithSamplesAndAnnotation> writtenVariants = new ArrayList<>();
+
+    private final List<VariantSourceEntryWithSampleNames> writtenSourceEntries = new ArrayList<>();
+
+    /**
+     * @param timestamp used as creation and update time of all the variants
+     */
+    public GAVariantWriter(JsonGenerator generator, long timestamp) {
+        this.generator = generator;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return whether {@link #writeVariants} would write any GA4GH variant
+     */
+    public static boolean hasGAVariants(List<VariantWithSamplesAndAnnotation> variants) {
+        for (VariantWithSamplesAndAnnotation variant : variants) {
+            if (!variant.getSourceEntries().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes an array with a GA4GH variant per file of every variant. The variants must be sorted by chromosome and
+     * start, as returned by region queries, so that duplicates are skipped as {@link GAVariantFactory} does.
+     */
+    public void writeVariants(List<VariantWithSamplesAndAnnotation> variants) throws IOException {
+        generator.writeStartArray();
+        writtenVariants.clear();
+        writtenSourceEntries.clear();
+        for (VariantWithSamplesAndAnnotation variant : variants) {
+            if (!writtenVariants.isEmpty() && !isSamePosition(writtenVariants.get(0), variant)) {
+                writtenVariants.clear();
+                writtenSourceEntries.clear();
+            }
+            for (VariantSourceEntryWithSampleNames file : variant.getSourceEntries()) {
+                if (!isAlreadyWritten(variant, file)) {
+                    writeVariant(variant, file);
+                    writtenVariants.add(variant);
+                    writtenSourceEntries.add(file);
+                }
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private static boolean isSamePosition(VariantWithSamplesAndAnnotation variant,
+                                          VariantWithSamplesAndAnnotation other) {
+        long start = variant.getStart();
+        long otherStart = other.getStart();
+        return Objects.equals(variant.getChromosome(), other.getChromosome()) && start == otherStart;
+    }
+
+    /**
+     * Same fields compared by {@link GAVariant#equals}, except chromosome and start, which are already known to match
+     */
+    private boolean isAlreadyWritten(VariantWithSamplesAndAnnotation variant, VariantSourceEntryWithSampleNames file) {
+        for (int i = 0; i < writtenVariants.size(); i++) {
+            VariantWithSamplesAndAnnotation writtenVariant = writtenVariants.get(i);
+            VariantSourceEntryWithSampleNames writtenFile = writtenSourceEntries.get(i);
+            long writtenEnd = writtenVariant.getEnd();
+            long end = variant.getEnd();
+            if (Objects.equals(writtenFile.getFileId(), file.getFileId()) && writtenEnd == end &&
+                    Objects.equals(writtenVariant.getReference(), variant.getReference()) &&
+                    Objects.equals(writtenVariant.getAlternate(), variant.getAlternate()) &&
+                    Arrays.equals(writtenFile.getSecondaryAlternates(), file.getSecondaryAlternates())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeVariant(VariantWithSamplesAndAnnotation variant, VariantSourceEntryWithSampleNames file)
+            throws IOException {
+        generator.writeStartObject();
+
+        writeId(variant);
+        writeNonEmptyStringField(VARIANT_SET_ID, file.getFileId());
+        if (!variant.getIds().isEmpty()) {
+            generator.writeFieldName(NAMES);
+            generator.writeStartArray();
+            for (String name : variant.getIds()) {
+                generator.writeString(name);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeFieldName(CREATED);
+        generator.writeNumber(timestamp);
+        generator.writeFieldName(UPDATED);
+        generator.writeNumber(timestamp);
+        writeNonEmptyStringField(REFERENCE_NAME, variant.getChromosome());
+        generator.writeFieldName(START);
+        generator.writeNumber(variant.getStart());
+        generator.writeFieldName(END);
+        generator.writeNumber(variant.getEnd());
+        writeNonEmptyStringField(REFERENCE_BASES, variant.getReference());
+
+        generator.writeFieldName(ALTERNATE_BASES);
+        generator.writeStartArray();
+        generator.writeString(variant.getAlternate());
+        for (String secondaryAlternate : file.getSecondaryAlternates()) {
+            generator.writeString(secondaryAlternate);
+        }
+        generator.writeEndArray();
+
+        if (!file.getAttributes().isEmpty()) {
+            generator.writeFieldName(INFO);
+            writeInfo(file.getAttributes());
+        }
+        if (!file.getSamplesData().isEmpty()) {
+            generator.writeFieldName(CALLS);
+            writeCalls(file.getSamplesDataMap());
+        }
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Equivalent to formatting "%s_%d_%s_%s" with the chromosome, start, reference and alternate
+     */
+    private void writeId(VariantWithSamplesAndAnnotation variant) throws IOException {
+        idBuilder.setLength(0);
+        idBuilder.append(variant.getChromosome()).append('_').append(variant.getStart()).append('_')
+                 .append(variant.getReference()).append('_').append(variant.getAlternate());
+        int length = idBuilder.length();
+        if (idBuffer.length < length) {
+            idBuffer = new char[Math.max(length, idBuffer.length * 2)];
+        }
+        idBuilder.getChars(0, length, idBuffer, 0);
+        generator.writeFieldName(ID);
+        generator.writeString(idBuffer, 0, length);
+    }
+
+    private void writeNonEmptyStringField(SerializableString fieldName, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            generator.writeFieldName(fieldName);
+            generator.writeString(value);
+        }
+    }
+
+    /**
+     * Writes every attribute as a single-element list, in the order of the attributes map
+     */
+    private void writeInfo(Map<String, String> attributes) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            generator.writeFieldName(attribute.getKey());
+            generator.writeStartArray();
+            generator.writeString(attribute.getValue());
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeCalls(Map<String, Map<String, String>> samples) throws IOException {
+        generator.writeStartArray();
+        for (Map.Entry<String, Map<String, String>> sample : samples.entrySet()) {
+            GAGenotype genotype = GAGenotype.valueOf(sample.getValue().get("GT"));
+            generator.writeStartObject();
+            writeNonEmptyStringField(CALL_SET_ID, sample.getKey());
+            writeNonEmptyStringField(CALL_SET_NAME, sample.getKey());
+            generator.writeFieldName(GENOTYPE);
+            generator.writeStartArray();
+            for (int allele : genotype.getAlleles()) {
+                generator.writeNumber(allele);
+            }
+            generator.writeEndArray();
+            generator.writeFieldName(PHASESET);
+            generator.writeString(genotype.isPhased() ? PHASED : UNPHASED);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+}
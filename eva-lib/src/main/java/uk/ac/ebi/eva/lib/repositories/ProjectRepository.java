@@ -16,7 +16,13 @@
 package uk.ac.ebi.eva.lib.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import uk.ac.ebi.eva.lib.entities.Project;
 
+import java.sql.Timestamp;
+
 public interface ProjectRepository extends JpaRepository<Project,String > {
+
+    @Query("select max(p.evaTimestamp) from Project p")
+    Timestamp findLastEvaTimestamp();
 }
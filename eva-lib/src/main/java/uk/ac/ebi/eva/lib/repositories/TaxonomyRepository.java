@@ -16,6 +16,7 @@
 package uk.ac.ebi.eva.lib.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import uk.ac.ebi.eva.lib.models.Assembly;
 import uk.ac.ebi.eva.lib.entities.Taxonomy;
 
@@ -26,4 +27,10 @@ public interface TaxonomyRepository extends JpaRepository<Taxonomy, Long> {
     List<Assembly> getBrowsableSpecies();
     List<Assembly> getAccessionedSpecies();
 
+    @Query(value = "select count(*) from browsable_file where loaded = true and deleted = false", nativeQuery = true)
+    Long countLoadedBrowsableFiles();
+
+    @Query(value = "select count(*) from dbsnp_assemblies where loaded = true", nativeQuery = true)
+    Long countLoadedDbsnpAssemblies();
+
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.lib.utils;
+
+/**
+ * How the total number of results of a paged query is obtained:
+ * <ul>
+ * <li>EXACT: a full count query is run along with every page</li>
+ * <li>ESTIMATE: a recent count of the same query is reused, and the last page is counted exactly for free. If there
+ * is no recent count, the total is only a lower bound, and the count is run in the background for later pages</li>
+ * <li>NONE: no count is run; one extra element is fetched to know whether there is a next page, and the total is
+ * only a lower bound</li>
+ * </ul>
+ */
+public enum CountMode {
+
+    EXACT,
+
+    ESTIMATE,
+
+    NONE;
+
+    public static CountMode parse(String countMode) {
+        for (CountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(countMode)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Please specify a count mode among exact, estimate and none");
+    }
+}
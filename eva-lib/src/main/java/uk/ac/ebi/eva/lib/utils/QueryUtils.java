@@ -57,6 +57,8 @@ public class QueryUtils {
         int limit = (multivaluedMap.get("limit") != null) ? Integer.parseInt(multivaluedMap.get("limit")[0]) : -1;
         int skip = (multivaluedMap.get("skip") != null) ? Integer.parseInt(multivaluedMap.get("skip")[0]) : -1;
         boolean count = (multivaluedMap.get("count") != null) ? multivaluedMap.get("count")[0].equals("true") : false ;
+        String countMode = (multivaluedMap.get("countMode") != null) ? multivaluedMap.get("countMode")[0] :
+                (multivaluedMap.get("count") != null && !count) ? CountMode.NONE.name() : CountMode.EXACT.name();
 
         String[] exclude = multivaluedMap.get("exclude");
         String[] include = multivaluedMap.get("include");
@@ -67,6 +69,7 @@ public class QueryUtils {
         queryOptions.put("limit", (limit > 0) ? limit : -1);
         queryOptions.put("skip", (skip > 0) ? skip : -1);
         queryOptions.put("count", count);
+        queryOptions.put("countMode", countMode);
     }
 
     public <T> QueryResponse<T> setQueryResponse(List<T> coll, String version) {
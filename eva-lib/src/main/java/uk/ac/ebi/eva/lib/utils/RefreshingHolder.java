@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Holds a value that is expensive to build and rarely changes, such as an in-memory index of a small database table.
+ * The value is built by the first request that needs it, and rebuilt by a background thread every refresh interval
+ * after that, so requests never wait for a rebuild. If rebuilding fails, the error is logged and the previous value
+ * keeps being served until the next attempt.
+ */
+public class RefreshingHolder<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshingHolder.class);
+
+    private final String name;
+
+    private final Supplier<T> loader;
+
+    private final long refreshIntervalMillis;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile T value;
+
+    /**
+     * Guarded by refreshLock, started once the first value is loaded
+     */
+    private ScheduledExecutorService refreshExecutor;
+
+    private boolean closed;
+
+    /**
+     * @param name used to name the refresh thread and in the logs
+     */
+    public RefreshingHolder(String name, Supplier<T> loader, long refreshIntervalMillis) {
+        this.name = name;
+        this.loader = loader;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+    }
+
+    /**
+     * @return the current value, which is only loaded in the calling thread if it has never been loaded
+     */
+    public T get() {
+        T currentValue = value;
+        if (currentValue != null) {
+            return currentValue;
+        }
+        refreshLock.lock();
+        try {
+            return value != null ? value : refresh();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Loads the value again in the calling thread, e.g. right after the data it is built from has changed
+     *
+     * @return the new value
+     * @throws RuntimeException thrown by the loader, in which case the previous value is kept
+     */
+    public T refresh() {
+        refreshLock.lock();
+        try {
+            value = Objects.requireNonNull(loader.get());
+            scheduleRefresh();
+            return value;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void scheduleRefresh() {
+        if (refreshExecutor != null || closed) {
+            return;
+        }
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, name + "-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.scheduleWithFixedDelay(this::refreshInBackground, refreshIntervalMillis,
+                                               refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.error("Could not refresh " + name + ", the previous value will be served", e);
+        }
+    }
+
+    /**
+     * Stops refreshing the value in the background
+     */
+    @Override
+    public void close() {
+        refreshLock.lock();
+        try {
+            closed = true;
+            if (refreshExecutor != null) {
+                refreshExecutor.shutdownNow();
+                refreshExecutor = null;
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.versioning;
+
+import org.springframework.util.DigestUtils;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Adds a weak ETag to the GET and HEAD responses whose data version is known, and answers with 304 (Not Modified)
+ * the requests whose If-None-Match header matches it, without running any controller or database query.
+ *
+ * The ETag is a digest of the data version and the normalized request: path, parameters sorted by name and value,
+ * and Accept header. The response is therefore considered unchanged while nothing is loaded into the database it is
+ * read from, even if volatile fields such as the query time differ, which is why the ETag is weak.
+ *
+ * Only successful (2xx) responses carry the ETag, so that an error is never turned into a 304 later on. As the
+ * representation depends on the Accept header, every versioned response also varies on it.
+ */
+public class ConditionalRequestFilter implements Filter {
+
+    static final String ETAG = "ETag";
+
+    static final String IF_NONE_MATCH = "If-None-Match";
+
+    static final String VARY = "Vary";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private final Function<HttpServletRequest, String> dataVersionResolver;
+
+    private final AtomicLong versionedRequests = new AtomicLong();
+
+    private final AtomicLong conditionalRequests = new AtomicLong();
+
+    private final AtomicLong notModifiedResponses = new AtomicLong();
+
+    /**
+     * @param dataVersionResolver returns the version of the data a request reads, or null if it is unknown, in which
+     *                            case the request is served as usual without an ETag
+     */
+    public ConditionalRequestFilter(Function<HttpServletRequest, String> dataVersionResolver) {
+        this.dataVersionResolver = dataVersionResolver;
+    }
+
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        HttpServletResponse response = (HttpServletResponse) res;
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        String dataVersion = dataVersionResolver.apply(request);
+        if (dataVersion == null) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        versionedRequests.incrementAndGet();
+        String eTag = generateETag(dataVersion, request);
+        response.addHeader(VARY, "Accept");
+
+        String ifNoneMatch = request.getHeader(IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            conditionalRequests.incrementAndGet();
+            if (matches(ifNoneMatch, eTag)) {
+                notModifiedResponses.incrementAndGet();
+                response.setHeader(ETAG, eTag);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        ETagResponseWrapper responseWrapper = new ETagResponseWrapper(response, eTag);
+        chain.doFilter(req, responseWrapper);
+        responseWrapper.addETagIfSuccessful();
+    }
+
+    static String generateETag(String dataVersion, HttpServletRequest request) {
+        StringBuilder normalizedRequest = new StringBuilder(dataVersion);
+        normalizedRequest.append('\n').append(request.getRequestURI().substring(request.getContextPath().length()));
+
+        Map<String, String[]> sortedParameters = new TreeMap<>(request.getParameterMap());
+        for (Map.Entry<String, String[]> parameter : sortedParameters.entrySet()) {
+            String[] values = parameter.getValue().clone();
+            Arrays.sort(values);
+            normalizedRequest.append('\n').append(parameter.getKey()).append('=').append(String.join(",", values));
+        }
+
+        String accept = request.getHeader("Accept");
+        if (accept != null) {
+            normalizedRequest.append('\n').append(accept.replace(" ", "").toLowerCase(Locale.ROOT));
+        }
+
+        byte[] bytes = normalizedRequest.toString().getBytes(StandardCharsets.UTF_8);
+        return WEAK_PREFIX + "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+    }
+
+    /**
+     * Weak comparison, as required for If-None-Match: the W/ prefixes are ignored on both sides
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        String opaqueTag = stripWeakPrefix(eTag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || stripWeakPrefix(candidate).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String eTag) {
+        return eTag.startsWith(WEAK_PREFIX) ? eTag.substring(WEAK_PREFIX.length()) : eTag;
+    }
+
+    /**
+     * @return number of GET and HEAD requests whose data version was known
+     */
+    public long getVersionedRequests() {
+        return versionedRequests.get();
+    }
+
+    /**
+     * @return number of versioned requests that carried an If-None-Match header
+     */
+    public long getConditionalRequests() {
+        return conditionalRequests.get();
+    }
+
+    /**
+     * @return number of conditional requests answered with 304
+     */
+    public long getNotModifiedResponses() {
+        return notModifiedResponses.get();
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException { }
+
+    /**
+     * Adds the ETag once the status of the response is known, i.e. when the body starts being written or, if there
+     * is no body, when the request has been handled, provided that the status is successful by then
+     */
+    private static class ETagResponseWrapper extends HttpServletResponseWrapper {
+
+        private final String eTag;
+
+        private boolean decided;
+
+        ETagResponseWrapper(HttpServletResponse response, String eTag) {
+            super(response);
+            this.eTag = eTag;
+        }
+
+        void addETagIfSuccessful() {
+            if (decided || isCommitted()) {
+                return;
+            }
+            decided = true;
+            if (getStatus() >= 200 && getStatus() < 300) {
+                setHeader(ETAG, eTag);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addETagIfSuccessful();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addETagIfSuccessful();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addETagIfSuccessful();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            decided = true;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            decided = true;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            decided = true;
+            super.sendRedirect(location);
+        }
+    }
+
+    @Override
+    public void destroy() { }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.versioning;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the data version of every database behind the web services, e.g. one per Mongo species database and one for
+ * the whole EVAPRO schema. Each {@link DataVersionSource} is registered under a scope name, and the versions it
+ * returns are reused for a short while, so answering a conditional request doesn't cost a query per request.
+ *
+ * Versions that can't be worked out (e.g. because the database is down) are remembered as null for the same time, and
+ * the requests that depend on them are served without validators.
+ */
+public class DataVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataVersionService.class);
+
+    static final int MAX_CACHED_VERSIONS = 1000;
+
+    private final Map<String, DataVersionSource> sources;
+
+    private final long timeToLiveMillis;
+
+    private final Map<String, CachedVersion> versions;
+
+    public DataVersionService(Map<String, DataVersionSource> sources, long timeToLiveMillis) {
+        this.sources = new HashMap<>(sources);
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.versions = new LinkedHashMap<String, CachedVersion>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedVersion> eldest) {
+                return size() > MAX_CACHED_VERSIONS;
+            }
+        };
+    }
+
+    /**
+     * @param scope name of the source the database belongs to
+     * @param database name of the database, or null for the sources that don't need it
+     * @return the version of the data in that database, or null if the scope is unknown or the version can't be read
+     */
+    public String getVersion(String scope, String database) {
+        DataVersionSource source = sources.get(scope);
+        if (source == null) {
+            return null;
+        }
+
+        String key = database == null ? scope : scope + "/" + database;
+        long now = System.currentTimeMillis();
+        CachedVersion cachedVersion;
+        synchronized (versions) {
+            cachedVersion = versions.get(key);
+        }
+        if (cachedVersion != null && cachedVersion.expirationTime > now) {
+            return cachedVersion.version;
+        }
+
+        String version;
+        try {
+            version = source.getVersion(database);
+        } catch (RuntimeException e) {
+            logger.warn("Could not read the data version of {}: {}", key, e.getMessage());
+            version = null;
+        }
+        synchronized (versions) {
+            versions.put(key, new CachedVersion(version, now + timeToLiveMillis));
+        }
+        return version;
+    }
+
+    /**
+     * Forgets all the versions, e.g. right after loading data, so the next requests read them again
+     */
+    public void clear() {
+        synchronized (versions) {
+            versions.clear();
+        }
+    }
+
+    private static class CachedVersion {
+
+        private final String version;
+
+        private final long expirationTime;
+
+        CachedVersion(String version, long expirationTime) {
+            this.version = version;
+            this.expirationTime = expirationTime;
+        }
+    }
+}
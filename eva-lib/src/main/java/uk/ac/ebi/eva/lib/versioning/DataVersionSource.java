@@ -0,0 +1,29 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.versioning;
+
+/**
+ * Describes the current contents of a database with a short value, which must change whenever data is loaded into
+ * or removed from it.
+ */
+public interface DataVersionSource {
+
+    /**
+     * @param database name of the database, which sources backed by a single schema may ignore
+     * @return the current version of the data, or null if it can't be worked out
+     */
+    String getVersion(String database);
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.datastore;
+
+import com.github.fakemongo.Fongo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import uk.ac.ebi.eva.lib.eva_utils.MongoDatabaseContext;
+import uk.ac.ebi.eva.lib.eva_utils.MongoDatabaseContextFilter;
+import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class MongoDatabaseContextTest {
+
+    private ExecutorService singleThreadExecutor;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        singleThreadExecutor = Executors.newSingleThreadExecutor();
+        executor = MongoDatabaseContext.propagating(singleThreadExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        MultiMongoDbFactory.clearDatabaseNameForCurrentThread();
+        MultiMongoDbFactory.setDatabaseNameRequiredForCurrentThread(false);
+    }
+
+    @Test
+    public void databaseIsPropagatedToWorkerThreads() throws Exception {
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread("eva_hsapiens_grch37");
+
+        CompletableFuture<String> databaseInWorker = CompletableFuture.supplyAsync(
+                MultiMongoDbFactory::getDatabaseNameForCurrentThread, executor);
+
+        assertEquals("eva_hsapiens_grch37", databaseInWorker.get());
+        assertEquals("eva_hsapiens_grch37", executor.submit(
+                MultiMongoDbFactory::getDatabaseNameForCurrentThread).get());
+    }
+
+    @Test
+    public void workerThreadsDoNotKeepTheDatabaseOfPreviousTasks() throws Exception {
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread("eva_hsapiens_grch37");
+        executor.submit(() -> { }).get();
+
+        assertNull(singleThreadExecutor.submit(MultiMongoDbFactory::getDatabaseNameForCurrentThread).get());
+
+        MultiMongoDbFactory.clearDatabaseNameForCurrentThread();
+        assertNull(executor.submit(MultiMongoDbFactory::getDatabaseNameForCurrentThread).get());
+    }
+
+    @Test
+    public void filterClearsDatabaseAfterRequest() throws Exception {
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread("stale_database");
+        AtomicReference<String> databaseInRequest = new AtomicReference<>("not run");
+
+        new MongoDatabaseContextFilter(false).doFilter(
+                new MockHttpServletRequest(), new MockHttpServletResponse(), (request, response) -> {
+                    databaseInRequest.set(MultiMongoDbFactory.getDatabaseNameForCurrentThread());
+                    MultiMongoDbFactory.setDatabaseNameForCurrentThread("eva_hsapiens_grch37");
+                });
+
+        assertNull(databaseInRequest.get());
+        assertNull(MultiMongoDbFactory.getDatabaseNameForCurrentThread());
+    }
+
+    @Test
+    public void queryWithoutDatabaseFailsWhenRequired() throws Exception {
+        MultiMongoDbFactory factory = new MultiMongoDbFactory(new Fongo("default").getMongo(), "unusedDefaultDB");
+
+        new MongoDatabaseContextFilter(true).doFilter(
+                new MockHttpServletRequest(), new MockHttpServletResponse(), (request, response) -> {
+                    try {
+                        factory.getDb();
+                        fail("A query without database should have failed");
+                    } catch (IllegalStateException e) {
+                        // expected
+                    }
+                    MultiMongoDbFactory.setDatabaseNameForCurrentThread("eva_hsapiens_grch37");
+                    assertEquals("eva_hsapiens_grch37", factory.getDb().getName());
+                });
+
+        assertFalse(MultiMongoDbFactory.isDatabaseNameRequiredForCurrentThread());
+        assertEquals("unusedDefaultDB", factory.getDb().getName());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.datastore;
+
+import com.github.fakemongo.Fongo;
+import com.mongodb.BasicDBObject;
+import com.mongodb.MongoClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the routing of the databases to several clusters, each of them replaced by an in-memory server
+ */
+public class MultiMongoDbFactoryTest {
+
+    private static final String COLLECTION = "files";
+
+    private MongoClient defaultCluster;
+
+    private MongoClient humanCluster;
+
+    private MongoClient grch38Cluster;
+
+    private MultiMongoDbFactory factory;
+
+    @Before
+    public void setUp() {
+        defaultCluster = new Fongo("default").getMongo();
+        humanCluster = new Fongo("human").getMongo();
+        grch38Cluster = new Fongo("grch38").getMongo();
+        factory = new MultiMongoDbFactory(defaultCluster, "unusedDefaultDB", Arrays.asList(
+                new MultiMongoDbFactory.Route("human", Collections.emptyList(), "eva_hsapiens_.*", humanCluster),
+                new MultiMongoDbFactory.Route("grch38", Collections.singletonList("eva_hsapiens_grch38"), null,
+                                              grch38Cluster)));
+    }
+
+    @After
+    public void tearDown() {
+        MultiMongoDbFactory.clearDatabaseNameForCurrentThread();
+    }
+
+    @Test
+    public void databaseMatchingPatternIsReadFromItsCluster() {
+        insertDocumentThroughFactory("eva_hsapiens_grch37");
+
+        assertEquals(1, countDocuments(humanCluster, "eva_hsapiens_grch37"));
+        assertEquals(0, countDocuments(defaultCluster, "eva_hsapiens_grch37"));
+    }
+
+    @Test
+    public void exactNameTakesPrecedenceOverPattern() {
+        insertDocumentThroughFactory("eva_hsapiens_grch38");
+
+        assertEquals(1, countDocuments(grch38Cluster, "eva_hsapiens_grch38"));
+        assertEquals(0, countDocuments(humanCluster, "eva_hsapiens_grch38"));
+        assertEquals(0, countDocuments(defaultCluster, "eva_hsapiens_grch38"));
+    }
+
+    @Test
+    public void unmatchedDatabaseIsReadFromDefaultCluster() {
+        insertDocumentThroughFactory("eva_btaurus_umd31");
+
+        assertEquals(1, countDocuments(defaultCluster, "eva_btaurus_umd31"));
+        assertEquals(0, countDocuments(humanCluster, "eva_btaurus_umd31"));
+        assertEquals(0, countDocuments(grch38Cluster, "eva_btaurus_umd31"));
+    }
+
+    @Test
+    public void explicitDatabaseNameIsAlsoRouted() {
+        factory.getDb("eva_hsapiens_grch37").getCollection(COLLECTION).insert(new BasicDBObject("_id", "file"));
+
+        assertEquals(1, countDocuments(humanCluster, "eva_hsapiens_grch37"));
+        assertEquals(0, countDocuments(defaultCluster, "eva_hsapiens_grch37"));
+    }
+
+    private void insertDocumentThroughFactory(String databaseName) {
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+        assertEquals(databaseName, factory.getDb().getName());
+        factory.getDb().getCollection(COLLECTION).insert(new BasicDBObject("_id", "file"));
+    }
+
+    private long countDocuments(MongoClient cluster, String databaseName) {
+        return cluster.getDB(databaseName).getCollection(COLLECTION).count();
+    }
+}
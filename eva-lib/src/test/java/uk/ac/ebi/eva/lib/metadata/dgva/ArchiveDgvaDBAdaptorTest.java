@@ -15,6 +15,7 @@
  */
 package uk.ac.ebi.eva.lib.metadata.dgva;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,10 +23,12 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import uk.ac.ebi.eva.lib.metadata.StudyCounts;
 import uk.ac.ebi.eva.lib.utils.QueryOptions;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 import uk.ac.ebi.eva.lib.utils.QueryOptionsConstants;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -43,6 +46,14 @@ public class ArchiveDgvaDBAdaptorTest {
     @Autowired
     private ArchiveDgvaDBAdaptor archiveDgvaDBAdaptor;
 
+    @Autowired
+    private DgvaStudyIndexLoader dgvaStudyIndexLoader;
+
+    @Before
+    public void setUp() throws Exception {
+        dgvaStudyIndexLoader.refreshIndex();
+    }
+
     @Test
     public void countStudies() throws Exception {
         QueryResult<Long> queryResult = archiveDgvaDBAdaptor.countStudies();
@@ -153,4 +164,24 @@ public class ArchiveDgvaDBAdaptorTest {
     public void getBrowsableSpecies() throws Exception {
         archiveDgvaDBAdaptor.getBrowsableSpecies();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void countStudiesPerSpeciesAndTypeMatchesSeparateCounts() throws Exception {
+        QueryOptions typeFilter = new QueryOptions(QueryOptionsConstants.TYPE, DgvaStudyTestData.CONTROL_SET);
+        for (QueryOptions queryOptions : new QueryOptions[]{new QueryOptions(), typeFilter,
+                new QueryOptions(QueryOptionsConstants.SPECIES, HUMAN)}) {
+            StudyCounts studyCounts = archiveDgvaDBAdaptor.countStudiesPerSpeciesAndType(queryOptions);
+
+            assertEquals(toMap(archiveDgvaDBAdaptor.countStudiesPerSpecies(queryOptions).getResult()),
+                         toMap(studyCounts.getPerSpecies()));
+            assertEquals(toMap(archiveDgvaDBAdaptor.countStudiesPerType(queryOptions).getResult()),
+                         toMap(studyCounts.getPerType()));
+        }
+    }
+
+    private static Map<String, Long> toMap(List<Map.Entry<String, Long>> counts) {
+        Map<String, Long> map = new HashMap<>();
+        counts.forEach(count -> map.put(count.getKey(), count.getValue()));
+        return map;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata.dgva;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.lib.dgva_utils.DgvaDBUtils;
+import uk.ac.ebi.eva.lib.entities.DgvaStudyBrowser;
+import uk.ac.ebi.eva.lib.models.VariantStudy;
+import uk.ac.ebi.eva.lib.repositories.DgvaStudyBrowserRepository;
+import uk.ac.ebi.eva.lib.utils.QueryOptions;
+import uk.ac.ebi.eva.lib.utils.QueryOptionsConstants;
+import uk.ac.ebi.eva.lib.utils.QueryResult;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static uk.ac.ebi.eva.lib.metadata.MetadataTestData.HUMAN;
+import static uk.ac.ebi.eva.lib.metadata.MetadataTestData.MOUSE;
+
+/**
+ * Checks that the in-memory index returns the same studies and counts as the database queries it replaces, for several
+ * combinations of filters on the DGVA fixtures.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Sql({"classpath:dgva-schema.sql", "classpath:dgva-data.sql"})
+public class DgvaStudyIndexTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DgvaStudyBrowserRepository dgvaStudyBrowserRepository;
+
+    @Autowired
+    private DgvaStudyIndexLoader dgvaStudyIndexLoader;
+
+    @Autowired
+    private StudyDgvaDBAdaptor studyDgvaDBAdaptor;
+
+    @Autowired
+    private ArchiveDgvaDBAdaptor archiveDgvaDBAdaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        dgvaStudyIndexLoader.refreshIndex();
+        // generating the studies modifies the loaded entities, which must not reach the database
+        entityManager.clear();
+    }
+
+    @Test
+    public void unfiltered() throws Exception {
+        assertEquivalent(new QueryOptions());
+    }
+
+    @Test
+    public void filteringBySpecies() throws Exception {
+        assertEquivalent(new QueryOptions(QueryOptionsConstants.SPECIES, HUMAN));
+        assertEquivalent(new QueryOptions(QueryOptionsConstants.SPECIES, Arrays.asList(MOUSE, "Chicken")));
+    }
+
+    @Test
+    public void filteringByPartOfTheSpeciesIgnoringCase() throws Exception {
+        assertEquivalent(new QueryOptions(QueryOptionsConstants.SPECIES, "homo"));
+        assertEquivalent(new QueryOptions(QueryOptionsConstants.SPECIES, "MUS MUSCULUS"));
+    }
+
+    @Test
+    public void filteringByType() throws Exception {
+        assertEquivalent(new QueryOptions(QueryOptionsConstants.TYPE, DgvaStudyTestData.CONTROL_SET));
+        assertEquivalent(new QueryOptions(QueryOptionsConstants.TYPE, "set"));
+    }
+
+    @Test
+    public void filteringBySpeciesAndType() throws Exception {
+        QueryOptions queryOptions = new QueryOptions();
+        queryOptions.put(QueryOptionsConstants.SPECIES, Arrays.asList(HUMAN, MOUSE));
+        queryOptions.put(QueryOptionsConstants.TYPE, Arrays.asList(DgvaStudyTestData.CONTROL_SET,
+                                                                   DgvaStudyTestData.COLLECTION));
+        assertEquivalent(queryOptions);
+    }
+
+    @Test
+    public void filteringByNonExistingValues() throws Exception {
+        assertEquivalent(new QueryOptions(QueryOptionsConstants.SPECIES, "notExistingSpecies"));
+        assertEquivalent(new QueryOptions(QueryOptionsConstants.TYPE, "notExistingType"));
+    }
+
+    @Test
+    public void studiesOfSeveralSpeciesAreCountedOnceForEach() throws Exception {
+        List<DgvaStudyBrowser> rows = dgvaStudyBrowserRepository.findAll();
+        long speciesPerStudy = rows.stream().mapToLong(row -> countSpecies(row.getCommonName())).sum();
+
+        List<Map.Entry<String, Long>> counts = archiveDgvaDBAdaptor.countStudiesPerSpecies(new QueryOptions())
+                                                                   .getResult();
+
+        assertEquals(speciesPerStudy, counts.stream().mapToLong(Map.Entry::getValue).sum());
+        for (int i = 1; i < counts.size(); i++) {
+            assertTrue(counts.get(i - 1).getValue() >= counts.get(i).getValue());
+        }
+    }
+
+    private void assertEquivalent(QueryOptions queryOptions) {
+        Specification<DgvaStudyBrowser> specification = DgvaDBUtils.getSpeciesAndTypeFilters(queryOptions);
+        List<DgvaStudyBrowser> expectedRows = dgvaStudyBrowserRepository.findAll(specification);
+
+        Set<String> expectedIds = expectedRows.stream().map(DgvaStudyBrowser::getStudyAccession)
+                                              .collect(Collectors.toSet());
+        QueryResult<VariantStudy> studies = studyDgvaDBAdaptor.getAllStudies(queryOptions);
+        assertEquals(expectedIds.size(), studies.getNumTotalResults());
+        assertEquals(expectedIds, studies.getResult().stream().map(VariantStudy::getId).collect(Collectors.toSet()));
+
+        Map<String, Long> expectedSpeciesCounts = new HashMap<>();
+        Map<String, Long> expectedTypeCounts = new HashMap<>();
+        for (DgvaStudyBrowser row : expectedRows) {
+            for (String species : splitSpecies(row.getCommonName())) {
+                expectedSpeciesCounts.merge(species, 1L, Long::sum);
+            }
+            String type = row.getStudyType() != null ? row.getStudyType() : DgvaStudyIndex.OTHERS;
+            expectedTypeCounts.merge(type, 1L, Long::sum);
+        }
+        assertEquals(expectedSpeciesCounts, toMap(archiveDgvaDBAdaptor.countStudiesPerSpecies(queryOptions)));
+        assertEquals(expectedTypeCounts, toMap(archiveDgvaDBAdaptor.countStudiesPerType(queryOptions)));
+    }
+
+    private static List<String> splitSpecies(String commonNames) {
+        return commonNames != null ? Arrays.asList(commonNames.split(",")) : Arrays.asList(DgvaStudyIndex.OTHERS);
+    }
+
+    private static long countSpecies(String commonNames) {
+        return splitSpecies(commonNames).stream().distinct().count();
+    }
+
+    private static Map<String, Long> toMap(QueryResult<Map.Entry<String, Long>> counts) {
+        Map<String, Long> map = new HashMap<>();
+        counts.getResult().forEach(count -> map.put(count.getKey(), count.getValue()));
+        return map;
+    }
+}
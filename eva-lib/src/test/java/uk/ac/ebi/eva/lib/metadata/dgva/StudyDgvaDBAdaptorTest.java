@@ -39,9 +39,13 @@ public class StudyDgvaDBAdaptorTest {
     @Autowired
     private StudyDgvaDBAdaptor studyDgvaDBAdaptor;
 
+    @Autowired
+    private DgvaStudyIndexLoader dgvaStudyIndexLoader;
+
     @Before
     public void setUp() throws Exception {
         DgvaStudyTestData.persistTestData(entityManager);
+        dgvaStudyIndexLoader.refreshIndex();
     }
 
     @Test
@@ -27,12 +27,14 @@ import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.eva.lib.entities.Project;
 import uk.ac.ebi.eva.lib.entities.Taxonomy;
 import uk.ac.ebi.eva.lib.metadata.FileTestData;
+import uk.ac.ebi.eva.lib.metadata.StudyCounts;
 import uk.ac.ebi.eva.lib.models.Assembly;
 import uk.ac.ebi.eva.lib.utils.QueryOptions;
 import uk.ac.ebi.eva.lib.utils.QueryOptionsConstants;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -232,4 +234,23 @@ public class ArchiveEvaproDBAdaptorTest {
         assertEquals(new HashSet<String>(Arrays.asList("galgal5", "oarv40", "grch38", "umd31")), assemblyCodes);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void countStudiesPerSpeciesAndTypeMatchesSeparateCounts() throws Exception {
+        QueryOptions typeFilter = new QueryOptions(QueryOptionsConstants.TYPE, EvaStudyBrowserTestData.EXOME_SEQUENCING);
+        for (QueryOptions queryOptions : new QueryOptions[]{new QueryOptions(), typeFilter,
+                new QueryOptions(QueryOptionsConstants.SPECIES, HUMAN)}) {
+            StudyCounts studyCounts = archiveEvaproDBAdaptor.countStudiesPerSpeciesAndType(queryOptions);
+
+            assertEquals(toMap(archiveEvaproDBAdaptor.countStudiesPerSpecies(queryOptions).getResult()),
+                         toMap(studyCounts.getPerSpecies()));
+            assertEquals(toMap(archiveEvaproDBAdaptor.countStudiesPerType(queryOptions).getResult()),
+                         toMap(studyCounts.getPerType()));
+        }
+    }
+
+    private static Map<String, Long> toMap(List<Map.Entry<String, Long>> counts) {
+        Map<String, Long> map = new HashMap<>();
+        counts.forEach(count -> map.put(count.getKey(), count.getValue()));
+        return map;
+    }
+}
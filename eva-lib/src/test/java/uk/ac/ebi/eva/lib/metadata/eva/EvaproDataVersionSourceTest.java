@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata.eva;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertNotEquals;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Sql({"classpath:eva-schema.sql", "classpath:eva-data.sql"})
+public class EvaproDataVersionSourceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EvaproDataVersionSource evaproDataVersionSource;
+
+    @Test
+    public void versionChangesWhenABrowsableFileIsDeleted() {
+        String version = evaproDataVersionSource.getVersion(null);
+        update("update browsable_file set deleted = true where file_id = 1");
+        assertNotEquals(version, evaproDataVersionSource.getVersion(null));
+    }
+
+    @Test
+    public void versionChangesWhenADbsnpAssemblyIsLoaded() {
+        String version = evaproDataVersionSource.getVersion(null);
+        update("update dbsnp_assemblies set loaded = true where assembly_accession = 'GCA_000298735.2'");
+        assertNotEquals(version, evaproDataVersionSource.getVersion(null));
+    }
+
+    private void update(String statement) {
+        entityManager.getEntityManager().createNativeQuery(statement).executeUpdate();
+    }
+}
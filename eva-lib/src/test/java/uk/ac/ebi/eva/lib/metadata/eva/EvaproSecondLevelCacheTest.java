@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.metadata.eva;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.lib.entities.Taxonomy;
+import uk.ac.ebi.eva.lib.metadata.FileTestData;
+import uk.ac.ebi.eva.lib.models.Assembly;
+import uk.ac.ebi.eva.lib.models.FileFtpReference;
+import uk.ac.ebi.eva.lib.repositories.FileRepository;
+import uk.ac.ebi.eva.lib.repositories.TaxonomyRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Checks that, once the second-level and query caches are enabled as described in the eva-server
+ * application.properties, repeated lookups of EVAPRO reference data don't reach the database.
+ *
+ * The cached rows are inserted with SQL rather than through the entity manager, because Hibernate doesn't cache
+ * entities inserted by the transaction that loads them.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Sql(scripts = {"classpath:eva-schema.sql", "classpath:eva-data.sql"},
+     statements = {
+             "INSERT INTO taxonomy (taxonomy_id, common_name, scientific_name, taxonomy_code, eva_name) " +
+                     "VALUES (9031, 'Chicken', 'Gallus gallus', 'ggallus', 'chicken')",
+             "INSERT INTO taxonomy (taxonomy_id, common_name, scientific_name, taxonomy_code, eva_name) " +
+                     "VALUES (9940, 'Sheep', 'Ovis aries', 'oaries', 'sheep')"
+     })
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=" +
+                "org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory",
+        "spring.jpa.properties.net.sf.ehcache.configurationResourceName=/evapro-ehcache.xml",
+        "spring.jpa.properties.hibernate.ejb.classcache.uk.ac.ebi.eva.lib.entities.Taxonomy=read-only,evapro.taxonomy",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class EvaproSecondLevelCacheTest {
+
+    private static final long CHICKEN_TAXONOMY_ID = 9031L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TaxonomyRepository taxonomyRepository;
+
+    @Autowired
+    private FileRepository fileRepository;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        FileTestData.persistTestData(entityManager);
+        entityManager.flush();
+        entityManager.clear();
+
+        // the cache outlives the rolled back transactions of previous tests
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictEntityRegions();
+        sessionFactory.getCache().evictDefaultQueryRegion();
+        sessionFactory.getCache().evictQueryRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void repeatedTaxonomyLookupsAreServedFromTheSecondLevelCache() throws Exception {
+        taxonomyRepository.findOne(CHICKEN_TAXONOMY_ID);
+        entityManager.clear();
+        long preparedStatements = statistics.getPrepareStatementCount();
+
+        Taxonomy taxonomy = taxonomyRepository.findOne(CHICKEN_TAXONOMY_ID);
+
+        assertNotNull(taxonomy);
+        assertEquals(preparedStatements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheStatistics("evapro.taxonomy").getHitCount());
+    }
+
+    @Test
+    public void repeatedSpeciesQueriesAreServedFromTheQueryCache() throws Exception {
+        List<Assembly> firstResult = taxonomyRepository.getBrowsableSpecies();
+        long preparedStatements = statistics.getPrepareStatementCount();
+
+        List<Assembly> secondResult = taxonomyRepository.getBrowsableSpecies();
+
+        assertEquals(2, firstResult.size());
+        assertEquals(firstResult.size(), secondResult.size());
+        assertEquals(preparedStatements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    public void repeatedFtpReferenceQueriesAreServedFromTheQueryCache() throws Exception {
+        List<String> filenames = Arrays.asList(FileTestData.FILE_1_NAME, FileTestData.FILE_2_NAME);
+        List<FileFtpReference> firstResult = fileRepository.getFileFtpReferenceByNames(filenames);
+        long preparedStatements = statistics.getPrepareStatementCount();
+
+        List<FileFtpReference> secondResult = fileRepository.getFileFtpReferenceByNames(filenames);
+
+        assertEquals(2, firstResult.size());
+        assertEquals(firstResult.size(), secondResult.size());
+        assertEquals(preparedStatements, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    public void queryCacheKeysIncludeTheParameters() throws Exception {
+        fileRepository.getFileFtpReferenceByNames(Arrays.asList(FileTestData.FILE_1_NAME));
+        long preparedStatements = statistics.getPrepareStatementCount();
+
+        List<FileFtpReference> result = fileRepository.getFileFtpReferenceByNames(
+                Arrays.asList(FileTestData.FILE_2_NAME));
+
+        assertEquals(1, result.size());
+        assertEquals(FileTestData.FILE_2_NAME, result.get(0).getFilename());
+        assertEquals(preparedStatements + 1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getQueryCacheHitCount());
+    }
+
+}
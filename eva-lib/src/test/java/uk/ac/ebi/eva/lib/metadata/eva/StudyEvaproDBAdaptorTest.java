@@ -48,6 +48,7 @@ public class StudyEvaproDBAdaptorTest {
     @Before
     public void setUp() throws Exception {
         EvaStudyBrowserTestData.persistTestData(entityManager);
+        studyEvaproDBAdaptor.refreshIndex();
     }
 
     @After
@@ -95,14 +96,43 @@ public class StudyEvaproDBAdaptorTest {
                                      .equals(EvaStudyBrowserTestData.EXOME_SEQUENCING));
     }
 
-    @Test(expected = UnsupportedOperationException.class)
+    @Test
+    public void getAllStudiesForPartOfAType() throws Exception {
+        QueryOptions queryOptions = new QueryOptions();
+        queryOptions.put(QueryOptionsConstants.TYPE, "sequencing");
+        QueryResult<VariantStudy> queryResult = studyEvaproDBAdaptor.getAllStudies(queryOptions);
+
+        checkReturnedStudies(queryResult, 4, study -> study.getExperimentType().contains("sequencing"));
+    }
+
+    @Test
     public void listStudies() throws Exception {
-        studyEvaproDBAdaptor.listStudies();
+        QueryResult<VariantStudy> queryResult = studyEvaproDBAdaptor.listStudies();
+
+        assertEquals(4, queryResult.getNumTotalResults());
     }
 
-    @Test(expected = UnsupportedOperationException.class)
+    @Test
     public void findStudyNameOrStudyId() throws Exception {
-        studyEvaproDBAdaptor.findStudyNameOrStudyId("any study", new QueryOptions());
+        QueryResult<VariantStudy> queryResult = studyEvaproDBAdaptor.findStudyNameOrStudyId(
+                EvaStudyBrowserTestData.PROJECT_ID_1.toLowerCase(), new QueryOptions());
+        checkReturnedStudies(queryResult, 1, study -> study.getId().equals(EvaStudyBrowserTestData.PROJECT_ID_1));
+
+        queryResult = studyEvaproDBAdaptor.findStudyNameOrStudyId("Project 2", new QueryOptions());
+        checkReturnedStudies(queryResult, 1, study -> study.getName().equals("Project 2"));
+
+        queryResult = studyEvaproDBAdaptor.findStudyNameOrStudyId("proj", new QueryOptions());
+        assertEquals(4, queryResult.getNumTotalResults());
+
+        queryResult = studyEvaproDBAdaptor.findStudyNameOrStudyId("not a study", new QueryOptions());
+        assertEquals(0, queryResult.getNumTotalResults());
+    }
+
+    @Test
+    public void getStudyByIdNotFound() throws Exception {
+        QueryResult<VariantStudy> queryResult = studyEvaproDBAdaptor.getStudyById("PRJ9999", new QueryOptions());
+
+        assertEquals(0, queryResult.getNumTotalResults());
     }
 
     @Test
@@ -30,8 +30,10 @@ import uk.ac.ebi.eva.lib.utils.QueryResult;
 
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -106,14 +108,51 @@ public class VariantSourceEvaProDBAdaptorTest {
         List<QueryResult> sourceUrls = variantSourceEvaproDBAdaptor
                 .getSourceDownloadUrlByName(Arrays.asList(FileTestData.FILE_1_NAME, FileTestData.FILE_2_NAME, FileTestData.FILE_2_TABIX_NAME));
 
-        assertEquals(2, sourceUrls.size());
+        assertEquals(3, sourceUrls.size());
         URL expectedFtpUrlFile1 = new URI("ftp://parentdir/dir1/file1.vcf.gz").toURL();
         URL expectedFtpUrlFile2 = new URI("ftp://parentdir/dir2/file2.vcf.gz").toURL();
-        assertTrue(sourceUrls.stream()
-                             .anyMatch(queryResult -> queryResult.first().equals(expectedFtpUrlFile1)));
-        assertTrue(sourceUrls.stream()
-                             .anyMatch(queryResult -> queryResult.first().equals(expectedFtpUrlFile2)));
+        assertEquals(FileTestData.FILE_1_NAME, sourceUrls.get(0).getId());
+        assertEquals(expectedFtpUrlFile1, sourceUrls.get(0).first());
+        assertEquals(FileTestData.FILE_2_NAME, sourceUrls.get(1).getId());
+        assertEquals(expectedFtpUrlFile2, sourceUrls.get(1).first());
+        assertNotFound(FileTestData.FILE_2_TABIX_NAME, sourceUrls.get(2));
+    }
+
+    @Test
+    public void getSourceDownloadUrlByListOfNamesKeepsOrderAndRepetitions() throws Exception {
+        List<String> filenames = Arrays.asList(FileTestData.FILE_NOT_BROWSABLE, FileTestData.FILE_2_NAME,
+                                               FileTestData.FILE_1_NAME, FileTestData.FILE_2_NAME);
+        List<QueryResult> sourceUrls = variantSourceEvaproDBAdaptor.getSourceDownloadUrlByName(filenames);
+
+        assertEquals(filenames, sourceUrls.stream().map(QueryResult::getId).collect(Collectors.toList()));
+        assertNotFound(FileTestData.FILE_NOT_BROWSABLE, sourceUrls.get(0));
+        assertEquals(sourceUrls.get(1).first(), sourceUrls.get(3).first());
+        assertEquals(1, sourceUrls.stream().map(QueryResult::getDbTime).distinct().count());
+    }
+
+    @Test
+    public void getSourceDownloadUrlByListOfNamesLongerThanOneQuery() throws Exception {
+        List<String> filenames = new ArrayList<>();
+        for (int i = 0; i < VariantSourceEvaProDBAdaptor.FTP_REFERENCE_QUERY_CHUNK_SIZE * 2; i++) {
+            filenames.add("missing_" + i + ".vcf.gz");
+        }
+        filenames.add(FileTestData.FILE_2_NAME);
+        filenames.add(0, FileTestData.FILE_1_NAME);
+
+        List<QueryResult> sourceUrls = variantSourceEvaproDBAdaptor.getSourceDownloadUrlByName(filenames);
+
+        assertEquals(filenames.size(), sourceUrls.size());
+        assertEquals(new URI("ftp://parentdir/dir1/file1.vcf.gz").toURL(), sourceUrls.get(0).first());
+        assertEquals(new URI("ftp://parentdir/dir2/file2.vcf.gz").toURL(),
+                     sourceUrls.get(filenames.size() - 1).first());
+        assertNotFound("missing_0.vcf.gz", sourceUrls.get(1));
+        assertEquals(2, sourceUrls.stream().filter(queryResult -> queryResult.getNumResults() == 1).count());
+    }
 
+    private void assertNotFound(String filename, QueryResult queryResult) {
+        assertEquals(filename, queryResult.getId());
+        assertEquals(0, queryResult.getNumTotalResults());
+        assertEquals(VariantSourceEvaProDBAdaptor.FILE_NOT_FOUND, queryResult.getWarningMsg());
     }
 
     @Test(expected = UnsupportedOperationException.class)
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.models.ga4gh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GAGenotypeTest {
+
+    @Test
+    public void sameConversionAsSplit() {
+        String[] genotypes = {"0|0", "0/1", "1|0", "./.", ".|1", "2/10", "1", ".", "0/1/2", "0|1/2", "01|+1"};
+        for (String genotype : genotypes) {
+            String[] alleles = genotype.split("/|\\|", -1);
+            int[] expected = new int[alleles.length];
+            for (int i = 0; i < alleles.length; i++) {
+                expected[i] = (alleles[i].equals(".")) ? -1 : Integer.parseInt(alleles[i]);
+            }
+
+            GAGenotype gaGenotype = GAGenotype.valueOf(genotype);
+            assertArrayEquals(genotype, expected, gaGenotype.getAlleles());
+            assertEquals(genotype, genotype.contains("|"), gaGenotype.isPhased());
+        }
+    }
+
+    @Test
+    public void phaseSet() {
+        assertTrue(GAGenotype.valueOf("0|1").isPhased());
+        assertEquals("phased", GAGenotype.valueOf("0|1").getPhaseSet());
+        assertFalse(GAGenotype.valueOf("0/1").isPhased());
+        assertEquals("unphased", GAGenotype.valueOf("0/1").getPhaseSet());
+    }
+
+    @Test
+    public void genotypesAreInterned() {
+        assertSame(GAGenotype.valueOf("1|1"), GAGenotype.valueOf(new String("1|1")));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void invalidAllele() {
+        GAGenotype.valueOf("0/A");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void emptyAllele() {
+        GAGenotype.valueOf("0/");
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.models.ga4gh;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class GAVariantSetMetadataParserTest {
+
+    @Test
+    public void parseHeader() {
+        String header = "##fileformat=VCFv4.1\n" +
+                "##INFO=<ID=AC,Number=A,Type=Integer,Description=\"Allele count, in <genotypes>\",Source=\"x,y\">\n" +
+                "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO";
+
+        List<GAVariantSetMetadata> metadata = GAVariantSetMetadataParser.parse(header);
+
+        assertEquals(2, metadata.size());
+        assertEquals("fileformat", metadata.get(0).getKey());
+        assertEquals("fileformat", metadata.get(0).getId());
+        assertEquals("VCFv4.1", metadata.get(0).getValue());
+
+        GAVariantSetMetadata info = metadata.get(1);
+        assertEquals("INFO", info.getKey());
+        assertEquals("AC", info.getId());
+        assertEquals("A", info.getNumber());
+        assertEquals("Integer", info.getType());
+        assertEquals("\"Allele count, in <genotypes>\"", info.getDescription());
+        assertEquals(Collections.singletonMap("Source", "\"x,y\""), info.getInfo());
+    }
+
+    @Test
+    public void splitOutsideQuotesLikeStringSplit() {
+        assertEquals(Arrays.asList("a", "b\",\"c", "", "d"),
+                     GAVariantSetMetadataParser.splitOutsideQuotes("a,b\",\"c,,d,,", ',', ','));
+        assertEquals(Collections.singletonList(""), GAVariantSetMetadataParser.splitOutsideQuotes("", ',', ','));
+        assertEquals(Collections.emptyList(), GAVariantSetMetadataParser.splitOutsideQuotes(",,", ',', ','));
+        assertEquals(Arrays.asList("##x=", "y"), GAVariantSetMetadataParser.splitOutsideQuotes("##x=<y>", '<', '>'));
+    }
+}
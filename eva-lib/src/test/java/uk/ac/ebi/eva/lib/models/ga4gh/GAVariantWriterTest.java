@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.models.ga4gh;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.core.models.ws.VariantSourceEntryWithSampleNames;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class GAVariantWriterTest {
+
+    private static final long TIMESTAMP = 1546300800000L;
+
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        objectMapper.setVisibility(objectMapper.getSerializationConfig().getDefaultVisibilityChecker()
+                                               .withFieldVisibility(JsonAutoDetect.Visibility.ANY)
+                                               .withGetterVisibility(JsonAutoDetect.Visibility.NONE)
+                                               .withSetterVisibility(JsonAutoDetect.Visibility.NONE)
+                                               .withCreatorVisibility(JsonAutoDetect.Visibility.NONE));
+    }
+
+    @Test
+    public void sameJsonAsFactory() throws Exception {
+        List<VariantWithSamplesAndAnnotation> variants = new ArrayList<>();
+
+        VariantWithSamplesAndAnnotation variant = new VariantWithSamplesAndAnnotation("1", 1000, 1000, "A", "T",
+                                                                                      "rs1");
+        variant.setIds(new HashSet<>(Arrays.asList("rs1", "ss1")));
+        variant.addSourceEntry(createSourceEntry("file1", new String[]{"C", "G"}, 3, "0|1", "./.", "1/1", "0|10"));
+        variant.addSourceEntry(createSourceEntry("file2", new String[0], 20, "0/0"));
+        // equal to the first source entry once converted, so it is written only once
+        variant.addSourceEntry(createSourceEntry("file1", new String[]{"C", "G"}, 1, "1|1"));
+        variants.add(variant);
+
+        VariantWithSamplesAndAnnotation sameAlleles = new VariantWithSamplesAndAnnotation("1", 1000, 1000, "A", "T",
+                                                                                          "rs2");
+        sameAlleles.addSourceEntry(createSourceEntry("file2", new String[0], 0));
+        sameAlleles.addSourceEntry(createSourceEntry("file3", new String[0], 0));
+        variants.add(sameAlleles);
+
+        variants.add(new VariantWithSamplesAndAnnotation("1", 1001, 1001, "A", "C", "rs3"));
+
+        VariantWithSamplesAndAnnotation insertion = new VariantWithSamplesAndAnnotation("2", 1000, 1000, "", "AC",
+                                                                                        "rs4");
+        insertion.addSourceEntry(createSourceEntry("file1", new String[0], 13, "0|0", "0|1"));
+        variants.add(insertion);
+
+        assertEquals(serializeWithFactory(variants), serializeWithWriter(variants));
+    }
+
+    @Test
+    public void noVariants() throws Exception {
+        List<VariantWithSamplesAndAnnotation> variants = Collections.singletonList(
+                new VariantWithSamplesAndAnnotation("1", 1000, 1000, "A", "T", "rs1"));
+
+        assertFalse(GAVariantWriter.hasGAVariants(variants));
+        assertEquals(serializeWithFactory(variants), serializeWithWriter(variants));
+    }
+
+    private static VariantSourceEntryWithSampleNames createSourceEntry(String fileId, String[] secondaryAlternates,
+                                                                       int numberOfAttributes, String... genotypes) {
+        Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < numberOfAttributes; i++) {
+            attributes.put("ATTRIBUTE_" + i, String.valueOf(i));
+        }
+        LinkedHashMap<String, Map<String, String>> samplesData = new LinkedHashMap<>();
+        for (int i = 0; i < genotypes.length; i++) {
+            samplesData.put("SAMPLE_" + i, Collections.singletonMap("GT", genotypes[i]));
+        }
+        return new VariantSourceEntryWithSampleNames(fileId, "study", secondaryAlternates, "GT", new HashMap<>(),
+                                                     attributes, samplesData);
+    }
+
+    private JsonNode serializeWithFactory(List<VariantWithSamplesAndAnnotation> variants) throws Exception {
+        List<GAVariant> gaVariants = GAVariantFactory.create(variants);
+        for (GAVariant gaVariant : gaVariants) {
+            gaVariant.setCreated(TIMESTAMP);
+            gaVariant.setUpdated(TIMESTAMP);
+        }
+        return objectMapper.readTree(objectMapper.writeValueAsString(gaVariants));
+    }
+
+    private JsonNode serializeWithWriter(List<VariantWithSamplesAndAnnotation> variants) throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(stringWriter)) {
+            new GAVariantWriter(generator, TIMESTAMP).writeVariants(variants);
+        }
+        return objectMapper.readTree(stringWriter.toString());
+    }
+}
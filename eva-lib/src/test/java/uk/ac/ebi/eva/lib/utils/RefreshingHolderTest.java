@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RefreshingHolderTest {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 10;
+
+    private RefreshingHolder<Integer> holder;
+
+    @After
+    public void tearDown() {
+        holder.close();
+    }
+
+    @Test
+    public void loadsOnFirstUseOnly() {
+        AtomicInteger loads = new AtomicInteger();
+        holder = new RefreshingHolder<>("test", loads::incrementAndGet, Long.MAX_VALUE);
+
+        assertEquals(Integer.valueOf(1), holder.get());
+        assertEquals(Integer.valueOf(1), holder.get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void refreshesInBackground() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        holder = new RefreshingHolder<>("test", loads::incrementAndGet, REFRESH_INTERVAL_MILLIS);
+
+        holder.get();
+        waitUntil(() -> holder.get() > 2);
+        assertTrue(holder.get() > 2);
+    }
+
+    @Test
+    public void failedBackgroundRefreshKeepsPreviousValue() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        holder = new RefreshingHolder<>("test", () -> {
+            if (loads.incrementAndGet() > 1) {
+                throw new IllegalStateException("database not available");
+            }
+            return 1;
+        }, REFRESH_INTERVAL_MILLIS);
+
+        assertEquals(Integer.valueOf(1), holder.get());
+        waitUntil(() -> loads.get() > 2);
+        assertEquals(Integer.valueOf(1), holder.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failedExplicitRefreshIsReported() {
+        holder = new RefreshingHolder<>("test", () -> {
+            throw new IllegalStateException("database not available");
+        }, Long.MAX_VALUE);
+
+        holder.refresh();
+    }
+
+    private static void waitUntil(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(REFRESH_INTERVAL_MILLIS);
+        }
+    }
+}
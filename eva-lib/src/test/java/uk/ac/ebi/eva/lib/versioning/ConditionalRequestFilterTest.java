@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.lib.versioning;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConditionalRequestFilterTest {
+
+    private static final String SCOPE = "test";
+
+    private String currentVersion;
+
+    private AtomicInteger versionReads;
+
+    private ConditionalRequestFilter filter;
+
+    @Before
+    public void setUp() {
+        currentVersion = "1";
+        versionReads = new AtomicInteger();
+        DataVersionSource source = database -> {
+            versionReads.incrementAndGet();
+            return currentVersion;
+        };
+        DataVersionService service = new DataVersionService(Collections.singletonMap(SCOPE, source), 60_000);
+        filter = new ConditionalRequestFilter(request -> service.getVersion(SCOPE, request.getParameter("species")));
+    }
+
+    @Test
+    public void addsWeakETagAndRunsChain() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = doFilter(request("hsapiens_grch37"), chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertTrue(response.getHeader(ConditionalRequestFilter.ETAG).startsWith("W/\""));
+        assertEquals("Accept", response.getHeader(ConditionalRequestFilter.VARY));
+    }
+
+    @Test
+    public void errorResponsesHaveNoETag() throws Exception {
+        MockHttpServletResponse notFound = doFilter(request("hsapiens_grch37"), (request, response) -> {
+            ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.getWriter().write("not found");
+        });
+        assertEquals(404, notFound.getStatus());
+        assertNull(notFound.getHeader(ConditionalRequestFilter.ETAG));
+        assertEquals("Accept", notFound.getHeader(ConditionalRequestFilter.VARY));
+
+        MockHttpServletResponse serverError = doFilter(request("hsapiens_grch37"), (request, response) ->
+                ((HttpServletResponse) response).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR));
+        assertEquals(500, serverError.getStatus());
+        assertNull(serverError.getHeader(ConditionalRequestFilter.ETAG));
+    }
+
+    @Test
+    public void matchingIfNoneMatchIsAnsweredWithoutRunningChain() throws Exception {
+        String eTag = doFilter(request("hsapiens_grch37"), new MockFilterChain())
+                .getHeader(ConditionalRequestFilter.ETAG);
+
+        MockHttpServletRequest conditionalRequest = request("hsapiens_grch37");
+        conditionalRequest.addHeader(ConditionalRequestFilter.IF_NONE_MATCH, "\"other\", " + eTag);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = doFilter(conditionalRequest, chain);
+
+        assertEquals(304, response.getStatus());
+        assertNull(chain.getRequest());
+        assertEquals(eTag, response.getHeader(ConditionalRequestFilter.ETAG));
+        assertEquals(1, filter.getConditionalRequests());
+        assertEquals(1, filter.getNotModifiedResponses());
+        assertEquals(1, versionReads.get());
+    }
+
+    @Test
+    public void parameterOrderDoesNotChangeETag() throws Exception {
+        MockHttpServletRequest request = request("hsapiens_grch37");
+        request.addParameter("studies", "PRJEB5", "PRJEB6");
+        request.addParameter("annot-vep-version", "82");
+        MockHttpServletRequest reorderedRequest = new MockHttpServletRequest("GET", "/v1/segments/1:100-200/variants");
+        reorderedRequest.addParameter("annot-vep-version", "82");
+        reorderedRequest.addParameter("studies", "PRJEB6", "PRJEB5");
+        reorderedRequest.addParameter("species", "hsapiens_grch37");
+
+        assertEquals(doFilter(request, new MockFilterChain()).getHeader(ConditionalRequestFilter.ETAG),
+                     doFilter(reorderedRequest, new MockFilterChain()).getHeader(ConditionalRequestFilter.ETAG));
+    }
+
+    @Test
+    public void differentSpeciesOrAcceptChangeETag() throws Exception {
+        String eTag = doFilter(request("hsapiens_grch37"), new MockFilterChain())
+                .getHeader(ConditionalRequestFilter.ETAG);
+
+        MockHttpServletRequest otherSpecies = request("hsapiens_grch38");
+        MockHttpServletRequest otherAccept = request("hsapiens_grch37");
+        otherAccept.addHeader("Accept", "application/x-jackson-smile");
+
+        assertNotEquals(eTag, doFilter(otherSpecies, new MockFilterChain()).getHeader(ConditionalRequestFilter.ETAG));
+        assertNotEquals(eTag, doFilter(otherAccept, new MockFilterChain()).getHeader(ConditionalRequestFilter.ETAG));
+    }
+
+    @Test
+    public void newDataVersionInvalidatesETag() throws Exception {
+        DataVersionSource source = database -> currentVersion;
+        DataVersionService service = new DataVersionService(Collections.singletonMap(SCOPE, source), 0);
+        filter = new ConditionalRequestFilter(request -> service.getVersion(SCOPE, request.getParameter("species")));
+        String eTag = doFilter(request("hsapiens_grch37"), new MockFilterChain())
+                .getHeader(ConditionalRequestFilter.ETAG);
+
+        currentVersion = "2";
+        MockHttpServletRequest conditionalRequest = request("hsapiens_grch37");
+        conditionalRequest.addHeader(ConditionalRequestFilter.IF_NONE_MATCH, eTag);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = doFilter(conditionalRequest, chain);
+
+        assertEquals(200, response.getStatus());
+        assertNotNull(chain.getRequest());
+        assertNotEquals(eTag, response.getHeader(ConditionalRequestFilter.ETAG));
+    }
+
+    @Test
+    public void unversionedAndNonGetRequestsArePassedThrough() throws Exception {
+        MockHttpServletRequest unversioned = new MockHttpServletRequest("GET", "/v1/ga4gh/beacon");
+        unversioned.addHeader(ConditionalRequestFilter.IF_NONE_MATCH, "*");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = doFilter(unversioned, chain);
+        assertNotNull(chain.getRequest());
+        assertNull(response.getHeader(ConditionalRequestFilter.ETAG));
+
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/v1/files/url");
+        post.addParameter("species", "hsapiens_grch37");
+        post.addHeader(ConditionalRequestFilter.IF_NONE_MATCH, "*");
+        chain = new MockFilterChain();
+        response = doFilter(post, chain);
+        assertNotNull(chain.getRequest());
+        assertNull(response.getHeader(ConditionalRequestFilter.ETAG));
+        assertEquals(0, filter.getVersionedRequests());
+    }
+
+    @Test
+    public void failingSourceDisablesValidators() throws Exception {
+        DataVersionSource failingSource = database -> {
+            throw new IllegalStateException("database is down");
+        };
+        DataVersionService service = new DataVersionService(Collections.singletonMap(SCOPE, failingSource), 60_000);
+        filter = new ConditionalRequestFilter(request -> service.getVersion(SCOPE, request.getParameter("species")));
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = doFilter(request("hsapiens_grch37"), chain);
+        assertNotNull(chain.getRequest());
+        assertNull(response.getHeader(ConditionalRequestFilter.ETAG));
+    }
+
+    @Test
+    public void weakComparison() {
+        assertTrue(ConditionalRequestFilter.matches("\"abc\"", "W/\"abc\""));
+        assertTrue(ConditionalRequestFilter.matches("W/\"abc\"", "W/\"abc\""));
+        assertTrue(ConditionalRequestFilter.matches("*", "W/\"abc\""));
+        assertTrue(!ConditionalRequestFilter.matches("W/\"abd\"", "W/\"abc\""));
+    }
+
+    private MockHttpServletRequest request(String species) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/segments/1:100-200/variants");
+        request.addParameter("species", species);
+        return request;
+    }
+
+    private MockHttpServletResponse doFilter(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
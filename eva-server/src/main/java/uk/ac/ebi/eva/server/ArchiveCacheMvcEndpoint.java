@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to reload the cached archive metadata, e.g. right after loading a study into EVAPRO:
+ * POST /archive-cache/refresh. It is sensitive, so it is secured like the rest of the management endpoints.
+ */
+@Component
+public class ArchiveCacheMvcEndpoint extends AbstractMvcEndpoint {
+
+    private final CachedArchiveEvaproDBAdaptor cachedArchiveEvaproDBAdaptor;
+
+    @Autowired
+    public ArchiveCacheMvcEndpoint(CachedArchiveEvaproDBAdaptor cachedArchiveEvaproDBAdaptor) {
+        super("/archive-cache", true);
+        this.cachedArchiveEvaproDBAdaptor = cachedArchiveEvaproDBAdaptor;
+    }
+
+    @RequestMapping(value = "/refresh", method = RequestMethod.POST, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Long> refresh() {
+        return Collections.singletonMap("refreshed", cachedArchiveEvaproDBAdaptor.refresh());
+    }
+}
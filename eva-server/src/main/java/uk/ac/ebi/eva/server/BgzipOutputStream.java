@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the BGZF format used by bgzip and tabix: a series of gzip members holding at most 64KB each, so the output
+ * can be read by any gzip reader and indexed by tabix. Memory usage is bounded by the size of a single block.
+ *
+ * @see <a href="https://samtools.github.io/hts-specs/SAMv1.pdf">BGZF specification, section 4.1</a>
+ */
+public class BgzipOutputStream extends FilterOutputStream {
+
+    /**
+     * Same input size per block as htslib, so even incompressible data fits in the maximum block size
+     */
+    private static final int MAX_BLOCK_INPUT_SIZE = 0xff00;
+
+    private static final int MAX_BLOCK_SIZE = 0x10000;
+
+    private static final int HEADER_SIZE = 18;
+
+    private static final int FOOTER_SIZE = 8;
+
+    private static final byte[] EMPTY_BLOCK = {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C',
+            2, 0, 0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    private final byte[] uncompressed = new byte[MAX_BLOCK_INPUT_SIZE];
+
+    private final byte[] block = new byte[MAX_BLOCK_SIZE];
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+    private final CRC32 crc = new CRC32();
+
+    private int uncompressedSize;
+
+    private boolean closed;
+
+    public BgzipOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (uncompressedSize == uncompressed.length) {
+            writeBlock();
+        }
+        uncompressed[uncompressedSize++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (uncompressedSize == uncompressed.length) {
+                writeBlock();
+            }
+            int copied = Math.min(length, uncompressed.length - uncompressedSize);
+            System.arraycopy(bytes, offset, uncompressed, uncompressedSize, copied);
+            uncompressedSize += copied;
+            offset += copied;
+            length -= copied;
+        }
+    }
+
+    /**
+     * Compresses any pending data into a (possibly small) block, so it can reach the client
+     */
+    @Override
+    public void flush() throws IOException {
+        if (uncompressedSize > 0) {
+            writeBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the pending data and the empty block that marks the end of a BGZF file
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (uncompressedSize > 0) {
+                writeBlock();
+            }
+            out.write(EMPTY_BLOCK);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(uncompressed, 0, uncompressedSize);
+        deflater.finish();
+        int compressedSize = 0;
+        int maxCompressedSize = MAX_BLOCK_SIZE - HEADER_SIZE - FOOTER_SIZE;
+        while (!deflater.finished() && compressedSize < maxCompressedSize) {
+            compressedSize += deflater.deflate(block, HEADER_SIZE + compressedSize, maxCompressedSize - compressedSize);
+        }
+        if (!deflater.finished()) {
+            throw new IOException("Compressed data does not fit in a BGZF block");
+        }
+
+        int blockSize = HEADER_SIZE + compressedSize + FOOTER_SIZE;
+        block[0] = 0x1f;
+        block[1] = (byte) 0x8b;
+        block[2] = 8;   // deflate
+        block[3] = 4;   // FEXTRA flag
+        writeInt(block, 4, 0);  // modification time
+        block[8] = 0;   // extra flags
+        block[9] = (byte) 0xff; // unknown operating system
+        writeShort(block, 10, 6);   // length of the extra field
+        block[12] = 'B';
+        block[13] = 'C';
+        writeShort(block, 14, 2);
+        writeShort(block, 16, blockSize - 1);
+
+        crc.reset();
+        crc.update(uncompressed, 0, uncompressedSize);
+        int footerOffset = HEADER_SIZE + compressedSize;
+        writeInt(block, footerOffset, (int) crc.getValue());
+        writeInt(block, footerOffset + 4, uncompressedSize);
+
+        out.write(block, 0, blockSize);
+        uncompressedSize = 0;
+    }
+
+    private static void writeShort(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        writeShort(buffer, offset, value);
+        writeShort(buffer, offset + 2, value >>> 16);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.lib.metadata.ArchiveDBAdaptor;
+import uk.ac.ebi.eva.lib.metadata.StudyCounts;
+import uk.ac.ebi.eva.lib.metadata.eva.ArchiveEvaproDBAdaptor;
+import uk.ac.ebi.eva.lib.utils.QueryOptions;
+import uk.ac.ebi.eva.lib.utils.QueryResult;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Decorates {@link ArchiveEvaproDBAdaptor} keeping in memory the counts and species lists shown on the landing page
+ * of the browser, which are requested on every visit but only change when a study is loaded into EVAPRO.
+ *
+ * The results are loaded in the background when the application starts, and refreshed in the background some minutes
+ * after being loaded while the previous result keeps being served, so requests only wait on EVAPRO if it has never
+ * been reachable. The counts of studies per species or type depend on the filters and are not cached here.
+ */
+@Component
+public class CachedArchiveEvaproDBAdaptor implements ArchiveDBAdaptor, PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedArchiveEvaproDBAdaptor.class);
+
+    private static final int REFRESH_INTERVAL_IN_MINUTES = 10;
+
+    private static final String METRIC_PREFIX = "cache.archive.";
+
+    enum ArchiveQuery {
+        STUDIES_COUNT(ArchiveDBAdaptor::countStudies),
+        FILES_COUNT(ArchiveDBAdaptor::countFiles),
+        SPECIES_COUNT(ArchiveDBAdaptor::countSpecies),
+        BROWSABLE_SPECIES(ArchiveDBAdaptor::getBrowsableSpecies),
+        ACCESSIONED_SPECIES(ArchiveDBAdaptor::getAccessionedSpecies);
+
+        private final Function<ArchiveDBAdaptor, QueryResult> query;
+
+        ArchiveQuery(Function<ArchiveDBAdaptor, QueryResult> query) {
+            this.query = query;
+        }
+    }
+
+    private final ArchiveEvaproDBAdaptor archiveEvaproDBAdaptor;
+
+    private final ListeningExecutorService refreshExecutor;
+
+    private final LoadingCache<ArchiveQuery, QueryResult> results;
+
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    private final AtomicLong lastRefreshTimeMillis = new AtomicLong();
+
+    private final AtomicLong totalRefreshTimeMillis = new AtomicLong();
+
+    @Autowired
+    public CachedArchiveEvaproDBAdaptor(ArchiveEvaproDBAdaptor archiveEvaproDBAdaptor) {
+        this.archiveEvaproDBAdaptor = archiveEvaproDBAdaptor;
+        this.refreshExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("archive-refresh-%d").setDaemon(true).build()));
+        this.results = CacheBuilder.newBuilder()
+                                   .refreshAfterWrite(REFRESH_INTERVAL_IN_MINUTES, TimeUnit.MINUTES)
+                                   .recordStats()
+                                   .build(new ArchiveQueryLoader());
+    }
+
+    @Override
+    public QueryResult countStudies() {
+        return results.getUnchecked(ArchiveQuery.STUDIES_COUNT);
+    }
+
+    @Override
+    public QueryResult countStudiesPerSpecies(QueryOptions queryOptions) {
+        return archiveEvaproDBAdaptor.countStudiesPerSpecies(queryOptions);
+    }
+
+    @Override
+    public QueryResult countStudiesPerType(QueryOptions queryOptions) {
+        return archiveEvaproDBAdaptor.countStudiesPerType(queryOptions);
+    }
+
+    @Override
+    public StudyCounts countStudiesPerSpeciesAndType(QueryOptions queryOptions) {
+        return archiveEvaproDBAdaptor.countStudiesPerSpeciesAndType(queryOptions);
+    }
+
+    @Override
+    public QueryResult countFiles() {
+        return results.getUnchecked(ArchiveQuery.FILES_COUNT);
+    }
+
+    @Override
+    public QueryResult countSpecies() {
+        return results.getUnchecked(ArchiveQuery.SPECIES_COUNT);
+    }
+
+    @Override
+    public QueryResult getBrowsableSpecies() {
+        return results.getUnchecked(ArchiveQuery.BROWSABLE_SPECIES);
+    }
+
+    @Override
+    public QueryResult getAccessionedSpecies() {
+        return results.getUnchecked(ArchiveQuery.ACCESSIONED_SPECIES);
+    }
+
+    /**
+     * Loads every result in the background, so the first visits after a deployment don't wait on EVAPRO
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (ArchiveQuery query : ArchiveQuery.values()) {
+            loadInBackground(query);
+        }
+    }
+
+    /**
+     * Loads every result again in the background. The cached results keep being served until the new ones are
+     * loaded, or if loading them fails.
+     *
+     * @return number of cached results that are being refreshed
+     */
+    public long refresh() {
+        long refreshed = 0;
+        for (ArchiveQuery query : ArchiveQuery.values()) {
+            if (results.asMap().containsKey(query)) {
+                results.refresh(query);
+                refreshed++;
+            } else {
+                loadInBackground(query);
+            }
+        }
+        logger.info("Refreshing {} cached archive results", refreshed);
+        return refreshed;
+    }
+
+    private void loadInBackground(ArchiveQuery query) {
+        refreshExecutor.submit(() -> {
+            try {
+                results.getUnchecked(query);
+            } catch (RuntimeException e) {
+                logger.warn("Could not load {} from EVAPRO", query, e);
+            }
+        });
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        CacheStats stats = results.stats();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "size", results.size()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hit", stats.hitCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "miss", stats.missCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "load.success", stats.loadSuccessCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "load.failure", stats.loadExceptionCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "load.time.ms", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime())));
+        metrics.add(new Metric<>(METRIC_PREFIX + "refresh.count", refreshCount.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "refresh.failure", refreshFailures.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "refresh.last.time.ms", lastRefreshTimeMillis.get()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "refresh.total.time.ms", totalRefreshTimeMillis.get()));
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private class ArchiveQueryLoader extends CacheLoader<ArchiveQuery, QueryResult> {
+
+        @Override
+        public QueryResult load(ArchiveQuery query) {
+            return query.query.apply(archiveEvaproDBAdaptor);
+        }
+
+        /**
+         * Runs the query again in the background. If it fails the previous result is kept, and it will be attempted
+         * again in the next request.
+         */
+        @Override
+        public ListenableFuture<QueryResult> reload(ArchiveQuery query, QueryResult previous) {
+            return refreshExecutor.submit(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    return load(query);
+                } catch (RuntimeException e) {
+                    refreshFailures.incrementAndGet();
+                    logger.warn("Could not refresh {} from EVAPRO, the previous result will be served", query, e);
+                    throw e;
+                } finally {
+                    long refreshTime = System.currentTimeMillis() - start;
+                    refreshCount.incrementAndGet();
+                    lastRefreshTimeMillis.set(refreshTime);
+                    totalRefreshTimeMillis.addAndGet(refreshTime);
+                }
+            });
+        }
+    }
+}
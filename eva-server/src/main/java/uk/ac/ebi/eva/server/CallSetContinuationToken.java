@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque token that allows to continue a call set search from a given sample of a file, instead of counting the call
+ * sets of the previous pages
+ */
+public class CallSetContinuationToken {
+
+    private static final String SEPARATOR = "\t";
+
+    private static final int NUMBER_OF_FIELDS = 2;
+
+    private final String fileId;
+
+    private final int sampleIndex;
+
+    /**
+     * @param sampleIndex position in the file of the first sample of the next page
+     */
+    public CallSetContinuationToken(String fileId, int sampleIndex) {
+        this.fileId = fileId;
+        this.sampleIndex = sampleIndex;
+    }
+
+    public static CallSetContinuationToken parse(String token) {
+        String[] fields;
+        try {
+            fields = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token);
+        }
+        if (fields.length != NUMBER_OF_FIELDS) {
+            throw new IllegalArgumentException("Invalid page token: " + token);
+        }
+        try {
+            int sampleIndex = Integer.parseInt(fields[1]);
+            if (sampleIndex < 0) {
+                throw new IllegalArgumentException("Invalid page token: " + token);
+            }
+            return new CallSetContinuationToken(fields[0], sampleIndex);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token);
+        }
+    }
+
+    public String encode() {
+        String token = String.join(SEPARATOR, fileId, String.valueOf(sampleIndex));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public int getSampleIndex() {
+        return sampleIndex;
+    }
+}
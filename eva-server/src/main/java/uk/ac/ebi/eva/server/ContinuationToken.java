@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import uk.ac.ebi.eva.commons.core.models.Region;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
+import uk.ac.ebi.eva.commons.mongodb.filter.RelationalOperator;
+import uk.ac.ebi.eva.commons.mongodb.filter.VariantRepositoryFilter;
+import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Opaque token that allows to continue a region query after the last variant returned, instead of skipping all the
+ * variants of the previous pages. The pages must be retrieved with {@link #sorted} page requests, which order the
+ * variants by chromosome, start and _id, so the next page is the first page of the variants that follow the token in
+ * that order.
+ *
+ * The order matches the index {chr: 1, start: 1, _id: 1} of the variants collection (see README.md), so every page
+ * is read from the index starting at the token, and costs the same regardless of how deep it is.
+ */
+public class ContinuationToken {
+
+    private static final String SEPARATOR = "\t";
+
+    private static final int NUMBER_OF_FIELDS = 3;
+
+    public static final String CHROMOSOME_FIELD = "chr";
+
+    public static final String START_FIELD = "start";
+
+    public static final String ID_FIELD = "_id";
+
+    private static final Sort SORT = new Sort(Sort.Direction.ASC, CHROMOSOME_FIELD, START_FIELD, ID_FIELD);
+
+    private final String chromosome;
+
+    private final long start;
+
+    private final String id;
+
+    @FunctionalInterface
+    public interface RegionQuery {
+        List<VariantWithSamplesAndAnnotation> find(List<Region> regions, List<VariantRepositoryFilter> filters,
+                                                   PageRequest pageRequest)
+                throws AnnotationMetadataNotFoundException;
+    }
+
+    /**
+     * @param id the _id of the last variant returned
+     */
+    public ContinuationToken(String chromosome, long start, String id) {
+        this.chromosome = chromosome;
+        this.start = start;
+        this.id = id;
+    }
+
+    /**
+     * @return a page request for the same page, sorted in the order continuation tokens rely on
+     */
+    public static PageRequest sorted(PageRequest pageRequest) {
+        return new PageRequest(pageRequest.getPageNumber(), pageRequest.getPageSize(), SORT);
+    }
+
+    /**
+     * @return the token to continue after the given page, which must not be empty
+     */
+    public static ContinuationToken fromPage(List<VariantWithSamplesAndAnnotation> page) {
+        VariantWithSamplesAndAnnotation last = page.get(page.size() - 1);
+        return new ContinuationToken(last.getChromosome(), last.getStart(),
+                                     VariantMongo.buildVariantId(last.getChromosome(), last.getStart(),
+                                                                 last.getReference(), last.getAlternate()));
+    }
+
+    public static ContinuationToken parse(String token) {
+        String[] fields;
+        try {
+            fields = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token);
+        }
+        if (fields.length != NUMBER_OF_FIELDS) {
+            throw new IllegalArgumentException("Invalid page token: " + token);
+        }
+        try {
+            return new ContinuationToken(fields[0], Long.parseLong(fields[1]), fields[2]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page token: " + token);
+        }
+    }
+
+    public String encode() {
+        String token = String.join(SEPARATOR, chromosome, String.valueOf(start), id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Retrieves up to pageSize variants following this token with a single query. The regions are narrowed to start
+     * at the position of the token, and the query only matches the variants that follow the token, so neither the
+     * previous pages nor the variants that overlap the token position but start before it are read.
+     */
+    public List<VariantWithSamplesAndAnnotation> findNext(List<Region> regions, List<VariantRepositoryFilter> filters,
+                                                          int pageSize, RegionQuery query)
+            throws AnnotationMetadataNotFoundException {
+        List<Region> remainingRegions = getRemainingRegions(regions);
+        if (remainingRegions.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<VariantRepositoryFilter> filtersAfterToken = new ArrayList<>(filters);
+        filtersAfterToken.add(new FollowingVariantsFilter(this));
+        return query.find(remainingRegions, filtersAfterToken, sorted(new PageRequest(0, pageSize)));
+    }
+
+    List<Region> getRemainingRegions(List<Region> regions) {
+        List<Region> remainingRegions = new ArrayList<>();
+        for (Region region : regions) {
+            int chromosomeComparison = region.getChromosome().compareTo(chromosome);
+            if (chromosomeComparison > 0) {
+                remainingRegions.add(region);
+            } else if (chromosomeComparison == 0 && (region.getEnd() == null || region.getEnd() >= start)) {
+                long regionStart = (region.getStart() == null) ? start : Math.max(region.getStart(), start);
+                remainingRegions.add(new Region(region.getChromosome(), regionStart, region.getEnd()));
+            }
+        }
+        return remainingRegions;
+    }
+
+    /**
+     * @return the range predicate of the variants that follow this token, i.e. in another (following) chromosome,
+     * at a greater start, or at the same start with a greater _id
+     */
+    public Criteria getCriteria() {
+        Criteria following = new Criteria().orOperator(Criteria.where(CHROMOSOME_FIELD).ne(chromosome),
+                                                       Criteria.where(START_FIELD).gt(start),
+                                                       Criteria.where(START_FIELD).is(start).and(ID_FIELD).gt(id));
+        // wrapped in $and so that it doesn't replace the $or of the regions when both are merged into the query
+        return new Criteria("$and").is(Collections.singletonList(following.getCriteriaObject()));
+    }
+
+    public String getChromosome() {
+        return chromosome;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Adds the range predicate of a token to the filters of a region query
+     */
+    static class FollowingVariantsFilter extends VariantRepositoryFilter<String> {
+
+        private final ContinuationToken token;
+
+        FollowingVariantsFilter(ContinuationToken token) {
+            super(ID_FIELD, token.getId(), RelationalOperator.GT);
+            this.token = token;
+        }
+
+        @Override
+        public Criteria getCriteria() {
+            return token.getCriteria();
+        }
+
+        ContinuationToken getToken() {
+            return token;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
+import uk.ac.ebi.eva.lib.versioning.DataVersionService;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Finds which database a request reads from, and returns the version of its data. The metadata endpoints read from
+ * EVAPRO (except the list of studies of a species), and the rest read from the Mongo database of the species (and
+ * assembly, in v2) given as parameters. The GA4GH and beacon endpoints read from a database chosen by the assembly,
+ * and are not versioned.
+ */
+public class DataVersionResolver implements Function<HttpServletRequest, String> {
+
+    public static final String EVAPRO_SCOPE = "evapro";
+
+    public static final String MONGO_SCOPE = "mongo";
+
+    private static final Pattern EVAPRO_PATHS = Pattern.compile(
+            "/v1/meta/.*|/v1/studies/[^/]+/summary/?|/v1/files/[^/]+/url/?");
+
+    private static final Pattern MONGO_METADATA_PATHS = Pattern.compile("/v1/meta/studies/list/?");
+
+    private static final Pattern UNVERSIONED_PATHS = Pattern.compile("/v1/ga4gh/.*|/v2/beacon.*");
+
+    private final DataVersionService dataVersionService;
+
+    public DataVersionResolver(DataVersionService dataVersionService) {
+        this.dataVersionService = dataVersionService;
+    }
+
+    @Override
+    public String apply(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (UNVERSIONED_PATHS.matcher(path).matches()) {
+            return null;
+        }
+        if (EVAPRO_PATHS.matcher(path).matches() && !MONGO_METADATA_PATHS.matcher(path).matches()) {
+            return dataVersionService.getVersion(EVAPRO_SCOPE, null);
+        }
+
+        String species = request.getParameter("species");
+        if (species == null || species.isEmpty()) {
+            return null;
+        }
+        String assembly = request.getParameter("assembly");
+        if (assembly != null && !assembly.isEmpty()) {
+            species = species + "_" + assembly;
+        }
+        return dataVersionService.getVersion(MONGO_SCOPE, DBAdaptorConnector.getDBName(species));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Publishes the Hibernate second-level and query cache statistics of the EVAPRO persistence unit, so the hit ratio
+ * of each region can be followed in the metrics endpoint. Nothing is published unless the cache has been enabled with
+ * hibernate.generate_statistics, see the application.properties.
+ */
+@Component
+public class EvaproCacheMetrics implements PublicMetrics {
+
+    private static final String METRIC_PREFIX = "cache.evapro.";
+
+    private final Statistics statistics;
+
+    @Autowired
+    public EvaproCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        if (!statistics.isStatisticsEnabled()) {
+            return Collections.emptyList();
+        }
+
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "query.hit", statistics.getQueryCacheHitCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "query.miss", statistics.getQueryCacheMissCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "query.put", statistics.getQueryCachePutCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "statements.prepared", statistics.getPrepareStatementCount()));
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(region);
+            String prefix = METRIC_PREFIX + "region." + region + ".";
+            metrics.add(new Metric<>(prefix + "hit", regionStatistics.getHitCount()));
+            metrics.add(new Metric<>(prefix + "miss", regionStatistics.getMissCount()));
+            metrics.add(new Metric<>(prefix + "put", regionStatistics.getPutCount()));
+            metrics.add(new Metric<>(prefix + "size", regionStatistics.getElementCountInMemory()));
+        }
+        return metrics;
+    }
+
+}
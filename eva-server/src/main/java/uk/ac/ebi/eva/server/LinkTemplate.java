@@ -0,0 +1,208 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+/**
+ * Link to a controller method, resolved once so that links can be created without the proxies and reflection used
+ * by linkTo(methodOn(...)). The resulting URIs are the same: the base URI comes from the current request as in
+ * {@link org.springframework.hateoas.mvc.ControllerLinkBuilder}, path variables are encoded as paths, and
+ * only the request parameters with a value are appended, in the order they are declared in the method.
+ */
+public class LinkTemplate {
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{([^}:]+)(:[^}]*)?}");
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    private final Class<?> controller;
+
+    private final String baseUriAttribute;
+
+    /**
+     * Literal parts of the method mapping, there is one more than path variables
+     */
+    private final List<String> pathLiterals;
+
+    /**
+     * For each method argument, the name of its path variable, or null if it is a request parameter
+     */
+    private final List<String> pathVariables;
+
+    /**
+     * For each method argument, the name of its request parameter, or null if it is a path variable
+     */
+    private final List<String> requestParameters;
+
+    private LinkTemplate(Class<?> controller, String methodMapping, List<String> pathVariables,
+                         List<String> requestParameters) {
+        this.controller = controller;
+        this.baseUriAttribute = LinkTemplate.class.getName() + "." + controller.getName();
+        this.pathVariables = pathVariables;
+        this.requestParameters = requestParameters;
+        this.pathLiterals = new ArrayList<>();
+
+        List<String> mappingVariables = new ArrayList<>();
+        Matcher matcher = PATH_VARIABLE.matcher(methodMapping);
+        int literalStart = 0;
+        while (matcher.find()) {
+            pathLiterals.add(methodMapping.substring(literalStart, matcher.start()));
+            mappingVariables.add(matcher.group(1));
+            literalStart = matcher.end();
+        }
+        pathLiterals.add(methodMapping.substring(literalStart));
+
+        List<String> declaredVariables = new ArrayList<>(pathVariables);
+        declaredVariables.removeIf(variable -> variable == null);
+        if (!mappingVariables.equals(declaredVariables)) {
+            throw new IllegalArgumentException("The path variables of " + methodMapping + " must be declared in the " +
+                                                       "same order as they appear in the mapping");
+        }
+    }
+
+    /**
+     * @param methodName name of a request handler of the controller, which must not be overloaded
+     */
+    public static LinkTemplate of(Class<?> controller, String methodName) {
+        Method[] methods = Arrays.stream(controller.getMethods())
+                                 .filter(method -> method.getName().equals(methodName))
+                                 .toArray(Method[]::new);
+        if (methods.length != 1) {
+            throw new IllegalArgumentException("Expected exactly one method " + methodName + " in " + controller);
+        }
+        Method method = methods[0];
+
+        RequestMapping requestMapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+        if (requestMapping == null) {
+            throw new IllegalArgumentException(method + " is not a request handler");
+        }
+        String methodMapping = requestMapping.path().length == 0 ? "" : requestMapping.path()[0];
+
+        List<String> pathVariables = new ArrayList<>();
+        List<String> requestParameters = new ArrayList<>();
+        for (int i = 0; i < method.getParameterCount(); i++) {
+            MethodParameter parameter = new MethodParameter(method, i);
+            parameter.initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
+            PathVariable pathVariable = parameter.getParameterAnnotation(PathVariable.class);
+            RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            if (pathVariable != null) {
+                pathVariables.add(getName(pathVariable.value(), pathVariable.name(), parameter));
+                requestParameters.add(null);
+            } else if (requestParam != null) {
+                pathVariables.add(null);
+                requestParameters.add(getName(requestParam.value(), requestParam.name(), parameter));
+            }
+        }
+        return new LinkTemplate(controller, methodMapping, pathVariables, requestParameters);
+    }
+
+    private static String getName(String value, String name, MethodParameter parameter) {
+        if (!value.isEmpty()) {
+            return value;
+        }
+        return name.isEmpty() ? parameter.getParameterName() : name;
+    }
+
+    /**
+     * @param values one for each path variable and request parameter of the method, in the same order as in the
+     *               method declaration. Null request parameters are left out, and collections produce a parameter
+     *               per element.
+     */
+    public String expand(Object... values) {
+        if (values.length != pathVariables.size()) {
+            throw new IllegalArgumentException("Expected " + pathVariables.size() + " values but got " +
+                                                       values.length);
+        }
+        StringBuilder uri = new StringBuilder(getBaseUri());
+        StringBuilder query = new StringBuilder();
+        int literal = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (pathVariables.get(i) != null) {
+                if (values[i] == null) {
+                    throw new IllegalArgumentException("Path variable " + pathVariables.get(i) + " is null");
+                }
+                uri.append(pathLiterals.get(literal++)).append(encode(values[i].toString(), true));
+            } else if (values[i] instanceof Collection) {
+                for (Object element : (Collection<?>) values[i]) {
+                    appendRequestParameter(query, requestParameters.get(i), element);
+                }
+            } else if (values[i] != null) {
+                appendRequestParameter(query, requestParameters.get(i), values[i]);
+            }
+        }
+        uri.append(pathLiterals.get(literal));
+        if (query.length() > 0) {
+            uri.append('?').append(query);
+        }
+        return uri.toString();
+    }
+
+    /**
+     * The base URI depends on the request (host, forwarded headers...) but not on the link, so it is computed once
+     * per request and controller.
+     */
+    private String getBaseUri() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return linkTo(controller).toUri().toString();
+        }
+        String baseUri = (String) attributes.getAttribute(baseUriAttribute, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = linkTo(controller).toUri().toString();
+            attributes.setAttribute(baseUriAttribute, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+        return baseUri;
+    }
+
+    private static void appendRequestParameter(StringBuilder query, String name, Object value) {
+        if (query.length() > 0) {
+            query.append('&');
+        }
+        query.append(name).append('=').append(encode(String.valueOf(value), false));
+    }
+
+    private static String encode(String value, boolean path) {
+        try {
+            return path ? UriUtils.encodePath(value, ENCODING) : UriUtils.encodeQueryParam(value, ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
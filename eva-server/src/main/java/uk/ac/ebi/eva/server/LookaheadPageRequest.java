@@ -0,0 +1,35 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Page request that keeps the offset of the wrapped page but retrieves one more element, so the presence of a next
+ * page is known without counting all the results.
+ */
+public class LookaheadPageRequest extends PageRequest {
+
+    public LookaheadPageRequest(PageRequest pageRequest) {
+        super(pageRequest.getPageNumber(), pageRequest.getPageSize(), pageRequest.getSort());
+    }
+
+    @Override
+    public int getPageSize() {
+        return super.getPageSize() + 1;
+    }
+}
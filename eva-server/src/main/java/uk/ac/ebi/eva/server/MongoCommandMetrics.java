@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the latency of every command sent to Mongo, with one histogram per database (species and assembly),
+ * collection, command name and calling endpoint, and publishes them as mongo.command.* metrics. The number of
+ * documents returned is also recorded, to tell slow queries apart from big results, as well as the bytes returned
+ * when the driver hands over the raw reply.
+ *
+ * Commands slower than eva.mongo-metrics.slow-command-threshold-millis are logged with the shape of the command,
+ * i.e. with every value replaced by "?", so that queries can be told apart without logging what users search for.
+ */
+@Component
+public class MongoCommandMetrics implements CommandListener, PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoCommandMetrics.class);
+
+    private static final String METRIC_PREFIX = "mongo.command.";
+
+    static final String NONE = "none";
+
+    static final String OTHER = "other";
+
+    /**
+     * Upper bound on the number of histograms, as database names come from request parameters
+     */
+    static final int MAX_KEYS = 2000;
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private static final String[] COLLECTION_FIELDS = {"find", "count", "distinct", "aggregate", "insert", "update",
+            "delete", "findAndModify", "collection"};
+
+    private final long slowCommandThresholdMillis;
+
+    private final Map<Integer, StartedCommand> startedCommands = new ConcurrentHashMap<>();
+
+    private final Map<String, CommandStatistics> statistics = new ConcurrentHashMap<>();
+
+    public MongoCommandMetrics(@Value("${eva.mongo-metrics.slow-command-threshold-millis:0}")
+                                       long slowCommandThresholdMillis) {
+        this.slowCommandThresholdMillis = slowCommandThresholdMillis;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonDocument command = event.getCommand();
+        String key = String.join(".", event.getDatabaseName(), getCollection(command), event.getCommandName(),
+                                 getEndpoint());
+        // the command is only valid during this callback, so its shape is copied now
+        startedCommands.put(event.getRequestId(),
+                            new StartedCommand(key, slowCommandThresholdMillis > 0 ? getShape(command) : null));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        StartedCommand startedCommand = startedCommands.remove(event.getRequestId());
+        if (startedCommand == null) {
+            return;
+        }
+        long elapsedMicros = event.getElapsedTime(TimeUnit.MICROSECONDS);
+        BsonDocument response = event.getResponse();
+        CommandStatistics commandStatistics = getStatistics(startedCommand.key);
+        commandStatistics.latencyMicros.recordValue(elapsedMicros);
+        commandStatistics.documents.recordValue(countDocuments(response));
+        commandStatistics.replyBytes.addAndGet(getSize(response));
+        logIfSlow(startedCommand, elapsedMicros);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        StartedCommand startedCommand = startedCommands.remove(event.getRequestId());
+        if (startedCommand == null) {
+            return;
+        }
+        long elapsedMicros = event.getElapsedTime(TimeUnit.MICROSECONDS);
+        CommandStatistics commandStatistics = getStatistics(startedCommand.key);
+        commandStatistics.latencyMicros.recordValue(elapsedMicros);
+        commandStatistics.failures.incrementAndGet();
+        logIfSlow(startedCommand, elapsedMicros);
+    }
+
+    private CommandStatistics getStatistics(String key) {
+        CommandStatistics commandStatistics = statistics.get(key);
+        if (commandStatistics == null) {
+            if (statistics.size() >= MAX_KEYS) {
+                key = OTHER;
+            }
+            commandStatistics = statistics.computeIfAbsent(key, k -> new CommandStatistics());
+        }
+        return commandStatistics;
+    }
+
+    private void logIfSlow(StartedCommand startedCommand, long elapsedMicros) {
+        if (startedCommand.commandShape != null && elapsedMicros >= slowCommandThresholdMillis * 1000) {
+            logger.warn("Slow Mongo command {} took {} ms: {}", startedCommand.key, elapsedMicros / 1000,
+                        startedCommand.commandShape.asDocument().toJson());
+        }
+    }
+
+    static String getCollection(BsonDocument command) {
+        for (String field : COLLECTION_FIELDS) {
+            BsonValue value = command.get(field);
+            if (value != null && value.isString()) {
+                return value.asString().getValue();
+            }
+        }
+        return NONE;
+    }
+
+    private static String getEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return NONE;
+        }
+        Object pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                                                 RequestAttributes.SCOPE_REQUEST);
+        return pattern == null ? NONE : pattern.toString();
+    }
+
+    static long countDocuments(BsonDocument response) {
+        BsonDocument cursor = response.getDocument("cursor", null);
+        if (cursor != null) {
+            BsonArray batch = cursor.containsKey("firstBatch") ? cursor.getArray("firstBatch")
+                                                               : cursor.getArray("nextBatch", new BsonArray());
+            return batch.size();
+        }
+        BsonValue n = response.get("n");
+        if (n != null && n.isNumber()) {
+            return n.asNumber().longValue();
+        }
+        if (response.isArray("values")) {
+            return response.getArray("values").size();
+        }
+        if (response.isArray("result")) {
+            return response.getArray("result").size();
+        }
+        return 0;
+    }
+
+    /**
+     * @return the size of the reply as received, or 0 if the driver already decoded it, as encoding it again on
+     * every command would cost more than the measure is worth
+     */
+    static long getSize(BsonDocument response) {
+        if (response instanceof RawBsonDocument) {
+            return ((RawBsonDocument) response).getByteBuffer().remaining();
+        }
+        return 0;
+    }
+
+    /**
+     * @return a copy of the command that keeps the field names and operators, but replaces every value with "?",
+     * and every array with its first element
+     */
+    static BsonValue getShape(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument shape = new BsonDocument();
+            for (Map.Entry<String, BsonValue> field : value.asDocument().entrySet()) {
+                shape.put(field.getKey(), getShape(field.getValue()));
+            }
+            return shape;
+        }
+        if (value.isArray()) {
+            BsonArray shape = new BsonArray();
+            if (!value.asArray().isEmpty()) {
+                shape.add(getShape(value.asArray().get(0)));
+            }
+            return shape;
+        }
+        return new BsonString("?");
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (Map.Entry<String, CommandStatistics> entry : statistics.entrySet()) {
+            String prefix = METRIC_PREFIX + entry.getKey().replaceAll("[^A-Za-z0-9_.\\-]+", "_") + ".";
+            CommandStatistics commandStatistics = entry.getValue();
+            Histogram latency = commandStatistics.latencyMicros.copy();
+            metrics.add(new Metric<>(prefix + "count", latency.getTotalCount()));
+            metrics.add(new Metric<>(prefix + "failures", commandStatistics.failures.get()));
+            metrics.add(new Metric<>(prefix + "latency.p50.ms", latency.getValueAtPercentile(50) / 1000.0));
+            metrics.add(new Metric<>(prefix + "latency.p95.ms", latency.getValueAtPercentile(95) / 1000.0));
+            metrics.add(new Metric<>(prefix + "latency.p99.ms", latency.getValueAtPercentile(99) / 1000.0));
+            metrics.add(new Metric<>(prefix + "latency.max.ms", latency.getMaxValue() / 1000.0));
+            Histogram documents = commandStatistics.documents.copy();
+            metrics.add(new Metric<>(prefix + "documents.p50", documents.getValueAtPercentile(50)));
+            metrics.add(new Metric<>(prefix + "documents.max", documents.getMaxValue()));
+            metrics.add(new Metric<>(prefix + "reply-bytes", commandStatistics.replyBytes.get()));
+        }
+        return metrics;
+    }
+
+    private static class StartedCommand {
+
+        private final String key;
+
+        /**
+         * Only kept if slow commands are logged
+         */
+        private final BsonValue commandShape;
+
+        StartedCommand(String key, BsonValue commandShape) {
+            this.key = key;
+            this.commandShape = commandShape;
+        }
+    }
+
+    private static class CommandStatistics {
+
+        private final Histogram latencyMicros = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+        private final Histogram documents = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+        private final AtomicLong replyBytes = new AtomicLong();
+
+        private final AtomicLong failures = new AtomicLong();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Publishes the size of the connection pools of every Mongo cluster, as mongo.pool.[cluster].* metrics. The Mongo
+ * driver registers one MBean per pool (i.e. per host) in the platform MBean server, described by the name of the
+ * cluster, see {@link uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector#getMongoClient}. The pools of the hosts of each
+ * cluster are added up.
+ */
+@Component
+public class MongoConnectionPoolMetrics implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoConnectionPoolMetrics.class);
+
+    private static final String METRIC_PREFIX = "mongo.pool.";
+
+    private static final String[] ATTRIBUTES = {"Size", "CheckedOutCount", "MaxSize"};
+
+    private static final String[] METRIC_SUFFIXES = {".size", ".checked-out", ".max-size"};
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        Map<String, long[]> totalsPerCluster = new TreeMap<>();
+        try {
+            for (ObjectName pool : mBeanServer.queryNames(new ObjectName("org.mongodb.driver:type=ConnectionPool,*"),
+                                                          null)) {
+                String cluster = pool.getKeyProperty("description");
+                long[] totals = totalsPerCluster.computeIfAbsent(cluster == null ? "unnamed" : cluster,
+                                                                 key -> new long[ATTRIBUTES.length]);
+                for (int i = 0; i < ATTRIBUTES.length; i++) {
+                    totals[i] += ((Number) mBeanServer.getAttribute(pool, ATTRIBUTES[i])).longValue();
+                }
+            }
+        } catch (JMException e) {
+            logger.warn("Could not read the Mongo connection pool statistics: {}", e.getMessage());
+        }
+
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (Map.Entry<String, long[]> totals : totalsPerCluster.entrySet()) {
+            for (int i = 0; i < ATTRIBUTES.length; i++) {
+                metrics.add(new Metric<>(METRIC_PREFIX + totals.getKey() + METRIC_SUFFIXES[i], totals.getValue()[i]));
+            }
+        }
+        return metrics;
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.commons.core.models.AnnotationMetadata;
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
+import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataService;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+import uk.ac.ebi.eva.lib.eva_utils.MongoDataVersionSource;
+import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps in memory the small data of each database that rarely changes but is requested very often: annotation
+ * versions, chromosome names and the sources listed by the beacon. The caches are keyed by database name, as
+ * returned by {@link uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector#getDBName(String)}.
+ *
+ * Entries are refreshed in the background some minutes after being loaded, while the previous value keeps being
+ * served. A refresh only reloads the data when the collection it derives from has changed, i.e. its number of documents
+ * or greatest _id (see {@link MongoDataVersionSource}), which happens whenever a study is loaded or new annotations are
+ * imported.
+ */
+@Component
+public class ReferenceDataCache implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private static final int MAXIMUM_DATABASES = 200;
+
+    private static final int REFRESH_INTERVAL_IN_MINUTES = 5;
+
+    private static final int REFRESH_THREADS = 2;
+
+    private static final String METRIC_PREFIX = "cache.reference-data.";
+
+    private final MongoOperations mongoOperations;
+
+    private final ListeningExecutorService refreshExecutor;
+
+    private final LoadingCache<String, Snapshot<List<AnnotationMetadata>>> annotationMetadata;
+
+    private final LoadingCache<String, Snapshot<List<String>>> chromosomes;
+
+    private final LoadingCache<String, Snapshot<List<VariantSource>>> beaconVariantSources;
+
+    @Autowired
+    public ReferenceDataCache(MongoOperations mongoOperations, DbCollectionsProperties dbCollectionsProperties,
+                              AnnotationMetadataService annotationMetadataService,
+                              VariantWithSamplesAndAnnotationsService variantService,
+                              VariantSourceService variantSourceService) {
+        this.mongoOperations = mongoOperations;
+        this.refreshExecutor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(
+                REFRESH_THREADS, new ThreadFactoryBuilder().setNameFormat("reference-data-refresh-%d")
+                                                           .setDaemon(true)
+                                                           .build()));
+
+        this.annotationMetadata = buildCache(dbCollectionsProperties::getAnnotationMetadata,
+                                             annotationMetadataService::findAllByOrderByCacheVersionDescVepVersionDesc);
+        this.chromosomes = buildCache(dbCollectionsProperties::getFiles,
+                                      () -> Collections.unmodifiableList(
+                                              new ArrayList<>(variantService.findDistinctChromosomes())));
+        this.beaconVariantSources = buildCache(dbCollectionsProperties::getFiles,
+                                               variantSourceService::findAllVariantSourcesForBeacon);
+    }
+
+    public List<AnnotationMetadata> getAnnotationMetadata(String databaseName) {
+        return annotationMetadata.getUnchecked(databaseName).data;
+    }
+
+    public List<String> getChromosomes(String databaseName) {
+        return chromosomes.getUnchecked(databaseName).data;
+    }
+
+    public List<VariantSource> getBeaconVariantSources(String databaseName) {
+        return beaconVariantSources.getUnchecked(databaseName).data;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        addMetrics(metrics, "annotation-metadata", annotationMetadata);
+        addMetrics(metrics, "chromosomes", chromosomes);
+        addMetrics(metrics, "beacon-sources", beaconVariantSources);
+        return metrics;
+    }
+
+    private static void addMetrics(List<Metric<?>> metrics, String name, LoadingCache<String, ?> cache) {
+        CacheStats stats = cache.stats();
+        String prefix = METRIC_PREFIX + name + ".";
+        metrics.add(new Metric<>(prefix + "size", cache.size()));
+        metrics.add(new Metric<>(prefix + "hit", stats.hitCount()));
+        metrics.add(new Metric<>(prefix + "miss", stats.missCount()));
+        metrics.add(new Metric<>(prefix + "load.success", stats.loadSuccessCount()));
+        metrics.add(new Metric<>(prefix + "load.failure", stats.loadExceptionCount()));
+        metrics.add(new Metric<>(prefix + "load.time.ms",
+                                 TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime())));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private <T> LoadingCache<String, Snapshot<T>> buildCache(Supplier<String> versionedCollection,
+                                                              Supplier<T> loader) {
+        return CacheBuilder.newBuilder()
+                           .maximumSize(MAXIMUM_DATABASES)
+                           .refreshAfterWrite(REFRESH_INTERVAL_IN_MINUTES, TimeUnit.MINUTES)
+                           .recordStats()
+                           .build(new SnapshotLoader<>(versionedCollection, loader));
+    }
+
+    /**
+     * Value of a cache entry, along with the version of its collection when it was loaded, or null if unknown
+     */
+    private static class Snapshot<T> {
+
+        private final String version;
+
+        private final T data;
+
+        Snapshot(String version, T data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+
+    private class SnapshotLoader<T> extends CacheLoader<String, Snapshot<T>> {
+
+        private final Supplier<String> versionedCollection;
+
+        private final Supplier<T> loader;
+
+        SnapshotLoader(Supplier<String> versionedCollection, Supplier<T> loader) {
+            this.versionedCollection = versionedCollection;
+            this.loader = loader;
+        }
+
+        /**
+         * Invoked in the request thread, which has already selected the database. The version is only checked in
+         * background refreshes, so that a miss costs a single query.
+         */
+        @Override
+        public Snapshot<T> load(String databaseName) {
+            MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+            return new Snapshot<>(null, loader.get());
+        }
+
+        @Override
+        public ListenableFuture<Snapshot<T>> reload(String databaseName, Snapshot<T> previous) {
+            return refreshExecutor.submit(() -> {
+                MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+                try {
+                    String version = getVersion();
+                    if (Objects.equals(version, previous.version)) {
+                        return previous;
+                    }
+                    logger.info("Reloading {} from database {}", versionedCollection.get(), databaseName);
+                    return new Snapshot<>(version, loader.get());
+                } finally {
+                    MultiMongoDbFactory.clearDatabaseNameForCurrentThread();
+                }
+            });
+        }
+
+        private String getVersion() {
+            return MongoDataVersionSource.getCollectionVersion(mongoOperations.getCollection(versionedCollection.get()));
+        }
+    }
+}
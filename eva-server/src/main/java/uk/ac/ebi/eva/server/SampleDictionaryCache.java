@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the sample names of each file as an array ordered by their position in the file, so that a page of call sets
+ * can be sliced from it without retrieving the samples of the file again. A file loaded in several studies has the
+ * samples of every study, one after the other.
+ *
+ * The sample names of a file don't change once it is loaded, so entries only expire to release memory. Files without
+ * samples, such as sites-only files, are cached as such; files not found are not cached, so they are available as
+ * soon as they are loaded.
+ */
+@Component
+public class SampleDictionaryCache {
+
+    private static final int MAXIMUM_FILES = 2000;
+
+    private static final int EXPIRATION_IN_HOURS = 24;
+
+    private static final int MAXIMUM_STUDIES_PER_FILE = 1000;
+
+    private static final String[] NO_SAMPLES = new String[0];
+
+    private final VariantSourceService variantSourceService;
+
+    private final Cache<String, String[]> sampleNames;
+
+    @Autowired
+    public SampleDictionaryCache(VariantSourceService variantSourceService) {
+        this.variantSourceService = variantSourceService;
+        this.sampleNames = CacheBuilder.newBuilder()
+                                       .maximumSize(MAXIMUM_FILES)
+                                       .expireAfterAccess(EXPIRATION_IN_HOURS, TimeUnit.HOURS)
+                                       .build();
+    }
+
+    /**
+     * Must be called from a thread that has selected the database.
+     *
+     * @param databaseName as returned by {@link uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector#getDBName(String)}
+     * @return the sample names of the file ordered by position, which must not be modified; empty if the file
+     * doesn't exist
+     */
+    public String[] getSampleNames(String databaseName, String fileId) {
+        String key = databaseName + "/" + fileId;
+        String[] names = sampleNames.getIfPresent(key);
+        if (names == null) {
+            names = loadSampleNames(fileId);
+            if (names == null) {
+                return NO_SAMPLES;
+            }
+            sampleNames.put(key, names);
+        }
+        return names;
+    }
+
+    /**
+     * @return the sample names of the file, or null if the file doesn't exist
+     */
+    private String[] loadSampleNames(String fileId) {
+        List<VariantSource> variantSources = variantSourceService.findByFileIdIn(
+                Collections.singletonList(fileId), new PageRequest(0, MAXIMUM_STUDIES_PER_FILE));
+        if (variantSources.isEmpty()) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (VariantSource variantSource : variantSources) {
+            if (variantSource.getSamplesPosition() == null) {
+                continue;
+            }
+            List<Map.Entry<String, Integer>> samples = new ArrayList<>(variantSource.getSamplesPosition().entrySet());
+            samples.sort(Map.Entry.comparingByValue());
+            for (Map.Entry<String, Integer> sample : samples) {
+                names.add(sample.getKey());
+            }
+        }
+        return names.isEmpty() ? NO_SAMPLES : names.toArray(new String[names.size()]);
+    }
+}
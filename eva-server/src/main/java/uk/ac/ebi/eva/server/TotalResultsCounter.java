@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.eva.lib.eva_utils.MongoDatabaseContext;
+import uk.ac.ebi.eva.lib.utils.CountMode;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Computes the total number of results of a paged query according to a {@link CountMode}. The results of the page
+ * must have been retrieved using {@link Utils#getPageRequest(PageRequest, CountMode)}, so they may contain one
+ * element beyond the end of the page.
+ *
+ * Estimated counts never run the count query in the request thread: if there is no recent count of the query, the
+ * number of results known so far is returned, which is enough to tell that there is a next page, and the exact count
+ * is run in the background for the following requests.
+ */
+@Component
+public class TotalResultsCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TotalResultsCounter.class);
+
+    private static final int ESTIMATES_MAXIMUM_SIZE = 10000;
+
+    private static final int ESTIMATES_EXPIRY_IN_MINUTES = 10;
+
+    private static final int COUNT_THREADS = 2;
+
+    /**
+     * Counts requested while this many are waiting are not run, as the database is probably struggling
+     */
+    private static final int MAXIMUM_PENDING_COUNTS = 100;
+
+    private final Cache<String, Long> estimates = CacheBuilder.newBuilder()
+                                                              .maximumSize(ESTIMATES_MAXIMUM_SIZE)
+                                                              .expireAfterWrite(ESTIMATES_EXPIRY_IN_MINUTES,
+                                                                                TimeUnit.MINUTES)
+                                                              .build();
+
+    private final Set<String> pendingCounts = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService countExecutor;
+
+    public TotalResultsCounter() {
+        this(MongoDatabaseContext.propagating(new ThreadPoolExecutor(
+                COUNT_THREADS, COUNT_THREADS, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAXIMUM_PENDING_COUNTS),
+                new ThreadFactoryBuilder().setNameFormat("estimated-count-%d").setDaemon(true).build())));
+    }
+
+    /**
+     * @param countExecutor runs the counts of estimates, which must see the database selected by the request
+     */
+    TotalResultsCounter(ExecutorService countExecutor) {
+        this.countExecutor = countExecutor;
+    }
+
+    /**
+     * @param queryKey identifies the database and the filters of the query, used to reuse estimated counts
+     * @param exactCounter runs the exact count query, only invoked when the mode requires it
+     */
+    public long count(CountMode countMode, PageRequest pageRequest, List<?> fetchedResults, String queryKey,
+                      Supplier<Long> exactCounter) {
+        long knownResults = pageRequest.getOffset() + fetchedResults.size();
+        switch (countMode) {
+            case NONE:
+                return knownResults;
+            case ESTIMATE:
+                if (fetchedResults.size() <= pageRequest.getPageSize()) {
+                    // this is the last page, so the results seen so far are all the results
+                    return knownResults;
+                }
+                Long estimate = estimates.getIfPresent(queryKey);
+                if (estimate == null) {
+                    countInBackground(queryKey, exactCounter);
+                    return knownResults;
+                }
+                return Math.max(knownResults, estimate);
+            default:
+                return exactCounter.get();
+        }
+    }
+
+    private void countInBackground(String queryKey, Supplier<Long> exactCounter) {
+        if (!pendingCounts.add(queryKey)) {
+            return;
+        }
+        try {
+            countExecutor.execute(() -> {
+                try {
+                    estimates.put(queryKey, exactCounter.get());
+                } catch (RuntimeException e) {
+                    logger.warn("Could not count the results of " + queryKey, e);
+                } finally {
+                    pendingCounts.remove(queryKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingCounts.remove(queryKey);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        countExecutor.shutdownNow();
+    }
+}
@@ -20,9 +20,12 @@ package uk.ac.ebi.eva.server;
 
 import com.google.common.primitives.Ints;
 import org.springframework.data.domain.PageRequest;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.lib.utils.CountMode;
 import uk.ac.ebi.eva.lib.utils.QueryOptions;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -52,6 +55,18 @@ public class Utils {
         return getPageRequest(limit, skip);
     }
 
+    /**
+     * Page tokens can be either a page number, kept for compatibility, or an opaque {@link ContinuationToken}.
+     *
+     * @return the continuation token, or null if the page token is missing or is a page number
+     */
+    public static ContinuationToken getContinuationToken(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty() || Ints.tryParse(pageToken) != null) {
+            return null;
+        }
+        return ContinuationToken.parse(pageToken);
+    }
+
     public static PageRequest getPageRequest(int limit, String pageToken) {
         int idxCurrentPage = 0;
         if (pageToken != null && !pageToken.isEmpty() && Ints.tryParse(pageToken) != null) {
@@ -66,11 +81,41 @@ public class Utils {
         return new PageRequest(page, size);
     }
 
+    /**
+     * Unless the total number of results is counted exactly, one more element than the page size is retrieved so
+     * that the presence of a next page can be detected. It must be removed with {@link #removeLookahead}.
+     */
+    public static PageRequest getPageRequest(PageRequest pageRequest, CountMode countMode) {
+        return countMode == CountMode.EXACT ? pageRequest : new LookaheadPageRequest(pageRequest);
+    }
+
+    public static <T> List<T> removeLookahead(List<T> results, PageRequest pageRequest) {
+        int pageSize = pageRequest.getPageSize();
+        return results.size() > pageSize ? new ArrayList<>(results.subList(0, pageSize)) : results;
+    }
+
+    public static CountMode getCountMode(QueryOptions queryOptions) {
+        Object countMode = queryOptions.get("countMode");
+        return (countMode == null) ? CountMode.EXACT : CountMode.parse(countMode.toString());
+    }
+
     public static String getNextPageToken(PageRequest pageRequest, int limit, long numTotalResults) {
         int idxLastElement = pageRequest.getPageNumber() * limit + limit;
         return (idxLastElement < numTotalResults) ? String.valueOf(pageRequest.getPageNumber() + 1) : null;
     }
 
+    /**
+     * Same as {@link #getNextPageToken(PageRequest, int, long)}, but the token continues after the last variant of
+     * the page, so that retrieving the next page does not require skipping the previous ones.
+     */
+    public static String getNextPageToken(PageRequest pageRequest, int limit, long numTotalResults,
+                                          List<VariantWithSamplesAndAnnotation> page) {
+        if (page.isEmpty() || getNextPageToken(pageRequest, limit, numTotalResults) == null) {
+            return null;
+        }
+        return ContinuationToken.fromPage(page).encode();
+    }
+
     public static String createExclusionFieldString(List<String> excludeList) {
         List<String> formattedList = excludeList.stream().map(field -> String.format("'%s' : 0", field))
                 .collect(Collectors.toList());
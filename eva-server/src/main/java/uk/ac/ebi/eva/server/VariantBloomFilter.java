@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bloom filter stored in a memory-mapped file, so that it is not kept in the heap and can be reopened after a restart
+ * without being rebuilt.
+ *
+ * The file starts with a header that describes the filter, followed by the bit array. A filter is only meant to be
+ * queried once it has been marked as complete, and must not be modified afterwards: concurrent reads are safe, but
+ * insertions are not synchronized.
+ */
+public class VariantBloomFilter implements Closeable {
+
+    private static final int MAGIC = 0x45564246;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int FORMAT_VERSION_OFFSET = 4;
+
+    private static final int NUM_BITS_OFFSET = 8;
+
+    private static final int NUM_HASHES_OFFSET = 16;
+
+    private static final int COMPLETE_OFFSET = 20;
+
+    private static final int INSERTIONS_OFFSET = 24;
+
+    private static final int SOURCE_VERSION_OFFSET = 32;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final long numBits;
+
+    private final int numHashes;
+
+    private long insertions;
+
+    private VariantBloomFilter(FileChannel channel, MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.numBits = buffer.getLong(NUM_BITS_OFFSET);
+        this.numHashes = buffer.getInt(NUM_HASHES_OFFSET);
+        this.insertions = buffer.getLong(INSERTIONS_OFFSET);
+    }
+
+    /**
+     * Creates an empty filter, replacing the file if it exists.
+     *
+     * @param expectedInsertions number of keys that will be added, used along with the false positive rate to size
+     *                           the filter
+     */
+    public static VariantBloomFilter create(Path file, long expectedInsertions, double falsePositiveRate)
+            throws IOException {
+        if (expectedInsertions < 1) {
+            expectedInsertions = 1;
+        }
+        long numBits = Math.max(Byte.SIZE, (long) (-expectedInsertions * Math.log(falsePositiveRate) /
+                (Math.log(2) * Math.log(2))));
+        int numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        long fileSize = HEADER_SIZE + (numBits + Byte.SIZE - 1) / Byte.SIZE;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A filter for " + expectedInsertions + " keys with a false positive " +
+                                                       "rate of " + falsePositiveRate + " would exceed 2GB");
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+            buffer.putLong(NUM_BITS_OFFSET, numBits);
+            buffer.putInt(NUM_HASHES_OFFSET, numHashes);
+            return new VariantBloomFilter(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a filter previously written with {@link #create}. The file is mapped read-only.
+     *
+     * @throws IOException if the file can't be read or doesn't contain a filter
+     */
+    public static VariantBloomFilter open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException(file + " is not a variant Bloom filter");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(FORMAT_VERSION_OFFSET) != FORMAT_VERSION ||
+                    HEADER_SIZE + (buffer.getLong(NUM_BITS_OFFSET) + Byte.SIZE - 1) / Byte.SIZE != fileSize) {
+                throw new IOException(file + " is not a variant Bloom filter");
+            }
+            return new VariantBloomFilter(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void put(String key) {
+        long[] hashes = hash(key);
+        long combinedHash = hashes[0];
+        for (int i = 0; i < numHashes; i++) {
+            long bit = (combinedHash & Long.MAX_VALUE) % numBits;
+            int index = HEADER_SIZE + (int) (bit >>> 3);
+            buffer.put(index, (byte) (buffer.get(index) | (1 << (bit & 7))));
+            combinedHash += hashes[1];
+        }
+        insertions++;
+    }
+
+    /**
+     * @return false if the key was definitely not added to the filter, true if it probably was
+     */
+    public boolean mightContain(String key) {
+        long[] hashes = hash(key);
+        long combinedHash = hashes[0];
+        for (int i = 0; i < numHashes; i++) {
+            long bit = (combinedHash & Long.MAX_VALUE) % numBits;
+            if ((buffer.get(HEADER_SIZE + (int) (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+            combinedHash += hashes[1];
+        }
+        return true;
+    }
+
+    /**
+     * Marks the filter as fully built and flushes it to disk.
+     *
+     * @param sourceVersion identifies the state of the data the filter was built from, so that it can be reused if
+     *                      the data has not changed when the file is reopened
+     */
+    public void complete(long sourceVersion) {
+        buffer.putLong(INSERTIONS_OFFSET, insertions);
+        buffer.putLong(SOURCE_VERSION_OFFSET, sourceVersion);
+        buffer.put(COMPLETE_OFFSET, (byte) 1);
+        buffer.force();
+    }
+
+    public boolean isComplete() {
+        return buffer.get(COMPLETE_OFFSET) == 1;
+    }
+
+    public long getSourceVersion() {
+        return buffer.getLong(SOURCE_VERSION_OFFSET);
+    }
+
+    public long getInsertions() {
+        return insertions;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    /**
+     * Releases the file. The mapped memory stays valid until the filter is garbage collected, so it is safe to close
+     * a filter that other threads may still be reading.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static long[] hash(String key) {
+        byte[] bytes = HASH_FUNCTION.hashString(key, StandardCharsets.UTF_8).asBytes();
+        ByteBuffer hash = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        return new long[]{hash.getLong(0), hash.getLong(8)};
+    }
+}
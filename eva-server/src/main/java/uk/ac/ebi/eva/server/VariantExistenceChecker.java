@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.commons.core.models.VariantType;
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+
+import java.util.List;
+
+/**
+ * Checks whether variants exist in the database selected for the current thread. Unlike the queries of
+ * {@link uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService}, only the _id of the first
+ * match is retrieved: no document is mapped and no annotation is looked up. The query is covered, and so doesn't
+ * read any document, if there is an index that includes the _id and the queried fields.
+ */
+@Component
+public class VariantExistenceChecker {
+
+    private static final String CHROMOSOME_FIELD = "chr";
+
+    private static final String START_FIELD = "start";
+
+    private static final String REFERENCE_FIELD = "ref";
+
+    private static final String ALTERNATE_FIELD = "alt";
+
+    private static final String TYPE_FIELD = "type";
+
+    private static final String IDS_FIELD = "ids";
+
+    private static final String STUDY_ID_FIELD = "files.sid";
+
+    private static final BasicDBObject ID_PROJECTION = new BasicDBObject("_id", 1);
+
+    private final MongoOperations mongoOperations;
+
+    private final DbCollectionsProperties dbCollectionsProperties;
+
+    @Autowired
+    public VariantExistenceChecker(MongoOperations mongoOperations, DbCollectionsProperties dbCollectionsProperties) {
+        this.mongoOperations = mongoOperations;
+        this.dbCollectionsProperties = dbCollectionsProperties;
+    }
+
+    /**
+     * @param alternate if null, variants with any alternate allele match
+     * @param studies   if null or empty, variants from any study match
+     */
+    public boolean existsByCoordinatesAndAlleles(String chromosome, long start, String reference, String alternate,
+                                                 List<String> studies) {
+        BasicDBObject query = new BasicDBObject(CHROMOSOME_FIELD, chromosome).append(START_FIELD, start)
+                                                                             .append(REFERENCE_FIELD, reference);
+        if (alternate != null) {
+            query.append(ALTERNATE_FIELD, alternate);
+        }
+        return exists(withStudies(query, studies));
+    }
+
+    public boolean existsByCoordinatesAndAlternate(String chromosome, long start, String alternate,
+                                                   List<String> studies) {
+        BasicDBObject query = new BasicDBObject(CHROMOSOME_FIELD, chromosome).append(START_FIELD, start)
+                                                                             .append(ALTERNATE_FIELD, alternate);
+        return exists(withStudies(query, studies));
+    }
+
+    public boolean existsByCoordinatesAndType(String chromosome, long start, VariantType type, List<String> studies) {
+        BasicDBObject query = new BasicDBObject(CHROMOSOME_FIELD, chromosome).append(START_FIELD, start)
+                                                                             .append(TYPE_FIELD, type.toString());
+        return exists(withStudies(query, studies));
+    }
+
+    public boolean existsById(String id, List<String> studies) {
+        return exists(withStudies(new BasicDBObject(IDS_FIELD, id), studies));
+    }
+
+    private static BasicDBObject withStudies(BasicDBObject query, List<String> studies) {
+        if (studies != null && !studies.isEmpty()) {
+            query.append(STUDY_ID_FIELD, new BasicDBObject("$in", studies));
+        }
+        return query;
+    }
+
+    private boolean exists(BasicDBObject query) {
+        try (DBCursor cursor = mongoOperations.getCollection(dbCollectionsProperties.getVariants())
+                                              .find(query, ID_PROJECTION)
+                                              .limit(1)) {
+            return cursor.hasNext();
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Bytes;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
+import uk.ac.ebi.eva.lib.eva_utils.MongoDataVersionSource;
+import uk.ac.ebi.eva.server.configuration.ExistenceIndexProperties;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers whether a variant may exist in a database without querying it, using a {@link VariantBloomFilter} per
+ * configured species and assembly. A negative answer is definitive, so the caller can reply "not found" straight
+ * away; a positive answer must be confirmed with a database query.
+ *
+ * Every variant is indexed by position ("chr:pos") and by alleles ("chr:pos:ref:alt"), and optionally by study
+ * ("study/chr:pos:ref:alt"). The filters are built by scanning the variants collection in the background, and are
+ * rebuilt whenever the files collection changes (number of documents or greatest _id). Queries compare that version
+ * with the one the filter was built from, checked at most every eva.existence-index.version-check-interval-in-seconds,
+ * so until a filter is ready, or as soon as it is seen to be stale, every query is reported as a possible hit.
+ */
+@Component
+public class VariantExistenceIndex implements PublicMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(VariantExistenceIndex.class);
+
+    private static final String CHROMOSOME_FIELD = "chr";
+
+    private static final String START_FIELD = "start";
+
+    private static final String REFERENCE_FIELD = "ref";
+
+    private static final String ALTERNATE_FIELD = "alt";
+
+    private static final String FILES_FIELD = "files";
+
+    private static final String STUDY_ID_FIELD = "sid";
+
+    private static final int SCAN_BATCH_SIZE = 10000;
+
+    /**
+     * Keys inserted per variant, used to size the filters: one for the position and one for the alleles, plus an
+     * estimate of the studies per variant if those are indexed
+     */
+    private static final int KEYS_PER_VARIANT = 2;
+
+    private static final int KEYS_PER_VARIANT_WITH_STUDIES = 4;
+
+    private static final String FILTER_FILE_EXTENSION = ".bloom";
+
+    private static final String METRIC_PREFIX = "existence-index.";
+
+    private final ExistenceIndexProperties properties;
+
+    private final MongoDbFactory mongoDbFactory;
+
+    private final DbCollectionsProperties dbCollectionsProperties;
+
+    private final Map<String, VariantBloomFilter> filters = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> checks = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> negatives = new ConcurrentHashMap<>();
+
+    private final Map<String, CheckedVersion> checkedVersions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService refreshExecutor;
+
+    @Autowired
+    public VariantExistenceIndex(ExistenceIndexProperties properties, MongoDbFactory mongoDbFactory,
+                                 DbCollectionsProperties dbCollectionsProperties) {
+        this.properties = properties;
+        this.mongoDbFactory = mongoDbFactory;
+        this.dbCollectionsProperties = dbCollectionsProperties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("existence-index-refresh").setDaemon(true).build());
+        refreshExecutor.scheduleWithFixedDelay(this::refreshAll, 0, properties.getCheckIntervalInMinutes(),
+                                               TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        filters.values().forEach(this::close);
+        filters.clear();
+    }
+
+    /**
+     * @param databaseName as returned by {@link DBAdaptorConnector#getDBName(String)}
+     * @param reference    if either allele is null, only the position is checked
+     * @param studies      if not empty and studies are indexed, the variant must be present in any of them
+     * @return false if the variant is definitely not in the database, true if it may be
+     */
+    public boolean mightContain(String databaseName, String chromosome, long start, String reference,
+                                String alternate, List<String> studies) {
+        VariantBloomFilter filter = filters.get(databaseName);
+        if (filter == null || !isCurrent(databaseName, filter)) {
+            return true;
+        }
+
+        boolean mightContain;
+        if (reference == null || alternate == null) {
+            mightContain = filter.mightContain(getPositionKey(chromosome, start));
+        } else if (properties.isPerStudy() && studies != null && !studies.isEmpty()) {
+            String allelesKey = getAllelesKey(chromosome, start, reference, alternate);
+            mightContain = studies.stream().anyMatch(study -> filter.mightContain(getStudyKey(study, allelesKey)));
+        } else {
+            mightContain = filter.mightContain(getAllelesKey(chromosome, start, reference, alternate));
+        }
+
+        checks.computeIfAbsent(databaseName, name -> new LongAdder()).increment();
+        if (!mightContain) {
+            negatives.computeIfAbsent(databaseName, name -> new LongAdder()).increment();
+        }
+        return mightContain;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        for (String species : properties.getDatabases()) {
+            String databaseName = DBAdaptorConnector.getDBName(species);
+            String prefix = METRIC_PREFIX + species + ".";
+            long checkCount = getCount(checks, databaseName);
+            long negativeCount = getCount(negatives, databaseName);
+            VariantBloomFilter filter = filters.get(databaseName);
+            metrics.add(new Metric<>(prefix + "ready", filter == null ? 0 : 1));
+            metrics.add(new Metric<>(prefix + "keys", filter == null ? 0 : filter.getInsertions()));
+            metrics.add(new Metric<>(prefix + "checks", checkCount));
+            metrics.add(new Metric<>(prefix + "short-circuited", negativeCount));
+            metrics.add(new Metric<>(prefix + "short-circuit-ratio",
+                                     checkCount == 0 ? 0.0 : (double) negativeCount / checkCount));
+        }
+        return metrics;
+    }
+
+    /**
+     * Whether the database has not changed since the filter was built, so that its negative answers can be trusted
+     */
+    private boolean isCurrent(String databaseName, VariantBloomFilter filter) {
+        long now = System.currentTimeMillis();
+        CheckedVersion checkedVersion = checkedVersions.get(databaseName);
+        if (checkedVersion == null
+                || now - checkedVersion.checkedAt >= properties.getVersionCheckIntervalInSeconds() * 1000L) {
+            Long sourceVersion;
+            try {
+                sourceVersion = getSourceVersion(databaseName);
+            } catch (RuntimeException e) {
+                // unknown until the next check, so no query is answered negatively meanwhile
+                logger.warn("Could not check the version of " + databaseName, e);
+                sourceVersion = null;
+            }
+            checkedVersion = new CheckedVersion(sourceVersion, now);
+            checkedVersions.put(databaseName, checkedVersion);
+        }
+        return checkedVersion.sourceVersion != null && checkedVersion.sourceVersion == filter.getSourceVersion();
+    }
+
+    private long getSourceVersion(String databaseName) {
+        String version = MongoDataVersionSource.getCollectionVersion(
+                mongoDbFactory.getDb(databaseName).getCollection(dbCollectionsProperties.getFiles()));
+        return Hashing.murmur3_128().hashString(version, StandardCharsets.UTF_8).asLong();
+    }
+
+    private static long getCount(Map<String, LongAdder> counters, String databaseName) {
+        LongAdder counter = counters.get(databaseName);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    private void refreshAll() {
+        for (String species : properties.getDatabases()) {
+            String databaseName = DBAdaptorConnector.getDBName(species);
+            try {
+                refresh(databaseName);
+            } catch (Exception e) {
+                // keep the refresh scheduled for the rest of databases and the next round
+                logger.error("Could not refresh the existence index of " + databaseName, e);
+            }
+        }
+    }
+
+    void refresh(String databaseName) throws IOException {
+        long version = getSourceVersion(databaseName);
+        checkedVersions.put(databaseName, new CheckedVersion(version, System.currentTimeMillis()));
+        VariantBloomFilter current = filters.get(databaseName);
+        if (current != null && current.getSourceVersion() == version) {
+            return;
+        }
+        if (current != null) {
+            logger.info("Files of {} have changed, the existence index will be rebuilt", databaseName);
+            filters.remove(databaseName);
+            close(current);
+        }
+
+        Path file = Paths.get(properties.getDirectory(), databaseName + FILTER_FILE_EXTENSION);
+        VariantBloomFilter stored = openStored(file, version);
+        if (stored != null) {
+            logger.info("Reusing existence index {} with {} keys", file, stored.getInsertions());
+            filters.put(databaseName, stored);
+            return;
+        }
+
+        build(databaseName, file, version);
+        filters.put(databaseName, VariantBloomFilter.open(file));
+    }
+
+    private VariantBloomFilter openStored(Path file, long version) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            VariantBloomFilter filter = VariantBloomFilter.open(file);
+            if (filter.isComplete() && filter.getSourceVersion() == version) {
+                return filter;
+            }
+            close(filter);
+        } catch (IOException e) {
+            logger.warn("Existence index " + file + " can't be reused", e);
+        }
+        return null;
+    }
+
+    private void build(String databaseName, Path file, long version) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        DBCollection variants = mongoDbFactory.getDb(databaseName).getCollection(dbCollectionsProperties.getVariants());
+        long expectedInsertions = variants.count() *
+                (properties.isPerStudy() ? KEYS_PER_VARIANT_WITH_STUDIES : KEYS_PER_VARIANT);
+        logger.info("Building existence index of {} for {} keys", databaseName, expectedInsertions);
+
+        DBObject projection = new BasicDBObject(CHROMOSOME_FIELD, 1).append(START_FIELD, 1)
+                                                                      .append(REFERENCE_FIELD, 1)
+                                                                      .append(ALTERNATE_FIELD, 1);
+        if (properties.isPerStudy()) {
+            projection.put(FILES_FIELD + "." + STUDY_ID_FIELD, 1);
+        }
+
+        try (VariantBloomFilter filter = VariantBloomFilter.create(temporaryFile, expectedInsertions,
+                                                                   properties.getFalsePositiveRate());
+             DBCursor cursor = variants.find(new BasicDBObject(), projection)
+                                       .batchSize(SCAN_BATCH_SIZE)
+                                       .addOption(Bytes.QUERYOPTION_NOTIMEOUT)) {
+            while (cursor.hasNext()) {
+                DBObject variant = cursor.next();
+                String chromosome = (String) variant.get(CHROMOSOME_FIELD);
+                long start = ((Number) variant.get(START_FIELD)).longValue();
+                String allelesKey = getAllelesKey(chromosome, start, (String) variant.get(REFERENCE_FIELD),
+                                                  (String) variant.get(ALTERNATE_FIELD));
+                filter.put(getPositionKey(chromosome, start));
+                filter.put(allelesKey);
+                if (properties.isPerStudy() && variant.get(FILES_FIELD) instanceof List) {
+                    for (Object sourceEntry : (List<?>) variant.get(FILES_FIELD)) {
+                        filter.put(getStudyKey((String) ((DBObject) sourceEntry).get(STUDY_ID_FIELD), allelesKey));
+                    }
+                }
+            }
+            filter.complete(version);
+            logger.info("Built existence index of {} with {} keys", databaseName, filter.getInsertions());
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void close(VariantBloomFilter filter) {
+        try {
+            filter.close();
+        } catch (IOException e) {
+            logger.warn("Could not close existence index", e);
+        }
+    }
+
+    private static String getPositionKey(String chromosome, long start) {
+        return chromosome + ":" + start;
+    }
+
+    private static String getAllelesKey(String chromosome, long start, String reference, String alternate) {
+        return chromosome + ":" + start + ":" + reference + ":" + alternate;
+    }
+
+    private static String getStudyKey(String study, String allelesKey) {
+        return study + "/" + allelesKey;
+    }
+
+    private static class CheckedVersion {
+
+        /**
+         * Null if it could not be read
+         */
+        private final Long sourceVersion;
+
+        private final long checkedAt;
+
+        CheckedVersion(Long sourceVersion, long checkedAt) {
+            this.sourceVersion = sourceVersion;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantSetFactory;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantSetMetadata;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the GA4GH metadata parsed from the VCF header of each file, so that the header is only parsed again when the
+ * file document changes. Entries are keyed by database, study and file, and are discarded if the header of the file
+ * is no longer the one they were parsed from.
+ *
+ * The cached metadata is shared between responses and must not be modified.
+ */
+@Component
+public class VariantSetMetadataCache {
+
+    private static final int MAXIMUM_FILES = 10000;
+
+    private static final int EXPIRATION_IN_HOURS = 24;
+
+    private final Cache<String, ParsedHeader> parsedHeaders;
+
+    public VariantSetMetadataCache() {
+        this.parsedHeaders = CacheBuilder.newBuilder()
+                                         .maximumSize(MAXIMUM_FILES)
+                                         .expireAfterAccess(EXPIRATION_IN_HOURS, TimeUnit.HOURS)
+                                         .build();
+    }
+
+    /**
+     * @param databaseName as returned by {@link uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector#getDBName(String)}
+     */
+    public List<GAVariantSetMetadata> getMetadata(String databaseName, VariantSource source) {
+        String key = databaseName + "/" + source.getStudyId() + "/" + source.getFileId();
+        String header = GAVariantSetFactory.getHeader(source);
+        ParsedHeader parsedHeader = parsedHeaders.getIfPresent(key);
+        if (parsedHeader == null || !parsedHeader.header.equals(header)) {
+            parsedHeader = new ParsedHeader(header, Collections.unmodifiableList(
+                    GAVariantSetFactory.parseMetadata(source)));
+            parsedHeaders.put(key, parsedHeader);
+        }
+        return parsedHeader.metadata;
+    }
+
+    private static class ParsedHeader {
+
+        private final String header;
+
+        private final List<GAVariantSetMetadata> metadata;
+
+        ParsedHeader(String header, List<GAVariantSetMetadata> metadata) {
+            this.header = header;
+            this.metadata = metadata;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server.configuration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+import uk.ac.ebi.eva.lib.eva_utils.MongoDatabaseContext;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the asynchronous parts of the requests, such as the streamed variant exports, with the Mongo database that
+ * the request selected, see {@link MongoDatabaseContext}. Like the default executor, it has no upper bound on the
+ * number of threads, so a long export never waits for another one to finish, but the idle threads are reused.
+ */
+@Configuration
+public class AsyncConfiguration extends WebMvcConfigurerAdapter {
+
+    private final ExecutorService asyncRequestExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("async-request-%d").setDaemon(true).build());
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(MongoDatabaseContext.propagating(asyncRequestExecutor)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        asyncRequestExecutor.shutdownNow();
+    }
+}
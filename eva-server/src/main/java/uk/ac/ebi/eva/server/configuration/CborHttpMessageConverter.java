@@ -0,0 +1,32 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+/**
+ * Encodes responses as CBOR with an ObjectMapper configured like the JSON one. Spring only provides its own CBOR
+ * converter from version 5.0.
+ */
+public class CborHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public CborHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper, MediaType.valueOf(JacksonConfiguration.APPLICATION_CBOR_VALUE));
+    }
+
+}
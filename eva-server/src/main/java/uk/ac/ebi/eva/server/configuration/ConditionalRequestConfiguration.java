@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDbFactory;
+
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+import uk.ac.ebi.eva.lib.eva_utils.MongoDataVersionSource;
+import uk.ac.ebi.eva.lib.metadata.eva.EvaproDataVersionSource;
+import uk.ac.ebi.eva.lib.versioning.ConditionalRequestFilter;
+import uk.ac.ebi.eva.lib.versioning.DataVersionService;
+import uk.ac.ebi.eva.lib.versioning.DataVersionSource;
+import uk.ac.ebi.eva.server.DataVersionResolver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Answers conditional GET requests from the version of the data they read, see {@link ConditionalRequestFilter}.
+ * The hit ratio is published as conditional-requests.* metrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "eva.conditional-requests.enabled", havingValue = "true")
+public class ConditionalRequestConfiguration {
+
+    private static final String METRIC_PREFIX = "conditional-requests.";
+
+    @Bean
+    public DataVersionService dataVersionService(
+            MongoDbFactory mongoDbFactory, DbCollectionsProperties dbCollectionsProperties,
+            EvaproDataVersionSource evaproDataVersionSource,
+            @Value("${eva.conditional-requests.version-time-to-live-in-seconds:60}") long timeToLiveInSeconds) {
+        Map<String, DataVersionSource> sources = new HashMap<>();
+        sources.put(DataVersionResolver.MONGO_SCOPE, new MongoDataVersionSource(mongoDbFactory,
+                                                                                 dbCollectionsProperties));
+        sources.put(DataVersionResolver.EVAPRO_SCOPE, evaproDataVersionSource);
+        return new DataVersionService(sources, timeToLiveInSeconds * 1000);
+    }
+
+    @Bean
+    public ConditionalRequestFilter conditionalRequestFilter(DataVersionService dataVersionService) {
+        return new ConditionalRequestFilter(new DataVersionResolver(dataVersionService));
+    }
+
+    @Bean
+    public FilterRegistrationBean conditionalRequestFilterRegistration(
+            ConditionalRequestFilter conditionalRequestFilter) {
+        FilterRegistrationBean registration = new FilterRegistrationBean(conditionalRequestFilter);
+        registration.addUrlPatterns("/v1/*", "/v2/*");
+        return registration;
+    }
+
+    @Bean
+    public PublicMetrics conditionalRequestMetrics(ConditionalRequestFilter filter) {
+        return () -> Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "versioned", filter.getVersionedRequests()),
+                new Metric<>(METRIC_PREFIX + "conditional", filter.getConditionalRequests()),
+                new Metric<>(METRIC_PREFIX + "not-modified", filter.getNotModifiedResponses()));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the Bloom filters used to answer variant existence queries without querying the database. See
+ * {@link uk.ac.ebi.eva.server.VariantExistenceIndex}.
+ */
+@ConfigurationProperties(prefix = "eva.existence-index")
+@Component
+@Validated
+public class ExistenceIndexProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Species and assemblies to index, in the format used in the species parameter, e.g. hsapiens_grch37
+     */
+    private List<String> databases = new ArrayList<>();
+
+    private String directory = System.getProperty("java.io.tmpdir") + "/eva-existence-index";
+
+    @DecimalMin("0.000001")
+    @DecimalMax("0.5")
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * Whether to also index which studies contain each variant, so that queries restricted to some studies can be
+     * answered negatively too. This roughly doubles the size of the filters.
+     */
+    private boolean perStudy = false;
+
+    /**
+     * How often to check whether the databases have changed, in which case the filters are rebuilt
+     */
+    @Min(1)
+    private int checkIntervalInMinutes = 10;
+
+    /**
+     * How long queries trust the last check of whether a filter is stale. Stale filters answer every query as a
+     * possible hit until they are rebuilt.
+     */
+    @Min(0)
+    private int versionCheckIntervalInSeconds = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getDatabases() {
+        return databases;
+    }
+
+    public void setDatabases(List<String> databases) {
+        this.databases = databases;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public boolean isPerStudy() {
+        return perStudy;
+    }
+
+    public void setPerStudy(boolean perStudy) {
+        this.perStudy = perStudy;
+    }
+
+    public int getCheckIntervalInMinutes() {
+        return checkIntervalInMinutes;
+    }
+
+    public void setCheckIntervalInMinutes(int checkIntervalInMinutes) {
+        this.checkIntervalInMinutes = checkIntervalInMinutes;
+    }
+
+    public int getVersionCheckIntervalInSeconds() {
+        return versionCheckIntervalInSeconds;
+    }
+
+    public void setVersionCheckIntervalInSeconds(int versionCheckIntervalInSeconds) {
+        this.versionCheckIntervalInSeconds = versionCheckIntervalInSeconds;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server.configuration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import org.apache.avro.Schema;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchCallSetsResponse;
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantSetsResponse;
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsResponse;
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsStreamingResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes the GA4GH search responses as Avro binary, using the schemas under avro/ga4gh in the classpath. Only the
+ * responses with a schema can be written; requests are still read as JSON.
+ */
+public class GA4GHAvroHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private static final String SCHEMAS_PATH = "/avro/ga4gh/";
+
+    private final Map<Class<?>, ObjectWriter> writers;
+
+    public GA4GHAvroHttpMessageConverter(AvroMapper avroMapper) {
+        super(MediaType.valueOf(JacksonConfiguration.AVRO_BINARY_VALUE));
+        // the record is only encoded when the generator is closed, but the servlet output stream is not ours to close
+        avroMapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        ObjectWriter variantsWriter = createWriter(avroMapper, "GASearchVariantsResponse.avsc");
+        writers = new HashMap<>();
+        writers.put(GASearchVariantsResponse.class, variantsWriter);
+        writers.put(GASearchVariantsStreamingResponse.class, variantsWriter);
+        writers.put(GASearchVariantSetsResponse.class, createWriter(avroMapper, "GASearchVariantSetsResponse.avsc"));
+        writers.put(GASearchCallSetsResponse.class, createWriter(avroMapper, "GASearchCallSetsResponse.avsc"));
+    }
+
+    private static ObjectWriter createWriter(AvroMapper avroMapper, String schemaFile) {
+        try (InputStream schemaStream = GA4GHAvroHttpMessageConverter.class.getResourceAsStream(
+                SCHEMAS_PATH + schemaFile)) {
+            if (schemaStream == null) {
+                throw new IllegalStateException("Avro schema " + schemaFile + " not found in the classpath");
+            }
+            return avroMapper.writer(new AvroSchema(new Schema.Parser().parse(schemaStream)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return writers.containsKey(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Avro request bodies are not supported");
+    }
+
+    @Override
+    protected void writeInternal(Object response, HttpOutputMessage outputMessage) throws IOException {
+        writers.get(response.getClass()).writeValue(outputMessage.getBody(), response);
+    }
+
+}
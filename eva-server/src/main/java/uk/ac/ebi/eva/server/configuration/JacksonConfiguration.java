@@ -20,8 +20,14 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.introspect.VisibilityChecker;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
 import uk.ac.ebi.eva.commons.core.models.ConsequenceType;
 import uk.ac.ebi.eva.commons.core.models.VariantStatistics;
@@ -35,12 +41,39 @@ import uk.ac.ebi.eva.lib.json.VariantStudyMixin;
 import uk.ac.ebi.eva.lib.models.VariantStudy;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 
+import java.util.List;
+
 @Configuration
-public class JacksonConfiguration {
+public class JacksonConfiguration extends WebMvcConfigurerAdapter {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+    public static final String AVRO_BINARY_VALUE = "avro/binary";
 
     @Bean
     public ObjectMapper objectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
+        return configure(new ObjectMapper());
+    }
+
+    /**
+     * The binary encodings are appended after the default converters, so JSON is still chosen whenever the request
+     * does not ask for one of them explicitly. The default Smile converter is replaced because it lacks the mixins.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(configure(new ObjectMapper(new SmileFactory()))));
+        converters.add(new CborHttpMessageConverter(configure(new ObjectMapper(new CBORFactory()))));
+        converters.add(new GA4GHAvroHttpMessageConverter(configure(new AvroMapper())));
+    }
+
+    /**
+     * Applies the inclusion rules, visibility and mixins of the JSON responses to a mapper of any format, so the
+     * binary encodings carry exactly the same fields.
+     */
+    public static <T extends ObjectMapper> T configure(T objectMapper) {
         objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
         objectMapper.addMixIn(VariantWithSamplesAndAnnotation.class, VariantMixin.class);
         objectMapper.addMixIn(QueryResponse.class, QueryResponseMixin.class);
@@ -24,22 +24,24 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import uk.ac.ebi.eva.commons.core.models.AnnotationMetadata;
-import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
+import uk.ac.ebi.eva.server.ReferenceDataCache;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController
-@RequestMapping(value = "/v1/annotation", produces = "application/json")
+@RequestMapping(value = "/v1/annotation", produces = {"application/json", JacksonConfiguration.APPLICATION_SMILE_VALUE,
+        JacksonConfiguration.APPLICATION_CBOR_VALUE})
 @Api(tags = {"annotation"})
 public class AnnotationMetadataWSServer extends EvaWSServer {
 
     @Autowired
-    private AnnotationMetadataService service;
+    private ReferenceDataCache referenceDataCache;
 
     @RequestMapping(value = "", method = RequestMethod.GET)
     @ResponseBody
@@ -50,8 +52,9 @@ public class AnnotationMetadataWSServer extends EvaWSServer {
             return setQueryResponse("Please specify a species");
         }
 
-        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species));
-        List<AnnotationMetadata> annotationMetadataList = service.findAllByOrderByCacheVersionDescVepVersionDesc();
+        String databaseName = DBAdaptorConnector.getDBName(species);
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+        List<AnnotationMetadata> annotationMetadataList = referenceDataCache.getAnnotationMetadata(databaseName);
         QueryResult<AnnotationMetadata> queryResult = buildQueryResult(annotationMetadataList);
         return setQueryResponse(queryResult);
     }
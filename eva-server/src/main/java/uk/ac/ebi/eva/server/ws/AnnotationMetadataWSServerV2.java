@@ -27,9 +27,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import uk.ac.ebi.eva.commons.core.models.AnnotationMetadata;
-import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.ReferenceDataCache;
 
 import java.util.List;
 
@@ -39,7 +39,7 @@ import java.util.List;
 public class AnnotationMetadataWSServerV2 {
 
     @Autowired
-    private AnnotationMetadataService service;
+    private ReferenceDataCache referenceDataCache;
 
     @RequestMapping(value = "", method = RequestMethod.GET)
     @ResponseBody
@@ -52,8 +52,9 @@ public class AnnotationMetadataWSServerV2 {
         if(assembly.isEmpty()) {
             throw new IllegalArgumentException("Please specify an assembly");
         }
-        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species + "_" + assembly));
-        return service.findAllByOrderByCacheVersionDescVepVersionDesc();
+        String databaseName = DBAdaptorConnector.getDBName(species + "_" + assembly);
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+        return referenceDataCache.getAnnotationMetadata(databaseName);
     }
 
 }
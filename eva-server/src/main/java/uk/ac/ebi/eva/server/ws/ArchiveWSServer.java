@@ -30,24 +30,26 @@ import org.springframework.web.bind.annotation.RestController;
 import uk.ac.ebi.eva.commons.mongodb.entities.projections.VariantStudySummary;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantStudySummaryService;
 
-import uk.ac.ebi.eva.lib.metadata.eva.ArchiveEvaproDBAdaptor;
 import uk.ac.ebi.eva.lib.metadata.eva.StudyEvaproDBAdaptor;
 import uk.ac.ebi.eva.lib.metadata.shared.ArchiveWSServerHelper;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
+import uk.ac.ebi.eva.server.CachedArchiveEvaproDBAdaptor;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
 import java.io.IOException;
 import java.util.List;
 
 @RestController
-@RequestMapping(value = "/v1/meta", produces = "application/json")
+@RequestMapping(value = "/v1/meta", produces = {"application/json", JacksonConfiguration.APPLICATION_SMILE_VALUE,
+        JacksonConfiguration.APPLICATION_CBOR_VALUE})
 @Api(tags = {"archive"})
 public class ArchiveWSServer extends EvaWSServer {
 
     @Autowired
-    private ArchiveEvaproDBAdaptor archiveEvaproDbAdaptor;
+    private CachedArchiveEvaproDBAdaptor archiveEvaproDbAdaptor;
 
     @Autowired
     private StudyEvaproDBAdaptor studyEvaproDbAdaptor;
@@ -31,6 +31,7 @@ import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -41,7 +42,8 @@ import java.util.List;
  */
 
 @RestController
-@RequestMapping(value = "/v1/features", produces = "application/json")
+@RequestMapping(value = "/v1/features", produces = {"application/json", JacksonConfiguration.APPLICATION_SMILE_VALUE,
+        JacksonConfiguration.APPLICATION_CBOR_VALUE})
 @Api(tags = {"features"})
 public class FeatureWSServer extends EvaWSServer {
 
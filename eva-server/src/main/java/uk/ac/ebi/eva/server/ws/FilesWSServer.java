@@ -22,6 +22,7 @@ package uk.ac.ebi.eva.server.ws;
 import io.swagger.annotations.Api;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -31,18 +32,24 @@ import uk.ac.ebi.eva.lib.metadata.eva.VariantSourceEvaProDBAdaptor;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author Cristina Yenyxe Gonzalez Garcia <cyenyxe@ebi.ac.uk>
  */
 @RestController
-@RequestMapping(value = "/v1/files", produces = "application/json")
+@RequestMapping(value = "/v1/files", produces = {"application/json", JacksonConfiguration.APPLICATION_SMILE_VALUE,
+        JacksonConfiguration.APPLICATION_CBOR_VALUE})
 @Api(tags = {"files"})
 public class FilesWSServer extends EvaWSServer {
 
+    static final int FILE_URLS_MAX_SIZE = 10000;
+
     @Autowired
     private VariantSourceEvaProDBAdaptor variantSourceEvaproDbAdaptor;
 
@@ -66,4 +73,20 @@ public class FilesWSServer extends EvaWSServer {
         return setQueryResponse(variantSourceEvaproDbAdaptor.getSourceDownloadUrlByName(Arrays.asList(filenames.split(","))));
     }
 
+    @RequestMapping(value = "/url", method = RequestMethod.POST)
+//    @ApiOperation(httpMethod = "POST", value = "Gets the URLs of a list of files, in the same order")
+    public QueryResponse getFileUrls(@RequestBody List<String> filenames, HttpServletResponse response) {
+        initializeQuery();
+
+        if (filenames.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return setErrorQueryResponse("Please provide at least one file name");
+        }
+        if (filenames.size() > FILE_URLS_MAX_SIZE) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return setErrorQueryResponse("Please provide at most " + FILE_URLS_MAX_SIZE + " file names");
+        }
+        return setQueryResponse(variantSourceEvaproDbAdaptor.getSourceDownloadUrlByName(filenames));
+    }
+
 }
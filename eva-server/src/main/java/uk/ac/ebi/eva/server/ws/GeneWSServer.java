@@ -20,9 +20,11 @@
 package uk.ac.ebi.eva.server.ws;
 
 import io.swagger.annotations.Api;
+import uk.ac.ebi.eva.lib.utils.CountMode;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -37,20 +39,27 @@ import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundExceptio
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.TotalResultsCounter;
 import uk.ac.ebi.eva.server.Utils;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
-@RequestMapping(value = "/v1/genes", produces = "application/json")
+@RequestMapping(value = "/v1/genes", produces = {"application/json", JacksonConfiguration.APPLICATION_SMILE_VALUE,
+        JacksonConfiguration.APPLICATION_CBOR_VALUE})
 @Api(tags = { "genes" })
 public class GeneWSServer extends EvaWSServer {
 
     @Autowired
     private VariantWithSamplesAndAnnotationsService service;
 
+    @Autowired
+    private TotalResultsCounter totalResultsCounter;
+
     public GeneWSServer() {
     }
 
@@ -79,6 +88,14 @@ public class GeneWSServer extends EvaWSServer {
             return setQueryResponse("Please specify a species");
         }
 
+        CountMode countMode;
+        try {
+            countMode = Utils.getCountMode(getQueryOptions());
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return setQueryResponse(e.getMessage());
+        }
+
         MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species));
 
         List<VariantRepositoryFilter> filters = new FilterBuilder()
@@ -102,16 +119,21 @@ public class GeneWSServer extends EvaWSServer {
         }
 
         List<VariantWithSamplesAndAnnotation> variantEntities;
+        PageRequest pageRequest = Utils.getPageRequest(getQueryOptions());
 
         try {
             variantEntities = service.findByGenesAndComplexFilters(geneIds,
-                    filters, annotationMetadata, excludeMapped, Utils.getPageRequest(getQueryOptions()));
+                    filters, annotationMetadata, excludeMapped, Utils.getPageRequest(pageRequest, countMode));
         } catch (AnnotationMetadataNotFoundException ex) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             return setQueryResponse(ex.getMessage());
         }
 
-        Long numTotalResults = service.countByGenesAndComplexFilters(geneIds, filters);
+        Long numTotalResults = totalResultsCounter.count(countMode, pageRequest, variantEntities,
+                Arrays.asList("genes", species, geneIds, studies, consequenceType, maf, polyphenScore,
+                              siftScore).toString(),
+                () -> service.countByGenesAndComplexFilters(geneIds, filters));
+        variantEntities = Utils.removeLookahead(variantEntities, pageRequest);
 
         QueryResult<VariantWithSamplesAndAnnotation> queryResult = buildQueryResult(variantEntities, numTotalResults);
         return setQueryResponse(queryResult);
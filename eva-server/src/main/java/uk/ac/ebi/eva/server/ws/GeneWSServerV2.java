@@ -22,7 +22,6 @@ package uk.ac.ebi.eva.server.ws;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiParam;
 import org.springframework.hateoas.Link;
-import org.springframework.hateoas.PagedResources;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -31,6 +30,7 @@ import uk.ac.ebi.eva.commons.core.models.FeatureCoordinates;
 import uk.ac.ebi.eva.commons.mongodb.services.FeatureService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.RateLimit;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -50,6 +50,8 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 @Api(tags = {"genes"})
 public class GeneWSServerV2 {
 
+    private static final int GENE_REQUEST_RATE_LIMIT = 5;
+
     @Autowired
     private FeatureService service;
 
@@ -60,6 +62,7 @@ public class GeneWSServerV2 {
     }
 
     @GetMapping(value = "/{geneIds}/variants")
+    @RateLimit(value = GENE_REQUEST_RATE_LIMIT)
     public ResponseEntity getVariantsByGene(
             @ApiParam(value = "Comma separated gene symbols and/or Ensembl gene IDs, e.g. BRCA2,FOXP2,ENSG00000223972")
             @PathVariable("geneIds") List<String> geneIds,
@@ -101,6 +104,13 @@ public class GeneWSServerV2 {
             @ApiParam(value = "The number of elements that should be retrieved per page.")
             @RequestParam(required = false, defaultValue = "20") Integer pageSize,
             @RequestParam(required = false, defaultValue = "0", name = "buffer") Integer bufferValue,
+            @ApiParam(value = "Opaque token to continue after the previous page, as provided in the 'next' link. " +
+                    "It makes retrieving any page as fast as the first one. The page number should still be provided.")
+            @RequestParam(required = false) String pageToken,
+            @ApiParam(value = "How the total number of elements is computed: exact (default), estimate (reuses a " +
+                    "recent count of the same query) or none (the total is only a lower bound, enough to know " +
+                    "whether there is a next page).")
+            @RequestParam(required = false, defaultValue = "exact") String countMode,
             HttpServletResponse response,
             @ApiIgnore HttpServletRequest request)
             throws IllegalArgumentException {
@@ -122,19 +132,80 @@ public class GeneWSServerV2 {
 
         String regions = featureCoordinates.stream().map(this::getRegionString).collect(Collectors.joining(","));
 
-        ResponseEntity<PagedResources> responseEntity = regionWSServerV2.getVariantsByRegion(regions, species,
-                assembly, studies, consequenceType, maf, polyphenScore, siftScore, annotationVepVersion,
-                annotationVepCacheVersion, pageNumber, pageSize, response, request);
+        return regionWSServerV2.getVariantsPage(regions, species, assembly, studies, consequenceType, maf,
+                polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion, pageNumber, pageSize,
+                pageToken, countMode,
+                (linkPageNumber, linkPageSize, linkPageToken, linkCountMode, linkName) -> createPaginationLink(
+                        geneIds, species, assembly, studies, consequenceType, maf, polyphenScore, siftScore,
+                        annotationVepVersion, annotationVepCacheVersion, linkPageNumber, linkPageSize, bufferValue,
+                        linkPageToken, linkCountMode, response, request, linkName));
+    }
 
-        if (responseEntity.getStatusCode() != HttpStatus.OK) {
-            return responseEntity;
+    @GetMapping(value = "/{geneIds}/variants/export",
+            produces = {"application/x-ndjson", "text/tab-separated-values", "application/octet-stream"})
+    public ResponseEntity exportVariantsByGene(
+            @ApiParam(value = "Comma separated gene symbols and/or Ensembl gene IDs, e.g. BRCA2,FOXP2,ENSG00000223972")
+            @PathVariable("geneIds") List<String> geneIds,
+            @ApiParam(value = "First letter of the genus, followed by the full species name, e.g. hsapiens. Allowed" +
+                    " values can be looked up in /v1/meta/species/list/ in the field named 'taxonomyCode'.",
+                    required = true)
+            @RequestParam(name = "species") String species,
+            @ApiParam(value = "Encoded assembly name, e.g. grch37. Allowed values can be looked up in " +
+                    "/v1/meta/species/list/ in the field named 'assemblyCode'.", required = true)
+            @RequestParam(name = "assembly") String assembly,
+            @ApiParam(value = "Identifiers of studies. If this field is null/not specified, all studies should" +
+                    " be queried. Each individual identifier of studies can be looked up in" +
+                    " /v2/studies in the field named `studyId`. e.g. PRJEB6930,PRJEB27824")
+            @RequestParam(name = "studies", required = false) List<String> studies,
+            @ApiParam(value = "Retrieve only variants with exactly this consequence type (as stated by Ensembl VEP)")
+            @RequestParam(name = "annot-ct", required = false) List<String>
+                    consequenceType,
+            @ApiParam(value = "Retrieve only variants whose Minor Allele Frequency is less than (<), less" +
+                    " than or equals (<=), greater than (>), greater than or equals (>=) or equals (=) the" +
+                    " provided number. e.g. <0.1")
+            @RequestParam(name = "maf", required = false) String maf,
+            @ApiParam(value = "Retrieve only variants whose PolyPhen score as stated by Ensembl VEP is less than" +
+                    " (<), less than or equals (<=), greater than (>), greater than or equals (>=) or equals (=) " +
+                    "the provided number. e.g. <0.1")
+            @RequestParam(name = "polyphen", required = false) String polyphenScore,
+            @ApiParam(value = "Retrieve only variants whose SIFT score as stated by Ensembl VEP is less than (<)," +
+                    " less than or equals (<=), greater than (>), greater than or equals (>=) or equals (=) the " +
+                    "provided number. e.g. <0.1")
+            @RequestParam(name = "sift", required = false) String siftScore,
+            @ApiParam(value = "Ensembl VEP release whose annotations will be included in the response, e.g. 78")
+            @RequestParam(name = "annot-vep-version", required = false) String
+                    annotationVepVersion,
+            @ApiParam(value = "Ensembl VEP cache release whose annotations will be included in the response, " +
+                    "e.g. 78")
+            @RequestParam(name = "annot-vep-cache-version", required = false) String
+                    annotationVepCacheVersion,
+            @RequestParam(required = false, defaultValue = "0", name = "buffer") Integer bufferValue,
+            @ApiParam(value = "Fields to leave out of the NDJSON output, among sourceEntries, " +
+                    "sourceEntries.statistics, sourceEntries.attributes and annotation")
+            @RequestParam(name = "exclude", required = false) List<String> exclude,
+            @ApiParam(value = "Output format: ndjson (default), one variant per line, or tsv, with the columns " +
+                    "CHROM, POS, ID, REF and ALT")
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @ApiParam(value = "Whether to compress the output with bgzip, so it can be indexed with tabix")
+            @RequestParam(required = false, defaultValue = "false") boolean bgzip,
+            @ApiIgnore HttpServletRequest request)
+            throws IllegalArgumentException {
+        checkParameters(geneIds, species, assembly, bufferValue);
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species + "_" + assembly));
+        List<FeatureCoordinates> featureCoordinates = service.findAllByGeneIdsOrGeneNames(geneIds, geneIds);
+
+        if (featureCoordinates.isEmpty()) {
+            return new ResponseEntity(featureCoordinates, HttpStatus.NO_CONTENT);
         }
 
-        responseEntity.getBody().removeLinks();
+        String regions = featureCoordinates.stream()
+                .map(coordinate -> coordinate.getChromosome() + ":" +
+                        Math.max(coordinate.getStart() - bufferValue, 0) + "-" + (coordinate.getEnd() + bufferValue))
+                .collect(Collectors.joining(","));
 
-        return new ResponseEntity(buildPage(geneIds, species, assembly, studies, consequenceType, maf, polyphenScore,
-                siftScore, annotationVepVersion, annotationVepCacheVersion, bufferValue, responseEntity.getBody(),
-                response, request), HttpStatus.OK);
+        return regionWSServerV2.exportVariantsByRegion(regions, species, assembly, studies, consequenceType, maf,
+                polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion, exclude, format, bgzip,
+                request);
     }
 
     private void checkParameters(List<String> geneIds, String species, String assembly, Integer bufferValue)
@@ -165,47 +236,17 @@ public class GeneWSServerV2 {
         return coordinates.getChromosome() + ":" + coordinates.getStart() + "-" + coordinates.getEnd();
     }
 
-    private PagedResources buildPage(List<String> geneIds, String species, String assembly, List<String> studies,
-                                     List<String> consequenceType, String maf, String polyphenScore, String siftScore,
-                                     String annotationVepVersion, String annotationVepCacheVersion,
-                                     Integer bufferValue, PagedResources pagedResources,
-                                     HttpServletResponse response, HttpServletRequest request) {
-
-        int pageNumber = (int) pagedResources.getMetadata().getNumber();
-        int pageSize = (int) pagedResources.getMetadata().getSize();
-        int totalPages = (int) pagedResources.getMetadata().getTotalPages();
-
-        if (pageNumber > 0) {
-            pagedResources.add(createPaginationLink(geneIds, species, assembly, studies, consequenceType,
-                    maf, polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion,
-                    pageNumber - 1, pageSize, bufferValue, response, request, "prev"));
-
-            pagedResources.add(createPaginationLink(geneIds, species, assembly, studies, consequenceType,
-                    maf, polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion,
-                    0, pageSize, bufferValue, response, request, "first"));
-        }
-
-        if (pageNumber < (totalPages - 1)) {
-            pagedResources.add(createPaginationLink(geneIds, species, assembly, studies, consequenceType,
-                    maf, polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion,
-                    pageNumber + 1, pageSize, bufferValue, response, request, "next"));
-
-            pagedResources.add(createPaginationLink(geneIds, species, assembly, studies, consequenceType,
-                    maf, polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion,
-                    totalPages - 1, pageSize, bufferValue, response, request, "last"));
-        }
-        return pagedResources;
-    }
-
     private Link createPaginationLink(List<String> geneIds, String species, String assembly, List<String> studies,
                                       List<String> consequenceType, String maf, String polyphenScore, String siftScore,
                                       String annotationVepVersion, String annotationVepCacheVersion,
-                                      int pageNumber, int pageSize, Integer bufferValue, HttpServletResponse response,
-                                      HttpServletRequest request,
+                                      int pageNumber, int pageSize, Integer bufferValue, String pageToken,
+                                      String countMode,
+                                      HttpServletResponse response, HttpServletRequest request,
                                       String linkName) {
         return new Link(linkTo(methodOn(GeneWSServerV2.class).getVariantsByGene(geneIds, species, assembly, studies,
                 consequenceType, maf, polyphenScore, siftScore, annotationVepVersion,
-                annotationVepCacheVersion, pageNumber, pageSize, bufferValue, response, request))
+                annotationVepCacheVersion, pageNumber, pageSize, bufferValue, pageToken, countMode, response,
+                request))
                 .toUriComponentsBuilder()
                 .toUriString(), linkName);
     }
@@ -44,9 +44,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
-
 @RestController
 @RequestMapping(value = "/v2/identifiers", produces = "application/hal+json")
 @Api(tags = "identifier")
@@ -83,10 +80,10 @@ public class IdentifierWSServerV2 {
             String variantCoreString = variantEntity.getChromosome() + ":" + variantEntity.getStart() + ":" +
                     variantEntity.getReference() + ":" + variantEntity.getAlternate();
 
-            Link annotationsLink = new Link(linkTo(methodOn(VariantWSServerV2.class).getAnnotations(variantCoreString,
-                    species, assembly, null, null, response)).toUri().toString(), "annotation");
-            Link sourcesLink = new Link(linkTo(methodOn(VariantWSServerV2.class).getSources(variantCoreString, species,
-                    assembly, null, null, response)).toUri().toString(), "sources");
+            Link annotationsLink = new Link(VariantWSServerV2.ANNOTATIONS_LINK_TEMPLATE.expand(variantCoreString,
+                    species, assembly, null, null), "annotation");
+            Link sourcesLink = new Link(VariantWSServerV2.SOURCES_LINK_TEMPLATE.expand(variantCoreString, species,
+                    assembly, null, null), "sources");
 
             resourcesList.add(new Resource<>(variant, Arrays.asList(sourcesLink, annotationsLink)));
         });
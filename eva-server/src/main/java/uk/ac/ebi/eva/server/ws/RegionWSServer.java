@@ -43,25 +43,37 @@ import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundExceptio
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.lib.utils.CountMode;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 import uk.ac.ebi.eva.server.RateLimit;
+import uk.ac.ebi.eva.server.ReferenceDataCache;
+import uk.ac.ebi.eva.server.TotalResultsCounter;
 import uk.ac.ebi.eva.server.Utils;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @RestController
-@RequestMapping(value = "/v1/segments", produces = "application/json")
+@RequestMapping(value = "/v1/segments", produces = {"application/json", JacksonConfiguration.APPLICATION_SMILE_VALUE,
+        JacksonConfiguration.APPLICATION_CBOR_VALUE})
 @Api(tags = { "segments" })
 public class RegionWSServer extends EvaWSServer {
 
     @Autowired
     private VariantWithSamplesAndAnnotationsService service;
 
+    @Autowired
+    private TotalResultsCounter totalResultsCounter;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
     protected static Logger logger = LoggerFactory.getLogger(FeatureWSServer.class);
 
     private static final int REGION_REQUEST_RATE_LIMIT = 5;
@@ -103,6 +115,13 @@ public class RegionWSServer extends EvaWSServer {
                 .getVariantEntityRepositoryFilters(maf, polyphenScore, siftScore, studies, consequenceType);
         List<Region> regions = Region.parseRegions(regionId);
         PageRequest pageRequest = Utils.getPageRequest(getQueryOptions());
+        CountMode countMode;
+        try {
+            countMode = Utils.getCountMode(getQueryOptions());
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return setQueryResponse(e.getMessage());
+        }
 
         List<String> excludeMapped = new ArrayList<>();
         if (exclude != null && !exclude.isEmpty()){
@@ -128,13 +147,17 @@ public class RegionWSServer extends EvaWSServer {
                                                                      filters,
                                                                      annotationMetadata,
                                                                      excludeMapped,
-                                                                     pageRequest);
+                                                                     Utils.getPageRequest(pageRequest, countMode));
         } catch (AnnotationMetadataNotFoundException ex) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             return setQueryResponse(ex.getMessage());
         }
 
-        Long numTotalResults = service.countByRegionsAndComplexFilters(regions, filters);
+        Long numTotalResults = totalResultsCounter.count(countMode, pageRequest, variantEntities,
+                Arrays.asList("regions", species, regionId, studies, consequenceType, maf, polyphenScore,
+                              siftScore).toString(),
+                () -> service.countByRegionsAndComplexFilters(regions, filters));
+        variantEntities = Utils.removeLookahead(variantEntities, pageRequest);
 
         QueryResult<VariantWithSamplesAndAnnotation> queryResult = buildQueryResult(variantEntities, numTotalResults);
         return setQueryResponse(queryResult);
@@ -155,8 +178,9 @@ public class RegionWSServer extends EvaWSServer {
             return setQueryResponse("Please specify a species");
         }
 
-        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species));
-        List<String> chromosomeList = new ArrayList<>(service.findDistinctChromosomes());
+        String databaseName = DBAdaptorConnector.getDBName(species);
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+        List<String> chromosomeList = referenceDataCache.getChromosomes(databaseName);
         QueryResult<String> queryResult = buildQueryResult(chromosomeList);
         return setQueryResponse(queryResult);
     }
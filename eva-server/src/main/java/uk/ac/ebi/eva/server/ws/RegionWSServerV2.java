@@ -47,7 +47,10 @@ import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundExceptio
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.lib.utils.CountMode;
+import uk.ac.ebi.eva.server.ContinuationToken;
 import uk.ac.ebi.eva.server.RateLimit;
+import uk.ac.ebi.eva.server.TotalResultsCounter;
 import uk.ac.ebi.eva.server.Utils;
 
 import javax.servlet.http.HttpServletRequest;
@@ -67,9 +70,23 @@ public class RegionWSServerV2 {
 
     private static final int REGION_REQUEST_RATE_LIMIT = 5;
 
+    /**
+     * Creates the link to another page of the same query
+     */
+    @FunctionalInterface
+    interface PaginationLinkFactory {
+        Link create(int pageNumber, int pageSize, String pageToken, String countMode, String linkName);
+    }
+
     @Autowired
     private VariantWithSamplesAndAnnotationsService service;
 
+    @Autowired
+    private TotalResultsCounter totalResultsCounter;
+
+    @Autowired
+    private VariantExporter variantExporter;
+
     public RegionWSServerV2() {
     }
 
@@ -116,10 +133,42 @@ public class RegionWSServerV2 {
             @RequestParam(required = false, defaultValue = "0") Integer pageNumber,
             @ApiParam(value = "The number of elements that should be displayed in a single page.")
             @RequestParam(required = false, defaultValue = "20") Integer pageSize,
+            @ApiParam(value = "Opaque token to continue after the previous page, as provided in the 'next' link. " +
+                    "It makes retrieving any page as fast as the first one. The page number should still be provided.")
+            @RequestParam(required = false) String pageToken,
+            @ApiParam(value = "How the total number of elements is computed: exact (default), estimate (reuses a " +
+                    "recent count of the same query) or none (the total is only a lower bound, enough to know " +
+                    "whether there is a next page).")
+            @RequestParam(required = false, defaultValue = "exact") String countMode,
             HttpServletResponse response,
             @ApiIgnore HttpServletRequest request)
             throws IllegalArgumentException {
+        return getVariantsPage(regionId, species, assembly, studies, consequenceType, maf, polyphenScore, siftScore,
+                annotationVepVersion, annotationVepCacheVersion, pageNumber, pageSize, pageToken, countMode,
+                (linkPageNumber, linkPageSize, linkPageToken, linkCountMode, linkName) -> createPaginationLink(
+                        regionId, species, assembly, studies, consequenceType, maf, polyphenScore, siftScore,
+                        annotationVepVersion, annotationVepCacheVersion, linkPageNumber, linkPageSize, linkPageToken,
+                        linkCountMode, response, request, linkName));
+    }
+
+    /**
+     * Retrieves a page of variants, using paginationLinkFactory to link to the other pages, so other endpoints that
+     * are resolved to a region query can reuse this one and provide links to themselves.
+     */
+    ResponseEntity getVariantsPage(String regionId, String species, String assembly, List<String> studies,
+                                   List<String> consequenceType, String maf, String polyphenScore, String siftScore,
+                                   String annotationVepVersion, String annotationVepCacheVersion, Integer pageNumber,
+                                   Integer pageSize, String pageToken, String countMode,
+                                   PaginationLinkFactory paginationLinkFactory) throws IllegalArgumentException {
         checkParameters(annotationVepVersion, annotationVepCacheVersion, species);
+        CountMode parsedCountMode;
+        ContinuationToken continuationToken;
+        try {
+            parsedCountMode = CountMode.parse(countMode);
+            continuationToken = (pageToken == null || pageToken.isEmpty()) ? null : ContinuationToken.parse(pageToken);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
 
         MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species + "_" + assembly));
 
@@ -132,38 +181,144 @@ public class RegionWSServerV2 {
         AnnotationMetadata annotationMetadata = getAnnotationMetadataHelper(annotationVepVersion,
                 annotationVepCacheVersion);
 
-        Integer totalNumberOfResults = service.countByRegionsAndComplexFilters(regions, filters).intValue();
-
-        if (totalNumberOfResults == 0) {
-            return new ResponseEntity(new PagedResources<>(Collections.EMPTY_LIST, new PageMetadata(pageSize,
-                    pageNumber < 0 ? 0 : pageNumber, totalNumberOfResults)), HttpStatus.NO_CONTENT);
+        Integer totalNumberOfResults;
+        List<VariantWithSamplesAndAnnotation> variantEntities = null;
+        try {
+            if (parsedCountMode == CountMode.EXACT) {
+                // counting first avoids retrieving a page that is out of range
+                totalNumberOfResults = service.countByRegionsAndComplexFilters(regions, filters).intValue();
+            } else {
+                if (pageNumber < 0 || pageSize < 1) {
+                    return new ResponseEntity("Please specify a page number equal or greater than zero and a page " +
+                            "size greater than zero", HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+                }
+                PageRequest pageRequest = ContinuationToken.sorted(new PageRequest(pageNumber, pageSize));
+                variantEntities = findVariants(regions, filters, annotationMetadata, excludeMapped,
+                        continuationToken, Utils.getPageRequest(pageRequest, parsedCountMode));
+                totalNumberOfResults = (int) totalResultsCounter.count(parsedCountMode, pageRequest, variantEntities,
+                        Arrays.asList(species, assembly, regionId, studies, consequenceType, maf, polyphenScore,
+                                siftScore).toString(),
+                        () -> service.countByRegionsAndComplexFilters(regions, filters));
+                variantEntities = Utils.removeLookahead(variantEntities, pageRequest);
+            }
+
+            if (totalNumberOfResults == 0) {
+                return new ResponseEntity(new PagedResources<>(Collections.EMPTY_LIST, new PageMetadata(pageSize,
+                        pageNumber < 0 ? 0 : pageNumber, totalNumberOfResults)), HttpStatus.NO_CONTENT);
+            }
+
+            PageMetadata pageMetadata;
+            try {
+                pageMetadata = buildPageMetadata(pageSize, pageNumber, totalNumberOfResults);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity(e.getMessage(), HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            }
+
+            if (variantEntities == null) {
+                variantEntities = findVariants(regions, filters, annotationMetadata, excludeMapped,
+                        continuationToken, ContinuationToken.sorted(new PageRequest(pageNumber, pageSize)));
+            }
+
+            List<Resource> resourcesList = getResources(variantEntities, species, assembly);
+            String nextPageToken = variantEntities.isEmpty() ? null :
+                    ContinuationToken.fromPage(variantEntities).encode();
+
+            PagedResources pagedResources = buildPage(resourcesList, pageMetadata, nextPageToken, parsedCountMode,
+                    paginationLinkFactory);
+
+            return new ResponseEntity(pagedResources, HttpStatus.OK);
+        } catch (AnnotationMetadataNotFoundException ex) {
+            return new ResponseEntity(ex.getMessage(), HttpStatus.BAD_REQUEST);
         }
+    }
 
-        PageMetadata pageMetadata;
+    @GetMapping(value = "/{regionId}/variants/export",
+            produces = {"application/x-ndjson", "text/tab-separated-values", "application/octet-stream"})
+    @RateLimit(value = REGION_REQUEST_RATE_LIMIT)
+    public ResponseEntity exportVariantsByRegion(
+            @ApiParam(value = "Comma separated genomic regions in the format chr:start-end.")
+            @PathVariable("regionId") String regionId,
+            @ApiParam(value = "First letter of the genus, followed by the full species name, e.g. hsapiens. " +
+                    "Allowed values can be looked up in /v1/meta/species/list/ in the field named 'taxonomyCode'.",
+                    required = true)
+            @RequestParam(name = "species") String species,
+            @ApiParam(value = "Encoded assembly name, e.g. grch37. Allowed values can be looked up in " +
+                    "/v1/meta/species/list/ in the field named 'assemblyCode'.", required = true)
+            @RequestParam(name = "assembly") String assembly,
+            @ApiParam(value = "Identifiers of studies. If this field is null/not specified, all studies should" +
+                    " be queried. Each individual identifier of studies can be looked up in" +
+                    " /v2/studies in the field named `studyId`. e.g. PRJEB6930,PRJEB27824")
+            @RequestParam(name = "studies", required = false) List<String> studies,
+            @ApiParam(value = "Retrieve only variants with exactly this consequence type (as stated by Ensembl VEP)")
+            @RequestParam(name = "annot-ct", required = false) List<String>
+                    consequenceType,
+            @ApiParam(value = "Retrieve only variants whose Minor Allele Frequency is less than (<), less" +
+                    " than or equals (<=), greater than (>), greater than or equals (>=) or equals (=) the" +
+                    " provided number. e.g. <0.1")
+            @RequestParam(name = "maf", required = false) String maf,
+            @ApiParam(value = "Retrieve only variants whose PolyPhen score as stated by Ensembl VEP is less than" +
+                    " (<), less than or equals (<=), greater than (>), greater than or equals (>=) or equals (=) " +
+                    "the provided number. e.g. <0.1")
+            @RequestParam(name = "polyphen", required = false) String polyphenScore,
+            @ApiParam(value = "Retrieve only variants whose SIFT score as stated by Ensembl VEP is less than (<)," +
+                    " less than or equals (<=), greater than (>), greater than or equals (>=) or equals (=) the " +
+                    "provided number. e.g. <0.1")
+            @RequestParam(name = "sift", required = false) String siftScore,
+            @ApiParam(value = "Ensembl VEP release whose annotations will be included in the response, e.g. 78")
+            @RequestParam(name = "annot-vep-version", required = false) String
+                    annotationVepVersion,
+            @ApiParam(value = "Ensembl VEP cache release whose annotations will be included in the response, " +
+                    "e.g. 78")
+            @RequestParam(name = "annot-vep-cache-version", required = false) String
+                    annotationVepCacheVersion,
+            @ApiParam(value = "Fields to leave out of the NDJSON output, among sourceEntries, " +
+                    "sourceEntries.statistics, sourceEntries.attributes and annotation")
+            @RequestParam(name = "exclude", required = false) List<String> exclude,
+            @ApiParam(value = "Output format: ndjson (default), one variant per line, or tsv, with the columns " +
+                    "CHROM, POS, ID, REF and ALT")
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @ApiParam(value = "Whether to compress the output with bgzip, so it can be indexed with tabix")
+            @RequestParam(required = false, defaultValue = "false") boolean bgzip,
+            @ApiIgnore HttpServletRequest request)
+            throws IllegalArgumentException {
+        checkParameters(annotationVepVersion, annotationVepCacheVersion, species);
+        VariantExporter.Format exportFormat;
+        List<String> excludeMapped;
         try {
-            pageMetadata = buildPageMetadata(pageSize, pageNumber, totalNumberOfResults);
+            exportFormat = VariantExporter.Format.parse(format);
+            excludeMapped = variantExporter.getExcludedFields(exclude, exportFormat);
         } catch (IllegalArgumentException e) {
-            return new ResponseEntity(e.getMessage(), HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            return new ResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
 
-        List<VariantWithSamplesAndAnnotation> variantEntities;
+        List<VariantRepositoryFilter> filters = new FilterBuilder()
+                .getVariantEntityRepositoryFilters(maf, polyphenScore, siftScore, studies, consequenceType);
+        List<Region> regions = Region.parseRegions(regionId);
+        AnnotationMetadata annotationMetadata = getAnnotationMetadataHelper(annotationVepVersion,
+                annotationVepCacheVersion);
+
         try {
-            variantEntities = service.findByRegionsAndComplexFilters(regions,
-                    filters,
-                    annotationMetadata,
-                    excludeMapped,
-                    new PageRequest(pageNumber, pageSize));
+            return variantExporter.export(regions, DBAdaptorConnector.getDBName(species + "_" + assembly), filters,
+                    annotationMetadata, excludeMapped, exportFormat, bgzip, "variants");
         } catch (AnnotationMetadataNotFoundException ex) {
             return new ResponseEntity(ex.getMessage(), HttpStatus.BAD_REQUEST);
         }
+    }
 
-        List<Resource> resourcesList = getResources(variantEntities, species, assembly, response);
-
-        PagedResources pagedResources = buildPage(resourcesList, pageMetadata, regionId, species, assembly, studies,
-                consequenceType, maf, polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion,
-                response, request);
-
-        return new ResponseEntity(pagedResources, HttpStatus.OK);
+    private List<VariantWithSamplesAndAnnotation> findVariants(List<Region> regions,
+                                                               List<VariantRepositoryFilter> filters,
+                                                               AnnotationMetadata annotationMetadata,
+                                                               List<String> excludeMapped,
+                                                               ContinuationToken continuationToken,
+                                                               PageRequest pageRequest)
+            throws AnnotationMetadataNotFoundException {
+        if (continuationToken == null) {
+            return service.findByRegionsAndComplexFilters(regions, filters, annotationMetadata, excludeMapped,
+                    pageRequest);
+        }
+        return continuationToken.findNext(regions, filters, pageRequest.getPageSize(),
+                (remainingRegions, filtersAfterToken, tokenPageRequest) -> service.findByRegionsAndComplexFilters(
+                        remainingRegions, filtersAfterToken, annotationMetadata, excludeMapped, tokenPageRequest));
     }
 
     public String checkParameters(String annotationVepVersion, String annotationVepCacheVersion, String species) throws
@@ -207,7 +362,7 @@ public class RegionWSServerV2 {
     }
 
     private List<Resource> getResources(List<VariantWithSamplesAndAnnotation> variantEntities, String species,
-                                        String assembly, HttpServletResponse response) {
+                                        String assembly) {
         List<Resource> resourcesList = new ArrayList<>();
 
         variantEntities.forEach(variantEntity -> {
@@ -219,44 +374,40 @@ public class RegionWSServerV2 {
             String variantCoreString = variantEntity.getChromosome() + ":" + variantEntity.getStart() + ":" +
                     variantEntity.getReference() + ":" + variantEntity.getAlternate();
 
-            Link annotationsLink = new Link(linkTo(methodOn(VariantWSServerV2.class).getAnnotations(variantCoreString,
-                    species, assembly, null, null, response)).toUri().toString(), "annotation");
-            Link sourcesLink = new Link(linkTo(methodOn(VariantWSServerV2.class).getSources(variantCoreString, species,
-                    assembly, null, null, response)).toUri().toString(), "sources");
+            Link annotationsLink = new Link(VariantWSServerV2.ANNOTATIONS_LINK_TEMPLATE.expand(variantCoreString,
+                    species, assembly, null, null), "annotation");
+            Link sourcesLink = new Link(VariantWSServerV2.SOURCES_LINK_TEMPLATE.expand(variantCoreString, species,
+                    assembly, null, null), "sources");
 
             resourcesList.add(new Resource<>(variant, Arrays.asList(sourcesLink, annotationsLink)));
         });
         return resourcesList;
     }
 
-    private PagedResources buildPage(List<Resource> resourcesList, PageMetadata pageMetadata, String regionId,
-                                     String species, String assembly, List<String> studies,
-                                     List<String> consequenceType, String maf, String polyphenScore,
-                                     String siftScore, String annotationVepVersion, String annotationVepCacheVersion,
-                                     HttpServletResponse response, HttpServletRequest request) {
+    private PagedResources buildPage(List<Resource> resourcesList, PageMetadata pageMetadata, String nextPageToken,
+                                     CountMode countMode, PaginationLinkFactory paginationLinkFactory) {
         PagedResources pagedResources = new PagedResources<>(resourcesList, pageMetadata);
 
         int pageNumber = (int) pageMetadata.getNumber();
         int pageSize = (int) pageMetadata.getSize();
+        // the default count mode is left out of the links, so they stay as they were before count modes existed
+        String countModeParameter = countMode == CountMode.EXACT ? null : countMode.name().toLowerCase();
 
         if (pageNumber > 0) {
-            pagedResources.add(createPaginationLink(regionId, species, assembly, studies, consequenceType, maf,
-                    polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion, pageNumber - 1,
-                    pageSize, response, request, "prev"));
-
-            pagedResources.add(createPaginationLink(regionId, species, assembly, studies, consequenceType, maf,
-                    polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion, 0, pageSize,
-                    response, request, "first"));
+            pagedResources.add(paginationLinkFactory.create(pageNumber - 1, pageSize, null, countModeParameter,
+                    "prev"));
+            pagedResources.add(paginationLinkFactory.create(0, pageSize, null, countModeParameter, "first"));
         }
 
         if (pageNumber < (pageMetadata.getTotalPages() - 1)) {
-            pagedResources.add(createPaginationLink(regionId, species, assembly, studies, consequenceType, maf,
-                    polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion, pageNumber + 1,
-                    pageSize, response, request, "next"));
-
-            pagedResources.add(createPaginationLink(regionId, species, assembly, studies, consequenceType, maf,
-                    polyphenScore, siftScore, annotationVepVersion, annotationVepCacheVersion,
-                    (int) pageMetadata.getTotalPages() - 1, pageSize, response, request, "last"));
+            pagedResources.add(paginationLinkFactory.create(pageNumber + 1, pageSize, nextPageToken,
+                    countModeParameter, "next"));
+
+            // without an exact count the last page is not known
+            if (countMode == CountMode.EXACT) {
+                pagedResources.add(paginationLinkFactory.create((int) pageMetadata.getTotalPages() - 1, pageSize,
+                        null, countModeParameter, "last"));
+            }
         }
         return pagedResources;
     }
@@ -264,11 +415,11 @@ public class RegionWSServerV2 {
     private Link createPaginationLink(String regionId, String species, String assembly, List<String> studies,
                                       List<String> consequenceType, String maf, String polyphenScore,
                                       String siftScore, String annotationVepVersion, String annotationVepCacheVersion,
-                                      int pageNumber, int pageSize, HttpServletResponse response,
-                                      HttpServletRequest request, String linkName) {
+                                      int pageNumber, int pageSize, String pageToken, String countMode,
+                                      HttpServletResponse response, HttpServletRequest request, String linkName) {
         return new Link(linkTo(methodOn(RegionWSServerV2.class).getVariantsByRegion(regionId, species, assembly,
                 studies, consequenceType, maf, polyphenScore, siftScore, annotationVepVersion,
-                annotationVepCacheVersion, pageNumber, pageSize, response, request))
+                annotationVepCacheVersion, pageNumber, pageSize, pageToken, countMode, response, request))
                 .toUriComponentsBuilder()
                 .toUriString(), linkName);
     }
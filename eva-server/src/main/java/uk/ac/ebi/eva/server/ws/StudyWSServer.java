@@ -36,6 +36,7 @@ import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -43,7 +44,8 @@ import java.util.Collections;
 import java.util.List;
 
 @RestController
-@RequestMapping(value = "/v1/studies", produces = "application/json")
+@RequestMapping(value = "/v1/studies", produces = {"application/json", JacksonConfiguration.APPLICATION_SMILE_VALUE,
+        JacksonConfiguration.APPLICATION_CBOR_VALUE})
 @Api(tags = {"studies"})
 public class StudyWSServer extends EvaWSServer {
 
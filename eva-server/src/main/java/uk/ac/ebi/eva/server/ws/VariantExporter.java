@@ -0,0 +1,261 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server.ws;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.ac.ebi.eva.commons.core.models.AnnotationMetadata;
+import uk.ac.ebi.eva.commons.core.models.Region;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.commons.mongodb.filter.VariantRepositoryFilter;
+import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundException;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.BgzipOutputStream;
+import uk.ac.ebi.eva.server.ContinuationToken;
+import uk.ac.ebi.eva.server.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams all the variants in some regions to the response, in batches that are written and flushed before the next
+ * one is retrieved, so the memory used does not depend on the size of the export and a slow client slows down the
+ * database reads instead of making the response accumulate in memory.
+ *
+ * The variants are walked with a single cursor, opened when the response starts, that reads the chromosome, start
+ * and _id of the matching variants in that order, which is the order of the index used by {@link ContinuationToken}.
+ * Only the service converts the variants to the web service model, with their annotation and sample names, so the
+ * keys read from the cursor delimit each batch, which is then retrieved through the service with one query that
+ * starts after the previous batch in the same index order and reads as many variants as keys.
+ */
+@Component
+public class VariantExporter {
+
+    static final int BATCH_SIZE = 1000;
+
+    private static final String END_FIELD = "end";
+
+    private static final String TSV_HEADER = "#CHROM\tPOS\tID\tREF\tALT\n";
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        TSV("text/tab-separated-values", "tsv");
+
+        private final String contentType;
+
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format parse(String format) {
+            for (Format value : values()) {
+                if (value.name().equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Please specify a format among ndjson and tsv");
+        }
+    }
+
+    @Autowired
+    private VariantWithSamplesAndAnnotationsService service;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DbCollectionsProperties dbCollectionsProperties;
+
+    /**
+     * Translates the names of the fields to exclude from the API names to the database ones. Fields that are not
+     * part of the TSV output are always excluded for that format.
+     */
+    public List<String> getExcludedFields(List<String> exclude, Format format) throws IllegalArgumentException {
+        List<String> excludeMapped = new ArrayList<>();
+        if (format == Format.TSV) {
+            excludeMapped.addAll(Utils.getApiToMongoDocNameMap().values());
+            return excludeMapped;
+        }
+        if (exclude != null) {
+            for (String e : exclude) {
+                String docPath = Utils.getApiToMongoDocNameMap().get(e);
+                if (docPath == null) {
+                    throw new IllegalArgumentException("Unrecognised exclude field: " + e);
+                }
+                excludeMapped.add(docPath);
+            }
+        }
+        return excludeMapped;
+    }
+
+    /**
+     * The first batch is retrieved before the response is committed, so that errors in the query can still be
+     * reported with the appropriate status code.
+     */
+    public ResponseEntity<StreamingResponseBody> export(List<Region> regions, String databaseName,
+                                                        List<VariantRepositoryFilter> filters,
+                                                        AnnotationMetadata annotationMetadata,
+                                                        List<String> excludeMapped, Format format, boolean bgzip,
+                                                        String fileName)
+            throws AnnotationMetadataNotFoundException {
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+        List<VariantWithSamplesAndAnnotation> firstBatch = service.findByRegionsAndComplexFilters(regions, filters,
+                annotationMetadata, excludeMapped, ContinuationToken.sorted(new PageRequest(0, BATCH_SIZE)));
+
+        // the body is written from a different thread than the one that handled the request, which gets the
+        // database from the request (see AsyncConfiguration)
+        StreamingResponseBody body = outputStream -> {
+            try (OutputStream output = bgzip ? new BgzipOutputStream(outputStream)
+                    : new BufferedOutputStream(outputStream)) {
+                if (format == Format.TSV) {
+                    output.write(TSV_HEADER.getBytes(StandardCharsets.UTF_8));
+                }
+                writeBatch(firstBatch, format, output);
+                output.flush();
+                if (firstBatch.size() == BATCH_SIZE) {
+                    writeFollowingBatches(regions, filters, annotationMetadata, excludeMapped, format,
+                                          ContinuationToken.fromPage(firstBatch), output);
+                }
+            } catch (AnnotationMetadataNotFoundException e) {
+                throw new IOException(e);
+            }
+        };
+
+        String extension = bgzip ? format.extension + ".gz" : format.extension;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(bgzip ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(
+                format.contentType));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "." + extension + "\"");
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    private void writeFollowingBatches(List<Region> regions, List<VariantRepositoryFilter> filters,
+                                       AnnotationMetadata annotationMetadata, List<String> excludeMapped,
+                                       Format format, ContinuationToken token, OutputStream output)
+            throws IOException, AnnotationMetadataNotFoundException {
+        DBCursor keys = openKeyCursor(token.getRemainingRegions(regions), filters, token);
+        try {
+            while (keys.hasNext()) {
+                ContinuationToken lastKey = token;
+                int batchSize = 0;
+                while (batchSize < BATCH_SIZE && keys.hasNext()) {
+                    DBObject key = keys.next();
+                    lastKey = new ContinuationToken((String) key.get(ContinuationToken.CHROMOSOME_FIELD),
+                                                    ((Number) key.get(ContinuationToken.START_FIELD)).longValue(),
+                                                    key.get(ContinuationToken.ID_FIELD).toString());
+                    batchSize++;
+                }
+                List<VariantWithSamplesAndAnnotation> batch = token.findNext(regions, filters, batchSize,
+                        (remainingRegions, filtersAfterToken, pageRequest) -> service.findByRegionsAndComplexFilters(
+                                remainingRegions, filtersAfterToken, annotationMetadata, excludeMapped, pageRequest));
+                writeBatch(batch, format, output);
+                output.flush();
+                token = lastKey;
+            }
+        } finally {
+            keys.close();
+        }
+    }
+
+    /**
+     * Opens a cursor on the chromosome, start and _id of the variants that overlap the regions, match the filters
+     * and follow the token, sorted in that order. The documents are fetched from the database one batch at a time as
+     * the cursor is read.
+     */
+    private DBCursor openKeyCursor(List<Region> regions, List<VariantRepositoryFilter> filters,
+                                   ContinuationToken token) {
+        BasicDBList regionQueries = new BasicDBList();
+        for (Region region : regions) {
+            BasicDBObject regionQuery = new BasicDBObject(ContinuationToken.CHROMOSOME_FIELD, region.getChromosome());
+            if (region.getEnd() != null) {
+                regionQuery.append(ContinuationToken.START_FIELD, new BasicDBObject("$lte", region.getEnd()));
+            }
+            if (region.getStart() != null) {
+                regionQuery.append(END_FIELD, new BasicDBObject("$gte", region.getStart()));
+            }
+            regionQueries.add(regionQuery);
+        }
+        BasicDBList conditions = new BasicDBList();
+        conditions.add(new BasicDBObject("$or", regionQueries));
+        for (VariantRepositoryFilter filter : filters) {
+            conditions.add(filter.getCriteria().getCriteriaObject());
+        }
+        conditions.add(token.getCriteria().getCriteriaObject());
+
+        BasicDBObject keyFields = new BasicDBObject(ContinuationToken.CHROMOSOME_FIELD, 1)
+                .append(ContinuationToken.START_FIELD, 1).append(ContinuationToken.ID_FIELD, 1);
+        return mongoOperations.getCollection(dbCollectionsProperties.getVariants())
+                              .find(new BasicDBObject("$and", conditions), keyFields)
+                              .sort(keyFields)
+                              .batchSize(BATCH_SIZE);
+    }
+
+    private void writeBatch(List<VariantWithSamplesAndAnnotation> batch, Format format, OutputStream output)
+            throws IOException {
+        for (VariantWithSamplesAndAnnotation variant : batch) {
+            if (format == Format.NDJSON) {
+                output.write(objectMapper.writeValueAsBytes(variant));
+                output.write('\n');
+            } else {
+                output.write(toTsvLine(variant).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * The columns are named as in VCF, but this is not a VCF file: only the variant coordinates are stored, without
+     * the context base that VCF requires for indels, so empty alleles are written as "-" and positions are those of
+     * the database.
+     */
+    static String toTsvLine(VariantWithSamplesAndAnnotation variant) {
+        String ids = (variant.getIds() == null || variant.getIds().isEmpty()) ? "." :
+                String.join(";", variant.getIds());
+        return variant.getChromosome() + "\t" + variant.getStart() + "\t" + ids + "\t" +
+                getTsvAllele(variant.getReference()) + "\t" + getTsvAllele(variant.getAlternate()) + "\n";
+    }
+
+    private static String getTsvAllele(String allele) {
+        return (allele == null || allele.isEmpty()) ? "-" : allele;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server.ws;
+
+import uk.ac.ebi.eva.commons.core.models.Annotation;
+import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantSourceEntryWithSampleNames;
+
+import java.util.List;
+
+/**
+ * Outcome of resolving a single variant core string in a batch lookup. Sections that were not requested, or that
+ * belong to a variant that was not found, are left empty.
+ */
+public class VariantLookupResult {
+
+    private String variantCoreString;
+
+    private boolean found;
+
+    private Variant variant;
+
+    private Annotation annotation;
+
+    private List<VariantSourceEntryWithSampleNames> sources;
+
+    VariantLookupResult() {
+    }
+
+    public VariantLookupResult(String variantCoreString) {
+        this.variantCoreString = variantCoreString;
+        this.found = false;
+    }
+
+    public VariantLookupResult(String variantCoreString, Variant variant, Annotation annotation,
+                               List<VariantSourceEntryWithSampleNames> sources) {
+        this.variantCoreString = variantCoreString;
+        this.found = true;
+        this.variant = variant;
+        this.annotation = annotation;
+        this.sources = sources;
+    }
+
+    public String getVariantCoreString() {
+        return variantCoreString;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public Variant getVariant() {
+        return variant;
+    }
+
+    public Annotation getAnnotation() {
+        return annotation;
+    }
+
+    public List<VariantSourceEntryWithSampleNames> getSources() {
+        return sources;
+    }
+}
@@ -20,11 +20,13 @@
 package uk.ac.ebi.eva.server.ws;
 
 import io.swagger.annotations.Api;
+import uk.ac.ebi.eva.lib.utils.CountMode;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -39,7 +41,11 @@ import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundExceptio
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.TotalResultsCounter;
 import uk.ac.ebi.eva.server.Utils;
+import uk.ac.ebi.eva.server.VariantExistenceChecker;
+import uk.ac.ebi.eva.server.VariantExistenceIndex;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -49,13 +55,23 @@ import java.util.Arrays;
 import java.util.List;
 
 @RestController
-@RequestMapping(value = "/v1/variants", produces = "application/json")
+@RequestMapping(value = "/v1/variants", produces = {"application/json", JacksonConfiguration.APPLICATION_SMILE_VALUE,
+        JacksonConfiguration.APPLICATION_CBOR_VALUE})
 @Api(tags = {"variants"})
 public class VariantWSServer extends EvaWSServer {
 
     @Autowired
     private VariantWithSamplesAndAnnotationsService service;
 
+    @Autowired
+    private TotalResultsCounter totalResultsCounter;
+
+    @Autowired
+    private VariantExistenceChecker existenceChecker;
+
+    @Autowired
+    private VariantExistenceIndex existenceIndex;
+
     protected static Logger logger = LoggerFactory.getLogger(FeatureWSServer.class);
 
     @RequestMapping(value = "/{variantId}/info", method = RequestMethod.GET)
@@ -156,6 +172,14 @@ public class VariantWSServer extends EvaWSServer {
             return setQueryResponse("Please specify a species");
         }
 
+        CountMode countMode;
+        try {
+            countMode = Utils.getCountMode(getQueryOptions());
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return setQueryResponse(e.getMessage());
+        }
+
         // Split the variants ids by ','
         List<String> variantIdsAsList = Arrays.asList(variantIds.split(","));
 
@@ -186,10 +210,15 @@ public class VariantWSServer extends EvaWSServer {
                 annotationMetadata = new AnnotationMetadata(annotationVepVersion, annotationVepCacheVersion);
             }
 
+            PageRequest pageRequest = Utils.getPageRequest(getQueryOptions());
             variantEntities = service.findByIdsAndComplexFilters(variantIdsAsList, filters, annotationMetadata, excludeMapped,
-                    Utils.getPageRequest(getQueryOptions()));
+                    Utils.getPageRequest(pageRequest, countMode));
 
-            numTotalResults = service.countByIdsAndComplexFilters(variantIdsAsList, filters);
+            numTotalResults = totalResultsCounter.count(countMode, pageRequest, variantEntities,
+                    Arrays.asList("ids", species, variantIds, studies, consequenceType, maf, polyphenScore,
+                                  siftScore).toString(),
+                    () -> service.countByIdsAndComplexFilters(variantIdsAsList, filters));
+            variantEntities = Utils.removeLookahead(variantEntities, pageRequest);
 
         } catch (AnnotationMetadataNotFoundException ex) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
@@ -230,61 +259,38 @@ public class VariantWSServer extends EvaWSServer {
             return setQueryResponse("Please specify a species");
         }
 
-        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species));
-
-        List<VariantWithSamplesAndAnnotation> variantEntities;
-        Long numTotalResults;
+        String databaseName = DBAdaptorConnector.getDBName(species);
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
 
         String invalidCoordinatesMessage =
                 "Invalid position and alleles combination, please use chr:pos:ref or chr:pos:ref:alt";
 
-        try {
-            if (variantId.contains(":")) {
-                String[] regionId = variantId.split(":", -1);
-                if (regionId.length < 3) {
-                    response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                    return setErrorQueryResponse(invalidCoordinatesMessage);
-                }
-
-                String alternate = (regionId.length > 3) ? regionId[3] : null;
+        boolean exists;
+        if (variantId.contains(":")) {
+            String[] regionId = variantId.split(":", -1);
+            if (regionId.length < 3) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return setErrorQueryResponse(invalidCoordinatesMessage);
+            }
 
+            String alternate = (regionId.length > 3) ? regionId[3] : null;
+            int start = Integer.parseInt(regionId[1]);
 
-                if (studies != null && !studies.isEmpty()) {
-                    variantEntities = queryByCoordinatesAndAllelesAndStudyIds(regionId[0], Integer.parseInt(regionId[1]),
-                        regionId[2], alternate, studies);
-                } else {
-                    variantEntities = queryByCoordinatesAndAlleles(regionId[0], Integer.parseInt(regionId[1]), regionId[2],
-                                                               alternate, null, null);
-                }
-
-            } else {
-                List<VariantRepositoryFilter> filters = new FilterBuilder().withStudies(studies).build();
-                variantEntities = service.findByIdsAndComplexFilters(Arrays.asList(variantId), filters, null, null,
-                    Utils.getPageRequest(getQueryOptions()));
-            }
-        }
-        catch (AnnotationMetadataNotFoundException ex) {
-            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-            return setQueryResponse(ex.getMessage());
+            exists = existenceIndex.mightContain(databaseName, regionId[0], start, regionId[2], alternate, studies)
+                    && existenceChecker.existsByCoordinatesAndAlleles(regionId[0], start, regionId[2], alternate,
+                                                                      studies);
+        } else {
+            exists = existenceChecker.existsById(variantId, studies);
         }
 
-        numTotalResults = (long) variantEntities.size();
-        QueryResult queryResult = new QueryResult();
-        queryResult.setResult(Arrays.asList(numTotalResults > 0));
-        queryResult.setResultType(Boolean.class.getCanonicalName());
-        return setQueryResponse(queryResult);
+        return setQueryResponse(buildExistenceQueryResult(exists));
     }
 
-    private List<VariantWithSamplesAndAnnotation> queryByCoordinatesAndAllelesAndStudyIds(String chromosome, long start,
-                                                                                           String reference,
-                                                                                           String alternate,
-                                                                                           List<String> studyIds) throws AnnotationMetadataNotFoundException {
-        if (alternate != null) {
-            return service.findByChromosomeAndStartAndReferenceAndAlternateAndStudyIn(chromosome, start, reference,
-                                                                                      alternate, studyIds, null);
-        } else {
-            return service.findByChromosomeAndStartAndReferenceAndStudyIn(chromosome, start, reference, studyIds, null);
-        }
+    private QueryResult buildExistenceQueryResult(boolean exists) {
+        QueryResult queryResult = new QueryResult();
+        queryResult.setResult(Arrays.asList(exists));
+        queryResult.setResultType(Boolean.class.getCanonicalName());
+        return queryResult;
     }
 
     @RequestMapping(value = "/count", method = RequestMethod.GET)
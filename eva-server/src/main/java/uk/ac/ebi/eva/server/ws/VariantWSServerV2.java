@@ -22,37 +22,67 @@ package uk.ac.ebi.eva.server.ws;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.Resources;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resource;
 import uk.ac.ebi.eva.commons.core.models.AnnotationMetadata;
+import uk.ac.ebi.eva.commons.core.models.Region;
 import uk.ac.ebi.eva.commons.core.models.pipeline.Variant;
 import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.commons.mongodb.filter.FilterBuilder;
+import uk.ac.ebi.eva.commons.mongodb.filter.VariantRepositoryFilter;
 import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundException;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.LinkTemplate;
+import uk.ac.ebi.eva.server.Utils;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+import java.util.Set;
 
 @RestController
 @RequestMapping(value = "/v2/variants", produces = "application/hal+json")
 @Api(tags = {"variants"})
 public class VariantWSServerV2 {
 
+    static final int BATCH_LOOKUP_MAX_SIZE = 10000;
+
+    static final int BATCH_LOOKUP_CHUNK_SIZE = 1000;
+
+    static final String CORE_SECTION = "core";
+
+    static final String ANNOTATION_SECTION = "annotation";
+
+    static final String SOURCES_SECTION = "sources";
+
+    private static final List<String> BATCH_LOOKUP_SECTIONS = Arrays.asList(CORE_SECTION, ANNOTATION_SECTION,
+            SOURCES_SECTION);
+
+    static final LinkTemplate CORE_INFO_LINK_TEMPLATE = LinkTemplate.of(VariantWSServerV2.class, "getCoreInfo");
+
+    static final LinkTemplate ANNOTATIONS_LINK_TEMPLATE = LinkTemplate.of(VariantWSServerV2.class, "getAnnotations");
+
+    static final LinkTemplate SOURCES_LINK_TEMPLATE = LinkTemplate.of(VariantWSServerV2.class, "getSources");
+
     @Autowired
     private VariantWithSamplesAndAnnotationsService service;
 
@@ -90,15 +120,12 @@ public class VariantWSServerV2 {
             return new ResponseEntity(null, HttpStatus.NOT_FOUND);
         }
 
-        VariantWithSamplesAndAnnotation retrievedVariant = variantEntity.get();
-        Variant variant = new Variant(retrievedVariant.getChromosome(), retrievedVariant.getStart(),
-                retrievedVariant.getEnd(), retrievedVariant.getReference(), retrievedVariant.getAlternate());
-        variant.setIds(variantEntity.get().getIds());
-        Link annotationLink = new Link(linkTo(methodOn(VariantWSServerV2.class).getAnnotations(variantCoreString,
-                species, assembly, null, null, response)).toUri().toString(), "annotation");
+        Variant variant = buildCoreVariant(variantEntity.get());
+        Link annotationLink = new Link(ANNOTATIONS_LINK_TEMPLATE.expand(variantCoreString, species, assembly, null,
+                null), "annotation");
 
-        Link sourcesLink = new Link(linkTo(methodOn(VariantWSServerV2.class).getSources(variantCoreString, species,
-                assembly, null, null, response)).toUri().toString(), "sources");
+        Link sourcesLink = new Link(SOURCES_LINK_TEMPLATE.expand(variantCoreString, species, assembly, null, null),
+                "sources");
 
         List<Link> links = new ArrayList<>();
         links.add(sourcesLink);
@@ -106,6 +133,154 @@ public class VariantWSServerV2 {
         return new ResponseEntity(new Resource<>(variant, links), HttpStatus.OK);
     }
 
+    private Variant buildCoreVariant(VariantWithSamplesAndAnnotation retrievedVariant) {
+        Variant variant = new Variant(retrievedVariant.getChromosome(), retrievedVariant.getStart(),
+                retrievedVariant.getEnd(), retrievedVariant.getReference(), retrievedVariant.getAlternate());
+        variant.setIds(retrievedVariant.getIds());
+        return variant;
+    }
+
+    @PostMapping
+    public ResponseEntity getCoreInfoBatch(
+            @ApiParam(value = "List of variants, each described by chromosome, start, reference allele and alternate" +
+                    " allele; all joined by colon. e.g. [\"13:32884647:T:C\", \"13:32889669:C:T\"]", required = true)
+            @RequestBody List<String> variantCoreStrings,
+            @ApiParam(value = "First letter of the genus, followed by the full species name, e.g. hsapiens. " +
+                    "Allowed values can be looked up in /v1/meta/species/list/ in the field named 'taxonomyCode'.",
+                    required = true)
+            @RequestParam(name = "species") String species,
+            @ApiParam(value = "Encoded assembly name, e.g. grch37. Allowed values can be looked up in " +
+                    "/v1/meta/species/list/ in the field named 'assemblyCode'.", required = true)
+            @RequestParam(name = "assembly") String assembly,
+            @ApiParam(value = "Comma separated sections to include for every variant found. Allowed values are " +
+                    "core, annotation and sources, e.g. core,annotation")
+            @RequestParam(name = "include", required = false, defaultValue = CORE_SECTION) List<String> sections,
+            @ApiParam(value = "Ensembl VEP release whose annotations will be included in the response, e.g. 78")
+            @RequestParam(name = "annot-vep-version", required = false)
+                    String annotationVepVersion,
+            @ApiParam(value = "Ensembl VEP cache release whose annotations will be included in the response, " +
+                    "e.g. 78")
+            @RequestParam(name = "annot-vep-cache-version", required = false)
+                    String annotationVepCacheVersion,
+            HttpServletResponse response) throws IllegalArgumentException {
+        try {
+            checkBatchParameters(variantCoreStrings, sections, annotationVepVersion, annotationVepCacheVersion,
+                    species, assembly);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species + "_" + assembly));
+
+        Map<String, VariantWithSamplesAndAnnotation> foundVariants;
+        try {
+            foundVariants = getVariantsByCoordinatesAndAnnotationVersion(variantCoreStrings, sections,
+                    annotationVepVersion, annotationVepCacheVersion);
+        } catch (AnnotationMetadataNotFoundException ex) {
+            return new ResponseEntity(ex.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+
+        List<VariantLookupResult> results = new ArrayList<>(variantCoreStrings.size());
+        for (String variantCoreString : variantCoreStrings) {
+            VariantWithSamplesAndAnnotation variantEntity = foundVariants.get(
+                    getCanonicalVariantCoreString(variantCoreString));
+            if (variantEntity == null) {
+                results.add(new VariantLookupResult(variantCoreString));
+            } else {
+                results.add(new VariantLookupResult(variantCoreString,
+                        sections.contains(CORE_SECTION) ? buildCoreVariant(variantEntity) : null,
+                        sections.contains(ANNOTATION_SECTION) ? variantEntity.getAnnotation() : null,
+                        sections.contains(SOURCES_SECTION) ? new ArrayList<>(variantEntity.getSourceEntries()) : null));
+            }
+        }
+        return new ResponseEntity(new Resources<>(results), HttpStatus.OK);
+    }
+
+    private void checkBatchParameters(List<String> variantCoreStrings, List<String> sections,
+                                      String annotationVepVersion, String annotationVepCacheVersion, String species,
+                                      String assembly) {
+        if (variantCoreStrings == null || variantCoreStrings.isEmpty()) {
+            throw new IllegalArgumentException("Please provide at least one variant");
+        }
+        if (variantCoreStrings.size() > BATCH_LOOKUP_MAX_SIZE) {
+            throw new IllegalArgumentException("Please provide at most " + BATCH_LOOKUP_MAX_SIZE + " variants");
+        }
+        if (!BATCH_LOOKUP_SECTIONS.containsAll(sections)) {
+            throw new IllegalArgumentException("Please specify sections among " +
+                    String.join(", ", BATCH_LOOKUP_SECTIONS));
+        }
+        for (String variantCoreString : variantCoreStrings) {
+            try {
+                checkParameters(variantCoreString, annotationVepVersion, annotationVepCacheVersion, species,
+                        assembly);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid variant '" + variantCoreString + "': " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Resolves the variants in chunks, querying the positions of a whole chunk at once and keeping only the exact
+     * chromosome:start:reference:alternate matches. Variants are returned indexed by their canonical core string.
+     */
+    private Map<String, VariantWithSamplesAndAnnotation> getVariantsByCoordinatesAndAnnotationVersion(
+            List<String> variantCoreStrings, List<String> sections, String annotationVepVersion,
+            String annotationVepCacheVersion) throws AnnotationMetadataNotFoundException {
+        AnnotationMetadata annotationMetadata = null;
+        if (annotationVepVersion != null && annotationVepCacheVersion != null) {
+            annotationMetadata = new AnnotationMetadata(annotationVepVersion, annotationVepCacheVersion);
+        }
+        List<VariantRepositoryFilter> filters = new FilterBuilder().build();
+        List<String> excludeMapped = getBatchExcludedFields(sections);
+
+        Map<String, VariantWithSamplesAndAnnotation> foundVariants = new HashMap<>();
+        for (int i = 0; i < variantCoreStrings.size(); i += BATCH_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = variantCoreStrings.subList(i,
+                    Math.min(i + BATCH_LOOKUP_CHUNK_SIZE, variantCoreStrings.size()));
+            Set<String> chunkKeys = new HashSet<>();
+            Set<Region> chunkRegions = new LinkedHashSet<>();
+            for (String variantCoreString : chunk) {
+                String[] regionId = variantCoreString.split(":", -1);
+                long start = Long.parseLong(regionId[1]);
+                chunkKeys.add(getCanonicalVariantCoreString(variantCoreString));
+                chunkRegions.add(new Region(regionId[0], start, start));
+            }
+
+            List<Region> regions = new ArrayList<>(chunkRegions);
+            int pageNumber = 0;
+            List<VariantWithSamplesAndAnnotation> page;
+            do {
+                page = service.findByRegionsAndComplexFilters(regions, filters, annotationMetadata, excludeMapped,
+                        new PageRequest(pageNumber++, BATCH_LOOKUP_CHUNK_SIZE));
+                for (VariantWithSamplesAndAnnotation variantEntity : page) {
+                    String key = variantEntity.getChromosome() + ":" + variantEntity.getStart() + ":" +
+                            variantEntity.getReference() + ":" + variantEntity.getAlternate();
+                    if (chunkKeys.contains(key)) {
+                        foundVariants.putIfAbsent(key, variantEntity);
+                    }
+                }
+            } while (page.size() == BATCH_LOOKUP_CHUNK_SIZE);
+        }
+        return foundVariants;
+    }
+
+    private String getCanonicalVariantCoreString(String variantCoreString) {
+        String[] regionId = variantCoreString.split(":", -1);
+        return regionId[0] + ":" + Long.parseLong(regionId[1]) + ":" + regionId[2] + ":" + regionId[3];
+    }
+
+    private List<String> getBatchExcludedFields(List<String> sections) {
+        Map<String, String> apiToMongoDocNameMap = Utils.getApiToMongoDocNameMap();
+        List<String> excludeMapped = new ArrayList<>();
+        if (!sections.contains(ANNOTATION_SECTION)) {
+            excludeMapped.add(apiToMongoDocNameMap.get("annotation"));
+        }
+        if (!sections.contains(SOURCES_SECTION)) {
+            excludeMapped.add(apiToMongoDocNameMap.get("sourceEntries"));
+            excludeMapped.add(apiToMongoDocNameMap.get("sourceEntries.statistics"));
+        }
+        return excludeMapped;
+    }
+
     private void checkParameters(String variantCoreString, String annotationVepVersion,
                                  String annotationVepCacheVersion, String species, String assembly) {
         String[] regionId = variantCoreString.split(":", -1);
@@ -199,8 +374,8 @@ public class VariantWSServerV2 {
         if (!variantEntity.isPresent() || variantEntity.get().getAnnotation() == null) {
             return new ResponseEntity(null, HttpStatus.NOT_FOUND);
         }
-        Link coreVariantLink = new Link(linkTo(methodOn(VariantWSServerV2.class).getCoreInfo(variantCoreString,
-                species, assembly, response)).toUri().toString(), "coreVariant");
+        Link coreVariantLink = new Link(CORE_INFO_LINK_TEMPLATE.expand(variantCoreString, species, assembly),
+                "coreVariant");
 
         return new ResponseEntity(new Resource<>(variantEntity.get().getAnnotation(), coreVariantLink), HttpStatus.OK);
     }
@@ -248,8 +423,8 @@ public class VariantWSServerV2 {
         variantEntity.get().getSourceEntries().forEach(sourceEntry -> {
             resourceList.add(new Resource<>(sourceEntry));
         });
-        Link coreVariantLink = new Link(linkTo(methodOn(VariantWSServerV2.class).getCoreInfo(variantCoreString,
-                species, assembly, response)).toUri().toString(), "coreVariant");
+        Link coreVariantLink = new Link(CORE_INFO_LINK_TEMPLATE.expand(variantCoreString, species, assembly),
+                "coreVariant");
         if (resourceList.size() == 0) {
             return new ResponseEntity(new Resources<>(resourceList, coreVariantLink), HttpStatus.NOT_FOUND);
         }
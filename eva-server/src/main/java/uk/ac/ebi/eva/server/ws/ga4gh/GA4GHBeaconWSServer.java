@@ -28,11 +28,10 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import uk.ac.ebi.eva.commons.core.models.VariantType;
-import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
-import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundException;
-import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.VariantExistenceChecker;
+import uk.ac.ebi.eva.server.VariantExistenceIndex;
 import uk.ac.ebi.eva.server.ws.EvaWSServer;
 
 import javax.servlet.http.HttpServletResponse;
@@ -45,7 +44,10 @@ import java.util.List;
 public class GA4GHBeaconWSServer extends EvaWSServer {
 
     @Autowired
-    private VariantWithSamplesAndAnnotationsService service;
+    private VariantExistenceChecker existenceChecker;
+
+    @Autowired
+    private VariantExistenceIndex existenceIndex;
 
     protected static Logger logger = LoggerFactory.getLogger(GA4GHBeaconWSServer.class);
 
@@ -57,7 +59,7 @@ public class GA4GHBeaconWSServer extends EvaWSServer {
                                       @RequestParam("allele") String allele,
                                       @RequestParam("datasetIds") List<String> studies,
                                       HttpServletResponse response)
-            throws IOException, AnnotationMetadataNotFoundException {
+            throws IOException {
         initializeQuery();
 
         if (start < 0) {
@@ -66,17 +68,20 @@ public class GA4GHBeaconWSServer extends EvaWSServer {
                                            "Please provide a positive number as start position");
         }
 
-        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName("hsapiens_grch37"));
+        String databaseName = DBAdaptorConnector.getDBName("hsapiens_grch37");
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+
+        if (!existenceIndex.mightContain(databaseName, chromosome, start, null, null, studies)) {
+            return new GA4GHBeaconResponse(chromosome, start, allele, String.join(",", studies), false);
+        }
 
-        List<VariantWithSamplesAndAnnotation> variantEntities;
+        boolean exists;
         if (allele.equalsIgnoreCase("INDEL")) {
-            variantEntities = service.findByChromosomeAndStartAndTypeAndStudyIn(chromosome, start, VariantType.INDEL,
-                                                                                studies, null);
+            exists = existenceChecker.existsByCoordinatesAndType(chromosome, start, VariantType.INDEL, studies);
         } else {
-            variantEntities = service.findByChromosomeAndStartAndAltAndStudyIn(chromosome, start, allele, studies, null);
+            exists = existenceChecker.existsByCoordinatesAndAlternate(chromosome, start, allele, studies);
         }
 
-        return new GA4GHBeaconResponse(chromosome, start, allele, String.join(",", studies),
-                                       variantEntities.size() > 0);
+        return new GA4GHBeaconResponse(chromosome, start, allele, String.join(",", studies), exists);
     }
 }
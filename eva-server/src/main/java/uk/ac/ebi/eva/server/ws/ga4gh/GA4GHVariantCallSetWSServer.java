@@ -18,6 +18,7 @@
  */
 package uk.ac.ebi.eva.server.ws.ga4gh;
 
+import com.google.common.primitives.Ints;
 import io.swagger.annotations.Api;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,38 +30,44 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import uk.ac.ebi.eva.commons.core.models.VariantSource;
-import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
 import uk.ac.ebi.eva.lib.models.ga4gh.GACallSet;
 import uk.ac.ebi.eva.lib.models.ga4gh.GACallSetFactory;
 import uk.ac.ebi.eva.lib.models.ga4gh.GASearchCallSetsRequest;
 import uk.ac.ebi.eva.lib.models.ga4gh.GASearchCallSetsResponse;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.CallSetContinuationToken;
+import uk.ac.ebi.eva.server.SampleDictionaryCache;
 import uk.ac.ebi.eva.server.Utils;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 import uk.ac.ebi.eva.server.ws.EvaWSServer;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
-@RequestMapping(value = "/v1/ga4gh/callsets", produces = "application/json")
+@RequestMapping(value = "/v1/ga4gh/callsets", produces = {"application/json",
+        JacksonConfiguration.APPLICATION_SMILE_VALUE, JacksonConfiguration.APPLICATION_CBOR_VALUE,
+        JacksonConfiguration.AVRO_BINARY_VALUE})
 @Api(tags = { "ga4gh", "samples" })
 public class GA4GHVariantCallSetWSServer extends EvaWSServer {
 
     @Autowired
-    private VariantSourceService service;
+    private SampleDictionaryCache sampleDictionaryCache;
 
     protected static Logger logger = LoggerFactory.getLogger(GA4GHVariantCallSetWSServer.class);
     
     public GA4GHVariantCallSetWSServer() { }
     
     /**
-     * 
+     * Call sets are paginated following the order of the files in the request and the position of the samples in
+     * each file. The page token is either a page number, kept for compatibility, or a continuation token from the
+     * previous page.
+     *
      * @see http://ga4gh.org/documentation/api/v0.5/ga4gh_api.html#/schema/org.ga4gh.GASearchCallSetsRequest
      */
     @RequestMapping(value = "/search", method = RequestMethod.GET)
@@ -74,30 +81,78 @@ public class GA4GHVariantCallSetWSServer extends EvaWSServer {
             throw new IllegalArgumentException("The 'variantSetIds' argument must not be empty");
         }
 
-        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName("hsapiens_grch37"));
+        String databaseName = DBAdaptorConnector.getDBName("hsapiens_grch37");
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
 
+        List<String> fileIds = new ArrayList<>(new LinkedHashSet<>(files));
         PageRequest pageRequest = Utils.getPageRequest(limit, pageToken);
-        List<VariantSource> variantSourceEntities = service.findByFileIdIn(files, pageRequest);
-        long numTotalResults = service.countByFileIdIn(files);
+        int pageSize = pageRequest.getPageSize();
 
-        List<String> fileIds = variantSourceEntities.stream()
-                                                    .map(VariantSource::getFileId)
-                                                    .collect(Collectors.toList());
+        int fileIndex = 0;
+        int sampleIndex;
+        long callSetsToSkip = 0;
+        CallSetContinuationToken continuationToken = getContinuationToken(pageToken);
+        if (continuationToken == null) {
+            sampleIndex = 0;
+            callSetsToSkip = (long) pageRequest.getPageNumber() * pageSize;
+        } else {
+            fileIndex = fileIds.indexOf(continuationToken.getFileId());
+            if (fileIndex < 0) {
+                throw new IllegalArgumentException("The page token doesn't belong to the requested variant sets");
+            }
+            sampleIndex = continuationToken.getSampleIndex();
+        }
+
+        List<String> pageFileIds = new ArrayList<>();
+        List<List<String>> pageSampleNames = new ArrayList<>();
+        int remaining = pageSize;
+        for (; fileIndex < fileIds.size() && remaining > 0; fileIndex++, sampleIndex = 0) {
+            String[] sampleNames = sampleDictionaryCache.getSampleNames(databaseName, fileIds.get(fileIndex));
+            if (callSetsToSkip >= sampleNames.length - sampleIndex) {
+                callSetsToSkip -= Math.max(0, sampleNames.length - sampleIndex);
+                continue;
+            }
+            sampleIndex += (int) callSetsToSkip;
+            callSetsToSkip = 0;
 
-        List<List<String>> samplesLists  = variantSourceEntities.stream()
-                                                                .map(VariantSource::getSamplesPosition)
-                                                                .map(Map::keySet)
-                                                                .map(ArrayList::new)
-                                                                .collect(Collectors.toList());
+            int end = Math.min(sampleNames.length, sampleIndex + remaining);
+            pageFileIds.add(fileIds.get(fileIndex));
+            pageSampleNames.add(Arrays.asList(sampleNames).subList(sampleIndex, end));
+            remaining -= end - sampleIndex;
+            if (end < sampleNames.length) {
+                sampleIndex = end;
+                break;
+            }
+        }
 
         // Convert sample names objects to GACallSet
-        List<GACallSet> gaCallSets = GACallSetFactory.create(fileIds, samplesLists);
+        List<GACallSet> gaCallSets = GACallSetFactory.create(pageFileIds, pageSampleNames);
         // Calculate the next page token
-        String nextPageToken = Utils.getNextPageToken(pageRequest, limit, numTotalResults);
+        String nextPageToken = getNextPageToken(databaseName, fileIds, fileIndex, sampleIndex);
 
         // Create the custom response for the GA4GH API
         return new GASearchCallSetsResponse(gaCallSets, nextPageToken);
     }
+
+    private static CallSetContinuationToken getContinuationToken(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty() || Ints.tryParse(pageToken) != null) {
+            return null;
+        }
+        return CallSetContinuationToken.parse(pageToken);
+    }
+
+    /**
+     * @return a token pointing to the first call set not returned yet, or null if there are no more
+     */
+    private String getNextPageToken(String databaseName, List<String> fileIds, int fileIndex, int sampleIndex) {
+        for (; fileIndex < fileIds.size(); fileIndex++, sampleIndex = 0) {
+            String fileId = fileIds.get(fileIndex);
+            if (sampleIndex < sampleDictionaryCache.getSampleNames(databaseName, fileId).length) {
+                return new CallSetContinuationToken(fileId, sampleIndex).encode();
+            }
+        }
+        return null;
+    }
     
     @RequestMapping(value = "/search", method = RequestMethod.POST, consumes = "application/json")
     public GASearchCallSetsResponse getCallSets(GASearchCallSetsRequest request)
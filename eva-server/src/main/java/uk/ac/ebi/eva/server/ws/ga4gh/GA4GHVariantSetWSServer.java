@@ -38,6 +38,8 @@ import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantSetFactory;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
 import uk.ac.ebi.eva.server.Utils;
+import uk.ac.ebi.eva.server.VariantSetMetadataCache;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 import uk.ac.ebi.eva.server.ws.EvaWSServer;
 
 import javax.servlet.http.HttpServletResponse;
@@ -45,13 +47,18 @@ import java.io.IOException;
 import java.util.List;
 
 @RestController
-@RequestMapping(value = "/v1/ga4gh/variantsets", produces = "application/json")
+@RequestMapping(value = "/v1/ga4gh/variantsets", produces = {"application/json",
+        JacksonConfiguration.APPLICATION_SMILE_VALUE, JacksonConfiguration.APPLICATION_CBOR_VALUE,
+        JacksonConfiguration.AVRO_BINARY_VALUE})
 @Api(tags = { "ga4gh", "files" })
 public class GA4GHVariantSetWSServer extends EvaWSServer {
 
     @Autowired
     private VariantSourceService service;
 
+    @Autowired
+    private VariantSetMetadataCache variantSetMetadataCache;
+
     protected static Logger logger = LoggerFactory.getLogger(GA4GHVariantSetWSServer.class);
     
     public GA4GHVariantSetWSServer() { }
@@ -71,7 +78,8 @@ public class GA4GHVariantSetWSServer extends EvaWSServer {
             throw new IllegalArgumentException("The 'datasetIds' argument must not be empty");
         }
 
-        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName("hsapiens_grch37"));
+        String databaseName = DBAdaptorConnector.getDBName("hsapiens_grch37");
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
 
         PageRequest pageRequest = Utils.getPageRequest(limit, pageToken);
 
@@ -79,7 +87,8 @@ public class GA4GHVariantSetWSServer extends EvaWSServer {
         Long numTotalResults = service.countByStudyIdIn(studies);
 
         // Convert VariantSource objects to GAVariantSet
-        List<GAVariantSet> gaVariantSets = GAVariantSetFactory.create(variantSources);
+        List<GAVariantSet> gaVariantSets = GAVariantSetFactory.create(
+                variantSources, source -> variantSetMetadataCache.getMetadata(databaseName, source));
         // Calculate the next page token
         String nextPageToken = Utils.getNextPageToken(pageRequest, limit, numTotalResults);
 
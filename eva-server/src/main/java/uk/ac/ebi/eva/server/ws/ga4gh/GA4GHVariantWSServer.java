@@ -19,6 +19,7 @@
 package uk.ac.ebi.eva.server.ws.ga4gh;
 
 import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,28 +38,37 @@ import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataNotFoundExceptio
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantRequest;
 import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsResponse;
-import uk.ac.ebi.eva.lib.models.ga4gh.GAVariant;
-import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantFactory;
+import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsStreamingResponse;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.lib.utils.CountMode;
+import uk.ac.ebi.eva.server.ContinuationToken;
+import uk.ac.ebi.eva.server.TotalResultsCounter;
 import uk.ac.ebi.eva.server.Utils;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 import uk.ac.ebi.eva.server.ws.EvaWSServer;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 @RestController
-@RequestMapping(value = "/v1/ga4gh/variants", produces = "application/json")
+@RequestMapping(value = "/v1/ga4gh/variants", produces = {"application/json",
+        JacksonConfiguration.APPLICATION_SMILE_VALUE, JacksonConfiguration.APPLICATION_CBOR_VALUE,
+        JacksonConfiguration.AVRO_BINARY_VALUE})
 @Api(tags = {"ga4gh", "variants"})
 public class GA4GHVariantWSServer extends EvaWSServer {
 
     @Autowired
     private VariantWithSamplesAndAnnotationsService service;
 
+    @Autowired
+    private TotalResultsCounter totalResultsCounter;
+
     protected static Logger logger = LoggerFactory.getLogger(GA4GHVariantWSServer.class);
 
     public GA4GHVariantWSServer() {
@@ -70,17 +80,26 @@ public class GA4GHVariantWSServer extends EvaWSServer {
      * @see http://ga4gh.org/documentation/api/v0.5/ga4gh_api.html#/schema/org.ga4gh.GASearchVariantsRequest
      */
     @RequestMapping(value = "/search", method = RequestMethod.GET)
-    public GASearchVariantsResponse getVariantsByRegion(@RequestParam("referenceName") String chromosome,
+    @ApiOperation(value = "Retrieves the variants in a region", response = GASearchVariantsResponse.class)
+    public GASearchVariantsStreamingResponse getVariantsByRegion(@RequestParam("referenceName") String chromosome,
                                                         @RequestParam("start") Long start,
                                                         @RequestParam("end") Long end,
 //                                        @RequestParam("variantName") String id,
                                                         @RequestParam(name = "variantSetIds", required = false) List<String> files,
 //                                        @RequestParam(name = "callSetIds", required = false) String samples,
                                                         @RequestParam(name = "pageToken", required = false) String pageToken,
-                                                        @RequestParam(name = "pageSize", defaultValue = "10") int limit)
+                                                        @RequestParam(name = "pageSize", defaultValue = "10") int limit,
+                                                        @RequestParam(name = "countMode", defaultValue = "none") String countModeName)
             throws UnknownHostException, IOException, AnnotationMetadataNotFoundException {
         initializeQuery();
 
+        CountMode countMode = CountMode.parse(countModeName);
+        ContinuationToken continuationToken = Utils.getContinuationToken(pageToken);
+        if (continuationToken != null) {
+            // the page number is unknown when continuing from a token, so the lookahead tells if there are more pages
+            countMode = CountMode.NONE;
+        }
+
         MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName("hsapiens_grch37"));
 
         if (files != null && !files.isEmpty()) {
@@ -88,34 +107,43 @@ public class GA4GHVariantWSServer extends EvaWSServer {
         }
         List<VariantRepositoryFilter> filters = new FilterBuilder().withFiles(files).build();
 
-        PageRequest pageRequest = Utils.getPageRequest(limit, pageToken);
+        PageRequest pageRequest = ContinuationToken.sorted(Utils.getPageRequest(limit, pageToken));
 
         Region region = new Region(chromosome, start, end);
         List<Region> regions = new ArrayList<>();
         regions.add(region);
 
-        List<VariantWithSamplesAndAnnotation> variantEntities = service.findByRegionsAndComplexFilters(regions, filters,
-                                                                                                       null, null,
-                                                                                                       pageRequest);
-        List<VariantWithSamplesAndAnnotation> variants = Collections.unmodifiableList(variantEntities);
+        PageRequest lookaheadPageRequest = Utils.getPageRequest(pageRequest, countMode);
+        List<VariantWithSamplesAndAnnotation> variantEntities;
+        if (continuationToken == null) {
+            variantEntities = service.findByRegionsAndComplexFilters(regions, filters, null, null,
+                                                                     lookaheadPageRequest);
+        } else {
+            variantEntities = continuationToken.findNext(regions, filters, lookaheadPageRequest.getPageSize(),
+                    (remainingRegions, filtersAfterToken, tokenPageRequest) -> service.findByRegionsAndComplexFilters(
+                            remainingRegions, filtersAfterToken, null, null, tokenPageRequest));
+        }
 
-        Long numTotalResults = service.countByRegionsAndComplexFilters(regions, filters);
+        Long numTotalResults = totalResultsCounter.count(countMode, pageRequest, variantEntities,
+                Arrays.asList("ga4gh", chromosome, start, end, files).toString(),
+                () -> service.countByRegionsAndComplexFilters(regions, filters));
+        List<VariantWithSamplesAndAnnotation> variants = Collections.unmodifiableList(
+                Utils.removeLookahead(variantEntities, pageRequest));
 
-        // Convert Variant objects to GAVariant
-        List<GAVariant> gaVariants = GAVariantFactory.create(variants);
         // Calculate the next page token
-        String nextPageToken = Utils.getNextPageToken(pageRequest, limit, numTotalResults);
+        String nextPageToken = Utils.getNextPageToken(pageRequest, limit, numTotalResults, variants);
 
-        // Create the custom response for the GA4GH API
-        return new GASearchVariantsResponse(gaVariants, nextPageToken);
+        // Create the custom response for the GA4GH API, the variants are converted to GAVariant while serialized
+        return new GASearchVariantsStreamingResponse(variants, nextPageToken);
     }
 
     @RequestMapping(value = "/search", method = RequestMethod.POST, consumes = "application/json")
-    public GASearchVariantsResponse getVariantsByRegion(GASearchVariantRequest request)
+    @ApiOperation(value = "Retrieves the variants in a region", response = GASearchVariantsResponse.class)
+    public GASearchVariantsStreamingResponse getVariantsByRegion(GASearchVariantRequest request)
             throws UnknownHostException, IOException, AnnotationMetadataNotFoundException {
         request.validate();
         return getVariantsByRegion(request.getReferenceName(), request.getStart(), request.getEnd(),
-                request.getVariantSetIds(), request.getPageToken(), request.getPageSize());
+                request.getVariantSetIds(), request.getPageToken(), request.getPageSize(), CountMode.NONE.name());
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
@@ -0,0 +1,171 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.server.ws.ga4gh.beaconv2;
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Cursor;
+import com.mongodb.DBObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import uk.ac.ebi.eva.commons.core.models.Region;
+import uk.ac.ebi.eva.commons.core.models.VariantType;
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Resolves which datasets contain the variants matching a beacon query, without loading the variants themselves.
+ * The variants collection of the database selected for the current thread is aggregated twice: once to get one
+ * document per dataset (study and file) with a matching variant, and once to get the highest minor allele frequency
+ * per dataset and alleles, from which the frequency of the queried allele is picked.
+ *
+ * Alleles are matched regardless of case, as in {@link uk.ac.ebi.eva.commons.mongodb.filter.FilterBuilder}.
+ */
+@Component
+public class BeaconDatasetAggregator {
+
+    private static final String CHROMOSOME_FIELD = "chr";
+
+    private static final String START_FIELD = "start";
+
+    private static final String END_FIELD = "end";
+
+    private static final String REFERENCE_FIELD = "ref";
+
+    private static final String ALTERNATE_FIELD = "alt";
+
+    private static final String TYPE_FIELD = "type";
+
+    private static final String FILES_FIELD = "files";
+
+    private static final String STATS_FIELD = "st";
+
+    private static final String STUDY_ID_FIELD = "sid";
+
+    private static final String FILE_ID_FIELD = "fid";
+
+    private static final String MAF_FIELD = "maf";
+
+    private static final String MAF_ALLELE_FIELD = "mafAl";
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DbCollectionsProperties dbCollectionsProperties;
+
+    /**
+     * @return the identifiers ("studyId_fileId") of the datasets with at least one matching variant, mapped to the
+     * minor allele frequency of the variant allele in that dataset, or null if no statistics were found for it. When
+     * several variants match in the same dataset, the highest frequency is reported.
+     */
+    public Map<String, Float> findDatasetFrequencies(Region startRange, Region endRange, String referenceBases,
+                                                     String alternateBases, VariantType type, List<String> studies) {
+        DBObject match = new BasicDBObject("$match", buildMatch(startRange, endRange, referenceBases, alternateBases,
+                                                                type, studies));
+
+        Map<String, Float> datasetFrequencies = new HashMap<>();
+        String sourceEntry = "$" + FILES_FIELD + ".";
+        aggregate(Arrays.asList(match,
+                                new BasicDBObject("$unwind", "$" + FILES_FIELD),
+                                new BasicDBObject("$group", new BasicDBObject(
+                                        "_id", new BasicDBObject(STUDY_ID_FIELD, sourceEntry + STUDY_ID_FIELD)
+                                                .append(FILE_ID_FIELD, sourceEntry + FILE_ID_FIELD)))),
+                  dataset -> datasetFrequencies.put(getDatasetId((DBObject) dataset.get("_id")), null));
+
+        String stats = "$" + STATS_FIELD + ".";
+        aggregate(Arrays.asList(match,
+                                new BasicDBObject("$unwind", "$" + STATS_FIELD),
+                                new BasicDBObject("$group", new BasicDBObject(
+                                        "_id", new BasicDBObject(STUDY_ID_FIELD, stats + STUDY_ID_FIELD)
+                                                .append(FILE_ID_FIELD, stats + FILE_ID_FIELD)
+                                                .append(REFERENCE_FIELD, "$" + REFERENCE_FIELD)
+                                                .append(ALTERNATE_FIELD, "$" + ALTERNATE_FIELD)
+                                                .append(MAF_ALLELE_FIELD, stats + MAF_ALLELE_FIELD))
+                                        .append(MAF_FIELD, new BasicDBObject("$max", stats + MAF_FIELD)))),
+                  alleleStats -> {
+                      DBObject id = (DBObject) alleleStats.get("_id");
+                      String datasetId = getDatasetId(id);
+                      Number frequency = (Number) alleleStats.get(MAF_FIELD);
+                      if (frequency == null || !datasetFrequencies.containsKey(datasetId)
+                              || !isVariantAllele(id.get(MAF_ALLELE_FIELD), id)) {
+                          return;
+                      }
+                      Float highestFrequency = datasetFrequencies.get(datasetId);
+                      if (highestFrequency == null || frequency.floatValue() > highestFrequency) {
+                          datasetFrequencies.put(datasetId, frequency.floatValue());
+                      }
+                  });
+        return datasetFrequencies;
+    }
+
+    private void aggregate(List<DBObject> pipeline, Consumer<DBObject> consumer) {
+        AggregationOptions options = AggregationOptions.builder()
+                                                       .outputMode(AggregationOptions.OutputMode.CURSOR)
+                                                       .allowDiskUse(true)
+                                                       .build();
+        try (Cursor cursor = mongoOperations.getCollection(dbCollectionsProperties.getVariants())
+                                            .aggregate(pipeline, options)) {
+            cursor.forEachRemaining(consumer);
+        }
+    }
+
+    private DBObject buildMatch(Region startRange, Region endRange, String referenceBases, String alternateBases,
+                                VariantType type, List<String> studies) {
+        BasicDBObject match = new BasicDBObject(CHROMOSOME_FIELD, startRange.getChromosome())
+                .append(START_FIELD, new BasicDBObject("$gte", startRange.getStart()).append("$lte",
+                                                                                            startRange.getEnd()))
+                .append(END_FIELD, new BasicDBObject("$gte", endRange.getStart()).append("$lte",
+                                                                                        endRange.getEnd()));
+        if (referenceBases != null) {
+            match.append(REFERENCE_FIELD, referenceBases.toUpperCase(Locale.ROOT));
+        }
+        if (alternateBases != null) {
+            match.append(ALTERNATE_FIELD, alternateBases.toUpperCase(Locale.ROOT));
+        }
+        if (type != null) {
+            match.append(TYPE_FIELD, type.toString());
+        }
+        if (studies != null && !studies.isEmpty()) {
+            match.append(FILES_FIELD + "." + STUDY_ID_FIELD, new BasicDBObject("$in", studies));
+        }
+        return match;
+    }
+
+    private static String getDatasetId(DBObject id) {
+        return id.get(STUDY_ID_FIELD) + "_" + id.get(FILE_ID_FIELD);
+    }
+
+    /**
+     * Whether the statistics of the given allele describe the variant, i.e. the allele is either of its alleles
+     */
+    private static boolean isVariantAllele(Object allele, DBObject variantAlleles) {
+        return allele != null && (allele.equals(variantAlleles.get(ALTERNATE_FIELD))
+                || allele.equals(variantAlleles.get(REFERENCE_FIELD)));
+    }
+}
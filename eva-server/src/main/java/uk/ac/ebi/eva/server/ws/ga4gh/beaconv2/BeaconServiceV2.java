@@ -31,22 +31,23 @@ import uk.ac.ebi.eva.commons.beacon.models.Chromosome;
 import uk.ac.ebi.eva.commons.core.models.Region;
 import uk.ac.ebi.eva.commons.core.models.VariantSource;
 import uk.ac.ebi.eva.commons.core.models.VariantType;
-import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
 import uk.ac.ebi.eva.commons.mongodb.filter.FilterBuilder;
 import uk.ac.ebi.eva.commons.mongodb.filter.VariantRepositoryFilter;
-import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.eva_utils.DBAdaptorConnector;
 import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+import uk.ac.ebi.eva.server.ReferenceDataCache;
+import uk.ac.ebi.eva.server.VariantExistenceIndex;
 
 import javax.servlet.http.HttpServletResponse;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Locale;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 
 import static uk.ac.ebi.eva.commons.beacon.models.BeaconAlleleRequest.IncludeDatasetResponsesEnum;
 
@@ -57,7 +58,13 @@ public class BeaconServiceV2 {
     private VariantWithSamplesAndAnnotationsService service;
 
     @Autowired
-    private VariantSourceService variantSourceService;
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private BeaconDatasetAggregator beaconDatasetAggregator;
+
+    @Autowired
+    private VariantExistenceIndex existenceIndex;
 
     public BeaconServiceV2() {
     }
@@ -77,9 +84,9 @@ public class BeaconServiceV2 {
 
     private List<BeaconDataset> getBeaconDatasetsPerDatabase(String species, String assemblyId) {
         List<BeaconDataset> beaconDatasets = new ArrayList<>();
-        MultiMongoDbFactory.setDatabaseNameForCurrentThread(DBAdaptorConnector.getDBName(species + "_" +
-                assemblyId.toLowerCase()));
-        List<VariantSource> variantSources = variantSourceService.findAllVariantSourcesForBeacon();
+        String databaseName = DBAdaptorConnector.getDBName(species + "_" + assemblyId.toLowerCase());
+        MultiMongoDbFactory.setDatabaseNameForCurrentThread(databaseName);
+        List<VariantSource> variantSources = referenceDataCache.getBeaconVariantSources(databaseName);
         variantSources.forEach(
                 variantSource -> beaconDatasets.add(
                         new BeaconDataset().id(variantSource.getStudyId())
@@ -105,6 +112,9 @@ public class BeaconServiceV2 {
             return buildBeaconAlleleResponse(null, null, null, e.getMessage());
         }
 
+        // selected by checkParameters from the assembly of the request
+        String databaseName = MultiMongoDbFactory.getDatabaseNameForCurrentThread();
+
         BeaconAlleleRequest request = buildBeaconAlleleRequest(chromosome, start, startMin, startMax, end, endMin,
                 endMax, referenceBases, alternateBases, variantType, assemblyId, studies, includeDatasetResponses);
 
@@ -117,28 +127,25 @@ public class BeaconServiceV2 {
         List<VariantRepositoryFilter> filters = new FilterBuilder().getBeaconFilters(referenceBases, alternateBases,
                 type, studies);
 
-        Integer pageSize = service.countByRegionAndOtherBeaconFilters(startRange, endRange, filters).intValue();
-        List<VariantMongo> variantMongoList;
+        boolean mightExist = start == null || existenceIndex.mightContain(databaseName, chromosome, start,
+                alternateBases == null ? null : referenceBases.toUpperCase(Locale.ROOT),
+                alternateBases == null ? null : alternateBases.toUpperCase(Locale.ROOT), studies);
 
-        if (pageSize > 0) {
-            if (includeDatasetResponses == null || IncludeDatasetResponsesEnum.valueOf(includeDatasetResponses) ==
-                    IncludeDatasetResponsesEnum.NONE) {
-                return buildBeaconAlleleResponse(true, request, null, null);
+        if (includeDatasetResponses == null || IncludeDatasetResponsesEnum.valueOf(includeDatasetResponses) ==
+                IncludeDatasetResponsesEnum.NONE) {
+            if (!mightExist) {
+                return buildBeaconAlleleResponse(false, request, null, null);
             }
-            variantMongoList = service.findByRegionAndOtherBeaconFilters(startRange, endRange, filters,
-                    new PageRequest(0, pageSize));
-        } else {
-            variantMongoList = Collections.emptyList();
-        }
-
-        if (variantMongoList.size() > 0) {
-            return buildBeaconAlleleResponse(true, request, buildDatasetAlleleResponses(variantMongoList,
-                    request), null);
-        } else {
-            return buildBeaconAlleleResponse(false, request, buildDatasetAlleleResponses(variantMongoList,
-                    request), null);
+            boolean exists = !service.findByRegionAndOtherBeaconFilters(startRange, endRange, filters,
+                    new PageRequest(0, 1)).isEmpty();
+            return buildBeaconAlleleResponse(exists, request, null, null);
         }
 
+        Map<String, Float> datasetFrequencies = !mightExist ? Collections.emptyMap() :
+                beaconDatasetAggregator.findDatasetFrequencies(startRange, endRange, referenceBases, alternateBases,
+                        type, studies);
+        return buildBeaconAlleleResponse(!datasetFrequencies.isEmpty(), request,
+                buildDatasetAlleleResponses(datasetFrequencies, request, databaseName), null);
     }
 
     private void checkParameters(String chromosome, String referenceBases, Long start, Long end,
@@ -252,8 +259,9 @@ public class BeaconServiceV2 {
                         .valueOf(includeDatasetResponses));
     }
 
-    private List<BeaconDatasetAlleleResponse> buildDatasetAlleleResponses(List<VariantMongo> variantMongoList,
-                                                                          BeaconAlleleRequest request) {
+    private List<BeaconDatasetAlleleResponse> buildDatasetAlleleResponses(Map<String, Float> datasetFrequencies,
+                                                                          BeaconAlleleRequest request,
+                                                                          String databaseName) {
         List<BeaconDatasetAlleleResponse> datasetAllelResponses = new ArrayList<BeaconDatasetAlleleResponse>();
 
         if (request.getIncludeDatasetResponses() == null ||
@@ -261,23 +269,7 @@ public class BeaconServiceV2 {
             return null;
         }
 
-        List<VariantSource> variantSourceList = variantSourceService.findAllVariantSourcesForBeacon();
-
-        HashSet<String> datasetIdsPresent = new HashSet<>();
-        HashMap<String, Float> datasetIdToFrequencyMapper = new HashMap<>();
-
-        variantMongoList.forEach(variantMongo -> {
-            variantMongo.getSourceEntries().forEach(variantSourceEntryMongo -> {
-                datasetIdsPresent.add(variantSourceEntryMongo.getStudyId() + "_" + variantSourceEntryMongo.getFileId());
-            });
-            variantMongo.getVariantStatsMongo().forEach(variantStatisticsMongo -> {
-                if (variantMongo.getAlternate().equalsIgnoreCase(variantStatisticsMongo.getMafAllele()) ||
-                        variantMongo.getReference().equalsIgnoreCase(variantStatisticsMongo.getMafAllele())) {
-                    datasetIdToFrequencyMapper.put(variantStatisticsMongo.getStudyId() + "_" + variantStatisticsMongo
-                            .getFileId(), variantStatisticsMongo.getMaf());
-                }
-            });
-        });
+        List<VariantSource> variantSourceList = referenceDataCache.getBeaconVariantSources(databaseName);
 
         HashMap<String, VariantSource> allDatasetIds = new HashMap<>();
         variantSourceList.forEach(variantSource -> {
@@ -285,14 +277,13 @@ public class BeaconServiceV2 {
         });
 
         allDatasetIds.forEach((datasetId, variantSource) -> {
-            if (datasetIdsPresent.contains(datasetId)) {
+            if (datasetFrequencies.containsKey(datasetId)) {
                 if (request.getIncludeDatasetResponses().equals(BeaconAlleleRequest.IncludeDatasetResponsesEnum.ALL) ||
                         request.getIncludeDatasetResponses().equals(BeaconAlleleRequest
                                 .IncludeDatasetResponsesEnum.HIT)) {
                     datasetAllelResponses.add(buildDatasetAlleleResponseHelper(true,
                             variantSource,
-                            datasetIdToFrequencyMapper.get(variantSource.getStudyId()) == null ?
-                                    null : new Float(datasetIdToFrequencyMapper.get(variantSource.getStudyId()))));
+                            datasetFrequencies.get(datasetId)));
                 }
             } else {
                 if (request.getIncludeDatasetResponses().equals(BeaconAlleleRequest.IncludeDatasetResponsesEnum.ALL) ||
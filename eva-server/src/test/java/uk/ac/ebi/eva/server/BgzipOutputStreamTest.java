@@ -0,0 +1,91 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BgzipOutputStreamTest {
+
+    @Test
+    public void compressedDataCanBeReadAsGzip() throws IOException {
+        byte[] data = new byte[200000];
+        new Random(42).nextBytes(data);
+        for (int i = 0; i < data.length; i += 2) {
+            data[i] = 'A';
+        }
+
+        byte[] compressed = compress(data);
+
+        assertArrayEquals(data, decompress(compressed));
+    }
+
+    @Test
+    public void blocksHaveBgzfHeaderAndFileEndsWithEmptyBlock() throws IOException {
+        byte[] compressed = compress("1\t100\t.\tA\tT\t.\t.\t.\n".getBytes());
+
+        assertEquals(0x1f, compressed[0] & 0xff);
+        assertEquals(0x8b, compressed[1] & 0xff);
+        assertEquals('B', compressed[12]);
+        assertEquals('C', compressed[13]);
+        int firstBlockSize = (compressed[16] & 0xff) + ((compressed[17] & 0xff) << 8) + 1;
+        assertEquals(compressed.length - 28, firstBlockSize);
+        assertEquals(0x1b, compressed[firstBlockSize + 16]);
+    }
+
+    @Test
+    public void emptyInputOnlyContainsEmptyBlock() throws IOException {
+        byte[] compressed = compress(new byte[0]);
+
+        assertEquals(28, compressed.length);
+        assertEquals(0, decompress(compressed).length);
+    }
+
+    private byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (BgzipOutputStream bgzip = new BgzipOutputStream(output)) {
+            // write in uneven chunks to cross block boundaries
+            for (int offset = 0; offset < data.length; offset += 7777) {
+                bgzip.write(Arrays.copyOfRange(data, offset, Math.min(offset + 7777, data.length)));
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private byte[] decompress(byte[] compressed) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+        }
+        return output.toByteArray();
+    }
+}
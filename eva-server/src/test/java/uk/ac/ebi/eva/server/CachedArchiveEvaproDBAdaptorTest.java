@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import uk.ac.ebi.eva.lib.metadata.eva.ArchiveEvaproDBAdaptor;
+import uk.ac.ebi.eva.lib.utils.QueryOptions;
+import uk.ac.ebi.eva.lib.utils.QueryResult;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CachedArchiveEvaproDBAdaptorTest {
+
+    private ArchiveEvaproDBAdaptor archiveEvaproDBAdaptor;
+
+    private CachedArchiveEvaproDBAdaptor cachedArchiveEvaproDBAdaptor;
+
+    @Before
+    public void setUp() {
+        archiveEvaproDBAdaptor = mock(ArchiveEvaproDBAdaptor.class);
+        cachedArchiveEvaproDBAdaptor = new CachedArchiveEvaproDBAdaptor(archiveEvaproDBAdaptor);
+
+        given(archiveEvaproDBAdaptor.countFiles()).willReturn(countResult(5L));
+        given(archiveEvaproDBAdaptor.countSpecies()).willReturn(countResult(3L));
+    }
+
+    @After
+    public void tearDown() {
+        cachedArchiveEvaproDBAdaptor.shutdown();
+    }
+
+    private static QueryResult<Long> countResult(long count) {
+        return new QueryResult<>(null, 0, 1, 1, null, null, Collections.singletonList(count));
+    }
+
+    @Test
+    public void queriesEvaproOncePerResult() {
+        assertEquals(5L, cachedArchiveEvaproDBAdaptor.countFiles().getResult().get(0));
+        assertEquals(5L, cachedArchiveEvaproDBAdaptor.countFiles().getResult().get(0));
+        assertEquals(3L, cachedArchiveEvaproDBAdaptor.countSpecies().getResult().get(0));
+
+        verify(archiveEvaproDBAdaptor, times(1)).countFiles();
+        verify(archiveEvaproDBAdaptor, times(1)).countSpecies();
+    }
+
+    @Test
+    public void filteredCountsAreNotCached() {
+        QueryResult perSpecies = countResult(2L);
+        given(archiveEvaproDBAdaptor.countStudiesPerSpecies(any())).willReturn(perSpecies);
+
+        assertSame(perSpecies, cachedArchiveEvaproDBAdaptor.countStudiesPerSpecies(new QueryOptions()));
+        assertSame(perSpecies, cachedArchiveEvaproDBAdaptor.countStudiesPerSpecies(new QueryOptions()));
+        verify(archiveEvaproDBAdaptor, times(2)).countStudiesPerSpecies(any());
+    }
+
+    @Test
+    public void refreshServesPreviousResultsUntilReloaded() throws Exception {
+        cachedArchiveEvaproDBAdaptor.countFiles();
+        cachedArchiveEvaproDBAdaptor.countSpecies();
+        CountDownLatch evaproResponding = new CountDownLatch(1);
+        given(archiveEvaproDBAdaptor.countFiles()).willAnswer(invocation -> {
+            evaproResponding.await();
+            return countResult(6L);
+        });
+
+        assertEquals(2L, cachedArchiveEvaproDBAdaptor.refresh());
+        assertEquals(5L, cachedArchiveEvaproDBAdaptor.countFiles().getResult().get(0));
+
+        evaproResponding.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!Long.valueOf(6L).equals(cachedArchiveEvaproDBAdaptor.countFiles().getResult().get(0))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(6L, cachedArchiveEvaproDBAdaptor.countFiles().getResult().get(0));
+    }
+
+    @Test
+    public void reportsHitsAndMisses() {
+        cachedArchiveEvaproDBAdaptor.countFiles();
+        cachedArchiveEvaproDBAdaptor.countFiles();
+        cachedArchiveEvaproDBAdaptor.countFiles();
+
+        Map<String, Number> metrics = cachedArchiveEvaproDBAdaptor.metrics().stream()
+                                                                  .collect(Collectors.toMap(Metric::getName,
+                                                                                            Metric::getValue));
+        assertEquals(2L, metrics.get("cache.archive.hit"));
+        assertEquals(1L, metrics.get("cache.archive.miss"));
+        assertEquals(1L, metrics.get("cache.archive.size"));
+        assertEquals(0L, metrics.get("cache.archive.refresh.count"));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import uk.ac.ebi.eva.commons.core.models.Region;
+import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
+import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
+import uk.ac.ebi.eva.commons.mongodb.filter.VariantRepositoryFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ContinuationTokenTest {
+
+    private static final List<VariantWithSamplesAndAnnotation> VARIANTS = Arrays.asList(
+            new VariantWithSamplesAndAnnotation("1", 100, 300, "A", "T", null),
+            new VariantWithSamplesAndAnnotation("1", 200, 200, "C", "A", null),
+            new VariantWithSamplesAndAnnotation("1", 200, 200, "C", "G", null),
+            new VariantWithSamplesAndAnnotation("1", 200, 200, "C", "T", null),
+            new VariantWithSamplesAndAnnotation("1", 250, 250, "G", "A", null),
+            new VariantWithSamplesAndAnnotation("2", 50, 50, "T", "C", null));
+
+    @Test
+    public void encodeAndParse() {
+        ContinuationToken token = new ContinuationToken("X", 100470026, "X_100470026_G_");
+        ContinuationToken parsed = ContinuationToken.parse(token.encode());
+
+        assertEquals("X", parsed.getChromosome());
+        assertEquals(100470026, parsed.getStart());
+        assertEquals("X_100470026_G_", parsed.getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalidToken() {
+        ContinuationToken.parse("not a token");
+    }
+
+    @Test
+    public void numericPageTokensAreNotContinuationTokens() {
+        assertNull(Utils.getContinuationToken("3"));
+        assertNull(Utils.getContinuationToken(""));
+        assertNull(Utils.getContinuationToken(null));
+    }
+
+    @Test
+    public void fromPageKeepsIdOfLastVariant() {
+        ContinuationToken token = ContinuationToken.fromPage(VARIANTS.subList(0, 3));
+        assertEquals("1", token.getChromosome());
+        assertEquals(200, token.getStart());
+        assertEquals(VariantMongo.buildVariantId("1", 200, "C", "G"), token.getId());
+    }
+
+    @Test
+    public void criteriaMatchFollowingVariants() {
+        ContinuationToken token = new ContinuationToken("1", 200, "1_200_C_G");
+        DBObject following = new BasicDBObject("$or", Arrays.asList(
+                new BasicDBObject("chr", new BasicDBObject("$ne", "1")),
+                new BasicDBObject("start", new BasicDBObject("$gt", 200L)),
+                new BasicDBObject("start", 200L).append("_id", new BasicDBObject("$gt", "1_200_C_G"))));
+
+        assertEquals(new BasicDBObject("$and", Collections.singletonList(following)),
+                     token.getCriteria().getCriteriaObject());
+    }
+
+    @Test
+    public void nextPageIsRetrievedWithOneQuery() throws Exception {
+        ContinuationToken token = ContinuationToken.fromPage(VARIANTS.subList(0, 3));
+        List<Region> regions = Collections.singletonList(new Region("1", 1L, 1000L));
+        List<PageRequest> pageRequests = new ArrayList<>();
+
+        List<VariantWithSamplesAndAnnotation> page = token.findNext(regions, Collections.emptyList(), 10,
+                (remainingRegions, filters, pageRequest) -> {
+                    pageRequests.add(pageRequest);
+                    return findSortedVariants(remainingRegions, filters, pageRequest);
+                });
+
+        assertEquals(VARIANTS.subList(3, 5), page);
+        assertEquals(1, pageRequests.size());
+        assertEquals(0, pageRequests.get(0).getOffset());
+        assertEquals(ContinuationToken.sorted(new PageRequest(0, 10)).getSort(), pageRequests.get(0).getSort());
+    }
+
+    @Test
+    public void remainingRegionsStartAtTokenPosition() {
+        ContinuationToken token = new ContinuationToken("2", 500, "2_500_A_T");
+        List<Region> regions = Arrays.asList(new Region("1", 1L, 1000L), new Region("2", 1L, 400L),
+                                             new Region("2", 450L, 1000L), new Region("3", 1L, 1000L));
+
+        assertEquals(Arrays.asList(new Region("2", 500L, 1000L), new Region("3", 1L, 1000L)),
+                     token.getRemainingRegions(regions));
+    }
+
+    @Test
+    public void noQueryAfterTheLastRegion() throws Exception {
+        ContinuationToken token = new ContinuationToken("2", 500, "2_500_A_T");
+        List<Region> regions = Collections.singletonList(new Region("1", 1L, 1000L));
+
+        assertTrue(token.findNext(regions, Collections.emptyList(), 10, (remainingRegions, filters, pageRequest) -> {
+            throw new AssertionError("No query expected");
+        }).isEmpty());
+    }
+
+    @Test
+    public void pagesFromTokensMatchOffsetPages() throws Exception {
+        List<Region> regions = Arrays.asList(new Region("1", 1L, 1000L), new Region("2", 1L, 1000L));
+        List<VariantWithSamplesAndAnnotation> retrieved = new ArrayList<>();
+
+        List<VariantWithSamplesAndAnnotation> page = findSortedVariants(regions, Collections.emptyList(),
+                                                                        new PageRequest(0, 2));
+        while (!page.isEmpty()) {
+            retrieved.addAll(page);
+            page = ContinuationToken.fromPage(page).findNext(regions, Collections.emptyList(), 2,
+                                                            this::findSortedVariants);
+        }
+
+        assertEquals(sortedByKey(VARIANTS), retrieved);
+    }
+
+    /**
+     * Mimics a region query, which returns the variants overlapping any region sorted by chromosome, start and _id,
+     * and applies the range predicate of the continuation token if present
+     */
+    private List<VariantWithSamplesAndAnnotation> findSortedVariants(List<Region> regions,
+                                                                     List<VariantRepositoryFilter> filters,
+                                                                     PageRequest pageRequest) {
+        List<VariantWithSamplesAndAnnotation> matching = sortedByKey(VARIANTS).stream()
+                .filter(variant -> regions.stream().anyMatch(region -> overlaps(region, variant)))
+                .filter(variant -> filters.stream().allMatch(filter -> follows(filter, variant)))
+                .collect(Collectors.toList());
+        int from = Math.min(pageRequest.getOffset(), matching.size());
+        int to = Math.min(from + pageRequest.getPageSize(), matching.size());
+        return matching.subList(from, to);
+    }
+
+    private static List<VariantWithSamplesAndAnnotation> sortedByKey(List<VariantWithSamplesAndAnnotation> variants) {
+        return variants.stream()
+                       .sorted(Comparator.comparing(VariantWithSamplesAndAnnotation::getChromosome)
+                                         .thenComparing(VariantWithSamplesAndAnnotation::getStart)
+                                         .thenComparing(ContinuationTokenTest::getId))
+                       .collect(Collectors.toList());
+    }
+
+    private static boolean follows(VariantRepositoryFilter filter, VariantWithSamplesAndAnnotation variant) {
+        if (!(filter instanceof ContinuationToken.FollowingVariantsFilter)) {
+            return true;
+        }
+        ContinuationToken token = ((ContinuationToken.FollowingVariantsFilter) filter).getToken();
+        return !variant.getChromosome().equals(token.getChromosome()) || variant.getStart() > token.getStart()
+                || (variant.getStart() == token.getStart() && getId(variant).compareTo(token.getId()) > 0);
+    }
+
+    private static String getId(VariantWithSamplesAndAnnotation variant) {
+        return VariantMongo.buildVariantId(variant.getChromosome(), variant.getStart(), variant.getReference(),
+                                           variant.getAlternate());
+    }
+
+    private static boolean overlaps(Region region, VariantWithSamplesAndAnnotation variant) {
+        return region.getChromosome().equals(variant.getChromosome())
+                && (region.getEnd() == null || variant.getStart() <= region.getEnd())
+                && (region.getStart() == null || variant.getEnd() >= region.getStart());
+    }
+}
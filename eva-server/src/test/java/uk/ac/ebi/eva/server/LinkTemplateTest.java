@@ -0,0 +1,120 @@
+/*
+ * European Variation Archive (EVA) - Open-access database of all types of genetic
+ * variation data from all species
+ *
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import uk.ac.ebi.eva.server.ws.RegionWSServerV2;
+import uk.ac.ebi.eva.server.ws.VariantWSServerV2;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+public class LinkTemplateTest {
+
+    private static final String VARIANT_CORE_STRING = "X:1000:A:T";
+
+    private MockHttpServletRequest request;
+
+    @Before
+    public void setUp() {
+        request = new MockHttpServletRequest();
+        request.setScheme("https");
+        request.setServerName("www.ebi.ac.uk");
+        request.setServerPort(443);
+        request.setContextPath("/eva/webservices/rest");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void linkWithoutOptionalParameters() {
+        assertEquals(linkTo(methodOn(VariantWSServerV2.class).getAnnotations(VARIANT_CORE_STRING, "hsapiens",
+                                                                                 "grch37", null, null, null))
+                             .toUri().toString(),
+                     LinkTemplate.of(VariantWSServerV2.class, "getAnnotations")
+                                 .expand(VARIANT_CORE_STRING, "hsapiens", "grch37", null, null));
+    }
+
+    @Test
+    public void linkWithOptionalParameters() {
+        assertEquals(linkTo(methodOn(VariantWSServerV2.class).getSources(VARIANT_CORE_STRING, "hsapiens", "grch37",
+                                                                             "78", "78", null))
+                             .toUri().toString(),
+                     LinkTemplate.of(VariantWSServerV2.class, "getSources")
+                                 .expand(VARIANT_CORE_STRING, "hsapiens", "grch37", "78", "78"));
+    }
+
+    @Test
+    public void linkWithoutRequestParametersAfterPathVariable() {
+        assertEquals(linkTo(methodOn(VariantWSServerV2.class).getCoreInfo(VARIANT_CORE_STRING, "mmusculus",
+                                                                              "grcm38", null))
+                             .toUri().toString(),
+                     LinkTemplate.of(VariantWSServerV2.class, "getCoreInfo")
+                                 .expand(VARIANT_CORE_STRING, "mmusculus", "grcm38"));
+    }
+
+    @Test
+    public void linkWithCollectionAndNumericParameters() {
+        assertEquals(linkTo(methodOn(RegionWSServerV2.class).getVariantsByRegion(
+                "1:1000-2000,2:3000-4000", "hsapiens", "grch37", Arrays.asList("PRJEB1", "PRJEB2"),
+                Arrays.asList("SO:0001583"), null, null, null, null, null, 2, 20, "AbC-_d", "none", null, null))
+                             .toUri().toString(),
+                     LinkTemplate.of(RegionWSServerV2.class, "getVariantsByRegion").expand(
+                             "1:1000-2000,2:3000-4000", "hsapiens", "grch37", Arrays.asList("PRJEB1", "PRJEB2"),
+                             Arrays.asList("SO:0001583"), null, null, null, null, null, 2, 20, "AbC-_d", "none"));
+    }
+
+    @Test
+    public void linkBehindProxy() {
+        request.addHeader("X-Forwarded-Host", "wwwdev.ebi.ac.uk");
+        request.addHeader("X-Forwarded-Proto", "http");
+
+        assertEquals(linkTo(methodOn(VariantWSServerV2.class).getAnnotations(VARIANT_CORE_STRING, "hsapiens",
+                                                                                 "grch37", null, null, null))
+                             .toUri().toString(),
+                     LinkTemplate.of(VariantWSServerV2.class, "getAnnotations")
+                                 .expand(VARIANT_CORE_STRING, "hsapiens", "grch37", null, null));
+    }
+
+    @Test
+    public void baseUriIsReusedWithinRequest() {
+        LinkTemplate template = LinkTemplate.of(VariantWSServerV2.class, "getCoreInfo");
+        String first = template.expand(VARIANT_CORE_STRING, "hsapiens", "grch37");
+        request.setServerName("ignored.ebi.ac.uk");
+
+        assertEquals(first, template.expand(VARIANT_CORE_STRING, "hsapiens", "grch37"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongNumberOfValues() {
+        LinkTemplate.of(VariantWSServerV2.class, "getCoreInfo").expand(VARIANT_CORE_STRING, "hsapiens");
+    }
+}
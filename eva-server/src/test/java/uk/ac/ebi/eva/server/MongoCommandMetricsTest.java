@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class MongoCommandMetricsTest {
+
+    private static final String DATABASE = "eva_hsapiens_grch37";
+
+    private ConnectionDescription connection;
+
+    private MongoCommandMetrics metrics;
+
+    @Before
+    public void setUp() {
+        connection = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+        metrics = new MongoCommandMetrics(0);
+    }
+
+    @Test
+    public void latencyAndDocumentsAreRecordedPerDatabaseCollectionAndCommand() {
+        BsonDocument find = BsonDocument.parse("{find: 'variants', filter: {chr: '1', start: {$lte: 200}}}");
+        BsonDocument reply = new RawBsonDocument(
+                BsonDocument.parse("{cursor: {id: 0, ns: 'db.variants', firstBatch: [{}, {}, {}]}, ok: 1}"),
+                new BsonDocumentCodec());
+        for (int requestId = 1; requestId <= 3; requestId++) {
+            metrics.commandStarted(new CommandStartedEvent(requestId, connection, DATABASE, "find", find));
+            metrics.commandSucceeded(new CommandSucceededEvent(requestId, connection, "find", reply,
+                                                               TimeUnit.MILLISECONDS.toNanos(10 * requestId)));
+        }
+
+        Map<String, Number> values = getMetrics();
+        String prefix = "mongo.command." + DATABASE + ".variants.find.none.";
+        assertEquals(3L, values.get(prefix + "count"));
+        assertEquals(0L, values.get(prefix + "failures"));
+        assertEquals(20.0, values.get(prefix + "latency.p50.ms").doubleValue(), 0.5);
+        assertEquals(30.0, values.get(prefix + "latency.max.ms").doubleValue(), 0.5);
+        assertEquals(3L, values.get(prefix + "documents.max"));
+        assertFalse(values.get(prefix + "reply-bytes").longValue() == 0);
+    }
+
+    @Test
+    public void failuresAreCounted() {
+        BsonDocument count = BsonDocument.parse("{count: 'files', query: {sid: 'PRJEB1'}}");
+        metrics.commandStarted(new CommandStartedEvent(1, connection, DATABASE, "count", count));
+        metrics.commandFailed(new CommandFailedEvent(1, connection, "count", 1000, new RuntimeException("timeout")));
+
+        Map<String, Number> values = getMetrics();
+        assertEquals(1L, values.get("mongo.command." + DATABASE + ".files.count.none.failures"));
+    }
+
+    @Test
+    public void documentsReturned() {
+        assertEquals(2, MongoCommandMetrics.countDocuments(
+                BsonDocument.parse("{cursor: {id: 5, nextBatch: [{}, {}]}, ok: 1}")));
+        assertEquals(42, MongoCommandMetrics.countDocuments(BsonDocument.parse("{n: 42, ok: 1}")));
+        assertEquals(3, MongoCommandMetrics.countDocuments(BsonDocument.parse("{values: ['a', 'b', 'c'], ok: 1}")));
+        assertEquals(0, MongoCommandMetrics.countDocuments(BsonDocument.parse("{ok: 1}")));
+    }
+
+    @Test
+    public void replySizeIsOnlyTakenFromRawReplies() {
+        BsonDocument reply = BsonDocument.parse("{n: 42, ok: 1}");
+        RawBsonDocument rawReply = new RawBsonDocument(reply, new BsonDocumentCodec());
+
+        assertEquals(rawReply.getByteBuffer().remaining(), MongoCommandMetrics.getSize(rawReply));
+        assertEquals(0, MongoCommandMetrics.getSize(reply));
+    }
+
+    @Test
+    public void shapeHidesValues() {
+        BsonDocument find = BsonDocument.parse(
+                "{find: 'variants', filter: {chr: '1', ids: {$in: ['rs1', 'rs2']}}, limit: 10}");
+
+        assertEquals(BsonDocument.parse("{find: '?', filter: {chr: '?', ids: {$in: ['?']}}, limit: '?'}"),
+                     MongoCommandMetrics.getShape(find));
+        assertEquals(new BsonArray(), MongoCommandMetrics.getShape(new BsonArray()));
+        assertEquals("variants", MongoCommandMetrics.getCollection(find));
+        assertEquals(MongoCommandMetrics.NONE,
+                     MongoCommandMetrics.getCollection(new BsonDocument("ping", new BsonInt32(1))));
+    }
+
+    private Map<String, Number> getMetrics() {
+        Map<String, Number> values = new HashMap<>();
+        for (Metric<?> metric : metrics.metrics()) {
+            values.put(metric.getName(), metric.getValue());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import uk.ac.ebi.eva.commons.core.models.AnnotationMetadata;
+import uk.ac.ebi.eva.commons.mongodb.services.AnnotationMetadataService;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+import uk.ac.ebi.eva.lib.eva_utils.MultiMongoDbFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ReferenceDataCacheTest {
+
+    private AnnotationMetadataService annotationMetadataService;
+
+    private VariantWithSamplesAndAnnotationsService variantService;
+
+    private ReferenceDataCache referenceDataCache;
+
+    @Before
+    public void setUp() {
+        annotationMetadataService = mock(AnnotationMetadataService.class);
+        variantService = mock(VariantWithSamplesAndAnnotationsService.class);
+        referenceDataCache = new ReferenceDataCache(mock(MongoOperations.class), new DbCollectionsProperties(),
+                                                    annotationMetadataService, variantService,
+                                                    mock(VariantSourceService.class));
+
+        given(annotationMetadataService.findAllByOrderByCacheVersionDescVepVersionDesc())
+                .willReturn(Arrays.asList(new AnnotationMetadata("75", "75"), new AnnotationMetadata("74", "74")));
+    }
+
+    @After
+    public void tearDown() {
+        referenceDataCache.shutdown();
+        MultiMongoDbFactory.clearDatabaseNameForCurrentThread();
+    }
+
+    @Test
+    public void loadsOncePerDatabase() {
+        assertEquals(2, referenceDataCache.getAnnotationMetadata("eva_hsapiens_grch37").size());
+        assertEquals(2, referenceDataCache.getAnnotationMetadata("eva_hsapiens_grch37").size());
+        assertEquals(2, referenceDataCache.getAnnotationMetadata("eva_mmusculus_grcm38").size());
+        verify(annotationMetadataService, times(2)).findAllByOrderByCacheVersionDescVepVersionDesc();
+
+        referenceDataCache.getChromosomes("eva_hsapiens_grch37");
+        referenceDataCache.getChromosomes("eva_hsapiens_grch37");
+        verify(variantService, times(1)).findDistinctChromosomes();
+    }
+
+    @Test
+    public void reportsHitsAndMisses() {
+        referenceDataCache.getAnnotationMetadata("eva_hsapiens_grch37");
+        referenceDataCache.getAnnotationMetadata("eva_hsapiens_grch37");
+        referenceDataCache.getAnnotationMetadata("eva_hsapiens_grch37");
+
+        Map<String, Number> metrics = referenceDataCache.metrics().stream()
+                                                        .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+        assertEquals(2L, metrics.get("cache.reference-data.annotation-metadata.hit"));
+        assertEquals(1L, metrics.get("cache.reference-data.annotation-metadata.miss"));
+        assertEquals(1L, metrics.get("cache.reference-data.annotation-metadata.size"));
+        assertEquals(0L, metrics.get("cache.reference-data.chromosomes.miss"));
+    }
+}
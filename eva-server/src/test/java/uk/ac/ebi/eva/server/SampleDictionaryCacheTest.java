@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.core.models.Aggregation;
+import uk.ac.ebi.eva.commons.core.models.StudyType;
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SampleDictionaryCacheTest {
+
+    private static final String DATABASE = "eva_hsapiens_grch37";
+
+    private VariantSourceService variantSourceService;
+
+    private SampleDictionaryCache cache;
+
+    @Before
+    public void setUp() {
+        variantSourceService = mock(VariantSourceService.class);
+        cache = new SampleDictionaryCache(variantSourceService);
+
+        Map<String, Integer> samplesPosition = new HashMap<>();
+        samplesPosition.put("NA002", 1);
+        samplesPosition.put("NA001", 0);
+        given(variantSourceService.findByFileIdIn(eq(Collections.singletonList("withSamples")), any()))
+                .willReturn(Collections.singletonList(createVariantSource("withSamples", samplesPosition)));
+        given(variantSourceService.findByFileIdIn(eq(Collections.singletonList("sitesOnly")), any()))
+                .willReturn(Collections.singletonList(createVariantSource("sitesOnly", Collections.emptyMap())));
+        given(variantSourceService.findByFileIdIn(eq(Collections.singletonList("missing")), any()))
+                .willReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void samplesAreOrderedByPositionAndCached() {
+        assertArrayEquals(new String[]{"NA001", "NA002"}, cache.getSampleNames(DATABASE, "withSamples"));
+        assertArrayEquals(new String[]{"NA001", "NA002"}, cache.getSampleNames(DATABASE, "withSamples"));
+        verify(variantSourceService, times(1)).findByFileIdIn(eq(Collections.singletonList("withSamples")), any());
+    }
+
+    @Test
+    public void filesWithoutSamplesAreCached() {
+        assertEquals(0, cache.getSampleNames(DATABASE, "sitesOnly").length);
+        assertEquals(0, cache.getSampleNames(DATABASE, "sitesOnly").length);
+        verify(variantSourceService, times(1)).findByFileIdIn(eq(Collections.singletonList("sitesOnly")), any());
+    }
+
+    @Test
+    public void missingFilesAreNotCached() {
+        assertEquals(0, cache.getSampleNames(DATABASE, "missing").length);
+        assertEquals(0, cache.getSampleNames(DATABASE, "missing").length);
+        verify(variantSourceService, times(2)).findByFileIdIn(eq(Collections.singletonList("missing")), any());
+    }
+
+    private static VariantSource createVariantSource(String fileId, Map<String, Integer> samplesPosition) {
+        return new VariantSource(fileId, "fileName", "studyId", "studyName", StudyType.CASE, Aggregation.NONE, null,
+                                 samplesPosition, Collections.emptyMap(), null);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+
+import uk.ac.ebi.eva.lib.utils.CountMode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+
+public class TotalResultsCounterTest {
+
+    private static final PageRequest SECOND_PAGE = new PageRequest(1, 2);
+
+    private static final List<Integer> PAGE_WITH_LOOKAHEAD = Arrays.asList(1, 2, 3);
+
+    private TotalResultsCounter totalResultsCounter;
+
+    private AtomicInteger counts;
+
+    private Supplier<Long> exactCounter;
+
+    @Before
+    public void setUp() {
+        // counts run in the calling thread, so that they are finished when count() returns
+        totalResultsCounter = new TotalResultsCounter(MoreExecutors.newDirectExecutorService());
+        counts = new AtomicInteger();
+        exactCounter = () -> {
+            counts.incrementAndGet();
+            return 100L;
+        };
+    }
+
+    @Test
+    public void estimateWithoutRecentCountReturnsKnownResults() {
+        assertEquals(5L, totalResultsCounter.count(CountMode.ESTIMATE, SECOND_PAGE, PAGE_WITH_LOOKAHEAD, "query",
+                                                   exactCounter));
+        assertEquals(100L, totalResultsCounter.count(CountMode.ESTIMATE, SECOND_PAGE, PAGE_WITH_LOOKAHEAD, "query",
+                                                     exactCounter));
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    public void estimateOfLastPageIsNotCounted() {
+        assertEquals(4L, totalResultsCounter.count(CountMode.ESTIMATE, SECOND_PAGE, Arrays.asList(1, 2), "query",
+                                                   exactCounter));
+        assertEquals(0, counts.get());
+    }
+
+    @Test
+    public void failedCountIsAttemptedAgain() {
+        Supplier<Long> failingCounter = () -> {
+            counts.incrementAndGet();
+            throw new IllegalStateException("timeout");
+        };
+        assertEquals(5L, totalResultsCounter.count(CountMode.ESTIMATE, SECOND_PAGE, PAGE_WITH_LOOKAHEAD, "query",
+                                                   failingCounter));
+        assertEquals(5L, totalResultsCounter.count(CountMode.ESTIMATE, SECOND_PAGE, PAGE_WITH_LOOKAHEAD, "query",
+                                                   failingCounter));
+        assertEquals(2, counts.get());
+    }
+
+    @Test
+    public void exactCountsAreNotCached() {
+        assertEquals(100L, totalResultsCounter.count(CountMode.EXACT, SECOND_PAGE, Collections.emptyList(), "query",
+                                                     exactCounter));
+        assertEquals(100L, totalResultsCounter.count(CountMode.EXACT, SECOND_PAGE, Collections.emptyList(), "query",
+                                                     exactCounter));
+        assertEquals(2, counts.get());
+    }
+}
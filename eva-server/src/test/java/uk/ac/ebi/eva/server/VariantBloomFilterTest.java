@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VariantBloomFilterTest {
+
+    private static final int KEYS = 10000;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void noFalseNegativesAndBoundedFalsePositives() throws IOException {
+        Path file = temporaryFolder.getRoot().toPath().resolve("test.bloom");
+        try (VariantBloomFilter filter = VariantBloomFilter.create(file, KEYS, FALSE_POSITIVE_RATE)) {
+            for (int i = 0; i < KEYS; i++) {
+                filter.put("1:" + i + ":A:T");
+            }
+            for (int i = 0; i < KEYS; i++) {
+                assertTrue(filter.mightContain("1:" + i + ":A:T"));
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < KEYS; i++) {
+                if (filter.mightContain("2:" + i + ":A:T")) {
+                    falsePositives++;
+                }
+            }
+            assertTrue(falsePositives < KEYS * FALSE_POSITIVE_RATE * 2);
+        }
+    }
+
+    @Test
+    public void reopenCompletedFilter() throws IOException {
+        Path file = temporaryFolder.getRoot().toPath().resolve("test.bloom");
+        try (VariantBloomFilter filter = VariantBloomFilter.create(file, KEYS, FALSE_POSITIVE_RATE)) {
+            filter.put("X:100470026:G:A");
+            assertFalse(filter.isComplete());
+            filter.complete(42);
+        }
+
+        try (VariantBloomFilter filter = VariantBloomFilter.open(file)) {
+            assertTrue(filter.isComplete());
+            assertEquals(42, filter.getSourceVersion());
+            assertEquals(1, filter.getInsertions());
+            assertTrue(filter.mightContain("X:100470026:G:A"));
+            assertFalse(filter.mightContain("X:100470026:G:C"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void openInvalidFile() throws IOException {
+        Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, new byte[128]);
+        VariantBloomFilter.open(file);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.commons.core.models.VariantType;
+import uk.ac.ebi.eva.lib.Profiles;
+import uk.ac.ebi.eva.server.configuration.MongoRepositoryTestConfiguration;
+
+import java.util.Collections;
+
+import static com.lordofthejars.nosqlunit.mongodb.MongoDbRule.MongoDbRuleBuilder.newMongoDbRule;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Import(MongoRepositoryTestConfiguration.class)
+@UsingDataSet(locations = {"/test-data/variants.json"})
+@ActiveProfiles(Profiles.TEST_MONGO_FACTORY)
+public class VariantExistenceCheckerIntegrationTest {
+
+    private static final String TEST_DB = "test-db";
+
+    @Autowired
+    private VariantExistenceChecker existenceChecker;
+
+    @Rule
+    public MongoDbRule mongoDbRule = newMongoDbRule().defaultSpringMongoDb(TEST_DB);
+
+    @Test
+    public void existingVariantIsFound() {
+        assertTrue(existenceChecker.existsByCoordinatesAndAlleles("20", 60100, "A", "T", null));
+        assertTrue(existenceChecker.existsByCoordinatesAndAlleles("20", 62300, "C", "G", null));
+    }
+
+    @Test
+    public void anyAlternateMatchesIfNotGiven() {
+        assertTrue(existenceChecker.existsByCoordinatesAndAlleles("20", 60100, "A", null, null));
+    }
+
+    @Test
+    public void positionWithoutVariantsIsNotFound() {
+        assertFalse(existenceChecker.existsByCoordinatesAndAlleles("20", 60101, "A", "T", null));
+        assertFalse(existenceChecker.existsByCoordinatesAndAlleles("21", 60100, "A", "T", null));
+    }
+
+    @Test
+    public void wrongAlleleIsNotFound() {
+        assertFalse(existenceChecker.existsByCoordinatesAndAlleles("20", 60100, "A", "G", null));
+        assertFalse(existenceChecker.existsByCoordinatesAndAlleles("20", 60100, "C", "T", null));
+        assertFalse(existenceChecker.existsByCoordinatesAndAlternate("20", 60100, "G", null));
+    }
+
+    @Test
+    public void alternateAndType() {
+        assertTrue(existenceChecker.existsByCoordinatesAndAlternate("20", 60100, "T", null));
+        assertTrue(existenceChecker.existsByCoordinatesAndType("20", 60100, VariantType.SNV, null));
+        assertFalse(existenceChecker.existsByCoordinatesAndType("20", 60100, VariantType.INDEL, null));
+    }
+
+    @Test
+    public void variantId() {
+        assertTrue(existenceChecker.existsById("rs199692280", null));
+        assertFalse(existenceChecker.existsById("rs0", null));
+    }
+
+    @Test
+    public void onlyVariantsOfTheGivenStudiesAreFound() {
+        assertTrue(existenceChecker.existsByCoordinatesAndAlleles("20", 60100, "A", "T",
+                                                                  Collections.singletonList("PRJEB5829")));
+        assertFalse(existenceChecker.existsByCoordinatesAndAlleles("20", 62300, "C", "G",
+                                                                   Collections.singletonList("PRJEB5829")));
+        assertTrue(existenceChecker.existsById("rs370478", Collections.singletonList("PRJX00001")));
+        assertFalse(existenceChecker.existsById("rs370478", Collections.singletonList("PRJEB5829")));
+    }
+}
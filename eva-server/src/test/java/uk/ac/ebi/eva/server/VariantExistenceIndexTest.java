@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import com.github.fakemongo.Fongo;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.SimpleMongoDbFactory;
+
+import uk.ac.ebi.eva.lib.configuration.DbCollectionsProperties;
+import uk.ac.ebi.eva.server.configuration.ExistenceIndexProperties;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VariantExistenceIndexTest {
+
+    private static final String DATABASE = "eva_hsapiens_grch37";
+
+    private static final String FILES = "files";
+
+    private static final String VARIANTS = "variants";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MongoDbFactory mongoDbFactory;
+
+    private DbCollectionsProperties dbCollectionsProperties;
+
+    private ExistenceIndexProperties properties;
+
+    private VariantExistenceIndex existenceIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        mongoDbFactory = new SimpleMongoDbFactory(new Fongo("existence-index").getMongo(), DATABASE);
+        DB db = mongoDbFactory.getDb(DATABASE);
+        db.getCollection(FILES).insert(new BasicDBObject("_id", "file1").append("sid", "PRJEB1"));
+        db.getCollection(VARIANTS).insert(
+                variant("20_60100_A_T", "20", 60100, "A", "T", "PRJEB1"),
+                variant("20_62300_C_G", "20", 62300, "C", "G", "PRJEB2"));
+
+        dbCollectionsProperties = new DbCollectionsProperties();
+        dbCollectionsProperties.setFiles(FILES);
+        dbCollectionsProperties.setVariants(VARIANTS);
+
+        properties = new ExistenceIndexProperties();
+        properties.setDirectory(temporaryFolder.getRoot().getPath());
+        properties.setFalsePositiveRate(0.000001);
+        properties.setVersionCheckIntervalInSeconds(0);
+
+        existenceIndex = new VariantExistenceIndex(properties, mongoDbFactory, dbCollectionsProperties);
+    }
+
+    @After
+    public void tearDown() {
+        existenceIndex.shutdown();
+    }
+
+    @Test
+    public void everyVariantMightExistUntilTheFilterIsBuilt() {
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 1, "A", "T", null));
+    }
+
+    @Test
+    public void presentVariants() throws Exception {
+        existenceIndex.refresh(DATABASE);
+
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 60100, "A", "T", null));
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 62300, "C", "G", null));
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 60100, null, null, null));
+    }
+
+    @Test
+    public void absentVariants() throws Exception {
+        existenceIndex.refresh(DATABASE);
+
+        assertFalse(existenceIndex.mightContain(DATABASE, "20", 60101, "A", "T", null));
+        assertFalse(existenceIndex.mightContain(DATABASE, "20", 60100, "A", "G", null));
+        assertFalse(existenceIndex.mightContain(DATABASE, "21", 60100, "A", "T", null));
+        assertFalse(existenceIndex.mightContain(DATABASE, "20", 60101, null, null, null));
+    }
+
+    @Test
+    public void staleFilterIsNotTrustedUntilRebuilt() throws Exception {
+        existenceIndex.refresh(DATABASE);
+        assertFalse(existenceIndex.mightContain(DATABASE, "20", 70000, "G", "A", null));
+
+        DB db = mongoDbFactory.getDb(DATABASE);
+        db.getCollection(FILES).insert(new BasicDBObject("_id", "file2").append("sid", "PRJEB3"));
+        db.getCollection(VARIANTS).insert(variant("20_70000_G_A", "20", 70000, "G", "A", "PRJEB3"));
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 70000, "G", "A", null));
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 80000, "G", "A", null));
+
+        existenceIndex.refresh(DATABASE);
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 70000, "G", "A", null));
+        assertFalse(existenceIndex.mightContain(DATABASE, "20", 80000, "G", "A", null));
+    }
+
+    @Test
+    public void storedFilterIsReused() throws Exception {
+        existenceIndex.refresh(DATABASE);
+        File storedFilter = new File(temporaryFolder.getRoot(), DATABASE + ".bloom");
+        long lastModified = storedFilter.lastModified();
+        existenceIndex.shutdown();
+
+        existenceIndex = new VariantExistenceIndex(properties, mongoDbFactory, dbCollectionsProperties);
+        existenceIndex.refresh(DATABASE);
+
+        assertEquals(lastModified, storedFilter.lastModified());
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 60100, "A", "T", null));
+        assertFalse(existenceIndex.mightContain(DATABASE, "20", 60101, "A", "T", null));
+    }
+
+    @Test
+    public void studiesAreIndexedIfPerStudy() throws Exception {
+        properties.setPerStudy(true);
+        existenceIndex.refresh(DATABASE);
+
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 60100, "A", "T",
+                                               Collections.singletonList("PRJEB1")));
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 60100, "A", "T", Arrays.asList("PRJEB2", "PRJEB1")));
+        assertFalse(existenceIndex.mightContain(DATABASE, "20", 60100, "A", "T",
+                                                Collections.singletonList("PRJEB2")));
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 60100, "A", "T", null));
+    }
+
+    @Test
+    public void studiesAreIgnoredIfNotPerStudy() throws Exception {
+        existenceIndex.refresh(DATABASE);
+
+        assertTrue(existenceIndex.mightContain(DATABASE, "20", 60100, "A", "T",
+                                               Collections.singletonList("PRJEB2")));
+    }
+
+    private static BasicDBObject variant(String id, String chromosome, long start, String reference,
+                                         String alternate, String study) {
+        return new BasicDBObject("_id", id).append("chr", chromosome)
+                                           .append("start", start)
+                                           .append("ref", reference)
+                                           .append("alt", alternate)
+                                           .append("files", Collections.singletonList(
+                                                   new BasicDBObject("sid", study).append("fid", "file1")));
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server;
+
+import org.junit.Test;
+
+import uk.ac.ebi.eva.commons.core.models.Aggregation;
+import uk.ac.ebi.eva.commons.core.models.StudyType;
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
+import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantSetMetadata;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class VariantSetMetadataCacheTest {
+
+    private final VariantSetMetadataCache cache = new VariantSetMetadataCache();
+
+    @Test
+    public void reuseWhileHeaderIsUnchanged() {
+        List<GAVariantSetMetadata> metadata = cache.getMetadata("eva_hsapiens_grch37",
+                                                                createVariantSource("##source=first"));
+
+        assertSame(metadata, cache.getMetadata("eva_hsapiens_grch37", createVariantSource("##source=first")));
+        assertNotSame(metadata, cache.getMetadata("eva_hsapiens_grch38", createVariantSource("##source=first")));
+    }
+
+    @Test
+    public void parseAgainWhenHeaderChanges() {
+        cache.getMetadata("eva_hsapiens_grch37", createVariantSource("##source=first"));
+
+        List<GAVariantSetMetadata> metadata = cache.getMetadata("eva_hsapiens_grch37",
+                                                                createVariantSource("##source=second"));
+
+        assertEquals(1, metadata.size());
+        assertEquals("second", metadata.get(0).getValue());
+    }
+
+    private static VariantSource createVariantSource(String header) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("header", header);
+        return new VariantSource("fileId", "fileName", "studyId", "studyName", StudyType.CASE, Aggregation.NONE, null,
+                                 Collections.emptyMap(), metadata, null);
+    }
+}
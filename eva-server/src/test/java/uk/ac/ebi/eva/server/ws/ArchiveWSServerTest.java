@@ -35,6 +35,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.eva.commons.core.models.StudyType;
 import uk.ac.ebi.eva.commons.mongodb.entities.projections.VariantStudySummary;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantStudySummaryService;
+import uk.ac.ebi.eva.lib.metadata.StudyCounts;
 import uk.ac.ebi.eva.lib.metadata.dgva.ArchiveDgvaDBAdaptor;
 import uk.ac.ebi.eva.lib.metadata.eva.ArchiveEvaproDBAdaptor;
 import uk.ac.ebi.eva.lib.metadata.dgva.StudyDgvaDBAdaptor;
@@ -135,6 +136,9 @@ public class ArchiveWSServerTest {
                                                                                       Collectors.counting()));
         given(archiveEvaproDBAdaptor.countStudiesPerType(anyObject()))
                 .willReturn(encapsulateInQueryResult(studiesGroupedByStudyType.entrySet().toArray()));
+        given(archiveEvaproDBAdaptor.countStudiesPerSpeciesAndType(anyObject()))
+                .willReturn(new StudyCounts(new ArrayList<>(studiesGroupedBySpeciesName.entrySet()),
+                                            new ArrayList<>(studiesGroupedByStudyType.entrySet()), 0));
 
 
         VariantStudy svStudy1 = new VariantStudy("Human SV Test study 1", "svS1", null, "SV study 1 description",
@@ -166,6 +170,9 @@ public class ArchiveWSServerTest {
                                                                                              Collectors.counting()));
         given(archiveDgvaDBAdaptor.countStudiesPerType(anyObject()))
                 .willReturn(encapsulateInQueryResult(svStudiesGroupedByStudyType.entrySet().toArray()));
+        given(archiveDgvaDBAdaptor.countStudiesPerSpeciesAndType(anyObject()))
+                .willReturn(new StudyCounts(new ArrayList<>(svStudiesGroupedBySpeciesName.entrySet()),
+                                            new ArrayList<>(svStudiesGroupedByStudyType.entrySet()), 0));
 
         List<VariantStudySummary> studies = buildVariantStudySummaries();
         given(service.findAll()).willReturn(studies);
@@ -26,6 +26,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -35,10 +36,13 @@ import uk.ac.ebi.eva.commons.core.models.StudyType;
 import uk.ac.ebi.eva.commons.core.models.VariantSource;
 import uk.ac.ebi.eva.commons.core.models.stats.VariantGlobalStats;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
+import uk.ac.ebi.eva.lib.metadata.eva.VariantSourceEvaProDBAdaptor;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -57,12 +61,21 @@ public class FilesWSServerTest {
 
     private static final int VARIANTS_COUNT = 10;
 
+    private static final String FOUND_FILE_NAME = "file1.vcf.gz";
+
+    private static final String FOUND_FILE_URL = "ftp://parentdir/dir1/file1.vcf.gz";
+
+    private static final String MISSING_FILE_NAME = "missing.vcf.gz";
+
     @Autowired
     private TestRestTemplate restTemplate;
 
     @MockBean
     private VariantSourceService service;
 
+    @MockBean
+    private VariantSourceEvaProDBAdaptor variantSourceEvaProDBAdaptor;
+
     @Before
     public void setup() throws Exception {
         Map<String, Object> metadata = new TreeMap<>();
@@ -75,6 +88,14 @@ public class FilesWSServerTest {
         List<VariantSource> variantSourceEntities = Collections.singletonList(variantSourceEntity);
 
         given(service.findAll()).willReturn(variantSourceEntities);
+
+        QueryResult<URL> foundFile = new QueryResult<>(FOUND_FILE_NAME, 5, 1, 1, null, null,
+                                                       Collections.singletonList(new URL(FOUND_FILE_URL)));
+        QueryResult<URL> missingFile = new QueryResult<>(MISSING_FILE_NAME, 5, 0, 0, "File not found", null,
+                                                         Collections.emptyList());
+        given(variantSourceEvaProDBAdaptor.getSourceDownloadUrlByName(
+                Arrays.asList(MISSING_FILE_NAME, FOUND_FILE_NAME)))
+                .willReturn(Arrays.asList(missingFile, foundFile));
     }
 
     @Test
@@ -104,4 +125,37 @@ public class FilesWSServerTest {
         }
     }
 
+    @Test
+    public void testGetFileUrlsInBulk() throws Exception {
+        ResponseEntity<QueryResponse<QueryResult<URL>>> response = postFileUrls(
+                Arrays.asList(MISSING_FILE_NAME, FOUND_FILE_NAME));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        List<QueryResult<URL>> results = response.getBody().getResponse();
+        assertEquals(2, results.size());
+        assertEquals(MISSING_FILE_NAME, results.get(0).getId());
+        assertEquals(0, results.get(0).getNumResults());
+        assertEquals(FOUND_FILE_NAME, results.get(1).getId());
+        assertEquals(new URL(FOUND_FILE_URL), results.get(1).first());
+    }
+
+    @Test
+    public void testGetFileUrlsInBulkWithoutFiles() throws Exception {
+        ResponseEntity<QueryResponse<QueryResult<URL>>> response = postFileUrls(Collections.emptyList());
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void testGetFileUrlsInBulkWithTooManyFiles() throws Exception {
+        List<String> filenames = Collections.nCopies(FilesWSServer.FILE_URLS_MAX_SIZE + 1, FOUND_FILE_NAME);
+        ResponseEntity<QueryResponse<QueryResult<URL>>> response = postFileUrls(filenames);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private ResponseEntity<QueryResponse<QueryResult<URL>>> postFileUrls(List<String> filenames) {
+        return restTemplate.exchange("/v1/files/url", HttpMethod.POST, new HttpEntity<>(filenames),
+                                     new ParameterizedTypeReference<QueryResponse<QueryResult<URL>>>() {
+                                     });
+    }
+
 }
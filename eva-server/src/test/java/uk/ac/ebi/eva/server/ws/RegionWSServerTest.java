@@ -98,6 +98,14 @@ public class RegionWSServerTest {
         testGetVariantsByRegionHelper("21:8000-9000", 0);
     }
 
+    @Test
+    public void testGetVariantsByRegionWithInvalidCountMode() {
+        String url = "/v1/segments/20:60000-62000/variants?species=mmusculus_grcm38&countMode=sometimes";
+        ResponseEntity<QueryResponse> response = restTemplate.getForEntity(url, QueryResponse.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Please specify a count mode among exact, estimate and none", response.getBody().getError());
+    }
+
     private void testGetVariantsByRegionHelper(String testRegion, int expectedVariants) throws URISyntaxException {
         List<VariantWithSamplesAndAnnotation> results = regionWsHelper(testRegion);
         assertEquals(expectedVariants, results.size());
@@ -45,16 +45,21 @@ import java.net.URISyntaxException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.AdditionalMatchers.not;
 import static org.mockito.AdditionalMatchers.or;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -153,4 +158,75 @@ public class RegionWSServerV2Test {
     public void testGetVariantsByNonExistingRegions() throws URISyntaxException {
         testGetVariantsByRegionHelper("21:8000-9000,21:8000-9000", 0, HttpStatus.NO_CONTENT);
     }
+
+    @Test
+    public void testGetVariantsWithoutCount() throws URISyntaxException {
+        String url = "/v2/regions/20:60000-61000,20:61500-62500/variants?species=mmusculus&assembly=grcm38" +
+                "&pageSize=1&countMode=none";
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        String body = response.getBody();
+        List<Object> variants = JsonPath.read(body, "$['_embedded']['variantList']");
+        assertEquals(1, variants.size());
+        assertEquals(2, (int) JsonPath.read(body, "$['page']['totalElements']"));
+        assertNotNull(JsonPath.read(body, "$['_links']['next']['href']"));
+        assertTrue(JsonPath.<String>read(body, "$['_links']['next']['href']").contains("countMode=none"));
+        assertTrue(JsonPath.<String>read(body, "$['_links']['next']['href']").contains("pageToken="));
+        assertTrue(JsonPath.<String>read(body, "$['_links']['next']['href']").contains("pageNumber=1"));
+        assertFalse(JsonPath.<Map<String, Object>>read(body, "$['_links']").containsKey("last"));
+        verify(service, never()).countByRegionsAndComplexFilters(any(), any());
+    }
+
+    @Test
+    public void testGetVariantsWithoutCountInLastPage() throws URISyntaxException {
+        String url = "/v2/regions/20:60000-62000/variants?species=mmusculus&assembly=grcm38&countMode=none";
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        String body = response.getBody();
+        assertEquals(1, (int) JsonPath.read(body, "$['page']['totalElements']"));
+        assertFalse(body.contains("\"next\""));
+        verify(service, never()).countByRegionsAndComplexFilters(any(), any());
+    }
+
+    @Test
+    public void testGetVariantsWithInvalidCountMode() throws URISyntaxException {
+        String url = "/v2/regions/20:60000-62000/variants?species=mmusculus&assembly=grcm38&countMode=sometimes";
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Please specify a count mode among exact, estimate and none", response.getBody());
+    }
+
+    @Test
+    public void testExportVariantsAsNdjson() throws URISyntaxException {
+        String url = "/v2/regions/20:60000-61000,20:61500-62500/variants/export?species=mmusculus&assembly=grcm38";
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        String[] lines = response.getBody().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(MAIN_ID, JsonPath.read(lines[0], "$['mainId']"));
+        verify(service, never()).countByRegionsAndComplexFilters(any(), any());
+    }
+
+    @Test
+    public void testExportVariantsAsTsv() throws URISyntaxException {
+        String url = "/v2/regions/20:60000-62000/variants/export?species=mmusculus&assembly=grcm38&format=tsv";
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        String[] lines = response.getBody().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("#CHROM\tPOS\tID\tREF\tALT", lines[0]);
+        assertTrue(lines[1].startsWith("chr1\t1000\t"));
+        assertTrue(lines[1].endsWith("\treference\talternate"));
+    }
+
+    @Test
+    public void testExportVariantsWithInvalidFormat() throws URISyntaxException {
+        String url = "/v2/regions/20:60000-62000/variants/export?species=mmusculus&assembly=grcm38&format=bam";
+        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
 }
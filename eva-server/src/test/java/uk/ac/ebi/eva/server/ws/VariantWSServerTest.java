@@ -35,6 +35,7 @@ import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
+import uk.ac.ebi.eva.server.VariantExistenceChecker;
 
 import java.net.URISyntaxException;
 import java.util.Arrays;
@@ -47,6 +48,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 
 /**
@@ -76,6 +78,9 @@ public class VariantWSServerTest {
     @MockBean
     private VariantWithSamplesAndAnnotationsService variantEntityRepository;
 
+    @MockBean
+    private VariantExistenceChecker existenceChecker;
+
     @Before
     public void setUp() throws Exception {
         List<VariantWithSamplesAndAnnotation> variantEntities = Collections.singletonList(VARIANT);
@@ -87,6 +92,10 @@ public class VariantWSServerTest {
         given(variantEntityRepository.findByIdsAndComplexFilters(eq(Arrays.asList(VARIANT_ID)), any(), any(), any(), any()))
                 .willReturn(variantEntities);
 
+        given(existenceChecker.existsByCoordinatesAndAlleles(eq(CHROMOSOME), anyLong(), any(), any(), any()))
+                .willReturn(true);
+        given(existenceChecker.existsById(eq(VARIANT_ID), any())).willReturn(true);
+
     }
 
     @Test
@@ -34,6 +34,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -47,8 +48,10 @@ import uk.ac.ebi.eva.lib.utils.QueryResponse;
 import uk.ac.ebi.eva.lib.utils.QueryResult;
 
 import java.net.URISyntaxException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertNull;
@@ -88,6 +91,8 @@ public class VariantWSServerV2Test {
 
         given(service.findByChromosomeAndStartAndReferenceAndAlternate(eq(CHROMOSOME), anyInt(), any(), any(), any()))
                 .willReturn(variantEntities);
+        given(service.findByRegionsAndComplexFilters(any(), any(), any(), any(), any()))
+                .willReturn(variantEntities);
     }
 
     @Test
@@ -177,4 +182,54 @@ public class VariantWSServerV2Test {
         assertEquals("Please specify either both annotation VEP version and annotation VEP cache version, " +
                 "or neither", testForErrorHelper(url));
     }
+
+    @Test
+    public void batchLookupReturnsFoundAndNotFoundPerKey() throws URISyntaxException {
+        String url = "/v2/variants?species=mmusculus&assembly=grcm38";
+        ResponseEntity<String> response = restTemplate.postForEntity(url,
+                new HttpEntity<>(Arrays.asList("1:1000:A:T", "1:2000:C:G")), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        List<Map<String, Object>> results = JsonPath.parse(response.getBody())
+                .read("$['_embedded']['variantLookupResultList']");
+        assertEquals(2, results.size());
+        assertEquals("1:1000:A:T", results.get(0).get("variantCoreString"));
+        assertEquals(true, results.get(0).get("found"));
+        assertNotNull(results.get(0).get("variant"));
+        assertNull(results.get(0).get("annotation"));
+        assertNull(results.get(0).get("sources"));
+        assertEquals("1:2000:C:G", results.get(1).get("variantCoreString"));
+        assertEquals(false, results.get(1).get("found"));
+        assertNull(results.get(1).get("variant"));
+    }
+
+    @Test
+    public void batchLookupIncludesRequestedSections() throws URISyntaxException {
+        String url = "/v2/variants?species=mmusculus&assembly=grcm38&include=annotation,sources";
+        ResponseEntity<String> response = restTemplate.postForEntity(url,
+                new HttpEntity<>(Collections.singletonList("1:1000:A:T")), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        List<Map<String, Object>> results = JsonPath.parse(response.getBody())
+                .read("$['_embedded']['variantLookupResultList']");
+        assertEquals(1, results.size());
+        assertNull(results.get(0).get("variant"));
+        assertNotNull(results.get(0).get("annotation"));
+        assertNotNull(results.get(0).get("sources"));
+    }
+
+    @Test
+    public void batchLookupTestForError() throws URISyntaxException {
+        String url = "/v2/variants?species=mmusculus&assembly=grcm38";
+        ResponseEntity<String> response = restTemplate.postForEntity(url,
+                new HttpEntity<>(Arrays.asList("1:1000:A:T", "1:A:T")), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid variant '1:A:T': Please describe a variant as 'sequence:location:reference:alternate'",
+                response.getBody());
+
+        response = restTemplate.postForEntity(url + "&include=core,unknown",
+                new HttpEntity<>(Collections.singletonList("1:1000:A:T")), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Please specify sections among core, annotation, sources", response.getBody());
+    }
 }
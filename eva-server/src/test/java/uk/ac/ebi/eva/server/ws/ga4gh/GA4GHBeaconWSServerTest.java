@@ -28,11 +28,9 @@ import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
-import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
-import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
+import uk.ac.ebi.eva.server.VariantExistenceChecker;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -40,7 +38,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 
 @RunWith(SpringRunner.class)
@@ -51,16 +49,11 @@ public class GA4GHBeaconWSServerTest {
     private TestRestTemplate restTemplate;
 
     @MockBean
-    private VariantWithSamplesAndAnnotationsService service;
+    private VariantExistenceChecker existenceChecker;
 
     @Before
     public void setUp() throws Exception {
-        VariantWithSamplesAndAnnotation variant = new VariantWithSamplesAndAnnotation("1", 1000, 1005, "reference",
-                                                                                      "alternate", "rs1");
-        List<VariantWithSamplesAndAnnotation> variantEntities = Collections.singletonList(variant);
-
-        given(service.findByChromosomeAndStartAndAltAndStudyIn(eq("1"), anyInt(), any(), any(), any()))
-                .willReturn(variantEntities);
+        given(existenceChecker.existsByCoordinatesAndAlternate(eq("1"), anyLong(), any(), any())).willReturn(true);
     }
 
     @Test
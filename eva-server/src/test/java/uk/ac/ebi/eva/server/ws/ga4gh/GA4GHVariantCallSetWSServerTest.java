@@ -32,14 +32,19 @@ import uk.ac.ebi.eva.commons.core.models.Aggregation;
 import uk.ac.ebi.eva.commons.core.models.StudyType;
 import uk.ac.ebi.eva.commons.core.models.VariantSource;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
+import uk.ac.ebi.eva.lib.models.ga4gh.GACallSet;
 import uk.ac.ebi.eva.lib.models.ga4gh.GASearchCallSetsResponse;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -68,8 +73,15 @@ public class GA4GHVariantCallSetWSServerTest {
         given(service.findByFileIdIn(eq(Collections.singletonList("fileId")), any()))
                 .willReturn(variantSourceEntities);
 
-        given(service.countByFileIdIn(eq(Collections.singletonList("fileId"))))
-                .willReturn(Long.valueOf(variantSourceEntities.size()));
+        Map<String, Integer> secondSamplesPosition = new HashMap<>();
+        secondSamplesPosition.put("sample4", 2);
+        secondSamplesPosition.put("sample2", 0);
+        secondSamplesPosition.put("sample3", 1);
+        VariantSource secondVariantSourceEntity = new VariantSource("fileId2", "fileName2", "studyId",
+                "studyName", StudyType.CASE, Aggregation.NONE, null, secondSamplesPosition, null, null);
+
+        given(service.findByFileIdIn(eq(Collections.singletonList("fileId2")), any()))
+                .willReturn(Collections.singletonList(secondVariantSourceEntity));
     }
 
     @Test
@@ -84,8 +96,34 @@ public class GA4GHVariantCallSetWSServerTest {
         assertEquals(0, response.getCallSets().size());
     }
 
+    @Test
+    public void testGetCallSetsPaginatedAcrossFiles() {
+        List<String> variantSetIds = Arrays.asList("fileId", "fileId2");
+
+        GASearchCallSetsResponse firstPage = testGetCallSetsHelper(variantSetIds, "&pageSize=2");
+        assertEquals(Arrays.asList("sample1", "sample2"), getCallSetNames(firstPage));
+        assertNotNull(firstPage.getNextPageToken());
+
+        GASearchCallSetsResponse secondPage = testGetCallSetsHelper(
+                variantSetIds, "&pageSize=2&pageToken=" + firstPage.getNextPageToken());
+        assertEquals(Arrays.asList("sample3", "sample4"), getCallSetNames(secondPage));
+        assertNull(secondPage.getNextPageToken());
+
+        GASearchCallSetsResponse secondPageByNumber = testGetCallSetsHelper(variantSetIds, "&pageSize=2&pageToken=1");
+        assertEquals(Arrays.asList("sample3", "sample4"), getCallSetNames(secondPageByNumber));
+    }
+
+    private static List<String> getCallSetNames(GASearchCallSetsResponse response) {
+        return response.getCallSets().stream().map(GACallSet::getName).collect(Collectors.toList());
+    }
+
     private GASearchCallSetsResponse testGetCallSetsHelper(List<String> variantSetIds) {
-        String url = String.format("/v1/ga4gh/callsets/search?variantSetIds=%s", String.join(",", variantSetIds));
+        return testGetCallSetsHelper(variantSetIds, "");
+    }
+
+    private GASearchCallSetsResponse testGetCallSetsHelper(List<String> variantSetIds, String extraParameters) {
+        String url = String.format("/v1/ga4gh/callsets/search?variantSetIds=%s%s", String.join(",", variantSetIds),
+                                   extraParameters);
 
         ResponseEntity<GASearchCallSetsResponse> response = restTemplate.getForEntity(
                 url, GASearchCallSetsResponse.class);
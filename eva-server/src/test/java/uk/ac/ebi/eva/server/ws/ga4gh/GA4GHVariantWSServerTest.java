@@ -18,6 +18,12 @@
  */
 package uk.ac.ebi.eva.server.ws.ga4gh;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroMapper;
+import com.fasterxml.jackson.dataformat.avro.AvroSchema;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.apache.avro.Schema;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -25,7 +31,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -35,7 +45,9 @@ import uk.ac.ebi.eva.commons.core.models.ws.VariantWithSamplesAndAnnotation;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 import uk.ac.ebi.eva.lib.models.ga4gh.GASearchVariantsResponse;
 import uk.ac.ebi.eva.lib.models.ga4gh.GAVariantFactory;
+import uk.ac.ebi.eva.server.configuration.JacksonConfiguration;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -94,6 +106,51 @@ public class GA4GHVariantWSServerTest {
         assertEquals(0, gaSearchVariantsResponse.getVariants().size());
     }
 
+    @Test
+    public void testRegionWithVariantsAsSmile() throws Exception {
+        ResponseEntity<byte[]> response = getVariants(JacksonConfiguration.APPLICATION_SMILE_VALUE);
+        assertEquals(MediaType.valueOf(JacksonConfiguration.APPLICATION_SMILE_VALUE),
+                     response.getHeaders().getContentType());
+
+        ObjectMapper smileMapper = JacksonConfiguration.configure(new ObjectMapper(new SmileFactory()));
+        GASearchVariantsResponse gaSearchVariantsResponse = smileMapper.readValue(response.getBody(),
+                                                                                  GASearchVariantsResponse.class);
+        assertEquals(GAVariantFactory.create(Collections.singletonList(variant)),
+                gaSearchVariantsResponse.getVariants());
+    }
+
+    @Test
+    public void testRegionWithVariantsAsAvro() throws Exception {
+        ResponseEntity<byte[]> response = getVariants(JacksonConfiguration.AVRO_BINARY_VALUE);
+        assertEquals(MediaType.valueOf(JacksonConfiguration.AVRO_BINARY_VALUE), response.getHeaders().getContentType());
+
+        AvroSchema schema;
+        try (InputStream schemaStream = getClass().getResourceAsStream("/avro/ga4gh/GASearchVariantsResponse.avsc")) {
+            schema = new AvroSchema(new Schema.Parser().parse(schemaStream));
+        }
+        JsonNode gaSearchVariantsResponse = new AvroMapper().readerFor(JsonNode.class).with(schema)
+                                                            .readValue(response.getBody());
+
+        assertEquals(1, gaSearchVariantsResponse.get("variants").size());
+        JsonNode gaVariant = gaSearchVariantsResponse.get("variants").get(0);
+        assertEquals("1", gaVariant.get("referenceName").asText());
+        assertEquals(1000, gaVariant.get("start").asLong());
+        assertEquals(1005, gaVariant.get("end").asLong());
+        assertEquals("A", gaVariant.get("referenceBases").asText());
+        assertEquals("C", gaVariant.get("alternateBases").get(0).asText());
+    }
+
+    private ResponseEntity<byte[]> getVariants(String mediaType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.valueOf(mediaType)));
+        ResponseEntity<byte[]> response = restTemplate.exchange(
+                "/v1/ga4gh/variants/search?referenceName=1&start=500&end=2000&pageToken=0&pageSize=10",
+                HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response;
+    }
+
     private GASearchVariantsResponse testVariantWsHelper(String chromosome, long start, long end,
                                                          List<String> variantSetIds, String pageToken, int pageSize) {
 
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.ebi.eva.server.ws.ga4gh.beaconv2;
+
+import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
+import com.lordofthejars.nosqlunit.mongodb.MongoDbRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.commons.core.models.Region;
+import uk.ac.ebi.eva.commons.core.models.VariantType;
+import uk.ac.ebi.eva.lib.Profiles;
+import uk.ac.ebi.eva.server.configuration.MongoRepositoryTestConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.lordofthejars.nosqlunit.mongodb.MongoDbRule.MongoDbRuleBuilder.newMongoDbRule;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Import(MongoRepositoryTestConfiguration.class)
+@UsingDataSet(locations = {"/test-data/variants.json"})
+@ActiveProfiles(Profiles.TEST_MONGO_FACTORY)
+public class BeaconDatasetAggregatorIntegrationTest {
+
+    private static final String TEST_DB = "test-db";
+
+    private static final Region POSITION = new Region("20", 60100L, 60100L);
+
+    @Autowired
+    private BeaconDatasetAggregator beaconDatasetAggregator;
+
+    @Rule
+    public MongoDbRule mongoDbRule = newMongoDbRule().defaultSpringMongoDb(TEST_DB);
+
+    @Test
+    public void datasetsOfMatchingVariantWithFrequencyOfVariantAllele() {
+        assertEquals(getExpectedFrequencies(),
+                     beaconDatasetAggregator.findDatasetFrequencies(POSITION, POSITION, "A", "T", null, null));
+    }
+
+    @Test
+    public void allelesAreMatchedRegardlessOfCase() {
+        assertEquals(getExpectedFrequencies(),
+                     beaconDatasetAggregator.findDatasetFrequencies(POSITION, POSITION, "a", "t", null, null));
+    }
+
+    @Test
+    public void variantTypeInsteadOfAlternate() {
+        assertEquals(getExpectedFrequencies(),
+                     beaconDatasetAggregator.findDatasetFrequencies(POSITION, POSITION, "A", null, VariantType.SNV,
+                                                                    null));
+    }
+
+    @Test
+    public void wrongAlleleMatchesNoDataset() {
+        assertTrue(beaconDatasetAggregator.findDatasetFrequencies(POSITION, POSITION, "A", "G", null, null)
+                                          .isEmpty());
+    }
+
+    @Test
+    public void positionWithoutVariantsMatchesNoDataset() {
+        Region otherPosition = new Region("20", 60101L, 60101L);
+        assertTrue(beaconDatasetAggregator.findDatasetFrequencies(otherPosition, otherPosition, "A", "T", null, null)
+                                          .isEmpty());
+    }
+
+    /**
+     * Both files of 20_60100_A_T, only one of which has statistics for the alternate allele
+     */
+    private static Map<String, Float> getExpectedFrequencies() {
+        Map<String, Float> frequencies = new HashMap<>();
+        frequencies.put("PRJEB5829_ERZ019958", 0.19739478826522827F);
+        frequencies.put("PRJX00001_ERZX00072", null);
+        return frequencies;
+    }
+}
@@ -35,20 +35,28 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.util.UriComponentsBuilder;
 import uk.ac.ebi.eva.commons.beacon.models.BeaconAlleleRequest;
 import uk.ac.ebi.eva.commons.beacon.models.BeaconAlleleResponse;
+import uk.ac.ebi.eva.commons.beacon.models.BeaconDatasetAlleleResponse;
 import uk.ac.ebi.eva.commons.beacon.models.Chromosome;
+import uk.ac.ebi.eva.commons.core.models.Aggregation;
 import uk.ac.ebi.eva.commons.core.models.Region;
+import uk.ac.ebi.eva.commons.core.models.StudyType;
+import uk.ac.ebi.eva.commons.core.models.VariantSource;
 import uk.ac.ebi.eva.commons.core.models.VariantType;
 import uk.ac.ebi.eva.commons.mongodb.entities.VariantMongo;
 import uk.ac.ebi.eva.commons.mongodb.filter.FilterBuilder;
 import uk.ac.ebi.eva.commons.mongodb.filter.VariantRepositoryFilter;
+import uk.ac.ebi.eva.commons.mongodb.services.VariantSourceService;
 import uk.ac.ebi.eva.commons.mongodb.services.VariantWithSamplesAndAnnotationsService;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.eq;
@@ -63,6 +71,12 @@ public class GA4GHBeaconWSServerV2Test {
     @MockBean
     private VariantWithSamplesAndAnnotationsService service;
 
+    @MockBean
+    private VariantSourceService variantSourceService;
+
+    @MockBean
+    private BeaconDatasetAggregator beaconDatasetAggregator;
+
     @Before
     public void setup() throws Exception {
         VariantMongo variantMongo = new VariantMongo(null, "X", 100470026, 100470026, 1, "G", "A");
@@ -84,6 +98,18 @@ public class GA4GHBeaconWSServerV2Test {
                 eq(pageable))).willReturn(variantMongoList);
         given(service.countByRegionAndOtherBeaconFilters(eq(startRange), eq(endRange), eq(variantRepositoryFilters)))
                 .willReturn(1L);
+
+        List<VariantSource> variantSources = Arrays.asList(
+                new VariantSource("ERZ1", "file1", "PRJEB7218", "study1", StudyType.CASE, Aggregation.NONE, null,
+                                  new HashMap<>(), new HashMap<>(), null),
+                new VariantSource("ERZ2", "file2", "PRJEB7219", "study2", StudyType.CASE, Aggregation.NONE, null,
+                                  new HashMap<>(), new HashMap<>(), null));
+        given(variantSourceService.findAllVariantSourcesForBeacon()).willReturn(variantSources);
+
+        Map<String, Float> datasetFrequencies = new HashMap<>();
+        datasetFrequencies.put("PRJEB7218_ERZ1", 0.25F);
+        given(beaconDatasetAggregator.findDatasetFrequencies(eq(startRange), eq(endRange), eq("G"), eq("A"),
+                eq(null), eq(null))).willReturn(datasetFrequencies);
     }
 
     @Test
@@ -201,4 +227,45 @@ public class GA4GHBeaconWSServerV2Test {
                 .build().toString();
         assertFalse(testBeaconHelper(url).getBody().get(0).isExists());
     }
+
+    @Test
+    public void testDatasetResponses() {
+        String url = UriComponentsBuilder.fromUriString("")
+                .path("/v2/beacon/query")
+                .queryParam("referenceName", Chromosome.X)
+                .queryParam("referenceBases", "G")
+                .queryParam("assemblyId", "GRCh37")
+                .queryParam("alternateBases", "A")
+                .queryParam("start", 100470026L)
+                .queryParam("end", 100470026L)
+                .queryParam("includeDatasetResponses", "ALL")
+                .build().toString();
+        BeaconAlleleResponse response = testBeaconHelper(url).getBody().get(0);
+        assertTrue(response.isExists());
+        assertEquals(2, response.getDatasetAlleleResponses().size());
+        for (BeaconDatasetAlleleResponse datasetResponse : response.getDatasetAlleleResponses()) {
+            if (datasetResponse.getDatasetId().equals("PRJEB7218_ERZ1")) {
+                assertTrue(datasetResponse.isExists());
+                assertEquals(0.25, datasetResponse.getFrequency().doubleValue(), 0.0001);
+            } else {
+                assertEquals("PRJEB7219_ERZ2", datasetResponse.getDatasetId());
+                assertFalse(datasetResponse.isExists());
+                assertNull(datasetResponse.getFrequency());
+            }
+        }
+
+        url = UriComponentsBuilder.fromUriString("")
+                .path("/v2/beacon/query")
+                .queryParam("referenceName", Chromosome.X)
+                .queryParam("referenceBases", "G")
+                .queryParam("assemblyId", "GRCh37")
+                .queryParam("alternateBases", "A")
+                .queryParam("start", 100470026L)
+                .queryParam("end", 100470026L)
+                .queryParam("includeDatasetResponses", "HIT")
+                .build().toString();
+        response = testBeaconHelper(url).getBody().get(0);
+        assertEquals(1, response.getDatasetAlleleResponses().size());
+        assertEquals("PRJEB7218_ERZ1", response.getDatasetAlleleResponses().get(0).getDatasetId());
+    }
 }